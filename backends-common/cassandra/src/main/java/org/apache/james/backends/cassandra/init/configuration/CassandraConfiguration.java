@@ -42,6 +42,8 @@ public class CassandraConfiguration {
     public static final int DEFAULT_ACL_MAX_RETRY = 1000;
     public static final int DEFAULT_FETCH_NEXT_PAGE_ADVANCE_IN_ROW = 100;
     public static final int DEFAULT_BLOB_PART_SIZE = 100 * 1024;
+    public static final int DEFAULT_BLOB_PART_WRITE_PARALLELISM = 4;
+    public static final int DEFAULT_BLOB_PART_READ_PARALLELISM = 4;
     public static final int DEFAULT_ATTACHMENT_V2_MIGRATION_READ_TIMEOUT = toIntExact(TimeUnit.HOURS.toMillis(1));
     public static final int DEFAULT_MESSAGE_ATTACHMENT_ID_MIGRATION_READ_TIMEOUT = toIntExact(TimeUnit.HOURS.toMillis(1));
 
@@ -55,6 +57,8 @@ public class CassandraConfiguration {
     private static final String CHUNK_SIZE_MESSAGE_READ = "chunk.size.message.read";
     private static final String CHUNK_SIZE_EXPUNGE = "chunk.size.expunge";
     private static final String BLOB_PART_SIZE = "mailbox.blob.part.size";
+    private static final String BLOB_PART_WRITE_PARALLELISM = "mailbox.blob.part.write.parallelism";
+    private static final String BLOB_PART_READ_PARALLELISM = "mailbox.blob.part.read.parallelism";
     private static final String ATTACHMENT_V2_MIGRATION_READ_TIMEOUT = "attachment.v2.migration.read.timeout";
     private static final String MESSAGE_ATTACHMENTID_READ_TIMEOUT = "message.attachmentids.read.timeout";
 
@@ -70,6 +74,8 @@ public class CassandraConfiguration {
         private Optional<Integer> aclMaxRetry = Optional.empty();
         private Optional<Integer> fetchNextPageInAdvanceRow = Optional.empty();
         private Optional<Integer> blobPartSize = Optional.empty();
+        private Optional<Integer> blobPartWriteParallelism = Optional.empty();
+        private Optional<Integer> blobPartReadParallelism = Optional.empty();
         private Optional<Integer> attachmentV2MigrationReadTimeout = Optional.empty();
         private Optional<Integer> messageAttachmentIdsReadTimeout = Optional.empty();
 
@@ -127,6 +133,18 @@ public class CassandraConfiguration {
             return this;
         }
 
+        public Builder blobPartWriteParallelism(int value) {
+            Preconditions.checkArgument(value > 0, "blobPartWriteParallelism needs to be strictly positive");
+            this.blobPartWriteParallelism = Optional.of(value);
+            return this;
+        }
+
+        public Builder blobPartReadParallelism(int value) {
+            Preconditions.checkArgument(value > 0, "blobPartReadParallelism needs to be strictly positive");
+            this.blobPartReadParallelism = Optional.of(value);
+            return this;
+        }
+
         public Builder attachmentV2MigrationReadTimeout(int value) {
             Preconditions.checkArgument(value > 0, "attachmentV2MigrationReadTimeout needs to be strictly positive");
             this.attachmentV2MigrationReadTimeout = Optional.of(value);
@@ -184,6 +202,16 @@ public class CassandraConfiguration {
             return this;
         }
 
+        public Builder blobPartWriteParallelism(Optional<Integer> value) {
+            value.ifPresent(this::blobPartWriteParallelism);
+            return this;
+        }
+
+        public Builder blobPartReadParallelism(Optional<Integer> value) {
+            value.ifPresent(this::blobPartReadParallelism);
+            return this;
+        }
+
         public Builder attachmentV2MigrationReadTimeout(Optional<Integer> value) {
             value.ifPresent(this::attachmentV2MigrationReadTimeout);
             return this;
@@ -204,6 +232,8 @@ public class CassandraConfiguration {
                 uidMaxRetry.orElse(DEFAULT_UID_MAX_RETRY),
                 fetchNextPageInAdvanceRow.orElse(DEFAULT_FETCH_NEXT_PAGE_ADVANCE_IN_ROW),
                 blobPartSize.orElse(DEFAULT_BLOB_PART_SIZE),
+                blobPartWriteParallelism.orElse(DEFAULT_BLOB_PART_WRITE_PARALLELISM),
+                blobPartReadParallelism.orElse(DEFAULT_BLOB_PART_READ_PARALLELISM),
                 attachmentV2MigrationReadTimeout.orElse(DEFAULT_ATTACHMENT_V2_MIGRATION_READ_TIMEOUT),
                 messageAttachmentIdsReadTimeout.orElse(DEFAULT_MESSAGE_ATTACHMENT_ID_MIGRATION_READ_TIMEOUT));
         }
@@ -233,6 +263,10 @@ public class CassandraConfiguration {
                 propertiesConfiguration.getInteger(CHUNK_SIZE_EXPUNGE, null)))
             .blobPartSize(Optional.ofNullable(
                 propertiesConfiguration.getInteger(BLOB_PART_SIZE, null)))
+            .blobPartWriteParallelism(Optional.ofNullable(
+                propertiesConfiguration.getInteger(BLOB_PART_WRITE_PARALLELISM, null)))
+            .blobPartReadParallelism(Optional.ofNullable(
+                propertiesConfiguration.getInteger(BLOB_PART_READ_PARALLELISM, null)))
             .attachmentV2MigrationReadTimeout(Optional.ofNullable(
                 propertiesConfiguration.getInteger(ATTACHMENT_V2_MIGRATION_READ_TIMEOUT, null)))
             .messageAttachmentIdsReadTimeout(Optional.ofNullable(
@@ -249,6 +283,8 @@ public class CassandraConfiguration {
     private final int aclMaxRetry;
     private final int fetchNextPageInAdvanceRow;
     private final int blobPartSize;
+    private final int blobPartWriteParallelism;
+    private final int blobPartReadParallelism;
     private final int attachmentV2MigrationReadTimeout;
     private final int messageAttachmentIdsReadTimeout;
 
@@ -256,7 +292,8 @@ public class CassandraConfiguration {
     CassandraConfiguration(int aclMaxRetry, int messageReadChunkSize, int expungeChunkSize,
                            int flagsUpdateMessageIdMaxRetry, int flagsUpdateMessageMaxRetry,
                            int modSeqMaxRetry, int uidMaxRetry, int fetchNextPageInAdvanceRow,
-                           int blobPartSize, final int attachmentV2MigrationReadTimeout, int messageAttachmentIdsReadTimeout) {
+                           int blobPartSize, int blobPartWriteParallelism, int blobPartReadParallelism,
+                           final int attachmentV2MigrationReadTimeout, int messageAttachmentIdsReadTimeout) {
         this.aclMaxRetry = aclMaxRetry;
         this.messageReadChunkSize = messageReadChunkSize;
         this.expungeChunkSize = expungeChunkSize;
@@ -266,6 +303,8 @@ public class CassandraConfiguration {
         this.uidMaxRetry = uidMaxRetry;
         this.fetchNextPageInAdvanceRow = fetchNextPageInAdvanceRow;
         this.blobPartSize = blobPartSize;
+        this.blobPartWriteParallelism = blobPartWriteParallelism;
+        this.blobPartReadParallelism = blobPartReadParallelism;
         this.attachmentV2MigrationReadTimeout = attachmentV2MigrationReadTimeout;
         this.messageAttachmentIdsReadTimeout = messageAttachmentIdsReadTimeout;
     }
@@ -274,6 +313,14 @@ public class CassandraConfiguration {
         return blobPartSize;
     }
 
+    public int getBlobPartWriteParallelism() {
+        return blobPartWriteParallelism;
+    }
+
+    public int getBlobPartReadParallelism() {
+        return blobPartReadParallelism;
+    }
+
     public int getAclMaxRetry() {
         return aclMaxRetry;
     }
@@ -328,6 +375,8 @@ public class CassandraConfiguration {
                 && Objects.equals(this.uidMaxRetry, that.uidMaxRetry)
                 && Objects.equals(this.fetchNextPageInAdvanceRow, that.fetchNextPageInAdvanceRow)
                 && Objects.equals(this.blobPartSize, that.blobPartSize)
+                && Objects.equals(this.blobPartWriteParallelism, that.blobPartWriteParallelism)
+                && Objects.equals(this.blobPartReadParallelism, that.blobPartReadParallelism)
                 && Objects.equals(this.attachmentV2MigrationReadTimeout, that.attachmentV2MigrationReadTimeout)
                 && Objects.equals(this.messageAttachmentIdsReadTimeout, that.messageAttachmentIdsReadTimeout);
         }
@@ -338,7 +387,8 @@ public class CassandraConfiguration {
     public final int hashCode() {
         return Objects.hash(aclMaxRetry, messageReadChunkSize, expungeChunkSize, flagsUpdateMessageIdMaxRetry,
             flagsUpdateMessageMaxRetry, modSeqMaxRetry, uidMaxRetry, fetchNextPageInAdvanceRow,
-            blobPartSize, attachmentV2MigrationReadTimeout, messageAttachmentIdsReadTimeout);
+            blobPartSize, blobPartWriteParallelism, blobPartReadParallelism, attachmentV2MigrationReadTimeout,
+            messageAttachmentIdsReadTimeout);
     }
 
     @Override
@@ -353,6 +403,8 @@ public class CassandraConfiguration {
             .add("fetchNextPageInAdvanceRow", fetchNextPageInAdvanceRow)
             .add("uidMaxRetry", uidMaxRetry)
             .add("blobPartSize", blobPartSize)
+            .add("blobPartWriteParallelism", blobPartWriteParallelism)
+            .add("blobPartReadParallelism", blobPartReadParallelism)
             .add("attachmentV2MigrationReadTimeout", attachmentV2MigrationReadTimeout)
             .add("messageAttachmentIdsReadTimeout", messageAttachmentIdsReadTimeout)
             .toString();
@@ -60,6 +60,8 @@ class CassandraConfigurationReadingTest {
                 .blobPartSize(9)
                 .attachmentV2MigrationReadTimeout(10)
                 .messageAttachmentIdsReadTimeout(11)
+                .blobPartWriteParallelism(12)
+                .blobPartReadParallelism(13)
                 .build());
     }
 
@@ -182,6 +182,34 @@ class CassandraConfigurationTest {
             .isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    void blobPartWriteParallelismShouldThrowOnZero() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .blobPartWriteParallelism(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void blobPartWriteParallelismShouldThrowOnNegativeValue() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .blobPartWriteParallelism(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void blobPartReadParallelismShouldThrowOnZero() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .blobPartReadParallelism(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void blobPartReadParallelismShouldThrowOnNegativeValue() {
+        assertThatThrownBy(() -> CassandraConfiguration.builder()
+                .blobPartReadParallelism(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void builderShouldCreateTheRightObject() {
         int aclMaxRetry = 1;
@@ -195,6 +223,8 @@ class CassandraConfigurationTest {
         int blobPartSize = 10;
         int attachmentV2MigrationReadTimeout = 11;
         int messageAttachmentIdReadTimeout = 12;
+        int blobPartWriteParallelism = 13;
+        int blobPartReadParallelism = 14;
 
         CassandraConfiguration configuration = CassandraConfiguration.builder()
             .aclMaxRetry(aclMaxRetry)
@@ -206,6 +236,8 @@ class CassandraConfigurationTest {
             .messageReadChunkSize(messageReadChunkSize)
             .expungeChunkSize(expungeChunkSize)
             .blobPartSize(blobPartSize)
+            .blobPartWriteParallelism(blobPartWriteParallelism)
+            .blobPartReadParallelism(blobPartReadParallelism)
             .attachmentV2MigrationReadTimeout(attachmentV2MigrationReadTimeout)
             .messageAttachmentIdsReadTimeout(messageAttachmentIdReadTimeout)
             .build();
@@ -220,6 +252,8 @@ class CassandraConfigurationTest {
             softly.assertThat(configuration.getMessageReadChunkSize()).isEqualTo(messageReadChunkSize);
             softly.assertThat(configuration.getExpungeChunkSize()).isEqualTo(expungeChunkSize);
             softly.assertThat(configuration.getBlobPartSize()).isEqualTo(blobPartSize);
+            softly.assertThat(configuration.getBlobPartWriteParallelism()).isEqualTo(blobPartWriteParallelism);
+            softly.assertThat(configuration.getBlobPartReadParallelism()).isEqualTo(blobPartReadParallelism);
             softly.assertThat(configuration.getAttachmentV2MigrationReadTimeout()).isEqualTo(attachmentV2MigrationReadTimeout);
             softly.assertThat(configuration.getMessageAttachmentIdsReadTimeout()).isEqualTo(messageAttachmentIdReadTimeout);
         });
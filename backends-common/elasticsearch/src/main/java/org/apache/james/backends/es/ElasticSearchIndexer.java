@@ -20,6 +20,7 @@ package org.apache.james.backends.es;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
@@ -75,6 +76,27 @@ public class ElasticSearchIndexer {
             RequestOptions.DEFAULT);
     }
 
+    public Optional<BulkResponse> index(Map<DocumentId, String> contents, RoutingKey routingKey) throws IOException {
+        try {
+            Preconditions.checkNotNull(contents);
+            Preconditions.checkNotNull(routingKey);
+            BulkRequest request = new BulkRequest();
+            contents.forEach((id, content) -> {
+                checkArgument(content);
+                logContent(id, content);
+                request.add(new IndexRequest(aliasName.getValue())
+                    .type(NodeMappingFactory.DEFAULT_MAPPING_NAME)
+                    .id(id.asString())
+                    .source(content, XContentType.JSON)
+                    .routing(routingKey.asString()));
+            });
+            return Optional.of(client.bulk(request, RequestOptions.DEFAULT));
+        } catch (ValidationException e) {
+            LOGGER.warn("Error while indexing", e);
+            return Optional.empty();
+        }
+    }
+
     private void logContent(DocumentId id, String content) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Indexing {}: {}", id.asString(), StringUtils.left(content, DEBUG_MAX_LENGTH_CONTENT));
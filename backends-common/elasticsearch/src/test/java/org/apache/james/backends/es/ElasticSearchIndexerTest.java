@@ -26,6 +26,7 @@ import static org.awaitility.Duration.ONE_HUNDRED_MILLISECONDS;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import org.awaitility.Awaitility;
 import org.awaitility.Duration;
@@ -42,6 +43,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 class ElasticSearchIndexerTest {
     public static RoutingKey useDocumentId(DocumentId documentId) {
@@ -100,6 +102,36 @@ class ElasticSearchIndexerTest {
             .isInstanceOf(IllegalArgumentException.class);
     }
     
+    @Test
+    void bulkIndexShouldIndexAllMessages() throws Exception {
+        String content1 = "{\"message\": \"trying out Elasticsearch\"}";
+        String content2 = "{\"message\": \"trying out bulk indexing\"}";
+
+        testee.index(ImmutableMap.of(
+                DocumentId.fromString("1"), content1,
+                DocumentId.fromString("2"), content2),
+            ROUTING);
+        elasticSearch.awaitForElasticSearch();
+
+        SearchResponse searchResponse = client.search(
+            new SearchRequest(INDEX_NAME.getValue())
+                .source(new SearchSourceBuilder().query(QueryBuilders.matchQuery("message", "trying"))),
+            RequestOptions.DEFAULT);
+        assertThat(searchResponse.getHits().getTotalHits()).isEqualTo(2);
+    }
+
+    @Test
+    void bulkIndexShouldThrowWhenJsonIsNull() {
+        assertThatThrownBy(() -> testee.index(Collections.singletonMap(DOCUMENT_ID, null), ROUTING))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void bulkIndexShouldNotThrowWhenEmptyMap() {
+        assertThatCode(() -> testee.index(ImmutableMap.of(), ROUTING))
+            .doesNotThrowAnyException();
+    }
+
     @Test
     void updateMessages() throws Exception {
         String content = "{\"message\": \"trying out Elasticsearch\",\"field\":\"Should be unchanged\"}";
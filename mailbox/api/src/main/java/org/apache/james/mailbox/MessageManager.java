@@ -280,6 +280,18 @@ public interface MessageManager {
      */
     MessageResultIterator getMessages(MessageRange set, FetchGroup fetchGroup, MailboxSession mailboxSession) throws MailboxException;
 
+    /**
+     * Gets the uids of the messages whose {@link ModSeq} is strictly greater than the given one, ordered by uid.
+     *
+     * This allows CONDSTORE and QRESYNC resynchronisations to only look at the changed messages.
+     *
+     * @param modSeq
+     *            modseq the caller is already aware of
+     * @param mailboxSession
+     *            not null
+     */
+    List<MessageUid> getUidsChangedSince(ModSeq modSeq, MailboxSession mailboxSession) throws MailboxException;
+
     /**
      * Return the underlying {@link Mailbox}
      */
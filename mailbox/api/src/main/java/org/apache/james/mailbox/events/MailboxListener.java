@@ -19,6 +19,7 @@
 
 package org.apache.james.mailbox.events;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
@@ -58,6 +59,38 @@ public interface MailboxListener {
         Group getDefaultGroup();
     }
 
+    /**
+     * Opt-in variant of {@link GroupMailboxListener} handling events by batches, allowing to amortize backend calls.
+     *
+     * Event buses supporting it deliver batches of at most {@link #getMaxBatchSize()} events, gathered within
+     * {@link #getBatchWindow()}, all relating to the same mailbox (or to the same user for events not relating to a
+     * mailbox). Other event buses deliver events one at a time. Batches only contain events this listener is handling.
+     */
+    interface BatchingMailboxListener extends GroupMailboxListener {
+        int DEFAULT_MAX_BATCH_SIZE = 50;
+        Duration DEFAULT_BATCH_WINDOW = Duration.ofMillis(50);
+
+        default int getMaxBatchSize() {
+            return DEFAULT_MAX_BATCH_SIZE;
+        }
+
+        default Duration getBatchWindow() {
+            return DEFAULT_BATCH_WINDOW;
+        }
+
+        /**
+         * Informs this listener about the given events, in their dispatch order.
+         *
+         * @param events not empty
+         */
+        void events(List<Event> events) throws Exception;
+
+        @Override
+        default void event(Event event) throws Exception {
+            events(ImmutableList.of(event));
+        }
+    }
+
     enum ExecutionMode {
         SYNCHRONOUS,
         ASYNCHRONOUS
@@ -23,6 +23,7 @@ import javax.inject.Inject;
 import javax.mail.Flags;
 
 import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
 import org.apache.james.mailbox.model.ComposedMessageIdWithMetaData;
 import org.apache.james.mailbox.model.UpdatedFlags;
@@ -39,18 +40,21 @@ public class CassandraIndexTableHandler {
     private final CassandraFirstUnseenDAO firstUnseenDAO;
     private final CassandraApplicableFlagDAO applicableFlagDAO;
     private final CassandraDeletedMessageDAO deletedMessageDAO;
+    private final CassandraModSeqIndexDAO modSeqIndexDAO;
 
     @Inject
     public CassandraIndexTableHandler(CassandraMailboxRecentsDAO mailboxRecentDAO,
                                       CassandraMailboxCounterDAO mailboxCounterDAO,
                                       CassandraFirstUnseenDAO firstUnseenDAO,
                                       CassandraApplicableFlagDAO applicableFlagDAO,
-                                      CassandraDeletedMessageDAO deletedMessageDAO) {
+                                      CassandraDeletedMessageDAO deletedMessageDAO,
+                                      CassandraModSeqIndexDAO modSeqIndexDAO) {
         this.mailboxRecentDAO = mailboxRecentDAO;
         this.mailboxCounterDAO = mailboxCounterDAO;
         this.firstUnseenDAO = firstUnseenDAO;
         this.applicableFlagDAO = applicableFlagDAO;
         this.deletedMessageDAO = deletedMessageDAO;
+        this.modSeqIndexDAO = modSeqIndexDAO;
     }
 
     public Mono<Void> updateIndexOnDelete(ComposedMessageIdWithMetaData composedMessageIdWithMetaData, CassandraId mailboxId) {
@@ -61,6 +65,7 @@ public class CassandraIndexTableHandler {
                mailboxRecentDAO.removeFromRecent(mailboxId, composedMessageIdWithMetaData.getComposedMessageId().getUid()),
                mailboxCounterDAO.decrementCount(mailboxId),
                deletedMessageDAO.removeDeleted(mailboxId, uid),
+               modSeqIndexDAO.delete(mailboxId, uid, composedMessageIdWithMetaData.getModSeq()),
                decrementUnseenOnDelete(mailboxId, composedMessageIdWithMetaData.getFlags()))
                 .then();
     }
@@ -74,6 +79,7 @@ public class CassandraIndexTableHandler {
                addRecentOnSave(mailboxId, message),
                incrementUnseenOnSave(mailboxId, flags),
                mailboxCounterDAO.incrementCount(mailboxId),
+               modSeqIndexDAO.insert(mailboxId, message.getUid(), message.getModSeq()),
                applicableFlagDAO.updateApplicableFlags(mailboxId, ImmutableSet.copyOf(flags.getUserFlags())))
                 .then();
     }
@@ -88,6 +94,10 @@ public class CassandraIndexTableHandler {
                 .then();
     }
 
+    public Mono<Void> updateIndexOnModSeqUpdate(CassandraId mailboxId, MessageUid uid, ModSeq oldModSeq, ModSeq newModSeq) {
+        return modSeqIndexDAO.update(mailboxId, uid, oldModSeq, newModSeq);
+    }
+
     private Mono<Void> updateDeletedOnFlagsUpdate(CassandraId mailboxId, UpdatedFlags updatedFlags) {
         if (updatedFlags.isModifiedToSet(Flags.Flag.DELETED)) {
             return deletedMessageDAO.addDeleted(mailboxId, updatedFlags.getUid());
@@ -284,6 +284,8 @@ public class CassandraMessageIdMapper implements MessageIdMapper {
         return imapUidDAO.updateMetadata(newComposedId, oldComposedId.getModSeq())
             .filter(FunctionalUtils.identityPredicate())
             .flatMap(any -> messageIdDAO.updateMetadata(newComposedId)
+                .then(indexTableHandler.updateIndexOnModSeqUpdate((CassandraId) oldComposedId.getComposedMessageId().getMailboxId(),
+                    oldComposedId.getComposedMessageId().getUid(), oldComposedId.getModSeq(), newComposedId.getModSeq()))
                 .thenReturn(Pair.of(oldComposedId.getFlags(), newComposedId)));
     }
 }
@@ -29,6 +29,7 @@ import java.util.Optional;
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.mailbox.ApplicableFlagBuilder;
 import org.apache.james.mailbox.FlagsBuilder;
@@ -65,6 +66,7 @@ import reactor.core.scheduler.Schedulers;
 
 public class CassandraMessageMapper implements MessageMapper {
     public static final Logger LOGGER = LoggerFactory.getLogger(CassandraMessageMapper.class);
+    static final int MAX_MOD_SEQ_INDEX_ENTRIES = 1000;
 
     private final CassandraModSeqProvider modSeqProvider;
     private final CassandraUidProvider uidProvider;
@@ -78,6 +80,7 @@ public class CassandraMessageMapper implements MessageMapper {
     private final CassandraFirstUnseenDAO firstUnseenDAO;
     private final AttachmentLoader attachmentLoader;
     private final CassandraDeletedMessageDAO deletedMessageDAO;
+    private final CassandraModSeqIndexDAO modSeqIndexDAO;
     private final CassandraConfiguration cassandraConfiguration;
 
     public CassandraMessageMapper(CassandraUidProvider uidProvider, CassandraModSeqProvider modSeqProvider,
@@ -86,7 +89,8 @@ public class CassandraMessageMapper implements MessageMapper {
                                   CassandraMessageIdToImapUidDAO imapUidDAO, CassandraMailboxCounterDAO mailboxCounterDAO,
                                   CassandraMailboxRecentsDAO mailboxRecentDAO, CassandraApplicableFlagDAO applicableFlagDAO,
                                   CassandraIndexTableHandler indexTableHandler, CassandraFirstUnseenDAO firstUnseenDAO,
-                                  CassandraDeletedMessageDAO deletedMessageDAO, CassandraConfiguration cassandraConfiguration) {
+                                  CassandraDeletedMessageDAO deletedMessageDAO, CassandraModSeqIndexDAO modSeqIndexDAO,
+                                  CassandraConfiguration cassandraConfiguration) {
         this.uidProvider = uidProvider;
         this.modSeqProvider = modSeqProvider;
         this.messageDAO = messageDAO;
@@ -99,6 +103,7 @@ public class CassandraMessageMapper implements MessageMapper {
         this.attachmentLoader = new AttachmentLoader(attachmentMapper);
         this.applicableFlagDAO = applicableFlagDAO;
         this.deletedMessageDAO = deletedMessageDAO;
+        this.modSeqIndexDAO = modSeqIndexDAO;
         this.cassandraConfiguration = cassandraConfiguration;
     }
 
@@ -191,6 +196,64 @@ public class CassandraMessageMapper implements MessageMapper {
             .flatMap(stream -> attachmentLoader.addAttachmentToMessage(stream, fetchType));
     }
 
+    /**
+     * Reading too many index entries, along with the tombstones left by their updates, costs more than scanning the
+     * mailbox metadata: past {@link #MAX_MOD_SEQ_INDEX_ENTRIES} entries, the mailbox metadata is scanned instead.
+     */
+    @Override
+    public List<MessageUid> listUidsChangedSince(Mailbox mailbox, ModSeq modSeq) {
+        CassandraId mailboxId = (CassandraId) mailbox.getMailboxId();
+
+        return ensureModSeqIndexed(mailboxId)
+            .thenMany(Flux.defer(() -> modSeqIndexDAO.retrieveChangedSince(mailboxId, modSeq, MAX_MOD_SEQ_INDEX_ENTRIES + 1)))
+            .collectList()
+            .flatMapMany(entries -> {
+                if (entries.size() > MAX_MOD_SEQ_INDEX_ENTRIES) {
+                    return messageIdDAO.retrieveMessages(mailboxId, MessageRange.all());
+                }
+                return checkModSeqIndexEntries(mailboxId, entries);
+            })
+            .filter(metaData -> metaData.getModSeq().compareTo(modSeq) > 0)
+            .map(metaData -> metaData.getComposedMessageId().getUid())
+            .collect(Guavate.toImmutableList())
+            .block();
+    }
+
+    /**
+     * Mailboxes created before the modseq index was introduced get indexed upon their first resynchronisation.
+     */
+    private Mono<Void> ensureModSeqIndexed(CassandraId mailboxId) {
+        return modSeqIndexDAO.isIndexed(mailboxId)
+            .filter(indexed -> !indexed)
+            .flatMap(notIndexed -> messageIdDAO.retrieveMessages(mailboxId, MessageRange.all())
+                .flatMap(metaData -> modSeqIndexDAO.insert(mailboxId, metaData.getComposedMessageId().getUid(), metaData.getModSeq()))
+                .then(modSeqIndexDAO.markIndexed(mailboxId)));
+    }
+
+    /**
+     * Index entries are checked against the message metadata. Stale entries, left by concurrent updates or
+     * expunges, are removed.
+     */
+    private Flux<ComposedMessageIdWithMetaData> checkModSeqIndexEntries(CassandraId mailboxId, List<Pair<MessageUid, ModSeq>> entries) {
+        List<MessageUid> uids = entries.stream()
+            .map(Pair::getKey)
+            .distinct()
+            .sorted()
+            .collect(Guavate.toImmutableList());
+
+        return Flux.fromIterable(MessageRange.toRanges(uids))
+            .concatMap(range -> messageIdDAO.retrieveMessages(mailboxId, range))
+            .collectMap(metaData -> metaData.getComposedMessageId().getUid())
+            .flatMapMany(metaDataByUid -> Flux.fromIterable(entries)
+                .filter(entry -> !Optional.ofNullable(metaDataByUid.get(entry.getKey()))
+                    .map(metaData -> metaData.getModSeq().equals(entry.getValue()))
+                    .orElse(false))
+                .flatMap(staleEntry -> modSeqIndexDAO.delete(mailboxId, staleEntry.getKey(), staleEntry.getValue()))
+                .thenMany(Flux.fromIterable(uids)
+                    .filter(metaDataByUid::containsKey)
+                    .map(metaDataByUid::get)));
+    }
+
     @Override
     public List<MessageUid> findRecentMessageUidsInMailbox(Mailbox mailbox) {
         CassandraId mailboxId = (CassandraId) mailbox.getMailboxId();
@@ -441,7 +504,10 @@ public class CassandraMessageMapper implements MessageMapper {
         return imapUidDAO.updateMetadata(newMetadata, oldMetadata.getModSeq())
             .flatMap(success -> {
                 if (success) {
-                    return messageIdDAO.updateMetadata(newMetadata).thenReturn(true);
+                    return messageIdDAO.updateMetadata(newMetadata)
+                        .then(indexTableHandler.updateIndexOnModSeqUpdate((CassandraId) oldMetadata.getComposedMessageId().getMailboxId(),
+                            oldMetadata.getComposedMessageId().getUid(), oldMetadata.getModSeq(), newModSeq))
+                        .thenReturn(true);
                 } else {
                     return Mono.just(false);
                 }
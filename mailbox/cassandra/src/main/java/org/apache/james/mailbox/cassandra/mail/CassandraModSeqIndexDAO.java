@@ -0,0 +1,174 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.cassandra.mail;
+
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.gt;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.select;
+import static org.apache.james.mailbox.cassandra.table.CassandraModSeqIndexTable.INDEXED;
+import static org.apache.james.mailbox.cassandra.table.CassandraModSeqIndexTable.MAILBOX_ID;
+import static org.apache.james.mailbox.cassandra.table.CassandraModSeqIndexTable.MOD_SEQ;
+import static org.apache.james.mailbox.cassandra.table.CassandraModSeqIndexTable.TABLE_NAME;
+import static org.apache.james.mailbox.cassandra.table.CassandraModSeqIndexTable.UID;
+
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
+import org.apache.james.backends.cassandra.utils.CassandraUtils;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
+import org.apache.james.mailbox.cassandra.ids.CassandraId;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.google.common.annotations.VisibleForTesting;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class CassandraModSeqIndexDAO {
+    private static final String LIMIT = "limit";
+
+    private final CassandraAsyncExecutor cassandraAsyncExecutor;
+    private final CassandraUtils cassandraUtils;
+    private final PreparedStatement insertStatement;
+    private final PreparedStatement deleteStatement;
+    private final PreparedStatement deleteMailboxStatement;
+    private final PreparedStatement selectChangedSinceStatement;
+    private final PreparedStatement markIndexedStatement;
+    private final PreparedStatement selectIndexedStatement;
+
+    @Inject
+    public CassandraModSeqIndexDAO(Session session, CassandraUtils cassandraUtils) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+        this.cassandraUtils = cassandraUtils;
+        this.insertStatement = prepareInsert(session);
+        this.deleteStatement = prepareDelete(session);
+        this.deleteMailboxStatement = prepareDeleteMailbox(session);
+        this.selectChangedSinceStatement = prepareSelectChangedSince(session);
+        this.markIndexedStatement = prepareMarkIndexed(session);
+        this.selectIndexedStatement = prepareSelectIndexed(session);
+    }
+
+    @VisibleForTesting
+    public CassandraModSeqIndexDAO(Session session) {
+        this(session, CassandraUtils.WITH_DEFAULT_CONFIGURATION);
+    }
+
+    private PreparedStatement prepareInsert(Session session) {
+        return session.prepare(insertInto(TABLE_NAME)
+            .value(MAILBOX_ID, bindMarker(MAILBOX_ID))
+            .value(MOD_SEQ, bindMarker(MOD_SEQ))
+            .value(UID, bindMarker(UID)));
+    }
+
+    private PreparedStatement prepareDelete(Session session) {
+        return session.prepare(QueryBuilder.delete()
+            .from(TABLE_NAME)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID)))
+            .and(eq(MOD_SEQ, bindMarker(MOD_SEQ)))
+            .and(eq(UID, bindMarker(UID))));
+    }
+
+    private PreparedStatement prepareDeleteMailbox(Session session) {
+        return session.prepare(QueryBuilder.delete()
+            .from(TABLE_NAME)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID))));
+    }
+
+    private PreparedStatement prepareSelectChangedSince(Session session) {
+        return session.prepare(select(MOD_SEQ, UID)
+            .from(TABLE_NAME)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID)))
+            .and(gt(MOD_SEQ, bindMarker(MOD_SEQ)))
+            .limit(bindMarker(LIMIT)));
+    }
+
+    private PreparedStatement prepareMarkIndexed(Session session) {
+        return session.prepare(insertInto(TABLE_NAME)
+            .value(MAILBOX_ID, bindMarker(MAILBOX_ID))
+            .value(INDEXED, true));
+    }
+
+    private PreparedStatement prepareSelectIndexed(Session session) {
+        return session.prepare(select(INDEXED)
+            .from(TABLE_NAME)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID)))
+            .limit(1));
+    }
+
+    public Mono<Void> insert(CassandraId mailboxId, MessageUid uid, ModSeq modSeq) {
+        return cassandraAsyncExecutor.executeVoid(insertStatement.bind()
+            .setUUID(MAILBOX_ID, mailboxId.asUuid())
+            .setLong(MOD_SEQ, modSeq.asLong())
+            .setLong(UID, uid.asLong()));
+    }
+
+    public Mono<Void> delete(CassandraId mailboxId, MessageUid uid, ModSeq modSeq) {
+        return cassandraAsyncExecutor.executeVoid(deleteStatement.bind()
+            .setUUID(MAILBOX_ID, mailboxId.asUuid())
+            .setLong(MOD_SEQ, modSeq.asLong())
+            .setLong(UID, uid.asLong()));
+    }
+
+    public Mono<Void> update(CassandraId mailboxId, MessageUid uid, ModSeq oldModSeq, ModSeq newModSeq) {
+        if (oldModSeq.equals(newModSeq)) {
+            return Mono.empty();
+        }
+        return insert(mailboxId, uid, newModSeq)
+            .then(delete(mailboxId, uid, oldModSeq));
+    }
+
+    /**
+     * Removes the whole partition of the mailbox, including its indexed marker.
+     */
+    public Mono<Void> deleteMailbox(CassandraId mailboxId) {
+        return cassandraAsyncExecutor.executeVoid(deleteMailboxStatement.bind()
+            .setUUID(MAILBOX_ID, mailboxId.asUuid()));
+    }
+
+    /**
+     * Entries are returned ordered by {@link ModSeq}, at most limit of them. They might be stale, as index updates are
+     * not atomic with metadata updates: callers are expected to check them against the message metadata.
+     */
+    public Flux<Pair<MessageUid, ModSeq>> retrieveChangedSince(CassandraId mailboxId, ModSeq modSeq, int limit) {
+        return cassandraAsyncExecutor.execute(selectChangedSinceStatement.bind()
+                .setUUID(MAILBOX_ID, mailboxId.asUuid())
+                .setLong(MOD_SEQ, modSeq.asLong())
+                .setInt(LIMIT, limit))
+            .flatMapMany(cassandraUtils::convertToFlux)
+            .map(row -> Pair.of(MessageUid.of(row.getLong(UID)), ModSeq.of(row.getLong(MOD_SEQ))));
+    }
+
+    public Mono<Void> markIndexed(CassandraId mailboxId) {
+        return cassandraAsyncExecutor.executeVoid(markIndexedStatement.bind()
+            .setUUID(MAILBOX_ID, mailboxId.asUuid()));
+    }
+
+    public Mono<Boolean> isIndexed(CassandraId mailboxId) {
+        return cassandraAsyncExecutor.executeSingleRowOptional(selectIndexedStatement.bind()
+                .setUUID(MAILBOX_ID, mailboxId.asUuid()))
+            .map(row -> row.filter(value -> !value.isNull(INDEXED))
+                .map(value -> value.getBool(INDEXED))
+                .orElse(false));
+    }
+}
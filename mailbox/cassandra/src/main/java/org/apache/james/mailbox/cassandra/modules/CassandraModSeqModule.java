@@ -20,16 +20,23 @@
 package org.apache.james.mailbox.cassandra.modules;
 
 import static com.datastax.driver.core.DataType.bigint;
+import static com.datastax.driver.core.DataType.cboolean;
 import static com.datastax.driver.core.DataType.timeuuid;
 
+import java.time.Duration;
+
 import org.apache.james.backends.cassandra.components.CassandraModule;
 import org.apache.james.backends.cassandra.utils.CassandraConstants;
 import org.apache.james.mailbox.cassandra.table.CassandraMessageModseqTable;
+import org.apache.james.mailbox.cassandra.table.CassandraModSeqIndexTable;
 
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
 
 public interface CassandraModSeqModule {
-    CassandraModule MODULE = CassandraModule.table(CassandraMessageModseqTable.TABLE_NAME)
+    int MOD_SEQ_INDEX_GC_GRACE_SECONDS = Math.toIntExact(Duration.ofHours(3).getSeconds());
+
+    CassandraModule MODULE = CassandraModule.builder()
+        .table(CassandraMessageModseqTable.TABLE_NAME)
         .comment("Holds and is used to generate MODSEQ. A monotic counter is implemented on top of this table.")
         .options(options -> options
             .compactionOptions(SchemaBuilder.leveledStrategy())
@@ -38,5 +45,19 @@ public interface CassandraModSeqModule {
         .statement(statement -> statement
             .addPartitionKey(CassandraMessageModseqTable.MAILBOX_ID, timeuuid())
             .addColumn(CassandraMessageModseqTable.NEXT_MODSEQ, bigint()))
+        .table(CassandraModSeqIndexTable.TABLE_NAME)
+        .comment("Denormalisation table. Allows to retrieve the uids of the messages of a mailbox changed since a given " +
+            "MODSEQ. This is a CONDSTORE and QRESYNC optimisation. The static indexed column marks mailboxes whose " +
+            "messages had all been indexed. Flags updates move entries, deleted entries coming back being stale " +
+            "entries removed upon reads: tombstones are thus only kept for a short period.")
+        .options(options -> options
+            .gcGraceSeconds(MOD_SEQ_INDEX_GC_GRACE_SECONDS)
+            .caching(SchemaBuilder.KeyCaching.ALL,
+                SchemaBuilder.rows(CassandraConstants.DEFAULT_CACHED_ROW_PER_PARTITION)))
+        .statement(statement -> statement
+            .addPartitionKey(CassandraModSeqIndexTable.MAILBOX_ID, timeuuid())
+            .addClusteringColumn(CassandraModSeqIndexTable.MOD_SEQ, bigint())
+            .addClusteringColumn(CassandraModSeqIndexTable.UID, bigint())
+            .addStaticColumn(CassandraModSeqIndexTable.INDEXED, cboolean()))
         .build();
 }
@@ -42,6 +42,7 @@ import org.apache.james.mailbox.cassandra.mail.CassandraMailboxRecentsDAO;
 import org.apache.james.mailbox.cassandra.mail.CassandraMessageDAO;
 import org.apache.james.mailbox.cassandra.mail.CassandraMessageIdDAO;
 import org.apache.james.mailbox.cassandra.mail.CassandraMessageIdToImapUidDAO;
+import org.apache.james.mailbox.cassandra.mail.CassandraModSeqIndexDAO;
 import org.apache.james.mailbox.cassandra.mail.CassandraModSeqProvider;
 import org.apache.james.mailbox.cassandra.mail.CassandraUidProvider;
 import org.apache.james.mailbox.cassandra.mail.CassandraUserMailboxRightsDAO;
@@ -81,6 +82,7 @@ class CassandraSubscriptionManagerTest implements SubscriptionManagerContract {
         CassandraApplicableFlagDAO applicableFlagDAO = null;
         CassandraAttachmentDAO attachmentDAO = null;
         CassandraDeletedMessageDAO deletedMessageDAO = null;
+        CassandraModSeqIndexDAO modSeqIndexDAO = null;
         CassandraAttachmentDAOV2 attachmentDAOV2 = null;
         CassandraAttachmentMessageIdDAO attachmentMessageIdDAO = null;
         CassandraAttachmentOwnerDAO ownerDAO = null;
@@ -108,6 +110,7 @@ class CassandraSubscriptionManagerTest implements SubscriptionManagerContract {
                 attachmentDAO,
                 attachmentDAOV2,
                 deletedMessageDAO,
+                modSeqIndexDAO,
                 blobStore,
                 attachmentMessageIdDAO,
                 ownerDAO,
@@ -40,6 +40,7 @@ import org.apache.james.mailbox.cassandra.modules.CassandraDeletedMessageModule;
 import org.apache.james.mailbox.cassandra.modules.CassandraFirstUnseenModule;
 import org.apache.james.mailbox.cassandra.modules.CassandraMailboxCounterModule;
 import org.apache.james.mailbox.cassandra.modules.CassandraMailboxRecentsModule;
+import org.apache.james.mailbox.cassandra.modules.CassandraModSeqModule;
 import org.apache.james.mailbox.model.ComposedMessageId;
 import org.apache.james.mailbox.model.ComposedMessageIdWithMetaData;
 import org.apache.james.mailbox.model.Mailbox;
@@ -68,7 +69,8 @@ class CassandraIndexTableHandlerTest {
             CassandraMailboxRecentsModule.MODULE,
             CassandraFirstUnseenModule.MODULE,
             CassandraApplicableFlagsModule.MODULE,
-            CassandraDeletedMessageModule.MODULE));
+            CassandraDeletedMessageModule.MODULE,
+            CassandraModSeqModule.MODULE));
 
     private CassandraMailboxCounterDAO mailboxCounterDAO;
     private CassandraMailboxRecentsDAO mailboxRecentsDAO;
@@ -76,6 +78,7 @@ class CassandraIndexTableHandlerTest {
     private CassandraFirstUnseenDAO firstUnseenDAO;
     private CassandraIndexTableHandler testee;
     private CassandraDeletedMessageDAO deletedMessageDAO;
+    private CassandraModSeqIndexDAO modSeqIndexDAO;
     private Mailbox mailbox;
 
     @BeforeEach
@@ -85,12 +88,14 @@ class CassandraIndexTableHandlerTest {
         firstUnseenDAO = new CassandraFirstUnseenDAO(cassandra.getConf());
         applicableFlagDAO = new CassandraApplicableFlagDAO(cassandra.getConf());
         deletedMessageDAO = new CassandraDeletedMessageDAO(cassandra.getConf());
+        modSeqIndexDAO = new CassandraModSeqIndexDAO(cassandra.getConf());
 
         testee = new CassandraIndexTableHandler(mailboxRecentsDAO,
                                                 mailboxCounterDAO,
                                                 firstUnseenDAO,
                                                 applicableFlagDAO,
-                                                deletedMessageDAO);
+                                                deletedMessageDAO,
+                                                modSeqIndexDAO);
 
         mailbox = new Mailbox(MailboxPath.forUser(Username.of("user"), "name"),
             UID_VALIDITY,
@@ -102,6 +107,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
 
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
@@ -114,6 +120,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
 
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
@@ -126,6 +133,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.SEEN));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
 
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
@@ -138,6 +146,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
 
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
@@ -152,6 +161,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.RECENT));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
 
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
@@ -166,6 +176,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnDelete(new ComposedMessageIdWithMetaData(
@@ -183,6 +194,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnDelete(new ComposedMessageIdWithMetaData(
@@ -200,6 +212,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnDelete(new ComposedMessageIdWithMetaData(
@@ -217,6 +230,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.RECENT));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnDelete(new ComposedMessageIdWithMetaData(
@@ -237,6 +251,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.RECENT));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnDelete(new ComposedMessageIdWithMetaData(
@@ -255,6 +270,7 @@ class CassandraIndexTableHandlerTest {
     void updateIndexOnDeleteShouldDeleteMessageFromDeletedMessage() {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         deletedMessageDAO.addDeleted(MAILBOX_ID, MESSAGE_UID).block();
 
         testee.updateIndexOnDelete(new ComposedMessageIdWithMetaData(
@@ -276,6 +292,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -294,6 +311,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -312,6 +330,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -334,6 +353,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         deletedMessageDAO.addDeleted(MAILBOX_ID, MESSAGE_UID).block();
@@ -358,6 +378,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         deletedMessageDAO.addDeleted(MAILBOX_ID, MESSAGE_UID).block();
@@ -382,6 +403,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -404,6 +426,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.SEEN));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -422,6 +445,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.SEEN));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -440,6 +464,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -459,6 +484,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -480,6 +506,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.RECENT));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -500,6 +527,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         MessageUid actual = firstUnseenDAO.retrieveFirstUnread(MAILBOX_ID).block();
@@ -511,6 +539,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.DELETED));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         assertThat(
@@ -526,6 +555,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         assertThat(
@@ -541,6 +571,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.SEEN));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         Boolean actual = firstUnseenDAO.retrieveFirstUnread(MAILBOX_ID).hasElement().block();
@@ -552,6 +583,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -570,6 +602,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.SEEN));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -588,6 +621,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -606,6 +640,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags(Flags.Flag.SEEN));
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnFlagsUpdate(MAILBOX_ID, UpdatedFlags.builder()
@@ -624,6 +659,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(new Flags());
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         testee.updateIndexOnDelete(new ComposedMessageIdWithMetaData(
@@ -641,6 +677,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(customFlags);
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         Flags applicableFlag = applicableFlagDAO.retrieveApplicableFlag(MAILBOX_ID).block();
@@ -654,6 +691,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(customFlag);
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
         Flags customBis = new Flags("customBis");
@@ -678,6 +716,7 @@ class CassandraIndexTableHandlerTest {
         MailboxMessage message = mock(MailboxMessage.class);
         when(message.createFlags()).thenReturn(messageFlags);
         when(message.getUid()).thenReturn(MESSAGE_UID);
+        when(message.getModSeq()).thenReturn(MODSEQ);
 
         testee.updateIndexOnAdd(message, MAILBOX_ID).block();
 
@@ -36,6 +36,7 @@ import org.apache.james.core.Username;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
 import org.apache.james.mailbox.cassandra.modules.CassandraAclModule;
 import org.apache.james.mailbox.cassandra.modules.CassandraMailboxModule;
+import org.apache.james.mailbox.cassandra.modules.CassandraModSeqModule;
 import org.apache.james.mailbox.exception.MailboxNotFoundException;
 import org.apache.james.mailbox.exception.TooLongMailboxNameException;
 import org.apache.james.mailbox.model.Mailbox;
@@ -64,7 +65,8 @@ class CassandraMailboxMapperTest {
     private static final CassandraModule MODULES = CassandraModule.aggregateModules(
         CassandraMailboxModule.MODULE,
         CassandraSchemaVersionModule.MODULE,
-        CassandraAclModule.MODULE);
+        CassandraAclModule.MODULE,
+        CassandraModSeqModule.MODULE);
 
     @RegisterExtension
     static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(MODULES);
@@ -88,7 +90,8 @@ class CassandraMailboxMapperTest {
             userMailboxRightsDAO,
             new CassandraACLMapper(cassandra.getConf(),
                 new CassandraUserMailboxRightsDAO(cassandra.getConf(), CassandraUtils.WITH_DEFAULT_CONFIGURATION),
-                CassandraConfiguration.DEFAULT_CONFIGURATION));
+                CassandraConfiguration.DEFAULT_CONFIGURATION),
+            new CassandraModSeqIndexDAO(cassandra.getConf()));
     }
 
     @Disabled("JAMES-2514 Cassandra 3 supports long mailbox names. Hence we can not rely on this for failing")
@@ -0,0 +1,176 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.cassandra.mail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.james.backends.cassandra.CassandraCluster;
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.backends.cassandra.CassandraRestartExtension;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
+import org.apache.james.mailbox.cassandra.ids.CassandraId;
+import org.apache.james.mailbox.cassandra.modules.CassandraModSeqModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+@ExtendWith(CassandraRestartExtension.class)
+class CassandraModSeqIndexDAOTest {
+    private static final CassandraId MAILBOX_ID = CassandraId.of(UUID.fromString("110e8400-e29b-11d4-a716-446655440000"));
+    private static final CassandraId OTHER_MAILBOX_ID = CassandraId.of(UUID.fromString("110e8400-e29b-11d4-a716-446655440001"));
+    private static final MessageUid UID_1 = MessageUid.of(1);
+    private static final MessageUid UID_2 = MessageUid.of(2);
+    private static final MessageUid UID_3 = MessageUid.of(3);
+    private static final ModSeq MOD_SEQ_1 = ModSeq.of(1);
+    private static final ModSeq MOD_SEQ_2 = ModSeq.of(2);
+    private static final ModSeq MOD_SEQ_3 = ModSeq.of(3);
+    private static final ModSeq MOD_SEQ_4 = ModSeq.of(4);
+    private static final int LIMIT = 10;
+
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(CassandraModSeqModule.MODULE);
+
+    private CassandraModSeqIndexDAO testee;
+
+    @BeforeEach
+    void setUp(CassandraCluster cassandra) {
+        testee = new CassandraModSeqIndexDAO(cassandra.getConf());
+    }
+
+    @Test
+    void retrieveChangedSinceShouldReturnEmptyByDefault() {
+        assertThat(testee.retrieveChangedSince(MAILBOX_ID, ModSeq.first(), LIMIT).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void retrieveChangedSinceShouldReturnEntriesWithAStrictlyGreaterModSeq() {
+        testee.insert(MAILBOX_ID, UID_1, MOD_SEQ_1).block();
+        testee.insert(MAILBOX_ID, UID_2, MOD_SEQ_2).block();
+        testee.insert(MAILBOX_ID, UID_3, MOD_SEQ_3).block();
+
+        assertThat(testee.retrieveChangedSince(MAILBOX_ID, MOD_SEQ_1, LIMIT).collectList().block())
+            .containsExactly(Pair.of(UID_2, MOD_SEQ_2), Pair.of(UID_3, MOD_SEQ_3));
+    }
+
+    @Test
+    void retrieveChangedSinceShouldNotReturnEntriesOfOtherMailboxes() {
+        testee.insert(OTHER_MAILBOX_ID, UID_1, MOD_SEQ_2).block();
+
+        assertThat(testee.retrieveChangedSince(MAILBOX_ID, MOD_SEQ_1, LIMIT).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void deleteShouldRemoveTheEntry() {
+        testee.insert(MAILBOX_ID, UID_1, MOD_SEQ_2).block();
+        testee.insert(MAILBOX_ID, UID_2, MOD_SEQ_3).block();
+
+        testee.delete(MAILBOX_ID, UID_1, MOD_SEQ_2).block();
+
+        assertThat(testee.retrieveChangedSince(MAILBOX_ID, MOD_SEQ_1, LIMIT).collectList().block())
+            .containsExactly(Pair.of(UID_2, MOD_SEQ_3));
+    }
+
+    @Test
+    void updateShouldMoveTheEntry() {
+        testee.insert(MAILBOX_ID, UID_1, MOD_SEQ_1).block();
+        testee.insert(MAILBOX_ID, UID_2, MOD_SEQ_2).block();
+
+        testee.update(MAILBOX_ID, UID_1, MOD_SEQ_1, MOD_SEQ_4).block();
+
+        assertThat(testee.retrieveChangedSince(MAILBOX_ID, ModSeq.first(), LIMIT).collectList().block())
+            .containsExactly(Pair.of(UID_2, MOD_SEQ_2), Pair.of(UID_1, MOD_SEQ_4));
+    }
+
+    @Test
+    void retrieveChangedSinceShouldReturnAtMostLimitEntries() {
+        testee.insert(MAILBOX_ID, UID_1, MOD_SEQ_2).block();
+        testee.insert(MAILBOX_ID, UID_2, MOD_SEQ_3).block();
+        testee.insert(MAILBOX_ID, UID_3, MOD_SEQ_4).block();
+
+        assertThat(testee.retrieveChangedSince(MAILBOX_ID, MOD_SEQ_1, 2).collectList().block())
+            .containsExactly(Pair.of(UID_1, MOD_SEQ_2), Pair.of(UID_2, MOD_SEQ_3));
+    }
+
+    @Test
+    void deleteMailboxShouldRemoveEntriesAndIndexedMarker() {
+        testee.insert(MAILBOX_ID, UID_1, MOD_SEQ_2).block();
+        testee.markIndexed(MAILBOX_ID).block();
+
+        testee.deleteMailbox(MAILBOX_ID).block();
+
+        assertThat(testee.retrieveChangedSince(MAILBOX_ID, MOD_SEQ_1, LIMIT).collectList().block())
+            .isEmpty();
+        assertThat(testee.isIndexed(MAILBOX_ID).block()).isFalse();
+    }
+
+    @Test
+    void deleteMailboxShouldNotAffectOtherMailboxes() {
+        testee.insert(OTHER_MAILBOX_ID, UID_1, MOD_SEQ_2).block();
+        testee.markIndexed(OTHER_MAILBOX_ID).block();
+
+        testee.deleteMailbox(MAILBOX_ID).block();
+
+        assertThat(testee.retrieveChangedSince(OTHER_MAILBOX_ID, MOD_SEQ_1, LIMIT).collectList().block())
+            .containsExactly(Pair.of(UID_1, MOD_SEQ_2));
+        assertThat(testee.isIndexed(OTHER_MAILBOX_ID).block()).isTrue();
+    }
+
+    @Test
+    void isIndexedShouldReturnFalseByDefault() {
+        assertThat(testee.isIndexed(MAILBOX_ID).block()).isFalse();
+    }
+
+    @Test
+    void isIndexedShouldReturnFalseWhenOnlyEntries() {
+        testee.insert(MAILBOX_ID, UID_1, MOD_SEQ_1).block();
+
+        assertThat(testee.isIndexed(MAILBOX_ID).block()).isFalse();
+    }
+
+    @Test
+    void isIndexedShouldReturnTrueWhenMarked() {
+        testee.markIndexed(MAILBOX_ID).block();
+
+        assertThat(testee.isIndexed(MAILBOX_ID).block()).isTrue();
+    }
+
+    @Test
+    void markIndexedShouldNotAffectEntries() {
+        testee.insert(MAILBOX_ID, UID_1, MOD_SEQ_2).block();
+
+        testee.markIndexed(MAILBOX_ID).block();
+
+        assertThat(testee.retrieveChangedSince(MAILBOX_ID, MOD_SEQ_1, LIMIT).collectList().block())
+            .containsExactly(Pair.of(UID_1, MOD_SEQ_2));
+    }
+
+    @Test
+    void markIndexedShouldNotReturnOtherMailboxes() {
+        testee.markIndexed(OTHER_MAILBOX_ID).block();
+
+        assertThat(testee.isIndexed(MAILBOX_ID).block()).isFalse();
+    }
+}
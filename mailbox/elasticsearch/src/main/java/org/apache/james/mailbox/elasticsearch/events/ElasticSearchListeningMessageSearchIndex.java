@@ -23,8 +23,12 @@ import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -53,6 +57,7 @@ import org.apache.james.mailbox.store.MailboxSessionMapperFactory;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.search.ListeningMessageSearchIndex;
 import org.apache.james.util.OptionalUtils;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +67,7 @@ import com.github.fge.lambdas.Throwing;
 import com.github.steveash.guavate.Guavate;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSearchIndex {
     public static class ElasticSearchListeningMessageSearchIndexGroup extends Group {
@@ -147,6 +153,39 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
         elasticSearchIndexer.index(indexIdFor(mailbox, message.getUid()), jsonContent, routingKeyFactory.from(mailbox.getMailboxId()));
     }
 
+    @Override
+    public void add(MailboxSession session, Mailbox mailbox, List<MailboxMessage> messages) throws IOException {
+        LOGGER.info("Indexing mailbox {}-{} of user {} on {} messages",
+            mailbox.getName(),
+            mailbox.getMailboxId(),
+            session.getUser().asString(),
+            messages.size());
+
+        Map<DocumentId, MailboxMessage> lastMessageById = messages.stream()
+            .collect(Collectors.toMap(
+                message -> indexIdFor(mailbox, message.getUid()),
+                Function.identity(),
+                (previous, next) -> next,
+                LinkedHashMap::new));
+        ImmutableMap<DocumentId, String> contents = lastMessageById.entrySet().stream()
+            .collect(Guavate.toImmutableMap(
+                Map.Entry::getKey,
+                Throwing.<Map.Entry<DocumentId, MailboxMessage>, String>function(entry -> generateIndexedJson(mailbox, entry.getValue(), session)).sneakyThrow()));
+
+        Optional<BulkResponse> response = elasticSearchIndexer.index(contents, routingKeyFactory.from(mailbox.getMailboxId()));
+        failOnBulkFailures(response);
+    }
+
+    /**
+     * Failing lets the event bus retry the whole batch, indexing the same documents again being idempotent.
+     */
+    private void failOnBulkFailures(Optional<BulkResponse> response) throws IOException {
+        Optional<BulkResponse> failedResponse = response.filter(BulkResponse::hasFailures);
+        if (failedResponse.isPresent()) {
+            throw new IOException("Failed to index messages: " + failedResponse.get().buildFailureMessage());
+        }
+    }
+
     private String generateIndexedJson(Mailbox mailbox, MailboxMessage message, MailboxSession session) throws JsonProcessingException {
         try {
             return messageToElasticSearchJson.convertToJson(message, ImmutableList.of(session.getUser()));
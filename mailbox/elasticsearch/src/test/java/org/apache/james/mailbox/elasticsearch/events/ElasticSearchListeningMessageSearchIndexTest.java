@@ -232,6 +232,28 @@ class ElasticSearchListeningMessageSearchIndexTest {
             .containsExactly(MESSAGE_1.getUid(), MESSAGE_2.getUid());
     }
 
+    @Test
+    void addingABatchShouldIndexAllItsMessages() throws Exception {
+        testee.add(session, mailbox, Lists.newArrayList(MESSAGE_1, MESSAGE_2));
+
+        elasticSearch.awaitForElasticSearch();
+
+        SearchQuery query = new SearchQuery(SearchQuery.all());
+        assertThat(testee.search(session, mailbox, query))
+            .containsExactly(MESSAGE_1.getUid(), MESSAGE_2.getUid());
+    }
+
+    @Test
+    void addingABatchShouldTolerateDuplicatedMessages() throws Exception {
+        testee.add(session, mailbox, Lists.newArrayList(MESSAGE_1, MESSAGE_2, MESSAGE_1));
+
+        elasticSearch.awaitForElasticSearch();
+
+        SearchQuery query = new SearchQuery(SearchQuery.all());
+        assertThat(testee.search(session, mailbox, query))
+            .containsExactly(MESSAGE_1.getUid(), MESSAGE_2.getUid());
+    }
+
     @Test
     void addShouldIndexEmailBodyWhenNotIndexableAttachment() throws Exception {
         MessageToElasticSearchJson messageToElasticSearchJson = new MessageToElasticSearchJson(
@@ -0,0 +1,89 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.events;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.apache.james.event.json.BinaryEventSerializer;
+import org.apache.james.event.json.EventSerializer;
+import org.apache.james.mailbox.events.RabbitMQEventBusConfiguration.SerializationFormat;
+
+import com.rabbitmq.client.Delivery;
+
+/**
+ * Serializes events in the configured format, and deserializes them according to the format header of the delivery,
+ * so that nodes publishing different formats can coexist. Deliveries without this header are JSON.
+ */
+class EventCodec {
+    static final String SERIALIZATION_FORMAT = "serializationFormat";
+
+    static class SerializedEvent {
+        private final SerializationFormat format;
+        private final byte[] payload;
+
+        SerializedEvent(SerializationFormat format, byte[] payload) {
+            this.format = format;
+            this.payload = payload;
+        }
+
+        SerializationFormat getFormat() {
+            return format;
+        }
+
+        byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    private final EventSerializer eventSerializer;
+    private final BinaryEventSerializer binaryEventSerializer;
+    private final SerializationFormat publishingFormat;
+
+    EventCodec(EventSerializer eventSerializer, BinaryEventSerializer binaryEventSerializer, SerializationFormat publishingFormat) {
+        this.eventSerializer = eventSerializer;
+        this.binaryEventSerializer = binaryEventSerializer;
+        this.publishingFormat = publishingFormat;
+    }
+
+    SerializedEvent serialize(Event event) {
+        if (publishingFormat == SerializationFormat.BINARY && binaryEventSerializer.supports(event)) {
+            return new SerializedEvent(SerializationFormat.BINARY, binaryEventSerializer.toBinary(event));
+        }
+        return new SerializedEvent(SerializationFormat.JSON, eventSerializer.toJson(event).getBytes(StandardCharsets.UTF_8));
+    }
+
+    Event deserialize(Delivery delivery) {
+        SerializationFormat format = Optional.ofNullable(delivery.getProperties().getHeaders())
+            .flatMap(headers -> Optional.ofNullable(headers.get(SERIALIZATION_FORMAT)))
+            .map(Object::toString)
+            .map(SerializationFormat::parse)
+            .orElse(SerializationFormat.JSON);
+
+        switch (format) {
+            case BINARY:
+                return binaryEventSerializer.fromBinary(delivery.getBody()).get();
+            case JSON:
+                return eventSerializer.fromJson(new String(delivery.getBody(), StandardCharsets.UTF_8)).get();
+            default:
+                throw new IllegalArgumentException("Unsupported event serialization format " + format);
+        }
+    }
+}
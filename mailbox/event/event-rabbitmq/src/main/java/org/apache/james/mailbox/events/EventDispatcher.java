@@ -24,48 +24,107 @@ import static org.apache.james.backends.rabbitmq.Constants.DURABLE;
 import static org.apache.james.mailbox.events.RabbitMQEventBus.EVENT_BUS_ID;
 import static org.apache.james.mailbox.events.RabbitMQEventBus.MAILBOX_EVENT_EXCHANGE_NAME;
 
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
-import org.apache.james.event.json.EventSerializer;
 import org.apache.james.mailbox.events.RoutingKeyConverter.RoutingKey;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
 import org.apache.james.util.MDCBuilder;
 import org.apache.james.util.MDCStructuredLogger;
 import org.apache.james.util.StructuredLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.rabbitmq.client.AMQP;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.UnicastProcessor;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.rabbitmq.ExchangeSpecification;
 import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.OutboundMessageResult;
 import reactor.rabbitmq.Sender;
 import reactor.util.function.Tuples;
 
+/**
+ * Dispatches events to the local synchronous listeners and publishes them to RabbitMQ.
+ *
+ * Serialized events are pushed into a single in-memory pipeline publishing them in order, by batches, with publisher
+ * confirms: concurrent dispatches share RabbitMQ writes. Dispatching completes once the local synchronous listeners,
+ * running on a dedicated scheduler, are done and the event is handed to the pipeline: callers never wait for RabbitMQ.
+ *
+ * Messages not confirmed by RabbitMQ are pushed again into the pipeline after a backoff, so that a failing batch does
+ * not hold back the following ones. They are counted as publication failures once retries are exhausted. Dispatching
+ * waits while too many messages are pending confirmation, and fails once the dispatcher is stopped.
+ */
 class EventDispatcher {
+    static final String SERIALIZATION_METRIC_NAME = "event-bus-dispatch-serialization";
+    static final String LOCAL_LISTENERS_METRIC_NAME = "event-bus-dispatch-local-listeners";
+    static final String PUBLICATION_METRIC_NAME = "event-bus-dispatch-publication";
+    static final String PUBLICATION_FAILURE_METRIC_NAME = "event-bus-dispatch-publication-failures";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(EventDispatcher.class);
+    private static final Duration PUBLISH_BATCH_WINDOW = Duration.ofMillis(10);
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+    private static final int DISPATCH_QUEUED_TASK_CAP = 100000;
+    private static final int MAX_PUBLICATION_RETRIES = 3;
+    private static final Duration PUBLICATION_RETRY_BACKOFF = Duration.ofMillis(100);
+
+    private static class EventMessage extends OutboundMessage {
+        private final Event event;
+        private final TimeMetric publicationTimer;
+        private final AtomicInteger attempts;
+        private boolean holdsPermit;
 
-    private final EventSerializer eventSerializer;
+        EventMessage(Event event, TimeMetric publicationTimer, String routingKey, AMQP.BasicProperties properties, byte[] body) {
+            super(MAILBOX_EVENT_EXCHANGE_NAME, routingKey, properties, body);
+            this.event = event;
+            this.publicationTimer = publicationTimer;
+            this.attempts = new AtomicInteger();
+        }
+    }
+
+    private final EventCodec eventCodec;
     private final Sender sender;
     private final LocalListenerRegistry localListenerRegistry;
-    private final AMQP.BasicProperties basicProperties;
+    private final EventBusId eventBusId;
     private final MailboxListenerExecutor mailboxListenerExecutor;
+    private final RabbitMQEventBusConfiguration configuration;
+    private final MetricFactory metricFactory;
+    private final Metric publicationFailures;
+    private final Set<EventMessage> pendingMessages;
+    private Semaphore pendingPermits;
+    private Scheduler scheduler;
+    private FluxSink<EventMessage> publications;
+    private MonoProcessor<Void> publishing;
+    private boolean stopped;
 
-    EventDispatcher(EventBusId eventBusId, EventSerializer eventSerializer, Sender sender, LocalListenerRegistry localListenerRegistry, MailboxListenerExecutor mailboxListenerExecutor) {
-        this.eventSerializer = eventSerializer;
+    EventDispatcher(EventBusId eventBusId, EventCodec eventCodec, Sender sender, LocalListenerRegistry localListenerRegistry,
+                    MailboxListenerExecutor mailboxListenerExecutor, RabbitMQEventBusConfiguration configuration, MetricFactory metricFactory) {
+        this.eventCodec = eventCodec;
         this.sender = sender;
         this.localListenerRegistry = localListenerRegistry;
-        this.basicProperties = new AMQP.BasicProperties.Builder()
-            .headers(ImmutableMap.of(EVENT_BUS_ID, eventBusId.asString()))
-            .build();
+        this.eventBusId = eventBusId;
         this.mailboxListenerExecutor = mailboxListenerExecutor;
+        this.configuration = configuration;
+        this.metricFactory = metricFactory;
+        this.publicationFailures = metricFactory.generate(PUBLICATION_FAILURE_METRIC_NAME);
+        this.pendingMessages = ConcurrentHashMap.newKeySet();
     }
 
     void start() {
@@ -73,26 +132,86 @@ class EventDispatcher {
             .durable(DURABLE)
             .type(DIRECT_EXCHANGE))
             .block();
+
+        scheduler = Schedulers.newBoundedElastic(configuration.getDispatchThreads(), DISPATCH_QUEUED_TASK_CAP, "event-dispatcher");
+        pendingPermits = new Semaphore(configuration.getPublishMaxPending());
+        UnicastProcessor<EventMessage> processor = UnicastProcessor.create();
+        publications = processor.sink();
+        publishing = processor
+            .bufferTimeout(configuration.getPublishMaxBatchSize(), PUBLISH_BATCH_WINDOW)
+            // Bounded: at most publishMaxPending messages are pushed into the pipeline before being confirmed
+            .onBackpressureBuffer()
+            .concatMap(this::publish)
+            .then()
+            .subscribeWith(MonoProcessor.create());
+    }
+
+    void stop() {
+        synchronized (this) {
+            stopped = true;
+            publications.complete();
+        }
+        try {
+            publishing.block(STOP_TIMEOUT);
+        } catch (Exception e) {
+            LOGGER.warn("Some events might not have been published before stopping", e);
+        }
+        pendingMessages.forEach(eventMessage -> fail(eventMessage, new IllegalStateException("Event dispatcher stopped before publication")));
+        scheduler.dispose();
     }
 
     Mono<Void> dispatch(Event event, Set<RegistrationKey> keys) {
-        return Flux
-            .concat(
-                dispatchToLocalListeners(event, keys),
-                dispatchToRemoteListeners(serializeEvent(event), keys))
-            .subscribeOn(Schedulers.boundedElastic())
+        return Mono.fromCallable(() -> toEventMessages(event, keys))
+            .flatMap(eventMessages -> acquirePermits(eventMessages)
+                .then(Mono.fromRunnable(() -> enqueuePublication(eventMessages))))
+            .then(dispatchToLocalListeners(event, keys))
             .doOnError(throwable -> LOGGER.error("error while dispatching event", throwable))
-            .then()
             .subscribeWith(MonoProcessor.create());
     }
 
+    /**
+     * Waiting for permits blocks, hence it is moved to an elastic thread. This only happens when RabbitMQ does not keep
+     * up with dispatched events.
+     */
+    private Mono<Void> acquirePermits(List<EventMessage> eventMessages) {
+        int permits = Math.min(eventMessages.size(), configuration.getPublishMaxPending());
+        eventMessages.stream()
+            .limit(permits)
+            .forEach(eventMessage -> eventMessage.holdsPermit = true);
+
+        if (pendingPermits.tryAcquire(permits)) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> pendingPermits.acquireUninterruptibly(permits))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void enqueuePublication(List<EventMessage> eventMessages) {
+        synchronized (this) {
+            if (stopped) {
+                eventMessages.forEach(this::releasePermit);
+                throw new IllegalStateException("Event dispatcher is stopped");
+            }
+            pendingMessages.addAll(eventMessages);
+            eventMessages.forEach(publications::next);
+        }
+    }
+
     private Mono<Void> dispatchToLocalListeners(Event event, Set<RegistrationKey> keys) {
         return Flux.fromIterable(keys)
             .flatMap(key -> localListenerRegistry.getLocalMailboxListeners(key)
                 .map(listener -> Tuples.of(key, listener)))
             .filter(pair -> pair.getT2().getExecutionMode().equals(MailboxListener.ExecutionMode.SYNCHRONOUS))
-            .flatMap(pair -> executeListener(event, pair.getT2(), pair.getT1()))
-            .then();
+            .collectList()
+            .flatMap(listeners -> {
+                if (listeners.isEmpty()) {
+                    return Mono.empty();
+                }
+                return metricFactory.runPublishingTimerMetric(LOCAL_LISTENERS_METRIC_NAME, Flux.fromIterable(listeners)
+                    .flatMap(pair -> executeListener(event, pair.getT2(), pair.getT1()))
+                    .then()
+                    .subscribeOn(scheduler));
+            });
     }
 
     private Mono<Void> executeListener(Event event, MailboxListener mailboxListener, RegistrationKey registrationKey) {
@@ -119,16 +238,94 @@ class EventDispatcher {
             .addField(EventBus.StructuredLoggingFields.REGISTRATION_KEYS, keys);
     }
 
-    private Mono<Void> dispatchToRemoteListeners(byte[] serializedEvent, Set<RegistrationKey> keys) {
+    private ImmutableList<EventMessage> toEventMessages(Event event, Set<RegistrationKey> keys) {
+        EventCodec.SerializedEvent serializedEvent = metricFactory.runPublishingTimerMetric(SERIALIZATION_METRIC_NAME,
+            () -> eventCodec.serialize(event));
         Stream<RoutingKey> routingKeys = Stream.concat(Stream.of(RoutingKey.empty()), keys.stream().map(RoutingKey::of));
+        AMQP.BasicProperties basicProperties = new AMQP.BasicProperties.Builder()
+            .headers(ImmutableMap.of(
+                EVENT_BUS_ID, eventBusId.asString(),
+                EventCodec.SERIALIZATION_FORMAT, serializedEvent.getFormat().asString()))
+            .build();
+
+        return routingKeys
+            .map(routingKey -> new EventMessage(event, metricFactory.timer(PUBLICATION_METRIC_NAME),
+                routingKey.asString(), basicProperties, serializedEvent.getPayload()))
+            .collect(Guavate.toImmutableList());
+    }
+
+    /**
+     * Messages left unconfirmed, either nacked or because of a channel failure, are retried outside of this batch.
+     */
+    private Mono<Void> publish(List<EventMessage> eventMessages) {
+        return sender.sendWithPublishConfirms(Flux.fromIterable(eventMessages))
+            .filter(OutboundMessageResult::isAck)
+            .doOnNext(result -> confirm((EventMessage) result.getOutboundMessage()))
+            .then()
+            .onErrorResume(throwable -> {
+                LOGGER.warn("Failed publishing {} event messages to RabbitMQ", eventMessages.size(), throwable);
+                return Mono.empty();
+            })
+            .then(Mono.fromRunnable(() -> retryUnconfirmed(eventMessages)));
+    }
+
+    private void retryUnconfirmed(List<EventMessage> eventMessages) {
+        ImmutableList.Builder<EventMessage> retriedMessages = ImmutableList.builder();
+        int attempt = 0;
+        for (EventMessage eventMessage : eventMessages) {
+            if (!pendingMessages.contains(eventMessage)) {
+                continue;
+            }
+            int messageAttempt = eventMessage.attempts.incrementAndGet();
+            if (messageAttempt > MAX_PUBLICATION_RETRIES) {
+                fail(eventMessage, new IllegalStateException("Event was not confirmed by RabbitMQ for routing key '" + eventMessage.getRoutingKey() + "'"));
+            } else {
+                retriedMessages.add(eventMessage);
+                attempt = Math.max(attempt, messageAttempt);
+            }
+        }
+        ImmutableList<EventMessage> messagesToRetry = retriedMessages.build();
+        if (!messagesToRetry.isEmpty()) {
+            Mono.delay(PUBLICATION_RETRY_BACKOFF.multipliedBy(attempt))
+                .subscribe(ignored -> republish(messagesToRetry));
+        }
+    }
+
+    private void republish(List<EventMessage> eventMessages) {
+        synchronized (this) {
+            if (stopped) {
+                eventMessages.forEach(eventMessage -> fail(eventMessage, new IllegalStateException("Event dispatcher stopped before publication")));
+                return;
+            }
+            eventMessages.forEach(publications::next);
+        }
+    }
+
+    private void confirm(EventMessage eventMessage) {
+        if (release(eventMessage)) {
+            eventMessage.publicationTimer.stopAndPublish();
+        }
+    }
 
-        Stream<OutboundMessage> outboundMessages = routingKeys
-            .map(routingKey -> new OutboundMessage(MAILBOX_EVENT_EXCHANGE_NAME, routingKey.asString(), basicProperties, serializedEvent));
+    private void fail(EventMessage eventMessage, Throwable throwable) {
+        if (release(eventMessage)) {
+            publicationFailures.increment();
+            structuredLogger(eventMessage.event, ImmutableSet.of())
+                .log(logger -> logger.error("Event was not published for routing key '{}'", eventMessage.getRoutingKey(), throwable));
+        }
+    }
 
-        return sender.send(Flux.fromStream(outboundMessages));
+    private boolean release(EventMessage eventMessage) {
+        if (pendingMessages.remove(eventMessage)) {
+            releasePermit(eventMessage);
+            return true;
+        }
+        return false;
     }
 
-    private byte[] serializeEvent(Event event) {
-        return eventSerializer.toJson(event).getBytes(StandardCharsets.UTF_8);
+    private void releasePermit(EventMessage eventMessage) {
+        if (eventMessage.holdsPermit) {
+            pendingPermits.release();
+        }
     }
 }
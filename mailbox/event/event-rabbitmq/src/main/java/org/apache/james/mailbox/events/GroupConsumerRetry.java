@@ -25,9 +25,6 @@ import static org.apache.james.backends.rabbitmq.Constants.EMPTY_ROUTING_KEY;
 import static org.apache.james.mailbox.events.GroupRegistration.RETRY_COUNT;
 import static org.apache.james.mailbox.events.RabbitMQEventBus.MAILBOX_EVENT;
 
-import java.nio.charset.StandardCharsets;
-
-import org.apache.james.event.json.EventSerializer;
 import org.apache.james.util.MDCStructuredLogger;
 import org.apache.james.util.StructuredLogger;
 import org.slf4j.Logger;
@@ -73,16 +70,16 @@ class GroupConsumerRetry {
     private final RetryBackoffConfiguration retryBackoff;
     private final EventDeadLetters eventDeadLetters;
     private final Group group;
-    private final EventSerializer eventSerializer;
+    private final EventCodec eventCodec;
 
     GroupConsumerRetry(Sender sender, Group group, RetryBackoffConfiguration retryBackoff,
-                       EventDeadLetters eventDeadLetters, EventSerializer eventSerializer) {
+                       EventDeadLetters eventDeadLetters, EventCodec eventCodec) {
         this.sender = sender;
         this.retryExchangeName = RetryExchangeName.of(group);
         this.retryBackoff = retryBackoff;
         this.eventDeadLetters = eventDeadLetters;
         this.group = group;
-        this.eventSerializer = eventSerializer;
+        this.eventCodec = eventCodec;
     }
 
     Mono<Void> createRetryExchange(GroupRegistration.WorkQueueName queueName) {
@@ -111,15 +108,17 @@ class GroupConsumerRetry {
     }
 
     private Mono<Void> sendRetryMessage(Event event, int currentRetryCount) {
-        byte[] eventAsBytes = eventSerializer.toJson(event).getBytes(StandardCharsets.UTF_8);
+        EventCodec.SerializedEvent serializedEvent = eventCodec.serialize(event);
 
         Mono<OutboundMessage> retryMessage = Mono.just(new OutboundMessage(
             retryExchangeName.asString(),
             EMPTY_ROUTING_KEY,
             new AMQP.BasicProperties.Builder()
-                .headers(ImmutableMap.of(RETRY_COUNT, currentRetryCount + 1))
+                .headers(ImmutableMap.of(
+                    RETRY_COUNT, currentRetryCount + 1,
+                    EventCodec.SERIALIZATION_FORMAT, serializedEvent.getFormat().asString()))
                 .build(),
-            eventAsBytes));
+            serializedEvent.getPayload()));
 
         return sender.send(retryMessage)
             .doOnError(throwable -> createStructuredLogger(event)
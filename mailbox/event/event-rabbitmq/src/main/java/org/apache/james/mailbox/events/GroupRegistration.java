@@ -27,19 +27,27 @@ import static org.apache.james.backends.rabbitmq.Constants.NO_ARGUMENTS;
 import static org.apache.james.mailbox.events.RabbitMQEventBus.MAILBOX_EVENT;
 import static org.apache.james.mailbox.events.RabbitMQEventBus.MAILBOX_EVENT_EXCHANGE_NAME;
 
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
-import org.apache.james.event.json.EventSerializer;
+import org.apache.james.metrics.api.GaugeRegistry;
 import org.apache.james.util.MDCBuilder;
 
 import com.github.fge.lambdas.Throwing;
+import com.github.steveash.guavate.Guavate;
 import com.google.common.base.Preconditions;
+import com.rabbitmq.client.AMQP;
 
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.rabbitmq.AcknowledgableDelivery;
@@ -48,6 +56,8 @@ import reactor.rabbitmq.ConsumeOptions;
 import reactor.rabbitmq.QueueSpecification;
 import reactor.rabbitmq.Receiver;
 import reactor.rabbitmq.Sender;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 class GroupRegistration implements Registration {
     static class WorkQueueName {
@@ -71,34 +81,55 @@ class GroupRegistration implements Registration {
 
     static final String RETRY_COUNT = "retry-count";
     static final int DEFAULT_RETRY_COUNT = 0;
+    static final String LAG_METRIC_NAME_PREFIX = "event-bus-group-lag-";
+    static final String IN_FLIGHT_METRIC_NAME_PREFIX = "event-bus-group-in-flight-";
+    static final String PROCESSED_METRIC_NAME_PREFIX = "event-bus-group-processed-";
+    private static final int RETRY_LANE = -1;
+    private static final boolean ORDERED = true;
+    private static final boolean UNORDERED = false;
+    private static final Duration LAG_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration LAG_REFRESH_INTERVAL = Duration.ofSeconds(10);
 
     private final MailboxListener mailboxListener;
     private final WorkQueueName queueName;
     private final Receiver receiver;
     private final Runnable unregisterGroup;
     private final Sender sender;
-    private final EventSerializer eventSerializer;
+    private final EventCodec eventCodec;
     private final GroupConsumerRetry retryHandler;
     private final WaitDelayGenerator delayGenerator;
     private final Group group;
     private final MailboxListenerExecutor mailboxListenerExecutor;
+    private final Optional<Integer> parallelism;
+    private final GaugeRegistry gaugeRegistry;
+    private final AtomicLong inFlight;
+    private final AtomicLong processed;
+    private final AtomicLong lag;
     private Optional<Disposable> receiverSubscriber;
+    private Optional<Disposable> lagRefresher;
 
-    GroupRegistration(ReactorRabbitMQChannelPool reactorRabbitMQChannelPool, EventSerializer eventSerializer,
+    GroupRegistration(ReactorRabbitMQChannelPool reactorRabbitMQChannelPool, EventCodec eventCodec,
                       MailboxListener mailboxListener, Group group, RetryBackoffConfiguration retryBackoff,
                       EventDeadLetters eventDeadLetters,
-                      Runnable unregisterGroup, MailboxListenerExecutor mailboxListenerExecutor) {
-        this.eventSerializer = eventSerializer;
+                      Runnable unregisterGroup, MailboxListenerExecutor mailboxListenerExecutor,
+                      Optional<Integer> parallelism, GaugeRegistry gaugeRegistry) {
+        this.eventCodec = eventCodec;
         this.mailboxListener = mailboxListener;
         this.queueName = WorkQueueName.of(group);
         this.sender = reactorRabbitMQChannelPool.getSender();
         this.receiver = reactorRabbitMQChannelPool.createReceiver();
         this.mailboxListenerExecutor = mailboxListenerExecutor;
         this.receiverSubscriber = Optional.empty();
+        this.lagRefresher = Optional.empty();
         this.unregisterGroup = unregisterGroup;
-        this.retryHandler = new GroupConsumerRetry(sender, group, retryBackoff, eventDeadLetters, eventSerializer);
+        this.retryHandler = new GroupConsumerRetry(sender, group, retryBackoff, eventDeadLetters, eventCodec);
         this.delayGenerator = WaitDelayGenerator.of(retryBackoff);
         this.group = group;
+        this.parallelism = parallelism;
+        this.gaugeRegistry = gaugeRegistry;
+        this.inFlight = new AtomicLong();
+        this.processed = new AtomicLong();
+        this.lag = new AtomicLong();
     }
 
     GroupRegistration start() {
@@ -107,9 +138,39 @@ class GroupRegistration implements Registration {
                 .then(retryHandler.createRetryExchange(queueName))
                 .then(Mono.fromCallable(() -> this.consumeWorkQueue()))
                 .block());
+        lagRefresher = Optional.of(refreshLag());
+        registerGauges();
         return this;
     }
 
+    private void registerGauges() {
+        gaugeRegistry
+            .register(LAG_METRIC_NAME_PREFIX + group.asString(), lag::get)
+            .register(IN_FLIGHT_METRIC_NAME_PREFIX + group.asString(), inFlight::get)
+            .register(PROCESSED_METRIC_NAME_PREFIX + group.asString(), processed::get);
+    }
+
+    private void unregisterGauges() {
+        gaugeRegistry
+            .unregister(LAG_METRIC_NAME_PREFIX + group.asString())
+            .unregister(IN_FLIGHT_METRIC_NAME_PREFIX + group.asString())
+            .unregister(PROCESSED_METRIC_NAME_PREFIX + group.asString());
+    }
+
+    /**
+     * The lag gauge reports the last known size of the work queue, refreshed periodically, so that reading metrics
+     * never waits for RabbitMQ.
+     */
+    private Disposable refreshLag() {
+        return Flux.interval(Duration.ZERO, LAG_REFRESH_INTERVAL)
+            .onBackpressureDrop()
+            .concatMap(any -> sender.declareQueue(QueueSpecification.queue(queueName.asString()).passive(true))
+                .timeout(LAG_TIMEOUT)
+                .map(AMQP.Queue.DeclareOk::getMessageCount)
+                .onErrorResume(e -> Mono.empty()))
+            .subscribe(lag::set);
+    }
+
     private Mono<Void> createGroupWorkQueue() {
         return Flux.concat(
             sender.declareQueue(QueueSpecification.queue(queueName.asString())
@@ -124,24 +185,128 @@ class GroupRegistration implements Registration {
             .then();
     }
 
+    /**
+     * Without configured parallelism, events are handled concurrently. Otherwise they are partitioned by mailbox into
+     * lanes, each lane handling its events in order. Retried events, already out of order, bypass the lanes so that
+     * their delay does not hold back other events.
+     */
     private Disposable consumeWorkQueue() {
-        return receiver.consumeManualAck(queueName.asString(), new ConsumeOptions().qos(EventBus.EXECUTION_RATE))
+        Flux<Tuple2<AcknowledgableDelivery, Event>> deliveries = receiver.consumeManualAck(queueName.asString(), new ConsumeOptions().qos(qos()))
             .publishOn(Schedulers.parallel())
             .filter(delivery -> Objects.nonNull(delivery.getBody()))
-            .flatMap(this::deliver)
+            .doOnNext(any -> inFlight.incrementAndGet())
+            .map(delivery -> Tuples.of(delivery, eventCodec.deserialize(delivery)));
+
+        return parallelism
+            .map(lanes -> deliveries
+                .groupBy(delivery -> lane(delivery, lanes))
+                .flatMap(this::consumeLane, lanes + 1))
+            .orElseGet(() -> consume(deliveries, UNORDERED))
             .subscribe();
     }
 
-    private Mono<Void> deliver(AcknowledgableDelivery acknowledgableDelivery) {
-        byte[] eventAsBytes = acknowledgableDelivery.getBody();
-        Event event = eventSerializer.fromJson(new String(eventAsBytes, StandardCharsets.UTF_8)).get();
+    private int lane(Tuple2<AcknowledgableDelivery, Event> delivery, int lanes) {
+        if (getRetryCount(delivery.getT1()) > DEFAULT_RETRY_COUNT) {
+            return RETRY_LANE;
+        }
+        return Math.floorMod(partitionKey(delivery.getT2()).hashCode(), lanes);
+    }
+
+    private Flux<Void> consumeLane(GroupedFlux<Integer, Tuple2<AcknowledgableDelivery, Event>> lane) {
+        if (lane.key() == RETRY_LANE) {
+            return lane.flatMap(this::deliver);
+        }
+        return consume(lane, ORDERED);
+    }
+
+    private Flux<Void> consume(Flux<Tuple2<AcknowledgableDelivery, Event>> deliveries, boolean ordered) {
+        if (mailboxListener instanceof MailboxListener.BatchingMailboxListener) {
+            MailboxListener.BatchingMailboxListener batchingListener = (MailboxListener.BatchingMailboxListener) mailboxListener;
+            Flux<List<Tuple2<AcknowledgableDelivery, Event>>> batches = deliveries
+                .bufferTimeout(batchingListener.getMaxBatchSize(), batchingListener.getBatchWindow());
+            if (ordered) {
+                return batches.concatMap(batch -> deliver(batchingListener, batch));
+            }
+            return batches.flatMap(batch -> deliver(batchingListener, batch));
+        }
+        if (ordered) {
+            return deliveries.concatMap(this::deliver);
+        }
+        return deliveries.flatMap(this::deliver);
+    }
+
+    /**
+     * Each lane handles its events one at a time, so the prefetch is granted to every lane for all of them to be kept busy.
+     */
+    private int qos() {
+        return parallelism
+            .map(lanes -> prefetch() * lanes)
+            .orElseGet(this::prefetch);
+    }
+
+    private int prefetch() {
+        if (mailboxListener instanceof MailboxListener.BatchingMailboxListener) {
+            return Math.max(EventBus.EXECUTION_RATE, ((MailboxListener.BatchingMailboxListener) mailboxListener).getMaxBatchSize());
+        }
+        return EventBus.EXECUTION_RATE;
+    }
+
+    private Mono<Void> deliver(Tuple2<AcknowledgableDelivery, Event> delivery) {
+        AcknowledgableDelivery acknowledgableDelivery = delivery.getT1();
+        Event event = delivery.getT2();
         int currentRetryCount = getRetryCount(acknowledgableDelivery);
 
         return delayGenerator.delayIfHaveTo(currentRetryCount)
             .publishOn(Schedulers.boundedElastic())
             .flatMap(any -> Mono.fromRunnable(Throwing.runnable(() -> runListener(event))))
             .onErrorResume(throwable -> retryHandler.handleRetry(event, currentRetryCount, throwable))
-            .then(Mono.fromRunnable(acknowledgableDelivery::ack));
+            .then(Mono.fromRunnable(() -> ack(acknowledgableDelivery)));
+    }
+
+    /**
+     * Retried events are delivered one at a time, so that each of them keeps its own retry count and delay. Other events
+     * are split by mailbox, and each resulting batch is acknowledged once handled.
+     */
+    private Mono<Void> deliver(MailboxListener.BatchingMailboxListener batchingListener, List<Tuple2<AcknowledgableDelivery, Event>> deliveries) {
+        Map<Boolean, List<Tuple2<AcknowledgableDelivery, Event>>> deliveriesByRetried = deliveries.stream()
+            .collect(Collectors.partitioningBy(delivery -> getRetryCount(delivery.getT1()) > DEFAULT_RETRY_COUNT));
+
+        Map<Object, List<Tuple2<AcknowledgableDelivery, Event>>> firstDeliveriesByBatchKey = deliveriesByRetried.get(false)
+            .stream()
+            .collect(Collectors.groupingBy(deliveredEvent -> partitionKey(deliveredEvent.getT2()), LinkedHashMap::new, Collectors.toList()));
+
+        return Flux.merge(
+                Flux.fromIterable(deliveriesByRetried.get(true))
+                    .flatMap(this::deliver),
+                Flux.fromIterable(firstDeliveriesByBatchKey.values())
+                    .flatMap(batch -> deliverBatch(batchingListener, batch)))
+            .then();
+    }
+
+    private Mono<Void> deliverBatch(MailboxListener.BatchingMailboxListener batchingListener, List<Tuple2<AcknowledgableDelivery, Event>> batch) {
+        List<Event> events = batch.stream()
+            .map(Tuple2::getT2)
+            .collect(Guavate.toImmutableList());
+
+        return Mono.fromRunnable(Throwing.runnable(() -> runListener(batchingListener, events)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(throwable -> Flux.fromIterable(events)
+                .concatMap(event -> retryHandler.handleRetry(event, DEFAULT_RETRY_COUNT, throwable))
+                .then())
+            .then(Mono.fromRunnable(() -> batch.forEach(deliveredEvent -> ack(deliveredEvent.getT1()))));
+    }
+
+    private void ack(AcknowledgableDelivery acknowledgableDelivery) {
+        acknowledgableDelivery.ack();
+        inFlight.decrementAndGet();
+        processed.incrementAndGet();
+    }
+
+    private Object partitionKey(Event event) {
+        if (event instanceof MailboxListener.MailboxEvent) {
+            return ((MailboxListener.MailboxEvent) event).getMailboxId();
+        }
+        return event.getUsername();
     }
 
     Mono<Void> reDeliver(Event event) {
@@ -156,6 +321,14 @@ class GroupRegistration implements Registration {
             event);
     }
 
+    private void runListener(MailboxListener.BatchingMailboxListener batchingListener, List<Event> events) throws Exception {
+        mailboxListenerExecutor.execute(
+            batchingListener,
+            MDCBuilder.create()
+                .addContext(EventBus.StructuredLoggingFields.GROUP, group),
+            events);
+    }
+
     private int getRetryCount(AcknowledgableDelivery acknowledgableDelivery) {
         return Optional.ofNullable(acknowledgableDelivery.getProperties().getHeaders())
             .flatMap(headers -> Optional.ofNullable(headers.get(RETRY_COUNT)))
@@ -168,6 +341,8 @@ class GroupRegistration implements Registration {
     public void unregister() {
         receiverSubscriber.filter(subscriber -> !subscriber.isDisposed())
             .ifPresent(Disposable::dispose);
+        lagRefresher.ifPresent(Disposable::dispose);
+        unregisterGauges();
         receiver.close();
         unregisterGroup.run();
     }
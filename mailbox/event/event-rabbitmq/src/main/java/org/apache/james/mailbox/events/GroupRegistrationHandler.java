@@ -24,24 +24,29 @@ import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
-import org.apache.james.event.json.EventSerializer;
+import org.apache.james.metrics.api.GaugeRegistry;
 
 class GroupRegistrationHandler {
     private final Map<Group, GroupRegistration> groupRegistrations;
-    private final EventSerializer eventSerializer;
+    private final EventCodec eventCodec;
     private final RetryBackoffConfiguration retryBackoff;
     private final EventDeadLetters eventDeadLetters;
     private final MailboxListenerExecutor mailboxListenerExecutor;
     private final ReactorRabbitMQChannelPool reactorRabbitMQChannelPool;
+    private final RabbitMQEventBusConfiguration configuration;
+    private final GaugeRegistry gaugeRegistry;
 
-    GroupRegistrationHandler(EventSerializer eventSerializer, ReactorRabbitMQChannelPool reactorRabbitMQChannelPool,
+    GroupRegistrationHandler(EventCodec eventCodec, ReactorRabbitMQChannelPool reactorRabbitMQChannelPool,
                              RetryBackoffConfiguration retryBackoff,
-                             EventDeadLetters eventDeadLetters, MailboxListenerExecutor mailboxListenerExecutor) {
-        this.eventSerializer = eventSerializer;
+                             EventDeadLetters eventDeadLetters, MailboxListenerExecutor mailboxListenerExecutor,
+                             RabbitMQEventBusConfiguration configuration, GaugeRegistry gaugeRegistry) {
+        this.eventCodec = eventCodec;
         this.reactorRabbitMQChannelPool = reactorRabbitMQChannelPool;
         this.retryBackoff = retryBackoff;
         this.eventDeadLetters = eventDeadLetters;
         this.mailboxListenerExecutor = mailboxListenerExecutor;
+        this.configuration = configuration;
+        this.gaugeRegistry = gaugeRegistry;
         this.groupRegistrations = new ConcurrentHashMap<>();
     }
 
@@ -68,12 +73,14 @@ class GroupRegistrationHandler {
     private GroupRegistration newGroupRegistration(MailboxListener listener, Group group) {
         return new GroupRegistration(
             reactorRabbitMQChannelPool,
-            eventSerializer,
+            eventCodec,
             listener,
             group,
             retryBackoff,
             eventDeadLetters,
             () -> groupRegistrations.remove(group),
-            mailboxListenerExecutor);
+            mailboxListenerExecutor,
+            configuration.getGroupParallelism(group),
+            gaugeRegistry);
     }
 }
\ No newline at end of file
@@ -22,11 +22,14 @@ package org.apache.james.mailbox.events;
 import static org.apache.james.mailbox.events.EventBus.Metrics.timerName;
 
 import java.io.Closeable;
+import java.util.List;
 
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.metrics.api.TimeMetric;
 import org.apache.james.util.MDCBuilder;
 
+import com.github.steveash.guavate.Guavate;
+
 public class MailboxListenerExecutor {
     private final MetricFactory metricFactory;
 
@@ -45,6 +48,31 @@ public class MailboxListenerExecutor {
         }
     }
 
+    void execute(MailboxListener.BatchingMailboxListener listener, MDCBuilder mdcBuilder, List<Event> events) throws Exception {
+        List<Event> handledEvents = events.stream()
+            .filter(listener::isHandling)
+            .collect(Guavate.toImmutableList());
+
+        if (!handledEvents.isEmpty()) {
+            TimeMetric timer = metricFactory.timer(timerName(listener));
+            try (Closeable mdc = buildMDC(listener, mdcBuilder, handledEvents)) {
+                listener.events(handledEvents);
+            } finally {
+                timer.stopAndPublish();
+            }
+        }
+    }
+
+    private Closeable buildMDC(MailboxListener listener, MDCBuilder mdcBuilder, List<Event> events) {
+        return mdcBuilder
+            .addContext(EventBus.StructuredLoggingFields.EVENT_ID, events.stream()
+                .map(Event::getEventId)
+                .collect(Guavate.toImmutableList()))
+            .addContext(EventBus.StructuredLoggingFields.USER, events.get(0).getUsername())
+            .addContext(EventBus.StructuredLoggingFields.LISTENER_CLASS, listener.getClass())
+            .build();
+    }
+
     private Closeable buildMDC(MailboxListener listener, MDCBuilder mdcBuilder, Event event) {
         return mdcBuilder
             .addContext(EventBus.StructuredLoggingFields.EVENT_ID, event.getEventId())
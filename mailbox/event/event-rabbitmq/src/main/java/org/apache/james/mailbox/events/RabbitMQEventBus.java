@@ -25,8 +25,10 @@ import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
+import org.apache.james.event.json.BinaryEventSerializer;
 import org.apache.james.event.json.EventSerializer;
 import org.apache.james.lifecycle.api.Startable;
+import org.apache.james.metrics.api.GaugeRegistry;
 import org.apache.james.metrics.api.MetricFactory;
 
 import com.google.common.base.Preconditions;
@@ -39,13 +41,16 @@ public class RabbitMQEventBus implements EventBus, Startable {
     static final String MAILBOX_EVENT_EXCHANGE_NAME = MAILBOX_EVENT + "-exchange";
     static final String EVENT_BUS_ID = "eventBusId";
 
-    private final EventSerializer eventSerializer;
+    private final EventCodec eventCodec;
     private final RoutingKeyConverter routingKeyConverter;
     private final RetryBackoffConfiguration retryBackoff;
     private final EventBusId eventBusId;
     private final EventDeadLetters eventDeadLetters;
     private final ReactorRabbitMQChannelPool channelPool;
     private final MailboxListenerExecutor mailboxListenerExecutor;
+    private final RabbitMQEventBusConfiguration configuration;
+    private final MetricFactory metricFactory;
+    private final GaugeRegistry gaugeRegistry;
 
     private volatile boolean isRunning;
     private volatile boolean isStopping;
@@ -55,16 +60,20 @@ public class RabbitMQEventBus implements EventBus, Startable {
 
     @Inject
     public RabbitMQEventBus(ReactorRabbitMQChannelPool reactorRabbitMQChannelPool, EventSerializer eventSerializer,
+                     BinaryEventSerializer binaryEventSerializer, RabbitMQEventBusConfiguration configuration,
                      RetryBackoffConfiguration retryBackoff,
                      RoutingKeyConverter routingKeyConverter,
-                     EventDeadLetters eventDeadLetters, MetricFactory metricFactory) {
+                     EventDeadLetters eventDeadLetters, MetricFactory metricFactory, GaugeRegistry gaugeRegistry) {
         this.channelPool = reactorRabbitMQChannelPool;
         this.mailboxListenerExecutor = new MailboxListenerExecutor(metricFactory);
         this.eventBusId = EventBusId.random();
-        this.eventSerializer = eventSerializer;
+        this.eventCodec = new EventCodec(eventSerializer, binaryEventSerializer, configuration.getSerializationFormat());
         this.routingKeyConverter = routingKeyConverter;
         this.retryBackoff = retryBackoff;
         this.eventDeadLetters = eventDeadLetters;
+        this.configuration = configuration;
+        this.metricFactory = metricFactory;
+        this.gaugeRegistry = gaugeRegistry;
         this.isRunning = false;
         this.isStopping = false;
     }
@@ -73,9 +82,11 @@ public class RabbitMQEventBus implements EventBus, Startable {
         if (!isRunning && !isStopping) {
 
             LocalListenerRegistry localListenerRegistry = new LocalListenerRegistry();
-            keyRegistrationHandler = new KeyRegistrationHandler(eventBusId, eventSerializer, channelPool, routingKeyConverter, localListenerRegistry, mailboxListenerExecutor);
-            groupRegistrationHandler = new GroupRegistrationHandler(eventSerializer, channelPool, retryBackoff, eventDeadLetters, mailboxListenerExecutor);
-            eventDispatcher = new EventDispatcher(eventBusId, eventSerializer, channelPool.getSender(), localListenerRegistry, mailboxListenerExecutor);
+            keyRegistrationHandler = new KeyRegistrationHandler(eventBusId, eventCodec, channelPool, routingKeyConverter, localListenerRegistry, mailboxListenerExecutor);
+            groupRegistrationHandler = new GroupRegistrationHandler(eventCodec, channelPool, retryBackoff, eventDeadLetters, mailboxListenerExecutor,
+                configuration, gaugeRegistry);
+            eventDispatcher = new EventDispatcher(eventBusId, eventCodec, channelPool.getSender(), localListenerRegistry, mailboxListenerExecutor,
+                configuration, metricFactory);
 
             eventDispatcher.start();
             keyRegistrationHandler.start();
@@ -88,6 +99,7 @@ public class RabbitMQEventBus implements EventBus, Startable {
         if (isRunning && !isStopping) {
             isStopping = true;
             isRunning = false;
+            eventDispatcher.stop();
             groupRegistrationHandler.stop();
             keyRegistrationHandler.stop();
         }
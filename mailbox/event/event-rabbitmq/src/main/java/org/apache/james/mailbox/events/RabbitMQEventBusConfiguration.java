@@ -0,0 +1,250 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.events;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import reactor.core.scheduler.Schedulers;
+
+public class RabbitMQEventBusConfiguration {
+    public enum SerializationFormat {
+        JSON("json"),
+        BINARY("binary");
+
+        public static SerializationFormat parse(String value) {
+            Preconditions.checkNotNull(value);
+
+            return Arrays.stream(values())
+                .filter(format -> format.value.equalsIgnoreCase(value.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown event serialization format '" + value + "'. Expecting one of "
+                    + Arrays.toString(values())));
+        }
+
+        private final String value;
+
+        SerializationFormat(String value) {
+            this.value = value;
+        }
+
+        public String asString() {
+            return value;
+        }
+    }
+
+    public static class Builder {
+        private Optional<SerializationFormat> serializationFormat;
+        private Optional<Integer> dispatchThreads;
+        private Optional<Integer> publishMaxBatchSize;
+        private Optional<Integer> publishMaxPending;
+        private final ImmutableMap.Builder<String, Integer> groupParallelism;
+
+        private Builder() {
+            this.serializationFormat = Optional.empty();
+            this.dispatchThreads = Optional.empty();
+            this.publishMaxBatchSize = Optional.empty();
+            this.publishMaxPending = Optional.empty();
+            this.groupParallelism = ImmutableMap.builder();
+        }
+
+        public Builder serializationFormat(SerializationFormat serializationFormat) {
+            this.serializationFormat = Optional.of(serializationFormat);
+            return this;
+        }
+
+        public Builder serializationFormat(Optional<SerializationFormat> serializationFormat) {
+            this.serializationFormat = serializationFormat;
+            return this;
+        }
+
+        public Builder dispatchThreads(int dispatchThreads) {
+            Preconditions.checkArgument(dispatchThreads > 0, "'dispatchThreads' needs to be strictly positive");
+            this.dispatchThreads = Optional.of(dispatchThreads);
+            return this;
+        }
+
+        public Builder dispatchThreads(Optional<Integer> dispatchThreads) {
+            dispatchThreads.ifPresent(this::dispatchThreads);
+            return this;
+        }
+
+        public Builder publishMaxBatchSize(int publishMaxBatchSize) {
+            Preconditions.checkArgument(publishMaxBatchSize > 0, "'publishMaxBatchSize' needs to be strictly positive");
+            this.publishMaxBatchSize = Optional.of(publishMaxBatchSize);
+            return this;
+        }
+
+        public Builder publishMaxBatchSize(Optional<Integer> publishMaxBatchSize) {
+            publishMaxBatchSize.ifPresent(this::publishMaxBatchSize);
+            return this;
+        }
+
+        public Builder publishMaxPending(int publishMaxPending) {
+            Preconditions.checkArgument(publishMaxPending > 0, "'publishMaxPending' needs to be strictly positive");
+            this.publishMaxPending = Optional.of(publishMaxPending);
+            return this;
+        }
+
+        public Builder publishMaxPending(Optional<Integer> publishMaxPending) {
+            publishMaxPending.ifPresent(this::publishMaxPending);
+            return this;
+        }
+
+        public Builder groupParallelism(Group group, int parallelism) {
+            return groupParallelism(group.asString(), parallelism);
+        }
+
+        private Builder groupParallelism(String group, int parallelism) {
+            Preconditions.checkArgument(parallelism > 0, "'parallelism' of group %s needs to be strictly positive", group);
+            this.groupParallelism.put(group, parallelism);
+            return this;
+        }
+
+        public RabbitMQEventBusConfiguration build() {
+            return new RabbitMQEventBusConfiguration(
+                serializationFormat.orElse(DEFAULT_SERIALIZATION_FORMAT),
+                dispatchThreads.orElse(DEFAULT_DISPATCH_THREADS),
+                publishMaxBatchSize.orElse(DEFAULT_PUBLISH_MAX_BATCH_SIZE),
+                publishMaxPending.orElse(DEFAULT_PUBLISH_MAX_PENDING),
+                groupParallelism.build());
+        }
+    }
+
+    public static final String SERIALIZATION_FORMAT_PROPERTY = "event.bus.serialization.format";
+    public static final String DISPATCH_THREADS_PROPERTY = "event.bus.dispatch.threads";
+    public static final String PUBLISH_MAX_BATCH_SIZE_PROPERTY = "event.bus.publish.max.batch.size";
+    public static final String PUBLISH_MAX_PENDING_PROPERTY = "event.bus.publish.max.pending";
+    public static final String GROUP_PARALLELISM_PROPERTY_PREFIX = "event.bus.group.parallelism";
+    private static final SerializationFormat DEFAULT_SERIALIZATION_FORMAT = SerializationFormat.JSON;
+    private static final int DEFAULT_DISPATCH_THREADS = Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE;
+    private static final int DEFAULT_PUBLISH_MAX_BATCH_SIZE = 100;
+    private static final int DEFAULT_PUBLISH_MAX_PENDING = 10000;
+    public static final RabbitMQEventBusConfiguration DEFAULT = builder().build();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static RabbitMQEventBusConfiguration from(Configuration configuration) {
+        Builder builder = builder()
+            .serializationFormat(Optional.ofNullable(configuration.getString(SERIALIZATION_FORMAT_PROPERTY, null))
+                .map(SerializationFormat::parse))
+            .dispatchThreads(Optional.ofNullable(configuration.getInteger(DISPATCH_THREADS_PROPERTY, null)))
+            .publishMaxBatchSize(Optional.ofNullable(configuration.getInteger(PUBLISH_MAX_BATCH_SIZE_PROPERTY, null)))
+            .publishMaxPending(Optional.ofNullable(configuration.getInteger(PUBLISH_MAX_PENDING_PROPERTY, null)));
+
+        configuration.getKeys(GROUP_PARALLELISM_PROPERTY_PREFIX)
+            .forEachRemaining(key -> builder.groupParallelism(
+                key.substring(GROUP_PARALLELISM_PROPERTY_PREFIX.length() + 1),
+                configuration.getInt(key)));
+
+        return builder.build();
+    }
+
+    private final SerializationFormat serializationFormat;
+    private final int dispatchThreads;
+    private final int publishMaxBatchSize;
+    private final int publishMaxPending;
+    private final ImmutableMap<String, Integer> groupParallelism;
+
+    private RabbitMQEventBusConfiguration(SerializationFormat serializationFormat, int dispatchThreads, int publishMaxBatchSize,
+                                          int publishMaxPending, ImmutableMap<String, Integer> groupParallelism) {
+        this.serializationFormat = serializationFormat;
+        this.dispatchThreads = dispatchThreads;
+        this.publishMaxBatchSize = publishMaxBatchSize;
+        this.publishMaxPending = publishMaxPending;
+        this.groupParallelism = groupParallelism;
+    }
+
+    /**
+     * Format used to publish events carrying message metadata. Every node decodes both formats, thus the binary format
+     * should only be enabled once all the nodes of the cluster are upgraded. Other events are always published as JSON.
+     */
+    public SerializationFormat getSerializationFormat() {
+        return serializationFormat;
+    }
+
+    /**
+     * Size of the thread pool running the synchronous local listeners of dispatched events.
+     */
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    /**
+     * Maximum count of messages published to RabbitMQ within a single confirmed channel write.
+     */
+    public int getPublishMaxBatchSize() {
+        return publishMaxBatchSize;
+    }
+
+    /**
+     * Maximum count of messages waiting to be confirmed by RabbitMQ. Dispatching fails beyond it.
+     */
+    public int getPublishMaxPending() {
+        return publishMaxPending;
+    }
+
+    /**
+     * Count of lanes consuming the work queue of the given group. Events of a given mailbox always go through the same
+     * lane, in order. When not configured, events are handled concurrently without ordering guarantees.
+     */
+    public Optional<Integer> getGroupParallelism(Group group) {
+        return Optional.ofNullable(groupParallelism.get(group.asString()));
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof RabbitMQEventBusConfiguration) {
+            RabbitMQEventBusConfiguration that = (RabbitMQEventBusConfiguration) o;
+
+            return Objects.equals(this.serializationFormat, that.serializationFormat)
+                && Objects.equals(this.dispatchThreads, that.dispatchThreads)
+                && Objects.equals(this.publishMaxBatchSize, that.publishMaxBatchSize)
+                && Objects.equals(this.publishMaxPending, that.publishMaxPending)
+                && Objects.equals(this.groupParallelism, that.groupParallelism);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(serializationFormat, dispatchThreads, publishMaxBatchSize, publishMaxPending, groupParallelism);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("serializationFormat", serializationFormat)
+            .add("dispatchThreads", dispatchThreads)
+            .add("publishMaxBatchSize", publishMaxBatchSize)
+            .add("publishMaxPending", publishMaxPending)
+            .add("groupParallelism", groupParallelism)
+            .toString();
+    }
+}
@@ -0,0 +1,176 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.events;
+
+import static org.apache.james.mailbox.events.EventBusTestFixture.EVENT;
+import static org.apache.james.mailbox.events.EventBusTestFixture.EVENT_2;
+import static org.apache.james.mailbox.events.EventBusTestFixture.KEY_1;
+import static org.apache.james.mailbox.events.EventBusTestFixture.KEY_2;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Duration.ONE_SECOND;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import org.apache.james.event.json.BinaryEventSerializer;
+import org.apache.james.event.json.EventSerializer;
+import org.apache.james.mailbox.events.RoutingKeyConverter.RoutingKey;
+import org.apache.james.mailbox.model.TestId;
+import org.apache.james.mailbox.model.TestMessageId;
+import org.apache.james.mailbox.store.quota.DefaultUserQuotaRootResolver;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import com.google.common.collect.ImmutableSet;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.ExchangeSpecification;
+import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.OutboundMessageResult;
+import reactor.rabbitmq.Sender;
+
+class EventDispatcherTest {
+    private static final String KEY_1_ROUTING_KEY = RoutingKey.of(KEY_1).asString();
+    private static final String KEY_2_ROUTING_KEY = RoutingKey.of(KEY_2).asString();
+    private static final Duration BLOCK_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration UNCONFIRMED_BATCH_DURATION = Duration.ofSeconds(2);
+
+    private Sender sender;
+    private List<String> publishedRoutingKeys;
+    private EventDispatcher testee;
+
+    @BeforeEach
+    void setUp() {
+        sender = mock(Sender.class);
+        when(sender.declareExchange(any(ExchangeSpecification.class))).thenReturn(Mono.empty());
+        publishedRoutingKeys = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testee.stop();
+    }
+
+    private void start(RabbitMQEventBusConfiguration configuration) {
+        TestId.Factory mailboxIdFactory = new TestId.Factory();
+        EventCodec eventCodec = new EventCodec(
+            new EventSerializer(mailboxIdFactory, new TestMessageId.Factory(), new DefaultUserQuotaRootResolver.DefaultQuotaRootDeserializer()),
+            new BinaryEventSerializer(mailboxIdFactory, new TestMessageId.Factory()),
+            RabbitMQEventBusConfiguration.SerializationFormat.JSON);
+        NoopMetricFactory metricFactory = new NoopMetricFactory();
+        testee = new EventDispatcher(EventBusId.random(), eventCodec, sender, new LocalListenerRegistry(),
+            new MailboxListenerExecutor(metricFactory), configuration, metricFactory);
+        testee.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void confirmWhen(Predicate<OutboundMessage> isAck) {
+        when(sender.sendWithPublishConfirms(any(Publisher.class))).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<OutboundMessage>>getArgument(0))
+                .doOnNext(message -> publishedRoutingKeys.add(message.getRoutingKey()))
+                .map(message -> new OutboundMessageResult(message, isAck.test(message))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void confirmNothing() {
+        when(sender.sendWithPublishConfirms(any(Publisher.class))).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<OutboundMessage>>getArgument(0))
+                .doOnNext(message -> publishedRoutingKeys.add(message.getRoutingKey()))
+                .thenMany(Mono.delay(UNCONFIRMED_BATCH_DURATION)
+                    .thenMany(Flux.<OutboundMessageResult>empty())));
+    }
+
+    private long publicationsOf(String routingKey) {
+        return publishedRoutingKeys.stream()
+            .filter(routingKey::equals)
+            .count();
+    }
+
+    @Test
+    void dispatchShouldNotWaitForPublisherConfirms() {
+        confirmNothing();
+        start(RabbitMQEventBusConfiguration.DEFAULT);
+
+        assertThatCode(() -> testee.dispatch(EVENT, ImmutableSet.of(KEY_1)).block(BLOCK_TIMEOUT))
+            .doesNotThrowAnyException();
+    }
+
+    @Test
+    void nackedBatchShouldNotDelayOtherPublications() {
+        confirmWhen(message -> !message.getRoutingKey().equals(KEY_1_ROUTING_KEY));
+        start(RabbitMQEventBusConfiguration.DEFAULT);
+
+        testee.dispatch(EVENT, ImmutableSet.of(KEY_1)).block();
+        await().atMost(ONE_SECOND).until(() -> publicationsOf(KEY_1_ROUTING_KEY) == 1);
+        testee.dispatch(EVENT_2, ImmutableSet.of(KEY_2)).block();
+
+        await().atMost(ONE_SECOND).until(() -> publicationsOf(KEY_1_ROUTING_KEY) >= 2);
+        assertThat(publishedRoutingKeys.indexOf(KEY_2_ROUTING_KEY))
+            .isBetween(0, publishedRoutingKeys.lastIndexOf(KEY_1_ROUTING_KEY));
+    }
+
+    @Test
+    void nackedMessagesShouldBePublishedAgain() {
+        confirmWhen(message -> !message.getRoutingKey().equals(KEY_1_ROUTING_KEY) || publicationsOf(KEY_1_ROUTING_KEY) > 1);
+        start(RabbitMQEventBusConfiguration.DEFAULT);
+
+        testee.dispatch(EVENT, ImmutableSet.of(KEY_1)).block();
+
+        await().atMost(ONE_SECOND).until(() -> publicationsOf(KEY_1_ROUTING_KEY) == 2);
+    }
+
+    @Test
+    void dispatchShouldWaitWhenTooManyMessagesArePendingConfirmation() {
+        confirmNothing();
+        start(RabbitMQEventBusConfiguration.builder()
+            .publishMaxPending(1)
+            .build());
+
+        testee.dispatch(EVENT, ImmutableSet.of()).block(BLOCK_TIMEOUT);
+
+        assertThatThrownBy(() -> testee.dispatch(EVENT_2, ImmutableSet.of()).block(Duration.ofMillis(200)))
+            .hasMessageContaining("Timeout on Mono blocking read");
+    }
+
+    @Test
+    void dispatchShouldResumeOncePendingMessagesAreConfirmed() {
+        confirmWhen(message -> true);
+        start(RabbitMQEventBusConfiguration.builder()
+            .publishMaxPending(1)
+            .build());
+
+        assertThatCode(() -> Flux.range(0, 10)
+                .concatMap(i -> testee.dispatch(EVENT, ImmutableSet.of(KEY_1)))
+                .blockLast(BLOCK_TIMEOUT))
+            .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,148 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mailbox.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.james.mailbox.events.RabbitMQEventBusConfiguration.SerializationFormat;
+import org.junit.jupiter.api.Test;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+
+class RabbitMQEventBusConfigurationTest {
+    @Test
+    void shouldMatchBeanContract() {
+        EqualsVerifier.forClass(RabbitMQEventBusConfiguration.class).verify();
+    }
+
+    @Test
+    void fromShouldReturnDefaultForEmptyConfiguration() {
+        assertThat(RabbitMQEventBusConfiguration.from(new PropertiesConfiguration()))
+            .isEqualTo(RabbitMQEventBusConfiguration.DEFAULT);
+    }
+
+    @Test
+    void defaultSerializationFormatShouldBeJson() {
+        assertThat(RabbitMQEventBusConfiguration.DEFAULT.getSerializationFormat())
+            .isEqualTo(SerializationFormat.JSON);
+    }
+
+    @Test
+    void fromShouldReturnConfiguredSerializationFormat() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQEventBusConfiguration.SERIALIZATION_FORMAT_PROPERTY, "binary");
+
+        assertThat(RabbitMQEventBusConfiguration.from(configuration).getSerializationFormat())
+            .isEqualTo(SerializationFormat.BINARY);
+    }
+
+    @Test
+    void fromShouldBeCaseInsensitive() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQEventBusConfiguration.SERIALIZATION_FORMAT_PROPERTY, "BINARY");
+
+        assertThat(RabbitMQEventBusConfiguration.from(configuration).getSerializationFormat())
+            .isEqualTo(SerializationFormat.BINARY);
+    }
+
+    @Test
+    void fromShouldThrowOnUnknownSerializationFormat() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQEventBusConfiguration.SERIALIZATION_FORMAT_PROPERTY, "xml");
+
+        assertThatThrownBy(() -> RabbitMQEventBusConfiguration.from(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromShouldReturnConfiguredDispatchThreads() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQEventBusConfiguration.DISPATCH_THREADS_PROPERTY, "8");
+
+        assertThat(RabbitMQEventBusConfiguration.from(configuration).getDispatchThreads())
+            .isEqualTo(8);
+    }
+
+    @Test
+    void fromShouldReturnConfiguredPublishMaxBatchSize() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQEventBusConfiguration.PUBLISH_MAX_BATCH_SIZE_PROPERTY, "20");
+
+        assertThat(RabbitMQEventBusConfiguration.from(configuration).getPublishMaxBatchSize())
+            .isEqualTo(20);
+    }
+
+    @Test
+    void fromShouldReturnConfiguredPublishMaxPending() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQEventBusConfiguration.PUBLISH_MAX_PENDING_PROPERTY, "500");
+
+        assertThat(RabbitMQEventBusConfiguration.from(configuration).getPublishMaxPending())
+            .isEqualTo(500);
+    }
+
+    @Test
+    void fromShouldThrowOnNegativeDispatchThreads() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQEventBusConfiguration.DISPATCH_THREADS_PROPERTY, "-1");
+
+        assertThatThrownBy(() -> RabbitMQEventBusConfiguration.from(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void builderShouldThrowOnZeroPublishMaxBatchSize() {
+        assertThatThrownBy(() -> RabbitMQEventBusConfiguration.builder().publishMaxBatchSize(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void builderShouldThrowOnZeroPublishMaxPending() {
+        assertThatThrownBy(() -> RabbitMQEventBusConfiguration.builder().publishMaxPending(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void groupParallelismShouldBeEmptyByDefault() {
+        assertThat(RabbitMQEventBusConfiguration.DEFAULT.getGroupParallelism(new EventBusTestFixture.GroupA()))
+            .isEmpty();
+    }
+
+    @Test
+    void fromShouldReturnConfiguredGroupParallelism() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQEventBusConfiguration.GROUP_PARALLELISM_PROPERTY_PREFIX + "." + new EventBusTestFixture.GroupA().asString(), "4");
+
+        RabbitMQEventBusConfiguration eventBusConfiguration = RabbitMQEventBusConfiguration.from(configuration);
+
+        assertThat(eventBusConfiguration.getGroupParallelism(new EventBusTestFixture.GroupA()))
+            .contains(4);
+        assertThat(eventBusConfiguration.getGroupParallelism(new EventBusTestFixture.GroupB()))
+            .isEmpty();
+    }
+
+    @Test
+    void builderShouldThrowOnZeroGroupParallelism() {
+        assertThatThrownBy(() -> RabbitMQEventBusConfiguration.builder().groupParallelism(new EventBusTestFixture.GroupA(), 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -28,9 +28,14 @@ import static org.apache.james.backends.rabbitmq.Constants.NO_ARGUMENTS;
 import static org.apache.james.mailbox.events.EventBusConcurrentTestContract.newCountingListener;
 import static org.apache.james.mailbox.events.EventBusTestFixture.ALL_GROUPS;
 import static org.apache.james.mailbox.events.EventBusTestFixture.EVENT;
+import static org.apache.james.mailbox.events.EventBusTestFixture.EVENT_ID;
 import static org.apache.james.mailbox.events.EventBusTestFixture.GROUP_A;
 import static org.apache.james.mailbox.events.EventBusTestFixture.KEY_1;
+import static org.apache.james.mailbox.events.EventBusTestFixture.MAILBOX_PATH;
 import static org.apache.james.mailbox.events.EventBusTestFixture.NO_KEYS;
+import static org.apache.james.mailbox.events.EventBusTestFixture.SESSION_ID;
+import static org.apache.james.mailbox.events.EventBusTestFixture.TEST_ID;
+import static org.apache.james.mailbox.events.EventBusTestFixture.USERNAME;
 import static org.apache.james.mailbox.events.EventBusTestFixture.WAIT_CONDITION;
 import static org.apache.james.mailbox.events.EventBusTestFixture.newListener;
 import static org.apache.james.mailbox.events.GroupRegistration.WorkQueueName.MAILBOX_EVENT_WORK_QUEUE_PREFIX;
@@ -41,29 +46,43 @@ import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.Closeable;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import javax.mail.Flags;
 
 import org.apache.james.backends.rabbitmq.RabbitMQExtension;
 import org.apache.james.backends.rabbitmq.RabbitMQExtension.DockerRestartPolicy;
 import org.apache.james.backends.rabbitmq.RabbitMQFixture;
 import org.apache.james.backends.rabbitmq.RabbitMQManagementAPI;
 import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
+import org.apache.james.event.json.BinaryEventSerializer;
 import org.apache.james.event.json.EventSerializer;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
 import org.apache.james.mailbox.events.EventBusTestFixture.GroupA;
 import org.apache.james.mailbox.events.EventBusTestFixture.MailboxListenerCountingSuccessfulExecution;
+import org.apache.james.mailbox.model.MessageMetaData;
 import org.apache.james.mailbox.model.TestId;
 import org.apache.james.mailbox.model.TestMessageId;
 import org.apache.james.mailbox.store.quota.DefaultUserQuotaRootResolver;
 import org.apache.james.mailbox.util.EventCollector;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.metrics.api.NoopMetricFactory;
 import org.apache.james.util.concurrency.ConcurrentTestRunner;
 import org.assertj.core.data.Percentage;
@@ -75,6 +94,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.stubbing.Answer;
 
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.rabbitmq.client.Delivery;
+
+import reactor.core.publisher.Flux;
 import reactor.rabbitmq.BindingSpecification;
 import reactor.rabbitmq.ExchangeSpecification;
 import reactor.rabbitmq.QueueSpecification;
@@ -85,6 +110,14 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
     KeyContract.SingleEventBusKeyContract, KeyContract.MultipleEventBusKeyContract,
     ErrorHandlingContract {
 
+    private static final RabbitMQEventBusConfiguration BINARY_CONFIGURATION = RabbitMQEventBusConfiguration.builder()
+        .serializationFormat(RabbitMQEventBusConfiguration.SerializationFormat.BINARY)
+        .build();
+    private static final MailboxListener.Added ADDED = new MailboxListener.Added(SESSION_ID, USERNAME, MAILBOX_PATH, TEST_ID,
+        ImmutableSortedMap.of(MessageUid.of(1), new MessageMetaData(MessageUid.of(1), ModSeq.of(35), new Flags(Flags.Flag.SEEN), 45,
+            new Date(), TestMessageId.of(42))),
+        EVENT_ID);
+
     @RegisterExtension
     static RabbitMQExtension rabbitMQExtension = RabbitMQExtension.singletonRabbitMQ();
 
@@ -92,6 +125,7 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
     private RabbitMQEventBus eventBus2;
     private RabbitMQEventBus eventBus3;
     private EventSerializer eventSerializer;
+    private BinaryEventSerializer binaryEventSerializer;
     private RoutingKeyConverter routingKeyConverter;
     private MemoryEventDeadLetters memoryEventDeadLetters;
 
@@ -101,6 +135,7 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
 
         TestId.Factory mailboxIdFactory = new TestId.Factory();
         eventSerializer = new EventSerializer(mailboxIdFactory, new TestMessageId.Factory(), new DefaultUserQuotaRootResolver.DefaultQuotaRootDeserializer());
+        binaryEventSerializer = new BinaryEventSerializer(mailboxIdFactory, new TestMessageId.Factory());
         routingKeyConverter = RoutingKeyConverter.forFactories(new MailboxIdRegistrationKey.Factory(mailboxIdFactory));
 
         eventBus = newEventBus();
@@ -131,7 +166,12 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
     }
 
     private RabbitMQEventBus newEventBus(ReactorRabbitMQChannelPool rabbitMQChannelPool) {
-        return new RabbitMQEventBus(rabbitMQChannelPool, eventSerializer, RetryBackoffConfiguration.DEFAULT, routingKeyConverter, memoryEventDeadLetters, new NoopMetricFactory());
+        return newEventBus(rabbitMQChannelPool, RabbitMQEventBusConfiguration.DEFAULT);
+    }
+
+    private RabbitMQEventBus newEventBus(ReactorRabbitMQChannelPool rabbitMQChannelPool, RabbitMQEventBusConfiguration configuration) {
+        return new RabbitMQEventBus(rabbitMQChannelPool, eventSerializer, binaryEventSerializer, configuration,
+            RetryBackoffConfiguration.DEFAULT, routingKeyConverter, memoryEventDeadLetters, new NoopMetricFactory(), new NoopGaugeRegistry());
     }
 
     @Override
@@ -285,18 +325,170 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
             assertThat(dequeueEvent()).isEqualTo(EVENT);
         }
 
+        @Test
+        void dispatchShouldPublishBinaryEventWhenConfigured() {
+            RabbitMQEventBus binaryEventBus = newEventBus(rabbitMQExtension.getRabbitChannelPool(), BINARY_CONFIGURATION);
+            binaryEventBus.start();
+
+            binaryEventBus.dispatch(ADDED, NO_KEYS).block();
+
+            Delivery delivery = dequeueDelivery();
+            assertThat(delivery.getProperties().getHeaders().get(EventCodec.SERIALIZATION_FORMAT).toString())
+                .isEqualTo(RabbitMQEventBusConfiguration.SerializationFormat.BINARY.asString());
+            assertThat(binaryEventSerializer.fromBinary(delivery.getBody()).get())
+                .isEqualTo(ADDED);
+            binaryEventBus.stop();
+        }
+
+        @Test
+        void dispatchShouldWaitForPendingPublicationsWhenTooManyMessagesArePending() {
+            RabbitMQEventBus boundedEventBus = newEventBus(rabbitMQExtension.getRabbitChannelPool(), RabbitMQEventBusConfiguration.builder()
+                .publishMaxPending(1)
+                .build());
+            boundedEventBus.start();
+            MailboxListener listener = newListener();
+            boundedEventBus.register(listener, GROUP_A);
+
+            assertThatCode(() -> Flux.range(0, 10)
+                    .concatMap(i -> boundedEventBus.dispatch(EVENT, ImmutableSet.of(KEY_1)))
+                    .blockLast())
+                .doesNotThrowAnyException();
+
+            RabbitMQFixture.awaitAtMostThirtySeconds
+                .untilAsserted(() -> verify(listener, times(10)).event(EVENT));
+            boundedEventBus.stop();
+        }
+
+        @Test
+        void dispatchShouldPublishJsonWhenNoBinaryEncodingForTheEvent() {
+            RabbitMQEventBus binaryEventBus = newEventBus(rabbitMQExtension.getRabbitChannelPool(), BINARY_CONFIGURATION);
+            binaryEventBus.start();
+
+            binaryEventBus.dispatch(EVENT, NO_KEYS).block();
+
+            assertThat(dequeueEvent()).isEqualTo(EVENT);
+            binaryEventBus.stop();
+        }
+
         private Event dequeueEvent() {
-            try (Receiver receiver = rabbitMQExtension.getRabbitChannelPool().createReceiver()) {
-                byte[] eventInBytes = receiver.consumeAutoAck(MAILBOX_WORK_QUEUE_NAME)
-                    .blockFirst()
-                    .getBody();
+            byte[] eventInBytes = dequeueDelivery().getBody();
+
+            return eventSerializer.fromJson(new String(eventInBytes, StandardCharsets.UTF_8))
+                .get();
+        }
 
-                return eventSerializer.fromJson(new String(eventInBytes, StandardCharsets.UTF_8))
-                    .get();
+        private Delivery dequeueDelivery() {
+            try (Receiver receiver = rabbitMQExtension.getRabbitChannelPool().createReceiver()) {
+                return receiver.consumeAutoAck(MAILBOX_WORK_QUEUE_NAME)
+                    .blockFirst();
             }
         }
     }
 
+    @Nested
+    class BinarySerializationTest {
+        private RabbitMQEventBus binaryEventBus;
+
+        @BeforeEach
+        void setUp() {
+            binaryEventBus = newEventBus(rabbitMQExtension.getRabbitChannelPool(), BINARY_CONFIGURATION);
+            binaryEventBus.start();
+        }
+
+        @AfterEach
+        void tearDown() {
+            binaryEventBus.stop();
+        }
+
+        @Test
+        void groupListenersShouldReceiveBinaryEventsPublishedByAnotherEventBus() {
+            MailboxListener listener = newListener();
+            eventBus.register(listener, GROUP_A);
+
+            binaryEventBus.dispatch(ADDED, NO_KEYS).block();
+
+            RabbitMQFixture.awaitAtMostThirtySeconds
+                .untilAsserted(() -> verify(listener).event(ADDED));
+        }
+
+        @Test
+        void keyListenersShouldReceiveBinaryEventsPublishedByAnotherEventBus() {
+            MailboxListener listener = newListener();
+            eventBus.register(listener, KEY_1);
+
+            binaryEventBus.dispatch(ADDED, ImmutableSet.of(KEY_1)).block();
+
+            RabbitMQFixture.awaitAtMostThirtySeconds
+                .untilAsserted(() -> verify(listener).event(ADDED));
+        }
+
+        @Test
+        void groupListenersOfABinaryEventBusShouldReceiveJsonEvents() {
+            MailboxListener listener = newListener();
+            binaryEventBus.register(listener, GROUP_A);
+
+            eventBus.dispatch(ADDED, NO_KEYS).block();
+
+            RabbitMQFixture.awaitAtMostThirtySeconds
+                .untilAsserted(() -> verify(listener).event(ADDED));
+        }
+    }
+
+    @Nested
+    class GroupParallelismTest {
+        private static final int EVENT_COUNT = 50;
+
+        private RabbitMQEventBus parallelEventBus;
+
+        @BeforeEach
+        void setUp() {
+            parallelEventBus = newEventBus(rabbitMQExtension.getRabbitChannelPool(), RabbitMQEventBusConfiguration.builder()
+                .groupParallelism(new GroupA(), 4)
+                .build());
+            parallelEventBus.start();
+        }
+
+        @AfterEach
+        void tearDown() {
+            parallelEventBus.stop();
+        }
+
+        @Test
+        void groupListenerShouldReceiveEventsOfAMailboxInOrder() {
+            List<Event> receivedEvents = new CopyOnWriteArrayList<>();
+            parallelEventBus.register(slowListener(receivedEvents), GROUP_A);
+
+            List<Event> events = IntStream.range(0, EVENT_COUNT)
+                .mapToObj(i -> new MailboxListener.MailboxAdded(SESSION_ID, USERNAME, MAILBOX_PATH, TEST_ID, Event.EventId.random()))
+                .collect(Guavate.toImmutableList());
+            events.forEach(event -> parallelEventBus.dispatch(event, NO_KEYS).block());
+
+            RabbitMQFixture.awaitAtMostThirtySeconds
+                .untilAsserted(() -> assertThat(receivedEvents).containsExactlyElementsOf(events));
+        }
+
+        @Test
+        void groupListenerShouldReceiveEventsOfSeveralMailboxes() {
+            List<Event> receivedEvents = new CopyOnWriteArrayList<>();
+            parallelEventBus.register(slowListener(receivedEvents), GROUP_A);
+
+            List<Event> events = IntStream.range(0, EVENT_COUNT)
+                .mapToObj(i -> new MailboxListener.MailboxAdded(SESSION_ID, USERNAME, MAILBOX_PATH, TestId.of(i), Event.EventId.random()))
+                .collect(Guavate.toImmutableList());
+            events.forEach(event -> parallelEventBus.dispatch(event, NO_KEYS).block());
+
+            RabbitMQFixture.awaitAtMostThirtySeconds
+                .untilAsserted(() -> assertThat(receivedEvents).containsExactlyInAnyOrderElementsOf(events));
+        }
+
+        private MailboxListener slowListener(List<Event> receivedEvents) {
+            return event -> {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+                receivedEvents.add(event);
+            };
+        }
+    }
+
     @Nested
     class LifeCycleTest {
         private static final int THREAD_COUNT = 10;
@@ -331,6 +523,18 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
                     rabbitMQEventBusWithNetWorkIssue = newEventBus(rabbitMQNetWorkIssueExtension.getRabbitChannelPool());
                 }
 
+                @Test
+                void dispatchShouldNotWaitForRabbitMQWhenNetworkIssues() {
+                    rabbitMQEventBusWithNetWorkIssue.start();
+
+                    rabbitMQNetWorkIssueExtension.getRabbitMQ().pause();
+
+                    assertThatCode(() -> rabbitMQEventBusWithNetWorkIssue.dispatch(EVENT, NO_KEYS).block())
+                        .doesNotThrowAnyException();
+
+                    rabbitMQNetWorkIssueExtension.getRabbitMQ().unpause();
+                }
+
                 @Test
                 void dispatchShouldWorkAfterNetworkIssuesForOldRegistration() {
                     rabbitMQEventBusWithNetWorkIssue.start();
@@ -339,14 +543,13 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
 
                     rabbitMQNetWorkIssueExtension.getRabbitMQ().pause();
 
-                    assertThatThrownBy(() -> rabbitMQEventBusWithNetWorkIssue.dispatch(EVENT, NO_KEYS).block())
-                        .isInstanceOf(IllegalStateException.class)
-                        .hasMessageContaining("Retries exhausted");
+                    rabbitMQEventBusWithNetWorkIssue.dispatch(EVENT, NO_KEYS).block();
 
                     rabbitMQNetWorkIssueExtension.getRabbitMQ().unpause();
 
                     rabbitMQEventBusWithNetWorkIssue.dispatch(EVENT, NO_KEYS).block();
-                    assertThatListenerReceiveOneEvent(listener);
+                    RabbitMQFixture.awaitAtMostThirtySeconds
+                        .untilAsserted(() -> verify(listener, atLeastOnce()).event(EVENT));
                 }
             }
 
@@ -445,15 +648,14 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
 
                 rabbitMQExtension.getRabbitMQ().pause();
 
-                assertThatThrownBy(() -> eventBus.dispatch(EVENT, NO_KEYS).block())
-                    .isInstanceOf(IllegalStateException.class)
-                    .hasMessageContaining("Retries exhausted");
+                eventBus.dispatch(EVENT, NO_KEYS).block();
 
                 rabbitMQExtension.getRabbitMQ().unpause();
 
                 eventBus.register(listener, GROUP_A);
                 eventBus.dispatch(EVENT, NO_KEYS).block();
-                assertThatListenerReceiveOneEvent(listener);
+                RabbitMQFixture.awaitAtMostThirtySeconds
+                    .untilAsserted(() -> verify(listener, atLeastOnce()).event(EVENT));
             }
 
             @Test
@@ -482,9 +684,7 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
 
                 rabbitMQExtension.getRabbitMQ().pause();
 
-                assertThatThrownBy(() -> eventBus.dispatch(EVENT, NO_KEYS).block())
-                    .isInstanceOf(IllegalStateException.class)
-                    .hasMessageContaining("Retries exhausted");
+                eventBus.dispatch(EVENT, NO_KEYS).block();
 
                 rabbitMQExtension.getRabbitMQ().unpause();
 
@@ -500,9 +700,7 @@ class RabbitMQEventBusTest implements GroupContract.SingleEventBusGroupContract,
 
                 rabbitMQExtension.getRabbitMQ().pause();
 
-                assertThatThrownBy(() -> eventBus.dispatch(EVENT, NO_KEYS).block())
-                    .isInstanceOf(IllegalStateException.class)
-                    .hasMessageContaining("Retries exhausted");
+                eventBus.dispatch(EVENT, NO_KEYS).block();
 
                 rabbitMQExtension.getRabbitMQ().unpause();
 
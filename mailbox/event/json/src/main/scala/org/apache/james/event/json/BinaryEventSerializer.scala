@@ -0,0 +1,306 @@
+/** **************************************************************
+  * Licensed to the Apache Software Foundation (ASF) under one   *
+  * or more contributor license agreements.  See the NOTICE file *
+  * distributed with this work for additional information        *
+  * regarding copyright ownership.  The ASF licenses this file   *
+  * to you under the Apache License, Version 2.0 (the            *
+  * "License"); you may not use this file except in compliance   *
+  * with the License.  You may obtain a copy of the License at   *
+  * *
+  * http://www.apache.org/licenses/LICENSE-2.0                 *
+  * *
+  * Unless required by applicable law or agreed to in writing,   *
+  * software distributed under the License is distributed on an  *
+  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+  * KIND, either express or implied.  See the License for the    *
+  * specific language governing permissions and limitations      *
+  * under the License.                                           *
+  * ***************************************************************/
+
+package org.apache.james.event.json
+
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.{Date, UUID, TreeMap => JavaTreeMap}
+
+import javax.inject.Inject
+import javax.mail.Flags.Flag
+import javax.mail.{Flags => JavaMailFlags}
+import org.apache.james.core.Username
+import org.apache.james.mailbox.MailboxSession.SessionId
+import org.apache.james.mailbox.events.Event.EventId
+import org.apache.james.mailbox.events.MailboxListener.{Added => JavaAdded, Expunged => JavaExpunged, FlagsUpdated => JavaFlagsUpdated, MessageEvent => JavaMessageEvent}
+import org.apache.james.mailbox.events.{Event => JavaEvent}
+import org.apache.james.mailbox.model.{MailboxId, MessageId, MailboxPath => JavaMailboxPath, MessageMetaData => JavaMessageMetaData, UpdatedFlags => JavaUpdatedFlags}
+import org.apache.james.mailbox.{FlagsBuilder, MessageUid, ModSeq}
+
+import scala.jdk.CollectionConverters._
+import scala.util.Try
+
+/**
+  * Compact binary encoding of the events carrying message metadata, for which JSON is both CPU and bandwidth heavy.
+  *
+  * The payload starts with a version byte, followed by an event type byte. Numbers are written as variable length
+  * integers, UIDs of Added and Expunged events are run length encoded, and modSeqs and internal dates are written as
+  * deltas from the previous message. Events not handled here are to be serialized as JSON.
+  */
+object BinaryEventSerializer {
+  val VERSION: Byte = 1
+
+  private val ADDED: Byte = 1
+  private val EXPUNGED: Byte = 2
+  private val FLAGS_UPDATED: Byte = 3
+
+  private val SYSTEM_FLAGS: Seq[Flag] = Seq(Flag.ANSWERED, Flag.DELETED, Flag.DRAFT, Flag.FLAGGED, Flag.RECENT, Flag.SEEN)
+
+  private case class UidRun(start: Long, length: Long)
+
+  private def toRuns(sortedUids: Seq[Long]): Seq[UidRun] =
+    sortedUids.foldLeft(List.empty[UidRun]) {
+      case (UidRun(start, length) :: previousRuns, uid) if start + length == uid => UidRun(start, length + 1) :: previousRuns
+      case (runs, uid) => UidRun(uid, 1) :: runs
+    }.reverse
+}
+
+private class BinaryWriter {
+  private val output = new ByteArrayOutputStream()
+
+  def writeByte(value: Int): BinaryWriter = {
+    output.write(value)
+    this
+  }
+
+  def writeLong(value: Long): BinaryWriter = {
+    (56 to 0 by -8).foreach(shift => output.write((value >>> shift).toInt & 0xFF))
+    this
+  }
+
+  def writeVarLong(value: Long): BinaryWriter = {
+    var remaining = value
+    while ((remaining & ~0x7FL) != 0) {
+      output.write(((remaining & 0x7F) | 0x80).toInt)
+      remaining = remaining >>> 7
+    }
+    output.write(remaining.toInt)
+    this
+  }
+
+  def writeSignedVarLong(value: Long): BinaryWriter = writeVarLong((value << 1) ^ (value >> 63))
+
+  def writeString(value: String): BinaryWriter = {
+    val bytes = value.getBytes(StandardCharsets.UTF_8)
+    writeVarLong(bytes.length)
+    output.write(bytes, 0, bytes.length)
+    this
+  }
+
+  def writeOptionalString(value: Option[String]): BinaryWriter = value match {
+    case Some(string) => writeByte(1).writeString(string)
+    case None => writeByte(0)
+  }
+
+  def toByteArray: Array[Byte] = output.toByteArray
+}
+
+private class BinaryReader(bytes: Array[Byte]) {
+  private val buffer = ByteBuffer.wrap(bytes)
+
+  def readByte(): Byte = buffer.get()
+
+  def readLong(): Long = buffer.getLong()
+
+  def readVarLong(): Long = {
+    var result = 0L
+    var shift = 0
+    var current = 0
+    do {
+      if (shift > 63) {
+        throw new IllegalArgumentException("Malformed variable length integer")
+      }
+      current = buffer.get()
+      result |= (current & 0x7FL) << shift
+      shift += 7
+    } while ((current & 0x80) != 0)
+    result
+  }
+
+  def readSignedVarLong(): Long = {
+    val value = readVarLong()
+    (value >>> 1) ^ -(value & 1)
+  }
+
+  def readInt(): Int = Math.toIntExact(readVarLong())
+
+  def readString(): String = {
+    val bytes = new Array[Byte](readInt())
+    buffer.get(bytes)
+    new String(bytes, StandardCharsets.UTF_8)
+  }
+
+  def readOptionalString(): Option[String] = readByte() match {
+    case 0 => None
+    case _ => Some(readString())
+  }
+}
+
+class BinaryEventSerializer @Inject() (mailboxIdFactory: MailboxId.Factory, messageIdFactory: MessageId.Factory) {
+  import BinaryEventSerializer._
+
+  def supports(event: JavaEvent): Boolean = event match {
+    case _: JavaAdded | _: JavaExpunged | _: JavaFlagsUpdated => true
+    case _ => false
+  }
+
+  def toBinary(event: JavaEvent): Array[Byte] = {
+    val writer = new BinaryWriter().writeByte(VERSION)
+    event match {
+      case added: JavaAdded =>
+        writeHeader(writer.writeByte(ADDED), added)
+        writeMessageMetaData(writer, added.getAdded.values.asScala)
+      case expunged: JavaExpunged =>
+        writeHeader(writer.writeByte(EXPUNGED), expunged)
+        writeMessageMetaData(writer, expunged.getExpunged.values.asScala)
+      case flagsUpdated: JavaFlagsUpdated =>
+        writeHeader(writer.writeByte(FLAGS_UPDATED), flagsUpdated)
+        writeUpdatedFlags(writer, flagsUpdated.getUpdatedFlags.asScala)
+      case _ => throw new IllegalArgumentException(s"No binary serialization known for ${event.getClass}")
+    }
+    writer.toByteArray
+  }
+
+  def fromBinary(bytes: Array[Byte]): Try[JavaEvent] = Try {
+    val reader = new BinaryReader(bytes)
+    val version = reader.readByte()
+    if (version != VERSION) {
+      throw new IllegalArgumentException(s"Unsupported binary event version $version")
+    }
+    reader.readByte() match {
+      case ADDED =>
+        val header = readHeader(reader)
+        val metaData = new JavaTreeMap[MessageUid, JavaMessageMetaData]()
+        readMessageMetaData(reader).foreach(meta => metaData.put(meta.getUid, meta))
+        new JavaAdded(header.sessionId, header.username, header.path, header.mailboxId, metaData, header.eventId)
+      case EXPUNGED =>
+        val header = readHeader(reader)
+        val metaData = readMessageMetaData(reader).map(meta => meta.getUid -> meta).toMap
+        new JavaExpunged(header.sessionId, header.username, header.path, header.mailboxId, metaData.asJava, header.eventId)
+      case FLAGS_UPDATED =>
+        val header = readHeader(reader)
+        new JavaFlagsUpdated(header.sessionId, header.username, header.path, header.mailboxId, readUpdatedFlags(reader).asJava, header.eventId)
+      case eventType => throw new IllegalArgumentException(s"Unknown binary event type $eventType")
+    }
+  }
+
+  private case class Header(eventId: EventId, sessionId: SessionId, username: Username, path: JavaMailboxPath, mailboxId: MailboxId)
+
+  private def writeHeader(writer: BinaryWriter, event: JavaMessageEvent): Unit = {
+    writer.writeLong(event.getEventId.getId.getMostSignificantBits)
+      .writeLong(event.getEventId.getId.getLeastSignificantBits)
+      .writeSignedVarLong(event.getSessionId.getValue)
+      .writeString(event.getUsername.asString)
+      .writeOptionalString(Option(event.getMailboxPath.getNamespace))
+      .writeOptionalString(Option(event.getMailboxPath.getUser).map(_.asString))
+      .writeString(event.getMailboxPath.getName)
+      .writeString(event.getMailboxId.serialize)
+  }
+
+  private def readHeader(reader: BinaryReader): Header = Header(
+    eventId = EventId.of(new UUID(reader.readLong(), reader.readLong())),
+    sessionId = SessionId.of(reader.readSignedVarLong()),
+    username = Username.of(reader.readString()),
+    path = new JavaMailboxPath(
+      reader.readOptionalString().orNull,
+      reader.readOptionalString().map(Username.of).orNull,
+      reader.readString()),
+    mailboxId = mailboxIdFactory.fromString(reader.readString()))
+
+  private def writeMessageMetaData(writer: BinaryWriter, metaData: Iterable[JavaMessageMetaData]): Unit = {
+    val sortedMetaData = metaData.toSeq.sortBy(_.getUid.asLong)
+    val runs = toRuns(sortedMetaData.map(_.getUid.asLong))
+
+    writer.writeVarLong(runs.size)
+    runs.foldLeft(0L) { (previousEnd, run) =>
+      writer.writeVarLong(run.start - previousEnd).writeVarLong(run.length)
+      run.start + run.length
+    }
+
+    sortedMetaData.foldLeft((0L, 0L)) { case ((previousModSeq, previousInternalDate), meta) =>
+      val modSeq = meta.getModSeq.asLong
+      val internalDate = meta.getInternalDate.getTime
+      writer.writeSignedVarLong(modSeq - previousModSeq)
+      writeFlags(writer, meta.getFlags)
+      writer.writeVarLong(meta.getSize)
+        .writeSignedVarLong(internalDate - previousInternalDate)
+        .writeOptionalString(Option(meta.getMessageId).map(_.serialize))
+      (modSeq, internalDate)
+    }
+  }
+
+  private def readMessageMetaData(reader: BinaryReader): Seq[JavaMessageMetaData] = {
+    val runCount = reader.readInt()
+    val uids = (0 until runCount).foldLeft((0L, Vector.empty[Long])) { case ((previousEnd, accumulator), _) =>
+      val start = previousEnd + reader.readVarLong()
+      val length = reader.readVarLong()
+      (start + length, accumulator ++ (start until start + length))
+    }._2
+
+    uids.foldLeft((0L, 0L, Vector.empty[JavaMessageMetaData])) { case ((previousModSeq, previousInternalDate, accumulator), uid) =>
+      val modSeq = previousModSeq + reader.readSignedVarLong()
+      val flags = readFlags(reader)
+      val size = reader.readVarLong()
+      val internalDate = previousInternalDate + reader.readSignedVarLong()
+      val messageId = reader.readOptionalString().map(messageIdFactory.fromString).orNull
+      (modSeq, internalDate, accumulator :+ new JavaMessageMetaData(MessageUid.of(uid), ModSeq.of(modSeq), flags, size, new Date(internalDate), messageId))
+    }._3
+  }
+
+  private def writeUpdatedFlags(writer: BinaryWriter, updatedFlags: Iterable[JavaUpdatedFlags]): Unit = {
+    writer.writeVarLong(updatedFlags.size)
+    updatedFlags.foldLeft((0L, 0L)) { case ((previousUid, previousModSeq), updated) =>
+      val uid = updated.getUid.asLong
+      val modSeq = updated.getModSeq.asLong
+      writer.writeSignedVarLong(uid - previousUid)
+        .writeSignedVarLong(modSeq - previousModSeq)
+      writeFlags(writer, updated.getOldFlags)
+      writeFlags(writer, updated.getNewFlags)
+      (uid, modSeq)
+    }
+  }
+
+  private def readUpdatedFlags(reader: BinaryReader): List[JavaUpdatedFlags] = {
+    val count = reader.readInt()
+    (0 until count).foldLeft((0L, 0L, List.empty[JavaUpdatedFlags])) { case ((previousUid, previousModSeq, accumulator), _) =>
+      val uid = previousUid + reader.readSignedVarLong()
+      val modSeq = previousModSeq + reader.readSignedVarLong()
+      val updated = JavaUpdatedFlags.builder()
+        .uid(MessageUid.of(uid))
+        .modSeq(ModSeq.of(modSeq))
+        .oldFlags(readFlags(reader))
+        .newFlags(readFlags(reader))
+        .build()
+      (uid, modSeq, updated :: accumulator)
+    }._3.reverse
+  }
+
+  private def writeFlags(writer: BinaryWriter, flags: JavaMailFlags): Unit = {
+    val systemFlagsMask = SYSTEM_FLAGS.zipWithIndex
+      .filter { case (flag, _) => flags.contains(flag) }
+      .map { case (_, index) => 1 << index }
+      .sum
+    val userFlags = flags.getUserFlags
+    writer.writeByte(systemFlagsMask)
+      .writeVarLong(userFlags.length)
+    userFlags.foreach(writer.writeString)
+  }
+
+  private def readFlags(reader: BinaryReader): JavaMailFlags = {
+    val systemFlagsMask = reader.readByte()
+    val builder = new FlagsBuilder()
+    SYSTEM_FLAGS.zipWithIndex
+      .filter { case (_, index) => (systemFlagsMask & (1 << index)) != 0 }
+      .foreach { case (flag, _) => builder.add(flag) }
+    (0 until reader.readInt()).foreach(_ => builder.add(reader.readString()))
+    builder.build()
+  }
+}
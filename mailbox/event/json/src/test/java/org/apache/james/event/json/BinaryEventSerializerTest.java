@@ -0,0 +1,181 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.event.json;
+
+import static org.apache.james.event.json.SerializerFixture.BINARY_EVENT_SERIALIZER;
+import static org.apache.james.event.json.SerializerFixture.EVENT_ID;
+import static org.apache.james.event.json.SerializerFixture.EVENT_SERIALIZER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import javax.mail.Flags;
+
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.FlagsBuilder;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
+import org.apache.james.mailbox.events.Event;
+import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.model.MailboxConstants;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.model.MessageMetaData;
+import org.apache.james.mailbox.model.TestId;
+import org.apache.james.mailbox.model.TestMessageId;
+import org.apache.james.mailbox.model.UpdatedFlags;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+
+class BinaryEventSerializerTest {
+    private static final Username USERNAME = Username.of("user");
+    private static final MailboxSession.SessionId SESSION_ID = MailboxSession.SessionId.of(-42);
+    private static final MailboxId MAILBOX_ID = TestId.of(18);
+    private static final MailboxPath MAILBOX_PATH = new MailboxPath(MailboxConstants.USER_NAMESPACE, USERNAME, "mailboxName");
+    private static final Instant INSTANT = Instant.parse("2018-12-14T09:41:51.541Z");
+    private static final Flags FLAGS = FlagsBuilder.builder()
+        .add(Flags.Flag.ANSWERED, Flags.Flag.DRAFT)
+        .add("User Custom Flag")
+        .build();
+
+    private static MessageMetaData metaData(long uid) {
+        return new MessageMetaData(MessageUid.of(uid), ModSeq.of(uid + 35), FLAGS, 45 + uid, Date.from(INSTANT.plusSeconds(uid)), TestMessageId.of(uid));
+    }
+
+    private static SortedMap<MessageUid, MessageMetaData> metaDataMap(LongStream uids) {
+        return uids.mapToObj(BinaryEventSerializerTest::metaData)
+            .collect(ImmutableSortedMap.toImmutableSortedMap(Comparator.naturalOrder(), MessageMetaData::getUid, Function.identity()));
+    }
+
+    private static final MailboxListener.Added ADDED = new MailboxListener.Added(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID,
+        metaDataMap(LongStream.concat(LongStream.rangeClosed(1, 10), LongStream.of(15, 20, 21, 4000))), EVENT_ID);
+    private static final MailboxListener.Expunged EXPUNGED = new MailboxListener.Expunged(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID,
+        ImmutableMap.copyOf(metaDataMap(LongStream.of(7, 3, 4, 5, 12))), EVENT_ID);
+    private static final MailboxListener.FlagsUpdated FLAGS_UPDATED = new MailboxListener.FlagsUpdated(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID,
+        ImmutableList.of(
+            UpdatedFlags.builder()
+                .uid(MessageUid.of(12))
+                .modSeq(ModSeq.of(36))
+                .oldFlags(FLAGS)
+                .newFlags(new Flags(Flags.Flag.SEEN))
+                .build(),
+            UpdatedFlags.builder()
+                .uid(MessageUid.of(3))
+                .modSeq(ModSeq.of(35))
+                .oldFlags(new Flags())
+                .newFlags(FLAGS)
+                .build()),
+        EVENT_ID);
+
+    @Test
+    void addedShouldBeWellSerializedAndDeserialized() {
+        assertThat(BINARY_EVENT_SERIALIZER.fromBinary(BINARY_EVENT_SERIALIZER.toBinary(ADDED)).get())
+            .isEqualTo(ADDED);
+    }
+
+    @Test
+    void addedWithoutMessagesShouldBeWellSerializedAndDeserialized() {
+        MailboxListener.Added emptyAdded = new MailboxListener.Added(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, ImmutableSortedMap.of(), EVENT_ID);
+
+        assertThat(BINARY_EVENT_SERIALIZER.fromBinary(BINARY_EVENT_SERIALIZER.toBinary(emptyAdded)).get())
+            .isEqualTo(emptyAdded);
+    }
+
+    @Test
+    void expungedShouldBeWellSerializedAndDeserialized() {
+        assertThat(BINARY_EVENT_SERIALIZER.fromBinary(BINARY_EVENT_SERIALIZER.toBinary(EXPUNGED)).get())
+            .isEqualTo(EXPUNGED);
+    }
+
+    @Test
+    void flagsUpdatedShouldBeWellSerializedAndDeserialized() {
+        assertThat(BINARY_EVENT_SERIALIZER.fromBinary(BINARY_EVENT_SERIALIZER.toBinary(FLAGS_UPDATED)).get())
+            .isEqualTo(FLAGS_UPDATED);
+    }
+
+    @Test
+    void pathWithoutNamespaceNorUserShouldBeWellSerializedAndDeserialized() {
+        MailboxListener.Added added = new MailboxListener.Added(SESSION_ID, USERNAME, new MailboxPath(null, null, "shared"),
+            MAILBOX_ID, metaDataMap(LongStream.of(1)), EVENT_ID);
+
+        assertThat(BINARY_EVENT_SERIALIZER.fromBinary(BINARY_EVENT_SERIALIZER.toBinary(added)).get())
+            .isEqualTo(added);
+    }
+
+    @Test
+    void supportsShouldReturnFalseForEventsWithoutMessageMetaData() {
+        MailboxListener.MailboxAdded mailboxAdded = new MailboxListener.MailboxAdded(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, EVENT_ID);
+
+        assertThat(BINARY_EVENT_SERIALIZER.supports(mailboxAdded)).isFalse();
+    }
+
+    @Test
+    void supportsShouldReturnTrueForEventsWithMessageMetaData() {
+        assertThat(ImmutableList.<Event>of(ADDED, EXPUNGED, FLAGS_UPDATED))
+            .allMatch(BINARY_EVENT_SERIALIZER::supports);
+    }
+
+    @Test
+    void toBinaryShouldThrowOnUnsupportedEvents() {
+        MailboxListener.MailboxAdded mailboxAdded = new MailboxListener.MailboxAdded(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID, EVENT_ID);
+
+        assertThatThrownBy(() -> BINARY_EVENT_SERIALIZER.toBinary(mailboxAdded))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromBinaryShouldFailOnUnknownVersion() {
+        byte[] binary = BINARY_EVENT_SERIALIZER.toBinary(ADDED);
+        binary[0] = 2;
+
+        assertThat(BINARY_EVENT_SERIALIZER.fromBinary(binary).isFailure()).isTrue();
+    }
+
+    @Test
+    void fromBinaryShouldFailOnTruncatedPayload() {
+        byte[] binary = BINARY_EVENT_SERIALIZER.toBinary(ADDED);
+        byte[] truncated = new byte[binary.length / 2];
+        System.arraycopy(binary, 0, truncated, 0, truncated.length);
+
+        assertThat(BINARY_EVENT_SERIALIZER.fromBinary(truncated).isFailure()).isTrue();
+    }
+
+    @Test
+    void binaryShouldBeSignificantlySmallerThanJsonForLargeAddedEvents() {
+        MailboxListener.Added added = new MailboxListener.Added(SESSION_ID, USERNAME, MAILBOX_PATH, MAILBOX_ID,
+            metaDataMap(LongStream.rangeClosed(1, 1000)), EVENT_ID);
+
+        int jsonSize = EVENT_SERIALIZER.toJson(added).getBytes(StandardCharsets.UTF_8).length;
+        int binarySize = BINARY_EVENT_SERIALIZER.toBinary(added).length;
+
+        assertThat(binarySize).isLessThan(jsonSize / 5);
+    }
+}
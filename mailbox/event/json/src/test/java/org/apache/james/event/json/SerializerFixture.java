@@ -27,6 +27,7 @@ import org.apache.james.mailbox.store.quota.DefaultUserQuotaRootResolver;
 public interface SerializerFixture {
     JsonSerialize DTO_JSON_SERIALIZE = new JsonSerialize(new TestId.Factory(), new TestMessageId.Factory(), new DefaultUserQuotaRootResolver.DefaultQuotaRootDeserializer());
     EventSerializer EVENT_SERIALIZER = new EventSerializer(new TestId.Factory(), new TestMessageId.Factory(), new DefaultUserQuotaRootResolver.DefaultQuotaRootDeserializer());
+    BinaryEventSerializer BINARY_EVENT_SERIALIZER = new BinaryEventSerializer(new TestId.Factory(), new TestMessageId.Factory());
 
     String SERIALIZED_EVENT_ID = "6e0dd59d-660e-4d9b-b22f-0354479f47b4";
     Event.EventId EVENT_ID = Event.EventId.of(SERIALIZED_EVENT_ID);
@@ -22,9 +22,14 @@ package org.apache.james.mailbox.inmemory.mail;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.mail.Flags;
@@ -50,13 +55,57 @@ import org.apache.james.mailbox.store.mail.utils.ApplicableFlagCalculator;
 import com.github.steveash.guavate.Guavate;
 
 public class InMemoryMessageMapper extends AbstractMessageMapper {
+    /**
+     * Keeps track of the {@link ModSeq} of each message of a mailbox, ordered by {@link ModSeq}, so that
+     * resynchronisation queries only visit the changed messages.
+     *
+     * The stored messages are mutated in place when updating flags, hence the modseq the uid is indexed under
+     * is tracked separately.
+     */
+    private static class ModSeqIndex {
+        private final Map<MessageUid, ModSeq> modSeqByUid = new HashMap<>();
+        private final NavigableMap<ModSeq, Set<MessageUid>> uidsByModSeq = new TreeMap<>();
+
+        synchronized void index(MessageUid uid, ModSeq modSeq) {
+            unindex(uid);
+            modSeqByUid.put(uid, modSeq);
+            uidsByModSeq.computeIfAbsent(modSeq, any -> new HashSet<>()).add(uid);
+        }
+
+        synchronized void unindex(MessageUid uid) {
+            ModSeq modSeq = modSeqByUid.remove(uid);
+            if (modSeq != null) {
+                Set<MessageUid> uids = uidsByModSeq.get(modSeq);
+                uids.remove(uid);
+                if (uids.isEmpty()) {
+                    uidsByModSeq.remove(modSeq);
+                }
+            }
+        }
+
+        synchronized List<MessageUid> changedSince(ModSeq modSeq) {
+            return uidsByModSeq.tailMap(modSeq, false)
+                .values()
+                .stream()
+                .flatMap(Set::stream)
+                .sorted()
+                .collect(Guavate.toImmutableList());
+        }
+    }
+
     private final Map<InMemoryId, Map<MessageUid, MailboxMessage>> mailboxByUid;
+    private final Map<InMemoryId, ModSeqIndex> modSeqIndexes;
     private static final int INITIAL_SIZE = 256;
 
     public InMemoryMessageMapper(MailboxSession session, UidProvider uidProvider,
             ModSeqProvider modSeqProvider) {
         super(session, uidProvider, modSeqProvider);
         this.mailboxByUid = new ConcurrentHashMap<>(INITIAL_SIZE);
+        this.modSeqIndexes = new ConcurrentHashMap<>(INITIAL_SIZE);
+    }
+
+    private ModSeqIndex getModSeqIndex(MailboxId mailboxId) {
+        return modSeqIndexes.computeIfAbsent((InMemoryId) mailboxId, any -> new ModSeqIndex());
     }
 
     private Map<MessageUid, MailboxMessage> getMembershipByUidForMailbox(Mailbox mailbox) {
@@ -114,6 +163,7 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
     @Override
     public void delete(Mailbox mailbox, MailboxMessage message) {
         getMembershipByUidForMailbox(mailbox).remove(message.getUid());
+        getModSeqIndex(mailbox.getMailboxId()).unindex(message.getUid());
     }
 
     @Override
@@ -122,6 +172,7 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
         MessageUid uid = original.getUid();
         MessageMetaData messageMetaData = copy(mailbox, original);
         getMembershipByUidForId(originalMailboxId).remove(uid);
+        getModSeqIndex(originalMailboxId).unindex(uid);
         return messageMetaData;
     }
 
@@ -142,6 +193,11 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
         return results.iterator();
     }
 
+    @Override
+    public List<MessageUid> listUidsChangedSince(Mailbox mailbox, ModSeq modSeq) {
+        return getModSeqIndex(mailbox.getMailboxId()).changedSince(modSeq);
+    }
+
     @Override
     public List<MessageUid> findRecentMessageUidsInMailbox(Mailbox mailbox) {
         return getMembershipByUidForMailbox(mailbox).values()
@@ -195,6 +251,7 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
 
     public void deleteAll() {
         mailboxByUid.clear();
+        modSeqIndexes.clear();
     }
 
     @Override
@@ -222,6 +279,7 @@ public class InMemoryMessageMapper extends AbstractMessageMapper {
         copy.setUid(message.getUid());
         copy.setModSeq(message.getModSeq());
         getMembershipByUidForMailbox(mailbox).put(message.getUid(), copy);
+        getModSeqIndex(mailbox.getMailboxId()).index(message.getUid(), message.getModSeq());
 
         return message.metaData();
     }
@@ -699,6 +699,11 @@ public class StoreMessageManager implements MessageManager {
         return new StoreMessageResultIterator(messageMapper, mailbox, set, batchSizes, fetchGroup);
     }
 
+    @Override
+    public List<MessageUid> getUidsChangedSince(ModSeq modSeq, MailboxSession mailboxSession) throws MailboxException {
+        return mapperFactory.getMessageMapper(mailboxSession).listUidsChangedSince(getMailboxEntity(), modSeq);
+    }
+
     /**
      * Return a List which holds all uids of recent messages and optional reset
      * the recent flag on the messages for the uids
@@ -38,6 +38,9 @@ import org.apache.james.mailbox.store.FlagsUpdateCalculator;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.mail.model.Property;
 import org.apache.james.mailbox.store.transaction.Mapper;
+import org.apache.james.util.streams.Iterators;
+
+import com.github.steveash.guavate.Guavate;
 
 /**
  * Maps {@link MailboxMessage} in a {@link org.apache.james.mailbox.MessageManager}. A {@link MessageMapper} has a lifecycle from the start of a request
@@ -57,6 +60,21 @@ public interface MessageMapper extends Mapper {
     Iterator<MailboxMessage> findInMailbox(Mailbox mailbox, MessageRange set, FetchType type, int limit)
             throws MailboxException;
 
+    /**
+     * Return the uids of the messages of the given {@link Mailbox} whose {@link ModSeq} is strictly greater than the
+     * given one, ordered by uid.
+     *
+     * The default implementation scans the whole mailbox. Implementations maintaining a modseq ordered index should
+     * override it so that the cost scales with the number of changes rather than with the mailbox size.
+     */
+    default List<MessageUid> listUidsChangedSince(Mailbox mailbox, ModSeq modSeq) throws MailboxException {
+        return Iterators.toStream(findInMailbox(mailbox, MessageRange.all(), FetchType.Metadata, -1))
+            .filter(message -> message.getModSeq().compareTo(modSeq) > 0)
+            .map(MailboxMessage::getUid)
+            .sorted()
+            .collect(Guavate.toImmutableList());
+    }
+
     /**
      * Returns a list of {@link MessageUid} which are marked as deleted
      */
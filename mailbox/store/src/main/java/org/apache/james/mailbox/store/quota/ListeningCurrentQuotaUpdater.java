@@ -19,9 +19,13 @@
 package org.apache.james.mailbox.store.quota;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
+import org.apache.james.core.Username;
 import org.apache.james.mailbox.events.Event;
 import org.apache.james.mailbox.events.EventBus;
 import org.apache.james.mailbox.events.Group;
@@ -35,7 +39,7 @@ import org.apache.james.mailbox.store.event.EventFactory;
 
 import com.google.common.collect.ImmutableSet;
 
-public class ListeningCurrentQuotaUpdater implements MailboxListener.GroupMailboxListener, QuotaUpdater {
+public class ListeningCurrentQuotaUpdater implements MailboxListener.BatchingMailboxListener, QuotaUpdater {
     public static class ListeningCurrentQuotaUpdaterGroup extends Group {
 
     }
@@ -67,51 +71,65 @@ public class ListeningCurrentQuotaUpdater implements MailboxListener.GroupMailbo
     }
 
     @Override
-    public void event(Event event) throws MailboxException {
+    public void events(List<Event> events) throws MailboxException {
+        Map<QuotaRoot, QuotaDelta> deltas = new LinkedHashMap<>();
+        for (Event event : events) {
             if (event instanceof Added) {
                 Added addedEvent = (Added) event;
                 QuotaRoot quotaRoot = quotaRootResolver.getQuotaRoot(addedEvent.getMailboxId());
-                handleAddedEvent(addedEvent, quotaRoot);
+                deltas.computeIfAbsent(quotaRoot, any -> new QuotaDelta())
+                    .add(addedEvent);
             } else if (event instanceof Expunged) {
                 Expunged expungedEvent = (Expunged) event;
                 QuotaRoot quotaRoot = quotaRootResolver.getQuotaRoot(expungedEvent.getMailboxId());
-                handleExpungedEvent(expungedEvent, quotaRoot);
+                deltas.computeIfAbsent(quotaRoot, any -> new QuotaDelta())
+                    .expunge(expungedEvent);
             } else if (event instanceof MailboxDeletion) {
                 MailboxDeletion mailboxDeletionEvent = (MailboxDeletion) event;
                 handleMailboxDeletionEvent(mailboxDeletionEvent);
             }
+        }
+        for (Map.Entry<QuotaRoot, QuotaDelta> delta : deltas.entrySet()) {
+            applyDelta(delta.getKey(), delta.getValue());
+        }
     }
 
-    private void handleExpungedEvent(Expunged expunged, QuotaRoot quotaRoot) throws MailboxException {
-        long expungedSize = totalSize(expunged);
-        long expungedCount = (long) expunged.getUids().size();
-        // Expunge event can contain no data (expunge performed while no messages marked \Deleted)
-        if (expungedCount != 0 && expungedSize != 0) {
-            currentQuotaManager.decrease(quotaRoot, expungedCount, expungedSize);
+    /**
+     * Sums the Added and Expunged events of a batch relating to a given quota root, so that the current quota is updated
+     * and the quota usage event dispatched once per batch.
+     */
+    private static class QuotaDelta {
+        private long addedCount;
+        private long addedSize;
+        private long expungedCount;
+        private long expungedSize;
+        private Username username;
+
+        void add(Added added) {
+            addedCount += added.getUids().size();
+            addedSize += totalSize(added);
+            username = added.getUsername();
+        }
+
+        void expunge(Expunged expunged) {
+            expungedCount += expunged.getUids().size();
+            expungedSize += totalSize(expunged);
+            username = expunged.getUsername();
         }
-        eventBus.dispatch(
-            EventFactory.quotaUpdated()
-                .randomEventId()
-                .user(expunged.getUsername())
-                .quotaRoot(quotaRoot)
-                .quotaCount(quotaManager.getMessageQuota(quotaRoot))
-                .quotaSize(quotaManager.getStorageQuota(quotaRoot))
-                .instant(Instant.now())
-                .build(),
-            NO_REGISTRATION_KEYS)
-            .block();
     }
 
-    private void handleAddedEvent(Added added, QuotaRoot quotaRoot) throws MailboxException {
-        long addedSize = totalSize(added);
-        long addedCount = (long) added.getUids().size();
-        if (addedCount != 0 && addedSize != 0) {
-            currentQuotaManager.increase(quotaRoot, addedCount, addedSize);
+    private void applyDelta(QuotaRoot quotaRoot, QuotaDelta delta) throws MailboxException {
+        if (delta.addedCount != 0 && delta.addedSize != 0) {
+            currentQuotaManager.increase(quotaRoot, delta.addedCount, delta.addedSize);
+        }
+        // Expunge event can contain no data (expunge performed while no messages marked \Deleted)
+        if (delta.expungedCount != 0 && delta.expungedSize != 0) {
+            currentQuotaManager.decrease(quotaRoot, delta.expungedCount, delta.expungedSize);
         }
         eventBus.dispatch(
             EventFactory.quotaUpdated()
                 .randomEventId()
-                .user(added.getUsername())
+                .user(delta.username)
                 .quotaRoot(quotaRoot)
                 .quotaCount(quotaManager.getMessageQuota(quotaRoot))
                 .quotaSize(quotaManager.getStorageQuota(quotaRoot))
@@ -121,7 +139,7 @@ public class ListeningCurrentQuotaUpdater implements MailboxListener.GroupMailbo
             .block();
     }
 
-    private long totalSize(MetaDataHoldingEvent metaDataHoldingEvent) {
+    private static long totalSize(MetaDataHoldingEvent metaDataHoldingEvent) {
         return metaDataHoldingEvent.getUids()
             .stream()
             .mapToLong(uid -> metaDataHoldingEvent.getMetaData(uid).getSize())
@@ -18,6 +18,7 @@
  ****************************************************************/
 package org.apache.james.mailbox.store.search;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Stream;
@@ -39,16 +40,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.fge.lambdas.Throwing;
+import com.github.steveash.guavate.Guavate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 /**
  * {@link MessageSearchIndex} which needs to get registered as global {@link MailboxListener} and so get
  * notified about message changes. This will then allow to update the underlying index.
  */
-public abstract class ListeningMessageSearchIndex implements MessageSearchIndex, MailboxListener.GroupMailboxListener {
+public abstract class ListeningMessageSearchIndex implements MessageSearchIndex, MailboxListener.BatchingMailboxListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(ListeningMessageSearchIndex.class);
 
     protected static final int UNLIMITED = -1;
+    private static final int ADDED_MESSAGES_CHUNK_SIZE = 100;
     private final MailboxSessionMapperFactory factory;
     private final SessionProvider sessionProvider;
     private static final ImmutableList<Class<? extends Event>> INTERESTING_EVENTS = ImmutableList.of(Added.class, Expunged.class, FlagsUpdated.class, MailboxDeletion.class);
@@ -64,40 +68,74 @@ public abstract class ListeningMessageSearchIndex implements MessageSearchIndex,
     }
 
     /**
-     * Process the {@link Event} and update the index if
-     * something relevant is received
+     * Process the {@link Event}s and update the index if something relevant is received.
+     *
+     * Consecutive events of the same type relating to the same mailbox are handled together, allowing the index to
+     * rely on bulk operations.
      */
     @Override
-    public void event(Event event) throws Exception {
-        handleMailboxEvent(event,
-            sessionProvider.createSystemSession(event.getUsername()),
-            (MailboxEvent) event);
+    public void events(List<Event> events) throws Exception {
+        for (List<Event> similarEvents : splitIntoSimilarEvents(events)) {
+            Event firstEvent = similarEvents.get(0);
+            handleMailboxEvents(similarEvents,
+                sessionProvider.createSystemSession(firstEvent.getUsername()),
+                ((MailboxEvent) firstEvent).getMailboxId());
+        }
     }
 
-    private void handleMailboxEvent(Event event, MailboxSession session, MailboxEvent mailboxEvent) throws Exception {
-        MailboxId mailboxId = mailboxEvent.getMailboxId();
+    private List<List<Event>> splitIntoSimilarEvents(List<Event> events) {
+        ImmutableList.Builder<List<Event>> result = ImmutableList.builder();
+        List<Event> similarEvents = new ArrayList<>();
+        for (Event event : events) {
+            if (!similarEvents.isEmpty() && !areSimilar(similarEvents.get(0), event)) {
+                result.add(ImmutableList.copyOf(similarEvents));
+                similarEvents.clear();
+            }
+            similarEvents.add(event);
+        }
+        if (!similarEvents.isEmpty()) {
+            result.add(ImmutableList.copyOf(similarEvents));
+        }
+        return result.build();
+    }
+
+    private boolean areSimilar(Event event1, Event event2) {
+        return event1.getClass().equals(event2.getClass())
+            && event1.getUsername().equals(event2.getUsername())
+            && ((MailboxEvent) event1).getMailboxId().equals(((MailboxEvent) event2).getMailboxId());
+    }
+
+    private void handleMailboxEvents(List<Event> events, MailboxSession session, MailboxId mailboxId) throws Exception {
+        Event event = events.get(0);
 
         if (event instanceof Added) {
             Mailbox mailbox = factory.getMailboxMapper(session).findMailboxById(mailboxId);
-            handleAdded(session, mailbox, (Added) event);
+            handleAdded(session, mailbox, events.stream()
+                .flatMap(added -> ((Added) added).getUids().stream())
+                .collect(Guavate.toImmutableList()));
         } else if (event instanceof Expunged) {
             Mailbox mailbox = factory.getMailboxMapper(session).findMailboxById(mailboxId);
-            Expunged expunged = (Expunged) event;
-            delete(session, mailbox, expunged.getUids());
+            delete(session, mailbox, events.stream()
+                .flatMap(expunged -> ((Expunged) expunged).getUids().stream())
+                .collect(Guavate.toImmutableList()));
         } else if (event instanceof FlagsUpdated) {
             Mailbox mailbox = factory.getMailboxMapper(session).findMailboxById(mailboxId);
-            FlagsUpdated flagsUpdated = (FlagsUpdated) event;
-            update(session, mailbox, flagsUpdated.getUpdatedFlags());
+            update(session, mailbox, events.stream()
+                .flatMap(flagsUpdated -> ((FlagsUpdated) flagsUpdated).getUpdatedFlags().stream())
+                .collect(Guavate.toImmutableList()));
         } else if (event instanceof MailboxDeletion) {
             deleteAll(session, mailboxId);
         }
     }
 
-    private void handleAdded(MailboxSession session, Mailbox mailbox, Added added) {
-        MessageRange.toRanges(added.getUids())
+    private void handleAdded(MailboxSession session, Mailbox mailbox, List<MessageUid> addedUids) {
+        List<MailboxMessage> addedMessages = MessageRange.toRanges(addedUids)
             .stream()
             .flatMap(range -> retrieveMailboxMessages(session, mailbox, range))
-            .forEach(Throwing.<MailboxMessage>consumer(mailboxMessage -> add(session, mailbox, mailboxMessage)).sneakyThrow());
+            .collect(Guavate.toImmutableList());
+
+        Lists.partition(addedMessages, ADDED_MESSAGES_CHUNK_SIZE)
+            .forEach(Throwing.<List<MailboxMessage>>consumer(messages -> add(session, mailbox, messages)).sneakyThrow());
     }
 
     private Stream<MailboxMessage> retrieveMailboxMessages(MailboxSession session, Mailbox mailbox, MessageRange range) {
@@ -119,6 +157,20 @@ public abstract class ListeningMessageSearchIndex implements MessageSearchIndex,
      */
     public abstract void add(MailboxSession session, Mailbox mailbox, MailboxMessage message) throws Exception;
 
+    /**
+     * Add several {@link MailboxMessage} of the given {@link Mailbox} to the index. Implementations supporting bulk
+     * indexing should override it.
+     *
+     * @param session The mailbox session performing the message addition
+     * @param mailbox mailbox on which the message addition was performed
+     * @param messages The added messages
+     */
+    public void add(MailboxSession session, Mailbox mailbox, List<MailboxMessage> messages) throws Exception {
+        for (MailboxMessage message : messages) {
+            add(session, mailbox, message);
+        }
+    }
+
     /**
      * Delete the concerned UIDs for the given {@link Mailbox} from the index
      *
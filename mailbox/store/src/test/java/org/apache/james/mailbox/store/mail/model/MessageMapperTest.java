@@ -539,6 +539,56 @@ public abstract class MessageMapperTest {
         assertThat(messageMapper.getHighestModSeq(benwaInboxMailbox)).isGreaterThan(modSeq);
     }
 
+    @Test
+    void listUidsChangedSinceShouldReturnEmptyOnEmptyMailbox() throws MailboxException {
+        assertThat(messageMapper.listUidsChangedSince(benwaInboxMailbox, ModSeq.first())).isEmpty();
+    }
+
+    @Test
+    void listUidsChangedSinceShouldReturnAllUidsWhenFirstModSeq() throws MailboxException {
+        saveMessages();
+
+        assertThat(messageMapper.listUidsChangedSince(benwaInboxMailbox, ModSeq.first()))
+            .containsExactly(message1.getUid(), message2.getUid(), message3.getUid(), message4.getUid(), message5.getUid());
+    }
+
+    @Test
+    void listUidsChangedSinceShouldOnlyReturnUidsWithAStrictlyGreaterModSeq() throws MailboxException {
+        saveMessages();
+
+        assertThat(messageMapper.listUidsChangedSince(benwaInboxMailbox, message3.getModSeq()))
+            .containsExactly(message4.getUid(), message5.getUid());
+    }
+
+    @Test
+    void listUidsChangedSinceShouldReturnEmptyWhenHighestModSeq() throws MailboxException {
+        saveMessages();
+
+        assertThat(messageMapper.listUidsChangedSince(benwaInboxMailbox, messageMapper.getHighestModSeq(benwaInboxMailbox)))
+            .isEmpty();
+    }
+
+    @Test
+    void listUidsChangedSinceShouldReturnUidsWhichFlagsWereUpdated() throws MailboxException {
+        saveMessages();
+        ModSeq modSeq = messageMapper.getHighestModSeq(benwaInboxMailbox);
+
+        messageMapper.updateFlags(benwaInboxMailbox, new FlagsUpdateCalculator(new Flags(Flags.Flag.SEEN), FlagsUpdateMode.REPLACE), MessageRange.one(message2.getUid()));
+
+        assertThat(messageMapper.listUidsChangedSince(benwaInboxMailbox, modSeq))
+            .containsExactly(message2.getUid());
+    }
+
+    @Test
+    void listUidsChangedSinceShouldNotReturnDeletedUids() throws MailboxException {
+        saveMessages();
+
+        messageMapper.delete(benwaInboxMailbox, message5);
+
+        assertThat(messageMapper.listUidsChangedSince(benwaInboxMailbox, message3.getModSeq()))
+            .containsExactly(message4.getUid());
+    }
+
     @Test
     void getLastUidShouldReturnEmptyOnEmptyMailbox() throws MailboxException {
         assertThat(messageMapper.getLastUid(benwaInboxMailbox)).isEqualTo(Optional.empty());
@@ -25,7 +25,9 @@ import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -53,6 +55,7 @@ import org.apache.james.mailbox.store.mail.model.DefaultMessageId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import reactor.core.publisher.Mono;
@@ -67,13 +70,14 @@ class ListeningCurrentQuotaUpdaterTest {
 
     StoreCurrentQuotaManager mockedCurrentQuotaManager;
     QuotaRootResolver mockedQuotaRootResolver;
+    EventBus eventBus;
     ListeningCurrentQuotaUpdater testee;
 
     @BeforeEach
     void setUp() {
         mockedQuotaRootResolver = mock(QuotaRootResolver.class);
         mockedCurrentQuotaManager = mock(StoreCurrentQuotaManager.class);
-        EventBus eventBus = mock(EventBus.class);
+        eventBus = mock(EventBus.class);
         when(eventBus.dispatch(any(Event.class), anySet())).thenReturn(Mono.empty());
         testee = new ListeningCurrentQuotaUpdater(mockedCurrentQuotaManager, mockedQuotaRootResolver,
             eventBus, mock(QuotaManager.class));
@@ -170,4 +174,54 @@ class ListeningCurrentQuotaUpdaterTest {
 
         verifyZeroInteractions(mockedCurrentQuotaManager);
     }
+
+    @Test
+    void eventsShouldSumAddedEventsOfAQuotaRoot() throws Exception {
+        MailboxListener.Added added1 = mockAdded(MessageUid.of(36), MessageUid.of(38));
+        MailboxListener.Added added2 = mockAdded(MessageUid.of(39));
+        when(mockedQuotaRootResolver.getQuotaRoot(eq(MAILBOX_ID))).thenReturn(QUOTA_ROOT);
+
+        testee.events(ImmutableList.of(added1, added2));
+
+        verify(mockedCurrentQuotaManager).increase(QUOTA_ROOT, 3, 3 * SIZE);
+        verifyNoMoreInteractions(mockedCurrentQuotaManager);
+    }
+
+    @Test
+    void eventsShouldDispatchASingleQuotaUsageUpdatedEventPerQuotaRoot() throws Exception {
+        MailboxListener.Added added1 = mockAdded(MessageUid.of(36), MessageUid.of(38));
+        MailboxListener.Added added2 = mockAdded(MessageUid.of(39));
+        when(mockedQuotaRootResolver.getQuotaRoot(eq(MAILBOX_ID))).thenReturn(QUOTA_ROOT);
+
+        testee.events(ImmutableList.of(added1, added2));
+
+        verify(eventBus, times(1)).dispatch(any(Event.class), anySet());
+    }
+
+    @Test
+    void eventsShouldApplyBothAddedAndExpungedEvents() throws Exception {
+        MailboxListener.Added added = mockAdded(MessageUid.of(36), MessageUid.of(38));
+        MailboxListener.Expunged expunged = mock(MailboxListener.Expunged.class);
+        when(expunged.getMetaData(MessageUid.of(36))).thenReturn(new MessageMetaData(MessageUid.of(36), ModSeq.first(), new Flags(), SIZE, new Date(), new DefaultMessageId()));
+        when(expunged.getUids()).thenReturn(Lists.newArrayList(MessageUid.of(36)));
+        when(expunged.getMailboxId()).thenReturn(MAILBOX_ID);
+        when(expunged.getUsername()).thenReturn(USERNAME_BENWA);
+        when(mockedQuotaRootResolver.getQuotaRoot(eq(MAILBOX_ID))).thenReturn(QUOTA_ROOT);
+
+        testee.events(ImmutableList.of(added, expunged));
+
+        verify(mockedCurrentQuotaManager).increase(QUOTA_ROOT, 2, 2 * SIZE);
+        verify(mockedCurrentQuotaManager).decrease(QUOTA_ROOT, 1, SIZE);
+    }
+
+    private MailboxListener.Added mockAdded(MessageUid... uids) {
+        MailboxListener.Added added = mock(MailboxListener.Added.class);
+        when(added.getMailboxId()).thenReturn(MAILBOX_ID);
+        for (MessageUid uid : uids) {
+            when(added.getMetaData(uid)).thenReturn(new MessageMetaData(uid, ModSeq.first(), new Flags(), SIZE, new Date(), new DefaultMessageId()));
+        }
+        when(added.getUids()).thenReturn(Lists.newArrayList(uids));
+        when(added.getUsername()).thenReturn(USERNAME_BENWA);
+        return added;
+    }
 }
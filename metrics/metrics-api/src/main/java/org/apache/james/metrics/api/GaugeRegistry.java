@@ -21,4 +21,6 @@ package org.apache.james.metrics.api;
 
 public interface GaugeRegistry {
     <T> GaugeRegistry register(String name, Gauge<T> gauge);
+
+    GaugeRegistry unregister(String name);
 }
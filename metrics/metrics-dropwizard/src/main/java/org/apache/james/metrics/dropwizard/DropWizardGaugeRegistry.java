@@ -39,4 +39,10 @@ public class DropWizardGaugeRegistry implements GaugeRegistry {
         metricRegistry.gauge(name, () -> gauge::get);
         return this;
     }
+
+    @Override
+    public GaugeRegistry unregister(String name) {
+        metricRegistry.remove(name);
+        return this;
+    }
 }
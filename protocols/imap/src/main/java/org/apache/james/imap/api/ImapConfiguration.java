@@ -35,6 +35,7 @@ public class ImapConfiguration {
     public static final boolean DEFAULT_ENABLE_IDLE = true;
     public static final long DEFAULT_HEARTBEAT_INTERVAL_IN_SECONDS = 2 * 60;
     public static final TimeUnit DEFAULT_HEARTBEAT_INTERVAL_UNIT = TimeUnit.SECONDS;
+    public static final int DEFAULT_FETCH_PREFETCH_SIZE = 0;
 
     public static Builder builder() {
         return new Builder();
@@ -52,6 +53,7 @@ public class ImapConfiguration {
         private Optional<Boolean> enableIdle;
         private ImmutableSet<String> disabledCaps;
         private Optional<Boolean> isCondstoreEnable;
+        private Optional<Integer> fetchPrefetchSize;
 
         private Builder() {
             this.idleTimeInterval = Optional.empty();
@@ -59,6 +61,7 @@ public class ImapConfiguration {
             this.enableIdle = Optional.empty();
             this.disabledCaps = ImmutableSet.of();
             this.isCondstoreEnable = Optional.empty();
+            this.fetchPrefetchSize = Optional.empty();
         }
 
         public Builder idleTimeInterval(long idleTimeInterval) {
@@ -97,6 +100,12 @@ public class ImapConfiguration {
             return this;
         }
 
+        public Builder fetchPrefetchSize(int fetchPrefetchSize) {
+            Preconditions.checkArgument(fetchPrefetchSize >= 0, "'fetchPrefetchSize' should not be negative");
+            this.fetchPrefetchSize = Optional.of(fetchPrefetchSize);
+            return this;
+        }
+
         public ImapConfiguration build() {
             ImmutableSet<Capability> normalizeDisableCaps = disabledCaps.stream()
                     .filter(Builder::noBlankString)
@@ -108,7 +117,8 @@ public class ImapConfiguration {
                     idleTimeInterval.orElse(DEFAULT_HEARTBEAT_INTERVAL_IN_SECONDS),
                     idleTimeIntervalUnit.orElse(DEFAULT_HEARTBEAT_INTERVAL_UNIT),
                     normalizeDisableCaps,
-                    isCondstoreEnable.orElse(DEFAULT_CONDSTORE_DISABLE));
+                    isCondstoreEnable.orElse(DEFAULT_CONDSTORE_DISABLE),
+                    fetchPrefetchSize.orElse(DEFAULT_FETCH_PREFETCH_SIZE));
         }
     }
 
@@ -117,13 +127,15 @@ public class ImapConfiguration {
     private final ImmutableSet<Capability> disabledCaps;
     private final boolean enableIdle;
     private final boolean isCondstoreEnable;
+    private final int fetchPrefetchSize;
 
-    private ImapConfiguration(boolean enableIdle, long idleTimeInterval, TimeUnit idleTimeIntervalUnit, ImmutableSet<Capability> disabledCaps, boolean isCondstoreEnable) {
+    private ImapConfiguration(boolean enableIdle, long idleTimeInterval, TimeUnit idleTimeIntervalUnit, ImmutableSet<Capability> disabledCaps, boolean isCondstoreEnable, int fetchPrefetchSize) {
         this.enableIdle = enableIdle;
         this.idleTimeInterval = idleTimeInterval;
         this.idleTimeIntervalUnit = idleTimeIntervalUnit;
         this.disabledCaps = disabledCaps;
         this.isCondstoreEnable = isCondstoreEnable;
+        this.fetchPrefetchSize = fetchPrefetchSize;
     }
 
     public long getIdleTimeInterval() {
@@ -146,6 +158,14 @@ public class ImapConfiguration {
         return isCondstoreEnable;
     }
 
+    /**
+     * @return the number of messages FETCH reads ahead from the mailbox while responses are being written. 0 means
+     * messages are read and written one after the other.
+     */
+    public int getFetchPrefetchSize() {
+        return fetchPrefetchSize;
+    }
+
     @Override
     public final boolean equals(Object obj) {
         if (obj instanceof ImapConfiguration) {
@@ -154,14 +174,15 @@ public class ImapConfiguration {
                 && Objects.equal(that.getIdleTimeInterval(), idleTimeInterval)
                 && Objects.equal(that.getIdleTimeIntervalUnit(), idleTimeIntervalUnit)
                 && Objects.equal(that.getDisabledCaps(), disabledCaps)
-                && Objects.equal(that.isCondstoreEnable(), isCondstoreEnable);
+                && Objects.equal(that.isCondstoreEnable(), isCondstoreEnable)
+                && Objects.equal(that.getFetchPrefetchSize(), fetchPrefetchSize);
         }
         return false;
     }
 
     @Override
     public final int hashCode() {
-        return Objects.hashCode(enableIdle, idleTimeInterval, idleTimeIntervalUnit, disabledCaps, isCondstoreEnable);
+        return Objects.hashCode(enableIdle, idleTimeInterval, idleTimeIntervalUnit, disabledCaps, isCondstoreEnable, fetchPrefetchSize);
     }
 
     @Override
@@ -172,6 +193,7 @@ public class ImapConfiguration {
                 .add("idleTimeIntervalUnit", idleTimeIntervalUnit)
                 .add("disabledCaps", disabledCaps)
                 .add("isCondstoreEnable", isCondstoreEnable)
+                .add("fetchPrefetchSize", fetchPrefetchSize)
                 .toString();
     }
 }
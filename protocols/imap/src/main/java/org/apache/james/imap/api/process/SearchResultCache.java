@@ -0,0 +1,86 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imap.api.process;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.james.imap.api.message.request.SearchKey;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.model.MessageRange;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Caches the results of the searches issued against a {@link SelectedMailbox}, as UID ranges.
+ *
+ * Entries are keyed by the {@link SearchKey} as supplied by the client, and need to be invalidated upon any change
+ * impacting search results: message additions, flag updates, expunges, as well as recent or message sequence number
+ * changes. Results computed before an invalidation are not cached.
+ */
+public class SearchResultCache {
+    public static final int DEFAULT_MAX_ENTRIES = 16;
+
+    private final Map<SearchKey, List<MessageRange>> results;
+    private long generation;
+
+    public SearchResultCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public SearchResultCache(int maxEntries) {
+        Preconditions.checkArgument(maxEntries > 0, "'maxEntries' needs to be strictly positive");
+        this.results = new LinkedHashMap<SearchKey, List<MessageRange>>(maxEntries, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchKey, List<MessageRange>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.generation = 0;
+    }
+
+    /**
+     * Returns the current generation, to be read before computing a search result and supplied when caching it.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized Optional<List<MessageRange>> get(SearchKey searchKey) {
+        return Optional.ofNullable(results.get(searchKey));
+    }
+
+    /**
+     * Caches the uids matching the given {@link SearchKey}, unless an invalidation happened since the given generation.
+     */
+    public synchronized void put(SearchKey searchKey, long generation, Collection<MessageUid> uids) {
+        if (generation == this.generation) {
+            results.put(searchKey, ImmutableList.copyOf(MessageRange.toRanges(uids)));
+        }
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        results.clear();
+    }
+}
@@ -149,6 +149,14 @@ public interface SelectedMailbox {
      */
     int remove(MessageUid uid);
 
+    /**
+     * Removes the given UIDs at once. Message sequence numbers of the remaining messages are updated accordingly.
+     *
+     * @param uids
+     *            not null
+     */
+    void removeAll(Collection<MessageUid> uids);
+
     /**
      * Return a Collection which holds all uids reflecting the Messages which
      * flags were updated
@@ -177,4 +185,9 @@ public interface SelectedMailbox {
     
     void resetNewApplicableFlags();
 
+    /**
+     * Return the cache holding the results of the searches issued against the selected mailbox
+     */
+    SearchResultCache getSearchResultCache();
+
 }
\ No newline at end of file
@@ -18,13 +18,13 @@
  ****************************************************************/
 package org.apache.james.imap.processor;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import javax.mail.Flags;
 
@@ -63,12 +63,14 @@ import org.apache.james.mailbox.model.MessageRange;
 import org.apache.james.mailbox.model.MessageRange.Type;
 import org.apache.james.mailbox.model.MessageResult;
 import org.apache.james.mailbox.model.MessageResultIterator;
-import org.apache.james.mailbox.model.SearchQuery;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.metrics.api.TimeMetric;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableSortedSet;
+
 public abstract class AbstractMailboxProcessor<R extends ImapRequest> extends AbstractChainedProcessor<R> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractMailboxProcessor.class);
 
@@ -172,21 +174,23 @@ public abstract class AbstractMailboxProcessor<R extends ImapRequest> extends Ab
     }
 
     private void addExpungedResponses(SelectedMailbox selected, Collection<MessageUid> expungedUids, ImapProcessor.Responder responder) {
-        for (MessageUid uid : expungedUids) {
-
-            // we need to remove the message in the loop to the sequence numbers
-            // are updated correctly.
-            // See 7.4.1. EXPUNGE Response
-            final int msn = selected.remove(uid);
-            ExpungeResponse response = new ExpungeResponse(msn);
-            responder.respond(response);
+        // Each expunge decrements the sequence numbers of the following messages, thus expunged messages are
+        // processed by increasing UIDs, and their sequence number is shifted by the count of messages expunged before.
+        // See 7.4.1. EXPUNGE Response
+        int expungedCount = 0;
+        for (MessageUid uid : ImmutableSortedSet.copyOf(expungedUids)) {
+            int msn = selected.msn(uid);
+            if (msn != SelectedMailbox.NO_SUCH_MESSAGE) {
+                msn -= expungedCount;
+                expungedCount++;
+            }
+            responder.respond(new ExpungeResponse(msn));
         }
+        selected.removeAll(expungedUids);
     }
     
     private void addVanishedResponse(SelectedMailbox selected, Collection<MessageUid> expungedUids, ImapProcessor.Responder responder) {
-        for (MessageUid uid : expungedUids) {
-            selected.remove(uid);
-        }
+        selected.removeAll(expungedUids);
         UidRange[] uidRange = uidRanges(MessageRange.toRanges(expungedUids));
         responder.respond(new VanishedResponse(uidRange, false));
     }
@@ -546,36 +550,62 @@ public abstract class AbstractMailboxProcessor<R extends ImapRequest> extends Ab
         //      as above.  In the case where there have been no expunges, the server
         //      can ignore this data.
         if (metaData.getHighestModSeq().asLong() > changedSince) {
-            SearchQuery searchQuery = new SearchQuery();
-            SearchQuery.UidRange[] nRanges = new SearchQuery.UidRange[ranges.size()];
-            Set<MessageUid> vanishedUids = new HashSet<>();
-            for (int i = 0; i < ranges.size(); i++) {
-                MessageRange r = ranges.get(i);
-                SearchQuery.UidRange nr;
-                if (r.getType() == Type.ONE) {
-                    nr = new SearchQuery.UidRange(r.getUidFrom());
-                } else {
-                    nr = new SearchQuery.UidRange(r.getUidFrom(), r.getUidTo());
-                }
-                MessageUid from = nr.getLowValue();
-                MessageUid to = nr.getHighValue();
-                while (from.compareTo(to) <= 0) {
-                    vanishedUids.add(from);
-                    from = from.next();
+            respondVanished(ranges, mailbox.getUidsChangedSince(ModSeq.of(changedSince), session), responder);
+        }
+    }
+
+    /**
+     * Send VANISHED responses for the given ranges, the uids of the messages changed since the mod-sequence supplied
+     * by the client being known. Only these changed uids are visited, not every uid of the ranges.
+     */
+    protected void respondVanished(List<MessageRange> ranges, List<MessageUid> changedUids, Responder responder) {
+        UidRange[] vanishedIdRanges = uidRanges(excludeUids(ranges, changedUids));
+        responder.respond(new VanishedResponse(vanishedIdRanges, true));
+    }
+
+    private List<MessageRange> excludeUids(List<MessageRange> ranges, List<MessageUid> sortedUids) {
+        List<MessageRange> result = new ArrayList<>();
+        int position = 0;
+        for (MessageRange range : mergeRanges(ranges)) {
+            MessageUid from = range.getUidFrom();
+            MessageUid to = range.getUidTo();
+            while (position < sortedUids.size() && sortedUids.get(position).compareTo(from) < 0) {
+                position++;
+            }
+            while (from != null && position < sortedUids.size() && sortedUids.get(position).compareTo(to) <= 0) {
+                MessageUid excluded = sortedUids.get(position++);
+                if (excluded.compareTo(from) > 0) {
+                    result.add(MessageRange.range(from, excluded.previous()));
                 }
-                nRanges[i] = nr;
-                
+                from = excluded.equals(to) ? null : excluded.next();
             }
-            searchQuery.andCriteria(SearchQuery.uid(nRanges));
-            searchQuery.andCriteria(SearchQuery.modSeqGreaterThan(changedSince));
-            try (Stream<MessageUid> uids = mailbox.search(searchQuery, session)) {
-                uids.forEach(vanishedUids::remove);
+            if (from != null) {
+                result.add(MessageRange.range(from, to));
             }
-            UidRange[] vanishedIdRanges = uidRanges(MessageRange.toRanges(vanishedUids));
-            responder.respond(new VanishedResponse(vanishedIdRanges, true));
         }
-        
-        
+        return result;
+    }
+
+    private List<MessageRange> mergeRanges(List<MessageRange> ranges) {
+        List<MessageRange> sortedRanges = ranges.stream()
+            .sorted(Comparator.comparing(MessageRange::getUidFrom))
+            .collect(Guavate.toImmutableList());
+        List<MessageRange> result = new ArrayList<>();
+        for (MessageRange range : sortedRanges) {
+            if (!result.isEmpty() && isOverlappingOrAdjacent(result.get(result.size() - 1), range)) {
+                MessageRange last = result.remove(result.size() - 1);
+                MessageUid to = last.getUidTo().compareTo(range.getUidTo()) >= 0 ? last.getUidTo() : range.getUidTo();
+                result.add(MessageRange.range(last.getUidFrom(), to));
+            } else {
+                result.add(range);
+            }
+        }
+        return result;
+    }
+
+    private boolean isOverlappingOrAdjacent(MessageRange previous, MessageRange next) {
+        return previous.getUidTo().equals(MessageUid.MAX_VALUE)
+            || next.getUidFrom().compareTo(previous.getUidTo().next()) <= 0;
     }
     
     
@@ -26,16 +26,16 @@ import org.apache.james.imap.api.message.UidRange;
 import org.apache.james.imap.api.message.response.StatusResponseFactory;
 import org.apache.james.imap.api.process.ImapProcessor;
 import org.apache.james.imap.message.request.ExamineRequest;
+import org.apache.james.imap.processor.base.SelectedMailboxUidIndexes;
 import org.apache.james.mailbox.MailboxManager;
-import org.apache.james.mailbox.events.EventBus;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.util.MDCBuilder;
 
 public class ExamineProcessor extends AbstractSelectionProcessor<ExamineRequest> {
 
-    public ExamineProcessor(ImapProcessor next, MailboxManager mailboxManager, EventBus eventBus, StatusResponseFactory statusResponseFactory,
+    public ExamineProcessor(ImapProcessor next, MailboxManager mailboxManager, SelectedMailboxUidIndexes uidIndexes, StatusResponseFactory statusResponseFactory,
                             MetricFactory metricFactory) {
-        super(ExamineRequest.class, next, mailboxManager, statusResponseFactory, true, metricFactory, eventBus);
+        super(ExamineRequest.class, next, mailboxManager, statusResponseFactory, true, metricFactory, uidIndexes);
     }
 
     @Override
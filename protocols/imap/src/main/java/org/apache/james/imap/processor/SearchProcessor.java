@@ -43,6 +43,7 @@ import org.apache.james.imap.api.message.response.StatusResponseFactory;
 import org.apache.james.imap.api.process.ImapProcessor;
 import org.apache.james.imap.api.process.ImapSession;
 import org.apache.james.imap.api.process.SearchResUtil;
+import org.apache.james.imap.api.process.SearchResultCache;
 import org.apache.james.imap.api.process.SelectedMailbox;
 import org.apache.james.imap.message.request.SearchRequest;
 import org.apache.james.imap.message.response.ESearchResponse;
@@ -64,6 +65,7 @@ import org.apache.james.mailbox.model.SearchQuery.Criterion;
 import org.apache.james.mailbox.model.SearchQuery.DateResolution;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.util.MDCBuilder;
+import org.apache.james.util.streams.Iterators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -91,11 +93,14 @@ public class SearchProcessor extends AbstractMailboxProcessor<SearchRequest> imp
         try {
 
             final MessageManager mailbox = getSelectedMailbox(session);
+            final SearchResultCache searchResultCache = session.getSelected().getSearchResultCache();
+            final long cacheGeneration = searchResultCache.generation();
 
             final SearchQuery query = toQuery(searchKey, session);
             MailboxSession msession = session.getMailboxSession();
 
-            final Collection<MessageUid> uids = performUidSearch(mailbox, query, msession);
+            final List<MessageRange> uidRanges = searchUidRanges(searchResultCache, cacheGeneration, searchKey, mailbox, query, msession);
+            final Collection<MessageUid> uids = asUids(uidRanges);
             final Collection<Long> results = asResults(session, useUids, uids);
 
             // Check if the search did contain the MODSEQ searchkey. If so we need to include the highest mod in the response.
@@ -104,7 +109,7 @@ public class SearchProcessor extends AbstractMailboxProcessor<SearchRequest> imp
             final ModSeq highestModSeq;
             if (session.getAttribute(SEARCH_MODSEQ) != null) {
                 MetaData metaData = mailbox.getMetaData(false, msession, MessageManager.MetaData.FetchGroup.NO_COUNT);
-                highestModSeq = findHighestModSeq(msession, mailbox, MessageRange.toRanges(uids), metaData.getHighestModSeq());
+                highestModSeq = findHighestModSeq(msession, mailbox, uidRanges, metaData.getHighestModSeq());
                 
                 // Enable CONDSTORE as this is a CONDSTORE enabling command
                 condstoreEnablingCommand(session, responder,  metaData, true);                
@@ -118,22 +123,8 @@ public class SearchProcessor extends AbstractMailboxProcessor<SearchRequest> imp
             if (resultOptions == null || resultOptions.isEmpty()) {
                 response = new SearchResponse(ids, highestModSeq);
             } else {
-                List<Long> idList = new ArrayList<>(ids.length);
-                for (long id : ids) {
-                    idList.add(id);
-                }
-
-                List<IdRange> idsAsRanges = new ArrayList<>();
-                for (Long id: idList) {
-                    idsAsRanges.add(new IdRange(id));
-                }
-                IdRange[] idRanges = IdRange.mergeRanges(idsAsRanges).toArray(new IdRange[0]);
-                
-                List<UidRange> uidsAsRanges = new ArrayList<>();
-                for (MessageUid uid: uids) {
-                    uidsAsRanges.add(new UidRange(uid));
-                }
-                UidRange[] uidRanges = UidRange.mergeRanges(uidsAsRanges).toArray(new UidRange[0]);
+                IdRange[] idRanges = asIdRanges(ids);
+                UidRange[] uidsAsRanges = uidRanges(uidRanges);
                 
                 boolean esearch = false;
                 for (SearchResultOption resultOption : resultOptions) {
@@ -172,7 +163,7 @@ public class SearchProcessor extends AbstractMailboxProcessor<SearchRequest> imp
                             SearchResUtil.saveSequenceSet(session, savedRanges.toArray(new IdRange[0]));
                         }
                     }
-                    response = new ESearchResponse(min, max, count, idRanges, uidRanges, highestModSeq, request.getTag(), useUids, resultOptions);
+                    response = new ESearchResponse(min, max, count, idRanges, uidsAsRanges, highestModSeq, request.getTag(), useUids, resultOptions);
                 } else {
                     // Just save the returned sequence-set as this is not SEARCHRES + ESEARCH
                     SearchResUtil.saveSequenceSet(session, idRanges);
@@ -218,6 +209,57 @@ public class SearchProcessor extends AbstractMailboxProcessor<SearchRequest> imp
         }
     }
 
+    /**
+     * Search results are cached per selected mailbox, so that searches re-issued on each synchronisation, like
+     * UNSEEN or UNDELETED, are answered without querying the mailbox as long as it is unchanged.
+     */
+    private List<MessageRange> searchUidRanges(SearchResultCache searchResultCache, long cacheGeneration, SearchKey searchKey,
+                                               MessageManager mailbox, SearchQuery query, MailboxSession msession) throws MailboxException {
+        if (!isCacheable(searchKey)) {
+            return MessageRange.toRanges(performUidSearch(mailbox, query, msession));
+        }
+        Optional<List<MessageRange>> cachedResult = searchResultCache.get(searchKey);
+        if (cachedResult.isPresent()) {
+            return cachedResult.get();
+        }
+        Collection<MessageUid> uids = performUidSearch(mailbox, query, msession);
+        searchResultCache.put(searchKey, cacheGeneration, uids);
+        return MessageRange.toRanges(uids);
+    }
+
+    /**
+     * Results of searches relative to the current time can not be cached.
+     */
+    private boolean isCacheable(SearchKey searchKey) {
+        if (searchKey.getType() == SearchKey.TYPE_OLDER || searchKey.getType() == SearchKey.TYPE_YOUNGER) {
+            return false;
+        }
+        return Optional.ofNullable(searchKey.getKeys())
+            .map(keys -> keys.stream().allMatch(this::isCacheable))
+            .orElse(true);
+    }
+
+    private Collection<MessageUid> asUids(List<MessageRange> uidRanges) {
+        return uidRanges.stream()
+            .flatMap(range -> Iterators.toStream(range.iterator()))
+            .collect(Guavate.toImmutableList());
+    }
+
+    /**
+     * Group the given sorted ids into ranges of consecutive ids.
+     */
+    private IdRange[] asIdRanges(long[] ids) {
+        List<IdRange> ranges = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= ids.length; i++) {
+            if (i == ids.length || ids[i] != ids[i - 1] + 1) {
+                ranges.add(new IdRange(ids[start], ids[i - 1]));
+                start = i;
+            }
+        }
+        return ranges.toArray(new IdRange[0]);
+    }
+
     private Collection<MessageUid> performUidSearch(MessageManager mailbox, SearchQuery query, MailboxSession msession) throws MailboxException {
         try (Stream<MessageUid> stream = mailbox.search(query, msession)) {
             return stream.collect(Guavate.toImmutableList());
@@ -26,16 +26,16 @@ import org.apache.james.imap.api.message.UidRange;
 import org.apache.james.imap.api.message.response.StatusResponseFactory;
 import org.apache.james.imap.api.process.ImapProcessor;
 import org.apache.james.imap.message.request.SelectRequest;
+import org.apache.james.imap.processor.base.SelectedMailboxUidIndexes;
 import org.apache.james.mailbox.MailboxManager;
-import org.apache.james.mailbox.events.EventBus;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.util.MDCBuilder;
 
 public class SelectProcessor extends AbstractSelectionProcessor<SelectRequest> {
 
-    public SelectProcessor(ImapProcessor next, MailboxManager mailboxManager, EventBus eventBus, StatusResponseFactory statusResponseFactory,
+    public SelectProcessor(ImapProcessor next, MailboxManager mailboxManager, SelectedMailboxUidIndexes uidIndexes, StatusResponseFactory statusResponseFactory,
                            MetricFactory metricFactory) {
-        super(SelectRequest.class, next, mailboxManager, statusResponseFactory, false, metricFactory, eventBus);
+        super(SelectRequest.class, next, mailboxManager, statusResponseFactory, false, metricFactory, uidIndexes);
     }
 
     @Override
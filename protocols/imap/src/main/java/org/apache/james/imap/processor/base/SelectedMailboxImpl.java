@@ -27,12 +27,12 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.stream.Stream;
 
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
 
 import org.apache.james.imap.api.process.ImapSession;
+import org.apache.james.imap.api.process.SearchResultCache;
 import org.apache.james.imap.api.process.SelectedMailbox;
 import org.apache.james.mailbox.MailboxManager;
 import org.apache.james.mailbox.MailboxSession;
@@ -40,32 +40,37 @@ import org.apache.james.mailbox.MessageManager;
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.events.Event;
 import org.apache.james.mailbox.events.EventBus;
-import org.apache.james.mailbox.events.MailboxIdRegistrationKey;
 import org.apache.james.mailbox.events.MailboxListener;
-import org.apache.james.mailbox.events.Registration;
 import org.apache.james.mailbox.exception.MailboxException;
 import org.apache.james.mailbox.model.MailboxId;
 import org.apache.james.mailbox.model.MailboxPath;
-import org.apache.james.mailbox.model.SearchQuery;
 import org.apache.james.mailbox.model.UpdatedFlags;
 
-import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Default implementation of {@link SelectedMailbox}
+ *
+ * The UIDs of the mailbox are shared with the other sessions selecting it through
+ * {@link SelectedMailboxUidIndexes}. This session only keeps the expunged UIDs it did not notify yet, which are
+ * still part of its view of the mailbox.
  */
 public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
-    private final Registration registration;
+    private final SelectedMailboxUidIndexes uidIndexes;
+    private final SelectedMailboxUidIndexes.MailboxUidIndex uidIndex;
     private final MailboxManager mailboxManager;
     private final MailboxId mailboxId;
     private final ImapSession session;
     private final MailboxSession.SessionId sessionId;
     private final MailboxSession mailboxSession;
-    private final UidMsnConverter uidMsnConverter;
     private final Set<MessageUid> recentUids = new TreeSet<>();
     private final Set<MessageUid> flagUpdateUids = new TreeSet<>();
     private final Flags.Flag uninterestingFlag = Flags.Flag.RECENT;
     private final Set<MessageUid> expungedUids = new TreeSet<>();
+    private final Set<MessageUid> expungedUidsInView = new TreeSet<>();
+    private UidMsnConverter acknowledgedSnapshot;
+    private UidMsnConverter view;
+    private UidMsnConverter viewSnapshot;
 
     private boolean recentUidRemoved = false;
     private boolean isDeletedByOtherSession = false;
@@ -73,8 +78,14 @@ public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
     private boolean silentFlagChanges = false;
     private final Flags applicableFlags;
     private boolean applicableFlagsChanged;
+    private final SearchResultCache searchResultCache = new SearchResultCache();
 
     public SelectedMailboxImpl(MailboxManager mailboxManager, EventBus eventBus, ImapSession session, MailboxPath path) throws MailboxException {
+        this(mailboxManager, new SelectedMailboxUidIndexes(eventBus), session, path);
+    }
+
+    public SelectedMailboxImpl(MailboxManager mailboxManager, SelectedMailboxUidIndexes uidIndexes, ImapSession session, MailboxPath path) throws MailboxException {
+        this.uidIndexes = uidIndexes;
         this.session = session;
         this.sessionId = session.getMailboxSession().getSessionId();
         this.mailboxManager = mailboxManager;
@@ -84,38 +95,55 @@ public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
 
         mailboxSession = session.getMailboxSession();
 
-        uidMsnConverter = new UidMsnConverter();
-
         MessageManager messageManager = mailboxManager.getMailbox(path, mailboxSession);
         mailboxId = messageManager.getId();
 
-        registration = eventBus.register(this, new MailboxIdRegistrationKey(mailboxId));
-
         applicableFlags = messageManager.getApplicableFlags(mailboxSession);
-        try (Stream<MessageUid> stream = messageManager.search(new SearchQuery(SearchQuery.all()), mailboxSession)) {
-            uidMsnConverter.addAll(stream.collect(Guavate.toImmutableList()));
+        // Events are forwarded once the session is registered, they must wait for the initial snapshot to be known
+        synchronized (this) {
+            uidIndex = uidIndexes.acquire(messageManager, mailboxSession, this);
+            acknowledgedSnapshot = uidIndex.snapshot();
         }
     }
 
+    /**
+     * The shared UIDs as of the last event this session handled, completed with the expunged UIDs it did not notify
+     * yet. Changes applied to the shared index are thus only visible once this session learnt about them.
+     */
+    private UidMsnConverter uidView() {
+        UidMsnConverter snapshot = acknowledgedSnapshot;
+        if (expungedUidsInView.isEmpty()) {
+            return snapshot;
+        }
+        if (view == null || viewSnapshot != snapshot) {
+            view = snapshot.copy();
+            view.addAll(ImmutableList.copyOf(expungedUidsInView));
+            viewSnapshot = snapshot;
+        }
+        return view;
+    }
+
     @Override
     public synchronized Optional<MessageUid> getFirstUid() {
-        return uidMsnConverter.getFirstUid();
+        return uidView().getFirstUid();
     }
 
     @Override
     public synchronized Optional<MessageUid> getLastUid() {
-        return uidMsnConverter.getLastUid();
+        return uidView().getLastUid();
     }
 
     @Override
     public synchronized void deselect() {
-        registration.unregister();
-        
-        uidMsnConverter.clear();
+        uidIndexes.release(uidIndex, this);
+
         flagUpdateUids.clear();
 
         expungedUids.clear();
+        expungedUidsInView.clear();
+        view = null;
         recentUids.clear();
+        searchResultCache.invalidate();
     }
 
     @Override
@@ -123,13 +151,18 @@ public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
         final boolean result = recentUids.remove(uid);
         if (result) {
             recentUidRemoved = true;
+            searchResultCache.invalidate();
         }
         return result;
     }
 
     @Override
     public synchronized boolean addRecent(MessageUid uid) {
-        return recentUids.add(uid);
+        boolean result = recentUids.add(uid);
+        if (result) {
+            searchResultCache.invalidate();
+        }
+        return result;
     }
 
     @Override
@@ -186,10 +219,19 @@ public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
     @Override
     public synchronized  int remove(MessageUid uid) {
         final int result = msn(uid);
-        uidMsnConverter.remove(uid);
+        expungedUidsInView.remove(uid);
+        view = null;
+        searchResultCache.invalidate();
         return result;
     }
 
+    @Override
+    public synchronized void removeAll(Collection<MessageUid> uids) {
+        expungedUidsInView.removeAll(uids);
+        view = null;
+        searchResultCache.invalidate();
+    }
+
     private boolean interestingFlags(UpdatedFlags updated) {
         boolean result;
         final Iterator<Flags.Flag> it = updated.systemFlagIterator();
@@ -316,16 +358,21 @@ public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
             MailboxSession.SessionId eventSessionId = mailboxEvent.getSessionId();
             if (mailboxEvent instanceof MessageEvent) {
                 final MessageEvent messageEvent = (MessageEvent) mailboxEvent;
+                // The initial snapshot might already include the changes of an event forwarded during the selection
+                UidMsnConverter snapshot = uidIndex.snapshot();
+                boolean alreadyAcknowledged = snapshot == acknowledgedSnapshot;
+                acknowledgedSnapshot = snapshot;
+                searchResultCache.invalidate();
                 if (messageEvent instanceof Added) {
                     sizeChanged = true;
                     final Collection<MessageUid> uids = ((Added) mailboxEvent).getUids();
                     SelectedMailbox sm = session.getSelected();
-                    for (MessageUid uid : uids) {
-                        uidMsnConverter.addUid(uid);
-                        if (sm != null) {
+                    if (sm != null) {
+                        for (MessageUid uid : uids) {
                             sm.addRecent(uid);
                         }
                     }
+                    view = null;
                 } else if (messageEvent instanceof FlagsUpdated) {
                     FlagsUpdated updated = (FlagsUpdated) messageEvent;
                     List<UpdatedFlags> uFlags = updated.getUpdatedFlags();
@@ -379,8 +426,10 @@ public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
                     }
                     
                     
-                } else if (messageEvent instanceof Expunged) {
+                } else if (messageEvent instanceof Expunged && !alreadyAcknowledged) {
                     expungedUids.addAll(messageEvent.getUids());
+                    expungedUidsInView.addAll(messageEvent.getUids());
+                    view = null;
                     
                 }
             } else if (mailboxEvent instanceof MailboxDeletion) {
@@ -391,9 +440,14 @@ public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
         }
     }
 
+    @Override
+    public SearchResultCache getSearchResultCache() {
+        return searchResultCache;
+    }
+
     @Override
     public synchronized int msn(MessageUid uid) {
-        return uidMsnConverter.getMsn(uid).orElse(NO_SUCH_MESSAGE);
+        return uidView().getMsn(uid).orElse(NO_SUCH_MESSAGE);
     }
 
     @Override
@@ -402,12 +456,12 @@ public class SelectedMailboxImpl implements SelectedMailbox, MailboxListener {
             return Optional.empty();
         }
 
-        return uidMsnConverter.getUid(msn);
+        return uidView().getUid(msn);
     }
 
     
     @Override
     public synchronized long existsCount() {
-        return uidMsnConverter.getNumMessage();
+        return uidView().getNumMessage();
     }
 }
@@ -0,0 +1,197 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.imap.processor.base;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.stream.Stream;
+
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MessageManager;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.events.Event;
+import org.apache.james.mailbox.events.EventBus;
+import org.apache.james.mailbox.events.MailboxIdRegistrationKey;
+import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.events.Registration;
+import org.apache.james.mailbox.exception.MailboxException;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.mailbox.model.SearchQuery;
+
+import com.github.steveash.guavate.Guavate;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Node wide registry of the UIDs of the selected mailboxes.
+ *
+ * IMAP sessions selecting the same mailbox share a single {@link MailboxUidIndex}: the UIDs are loaded once, a
+ * single listener is registered on the {@link EventBus} and each event is applied once. Sessions only keep track
+ * of their own pending changes, like the expunged messages they did not notify yet.
+ *
+ * Indexes are reference counted and dropped when the last session selecting the mailbox releases it.
+ */
+public class SelectedMailboxUidIndexes {
+
+    /**
+     * UIDs of a mailbox, shared amongst the sessions selecting it.
+     *
+     * The {@link UidMsnConverter} snapshot is copied on write, sessions can thus read it without locking. Events are
+     * applied then forwarded while holding the index lock: while a session handles an event, {@link #snapshot()} is
+     * the snapshot including its changes, which the session can keep as its view of the mailbox.
+     */
+    public static class MailboxUidIndex implements MailboxListener {
+        private final SelectedMailboxUidIndexes indexes;
+        private final MailboxId mailboxId;
+        private final Set<MailboxListener> sessions;
+        private final Object lifecycleLock;
+        private volatile UidMsnConverter snapshot;
+        private Registration registration;
+        private int references;
+        private boolean closed;
+
+        private MailboxUidIndex(SelectedMailboxUidIndexes indexes, MailboxId mailboxId) {
+            this.indexes = indexes;
+            this.mailboxId = mailboxId;
+            this.sessions = new CopyOnWriteArraySet<>();
+            this.lifecycleLock = new Object();
+            this.snapshot = new UidMsnConverter();
+            this.references = 0;
+            this.closed = false;
+        }
+
+        /**
+         * @return the current UIDs of the mailbox. The returned converter should not be modified.
+         */
+        public UidMsnConverter snapshot() {
+            return snapshot;
+        }
+
+        public MailboxId getMailboxId() {
+            return mailboxId;
+        }
+
+        private boolean retain(MessageManager messageManager, MailboxSession mailboxSession, MailboxListener session) throws MailboxException {
+            synchronized (lifecycleLock) {
+                if (closed) {
+                    return false;
+                }
+                if (references == 0) {
+                    load(messageManager, mailboxSession);
+                }
+                references++;
+                sessions.add(session);
+                return true;
+            }
+        }
+
+        private void load(MessageManager messageManager, MailboxSession mailboxSession) throws MailboxException {
+            // Register before searching so that no change is missed
+            registration = indexes.eventBus.register(this, new MailboxIdRegistrationKey(mailboxId));
+            try (Stream<MessageUid> stream = messageManager.search(new SearchQuery(SearchQuery.all()), mailboxSession)) {
+                addAll(stream.collect(Guavate.toImmutableList()));
+            } catch (MailboxException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void release(MailboxListener session) {
+            synchronized (lifecycleLock) {
+                if (!sessions.remove(session)) {
+                    return;
+                }
+                references--;
+                if (references == 0) {
+                    close();
+                }
+            }
+        }
+
+        private void close() {
+            closed = true;
+            registration.unregister();
+            indexes.indexes.remove(mailboxId, this);
+        }
+
+        private synchronized void addAll(List<MessageUid> uids) {
+            UidMsnConverter updated = snapshot.copy();
+            updated.addAll(uids);
+            snapshot = updated;
+        }
+
+        private synchronized void removeAll(Collection<MessageUid> uids) {
+            UidMsnConverter updated = snapshot.copy();
+            updated.removeAll(uids);
+            snapshot = updated;
+        }
+
+        @Override
+        public synchronized void event(Event event) throws Exception {
+            if (event instanceof Added) {
+                addAll(ImmutableList.copyOf(((Added) event).getUids()));
+            } else if (event instanceof Expunged) {
+                removeAll(((Expunged) event).getUids());
+            }
+            forward(event);
+        }
+
+        private void forward(Event event) throws Exception {
+            for (MailboxListener session : sessions) {
+                session.event(event);
+            }
+        }
+    }
+
+    private final EventBus eventBus;
+    private final ConcurrentHashMap<MailboxId, MailboxUidIndex> indexes;
+
+    public SelectedMailboxUidIndexes(EventBus eventBus) {
+        this.eventBus = eventBus;
+        this.indexes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieves the index of the given mailbox, loading it if no other session did select it. Events of this mailbox
+     * will be forwarded to the session listener until the index is released.
+     */
+    public MailboxUidIndex acquire(MessageManager messageManager, MailboxSession mailboxSession, MailboxListener session) throws MailboxException {
+        MailboxId mailboxId = messageManager.getId();
+        while (true) {
+            MailboxUidIndex index = indexes.computeIfAbsent(mailboxId, id -> new MailboxUidIndex(this, id));
+            if (index.retain(messageManager, mailboxSession, session)) {
+                return index;
+            }
+            // The index was closed concurrently, a new one needs to be created
+        }
+    }
+
+    public void release(MailboxUidIndex index, MailboxListener session) {
+        index.release(session);
+    }
+
+    @VisibleForTesting
+    int indexCount() {
+        return indexes.size();
+    }
+}
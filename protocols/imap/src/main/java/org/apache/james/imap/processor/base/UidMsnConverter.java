@@ -19,96 +19,391 @@
 
 package org.apache.james.imap.processor.base;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import org.apache.james.mailbox.MessageUid;
 
-import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Lists;
-
+/**
+ * Maps the UIDs of a selected mailbox to their message sequence numbers.
+ *
+ * UIDs are stored as runs of consecutive UIDs held in primitive arrays: a run starts at starts[i], holds lengths[i]
+ * UIDs, and its first UID has the message sequence number offsets[i] + 1. Mailboxes without many expunges thus only
+ * need a few runs. Lookups are binary searches over the runs. Reads share a read lock, updates take the write lock.
+ */
 public class UidMsnConverter {
 
     public static final int FIRST_MSN = 1;
+    private static final int INITIAL_CAPACITY = 8;
 
-    @VisibleForTesting final ArrayList<MessageUid> uids;
+    private final ReadWriteLock lock;
+    private long[] starts;
+    private int[] lengths;
+    private int[] offsets;
+    private int runCount;
+    private int size;
 
     public UidMsnConverter() {
-        this.uids = Lists.newArrayList();
+        this(new long[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0, 0);
+    }
+
+    private UidMsnConverter(long[] starts, int[] lengths, int[] offsets, int runCount, int size) {
+        this.lock = new ReentrantReadWriteLock();
+        this.starts = starts;
+        this.lengths = lengths;
+        this.offsets = offsets;
+        this.runCount = runCount;
+        this.size = size;
+    }
+
+    /**
+     * @return an independent copy of this mapping. As runs are copied, this is cheap for mailboxes without many gaps.
+     */
+    public UidMsnConverter copy() {
+        return read(() -> {
+            int capacity = Math.max(runCount, INITIAL_CAPACITY);
+            return new UidMsnConverter(
+                Arrays.copyOf(starts, capacity),
+                Arrays.copyOf(lengths, capacity),
+                Arrays.copyOf(offsets, capacity),
+                runCount,
+                size);
+        });
+    }
+
+    public void addAll(List<MessageUid> addedUids) {
+        long[] sortedUids = addedUids.stream()
+            .mapToLong(MessageUid::asLong)
+            .sorted()
+            .distinct()
+            .toArray();
+
+        write(() -> {
+            if (size == 0 || sortedUids.length == 0 || sortedUids[0] > lastUid()) {
+                Arrays.stream(sortedUids).forEach(this::append);
+            } else {
+                merge(sortedUids);
+            }
+        });
     }
 
-    public synchronized void addAll(List<MessageUid> addedUids) {
-        TreeSet<MessageUid> tmp = new TreeSet<>();
-        tmp.addAll(uids);
-        tmp.addAll(addedUids);
-        uids.clear();
-        uids.addAll(tmp);
+    public Optional<Integer> getMsn(MessageUid uid) {
+        return read(() -> {
+            int run = runContaining(uid.asLong());
+            if (run < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(offsets[run] + (int) (uid.asLong() - starts[run]) + 1);
+        });
     }
 
-    public synchronized Optional<Integer> getMsn(MessageUid uid) {
-        int position = Collections.binarySearch(uids, uid);
-        if (position < 0) {
+    public Optional<MessageUid> getUid(int msn) {
+        return read(() -> {
+            if (msn <= size && msn > 0) {
+                int run = runHoldingPosition(msn - 1);
+                return Optional.of(MessageUid.of(starts[run] + (msn - 1 - offsets[run])));
+            }
             return Optional.empty();
-        }
-        return Optional.of(position + 1);
+        });
+    }
+
+    public Optional<MessageUid> getLastUid() {
+        return read(() -> {
+            if (size == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(MessageUid.of(lastUid()));
+        });
+    }
+
+    public Optional<MessageUid> getFirstUid() {
+        return read(() -> {
+            if (size == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(MessageUid.of(starts[0]));
+        });
+    }
+
+    public int getNumMessage() {
+        return read(() -> size);
+    }
+
+    public void remove(MessageUid uid) {
+        write(() -> removeUid(uid.asLong()));
+    }
+
+    /**
+     * Removes all the given UIDs within a single pass over the runs.
+     */
+    public void removeAll(Collection<MessageUid> removedUids) {
+        long[] sortedUids = removedUids.stream()
+            .mapToLong(MessageUid::asLong)
+            .sorted()
+            .distinct()
+            .toArray();
+
+        write(() -> {
+            if (sortedUids.length == 1) {
+                removeUid(sortedUids[0]);
+            } else if (sortedUids.length > 1) {
+                rebuildWithout(sortedUids);
+            }
+        });
+    }
+
+    public boolean isEmpty() {
+        return read(() -> size == 0);
+    }
+
+    public void clear() {
+        write(() -> {
+            runCount = 0;
+            size = 0;
+        });
     }
 
-    public synchronized Optional<MessageUid> getUid(int msn) {
-        if (msn <= uids.size() && msn > 0) {
-            return Optional.of(uids.get(msn - 1));
+    public void addUid(MessageUid uid) {
+        write(() -> addUid(uid.asLong()));
+    }
+
+    private <T> T read(Supplier<T> operation) {
+        lock.readLock().lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.readLock().unlock();
         }
-        return Optional.empty();
     }
 
-    public synchronized Optional<MessageUid> getLastUid() {
-        if (uids.isEmpty()) {
-            return Optional.empty();
+    private void write(Runnable operation) {
+        lock.writeLock().lock();
+        try {
+            operation.run();
+        } finally {
+            lock.writeLock().unlock();
         }
-        return getUid(getLastMsn());
     }
 
-    public synchronized Optional<MessageUid> getFirstUid() {
-        return getUid(FIRST_MSN);
+    private long lastUid() {
+        return runEnd(runCount - 1) - 1;
     }
 
-    public synchronized int getNumMessage() {
-        return uids.size();
+    private long runEnd(int run) {
+        return starts[run] + lengths[run];
     }
 
-    public synchronized void remove(MessageUid uid) {
-        uids.remove(uid);
+    /**
+     * @return the index of the last run starting before or at the given UID, -1 if none
+     */
+    private int lastRunStartingAtOrBefore(long uid) {
+        int position = Arrays.binarySearch(starts, 0, runCount, uid);
+        if (position >= 0) {
+            return position;
+        }
+        return -position - 2;
     }
 
-    public synchronized boolean isEmpty() {
-        return uids.isEmpty();
+    private int runContaining(long uid) {
+        int run = lastRunStartingAtOrBefore(uid);
+        if (run >= 0 && uid < runEnd(run)) {
+            return run;
+        }
+        return -1;
     }
 
-    public synchronized void clear() {
-        uids.clear();
+    private int runHoldingPosition(int position) {
+        int run = Arrays.binarySearch(offsets, 0, runCount, position);
+        if (run >= 0) {
+            return run;
+        }
+        return -run - 2;
     }
 
-    public synchronized void addUid(MessageUid uid) {
-        if (uids.contains(uid)) {
+    private void append(long uid) {
+        if (runCount > 0 && uid == runEnd(runCount - 1)) {
+            lengths[runCount - 1]++;
+        } else {
+            insertRun(runCount, uid, 1);
+        }
+        size++;
+    }
+
+    private void addUid(long uid) {
+        if (size == 0 || uid > lastUid()) {
+            append(uid);
+            return;
+        }
+        int run = lastRunStartingAtOrBefore(uid);
+        if (run >= 0 && uid < runEnd(run)) {
+            return;
+        }
+        boolean extendsPreviousRun = run >= 0 && uid == runEnd(run);
+        boolean extendsNextRun = run + 1 < runCount && uid + 1 == starts[run + 1];
+        if (extendsPreviousRun && extendsNextRun) {
+            lengths[run] += 1 + lengths[run + 1];
+            deleteRun(run + 1);
+            shiftOffsets(run + 1, 1);
+        } else if (extendsPreviousRun) {
+            lengths[run]++;
+            shiftOffsets(run + 1, 1);
+        } else if (extendsNextRun) {
+            starts[run + 1]--;
+            lengths[run + 1]++;
+            shiftOffsets(run + 2, 1);
+        } else {
+            insertRun(run + 1, uid, 1);
+            shiftOffsets(run + 2, 1);
+        }
+        size++;
+    }
+
+    private void removeUid(long uid) {
+        int run = runContaining(uid);
+        if (run < 0) {
             return;
         }
-        if (isLastUid(uid)) {
-            uids.add(uid);
+        long end = runEnd(run);
+        if (lengths[run] == 1) {
+            deleteRun(run);
+            shiftOffsets(run, -1);
+        } else if (uid == starts[run]) {
+            starts[run]++;
+            lengths[run]--;
+            shiftOffsets(run + 1, -1);
+        } else if (uid == end - 1) {
+            lengths[run]--;
+            shiftOffsets(run + 1, -1);
         } else {
-            uids.add(uid);
-            Collections.sort(uids);
+            lengths[run] = (int) (uid - starts[run]);
+            insertRun(run + 1, uid + 1, (int) (end - uid - 1));
+            shiftOffsets(run + 2, -1);
         }
+        size--;
+    }
+
+    /**
+     * Inserts a run at the given index, computing its offset from the previous run.
+     */
+    private void insertRun(int index, long start, int length) {
+        ensureCapacity(runCount + 1);
+        System.arraycopy(starts, index, starts, index + 1, runCount - index);
+        System.arraycopy(lengths, index, lengths, index + 1, runCount - index);
+        System.arraycopy(offsets, index, offsets, index + 1, runCount - index);
+        starts[index] = start;
+        lengths[index] = length;
+        offsets[index] = index == 0 ? 0 : offsets[index - 1] + lengths[index - 1];
+        runCount++;
     }
 
-    private boolean isLastUid(MessageUid uid) {
-        Optional<MessageUid> lastUid = getLastUid();
-        return !lastUid.isPresent() ||
-            lastUid.get().compareTo(uid) < 0;
+    private void deleteRun(int index) {
+        System.arraycopy(starts, index + 1, starts, index, runCount - index - 1);
+        System.arraycopy(lengths, index + 1, lengths, index, runCount - index - 1);
+        System.arraycopy(offsets, index + 1, offsets, index, runCount - index - 1);
+        runCount--;
     }
 
-    private int getLastMsn() {
-        return getNumMessage();
+    private void shiftOffsets(int fromRun, int delta) {
+        for (int run = fromRun; run < runCount; run++) {
+            offsets[run] += delta;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > starts.length) {
+            int newCapacity = Math.max(capacity, starts.length * 2);
+            starts = Arrays.copyOf(starts, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+        }
+    }
+
+    /**
+     * Merges the runs with the given UIDs, both being sorted: this is proportional to the count of runs and of added
+     * UIDs, not to the size of the mailbox.
+     */
+    private void merge(long[] sortedUids) {
+        RunsBuilder merged = new RunsBuilder(runCount + sortedUids.length);
+        int run = 0;
+        int added = 0;
+        while (run < runCount || added < sortedUids.length) {
+            if (added == sortedUids.length || (run < runCount && starts[run] <= sortedUids[added])) {
+                merged.add(starts[run], runEnd(run));
+                run++;
+            } else {
+                merged.add(sortedUids[added], sortedUids[added] + 1);
+                added++;
+            }
+        }
+        replaceRuns(merged);
+    }
+
+    /**
+     * Trims or splits the runs holding the given sorted UIDs: this is proportional to the count of runs and of removed
+     * UIDs, not to the size of the mailbox.
+     */
+    private void rebuildWithout(long[] sortedRemovedUids) {
+        RunsBuilder remaining = new RunsBuilder(runCount + sortedRemovedUids.length);
+        int removed = 0;
+        for (int run = 0; run < runCount; run++) {
+            long end = runEnd(run);
+            while (removed < sortedRemovedUids.length && sortedRemovedUids[removed] < starts[run]) {
+                removed++;
+            }
+            long start = starts[run];
+            while (removed < sortedRemovedUids.length && sortedRemovedUids[removed] < end) {
+                remaining.add(start, sortedRemovedUids[removed]);
+                start = sortedRemovedUids[removed] + 1;
+                removed++;
+            }
+            remaining.add(start, end);
+        }
+        replaceRuns(remaining);
+    }
+
+    private void replaceRuns(RunsBuilder runs) {
+        starts = runs.starts;
+        lengths = runs.lengths;
+        offsets = new int[starts.length];
+        runCount = runs.runCount;
+        size = 0;
+        for (int run = 0; run < runCount; run++) {
+            offsets[run] = size;
+            size += lengths[run];
+        }
+    }
+
+    /**
+     * Accumulates UID ranges given by increasing starts, merging the overlapping and adjacent ones into runs.
+     */
+    private static class RunsBuilder {
+        private final long[] starts;
+        private final int[] lengths;
+        private int runCount;
+
+        RunsBuilder(int maxRunCount) {
+            int capacity = Math.max(maxRunCount, INITIAL_CAPACITY);
+            this.starts = new long[capacity];
+            this.lengths = new int[capacity];
+        }
+
+        void add(long start, long end) {
+            if (start >= end) {
+                return;
+            }
+            if (runCount > 0 && start <= starts[runCount - 1] + lengths[runCount - 1]) {
+                long lastEnd = Math.max(end, starts[runCount - 1] + lengths[runCount - 1]);
+                lengths[runCount - 1] = (int) (lastEnd - starts[runCount - 1]);
+                return;
+            }
+            starts[runCount] = start;
+            lengths[runCount] = (int) (end - start);
+            runCount++;
+        }
     }
 }
@@ -21,8 +21,11 @@ package org.apache.james.imap.processor.fetch;
 
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.apache.james.imap.api.ImapConfiguration;
 import org.apache.james.imap.api.ImapConstants;
 import org.apache.james.imap.api.display.HumanReadableText;
 import org.apache.james.imap.api.message.FetchData;
@@ -38,6 +41,8 @@ import org.apache.james.mailbox.MailboxManager;
 import org.apache.james.mailbox.MailboxSession;
 import org.apache.james.mailbox.MessageManager;
 import org.apache.james.mailbox.MessageManager.MetaData;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
 import org.apache.james.mailbox.exception.MailboxException;
 import org.apache.james.mailbox.exception.MessageRangeException;
 import org.apache.james.mailbox.model.FetchGroup;
@@ -46,15 +51,32 @@ import org.apache.james.mailbox.model.MessageResult;
 import org.apache.james.mailbox.model.MessageResultIterator;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.util.MDCBuilder;
+import org.apache.james.util.streams.Iterators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
 public class FetchProcessor extends AbstractMailboxProcessor<FetchRequest> {
     private static final Logger LOGGER = LoggerFactory.getLogger(FetchProcessor.class);
 
+    private int fetchPrefetchSize;
+
     public FetchProcessor(ImapProcessor next, MailboxManager mailboxManager, StatusResponseFactory factory,
             MetricFactory metricFactory) {
         super(FetchRequest.class, next, mailboxManager, factory, metricFactory);
+        this.fetchPrefetchSize = ImapConfiguration.DEFAULT_FETCH_PREFETCH_SIZE;
+    }
+
+    @Override
+    public void configure(ImapConfiguration imapConfiguration) {
+        super.configure(imapConfiguration);
+
+        this.fetchPrefetchSize = imapConfiguration.getFetchPrefetchSize();
     }
 
     @Override
@@ -101,10 +123,12 @@ public class FetchProcessor extends AbstractMailboxProcessor<FetchRequest> {
                 }
             }
 
-            if (vanished) {
-                // TODO: From the QRESYNC RFC it seems ok to send the VANISHED responses after the FETCH Responses. 
-                //       If we do so we could prolly save one mailbox access which should give use some more speed up
-                respondVanished(mailboxSession, mailbox, ranges, changedSince, metaData, responder);
+            if (changedSince != -1) {
+                List<MessageUid> changedUids = retrieveUidsChangedSince(mailbox, changedSince, metaData, mailboxSession);
+                if (vanished && metaData.getHighestModSeq().asLong() > changedSince) {
+                    respondVanished(ranges, changedUids, responder);
+                }
+                ranges = restrictToUids(ranges, changedUids);
             }
             // if QRESYNC is enable its necessary to also return the UID in all cases
             if (EnableProcessor.getEnabledCapabilities(session).contains(ImapConstants.SUPPORTS_QRESYNC)) {
@@ -148,28 +172,8 @@ public class FetchProcessor extends AbstractMailboxProcessor<FetchRequest> {
 
         for (MessageRange range : ranges) {
             MessageResultIterator messages = mailbox.getMessages(range, resultToFetch, mailboxSession);
-            while (messages.hasNext()) {
-                final MessageResult result = messages.next();
-
-                //skip unchanged messages - this should be filtered at the mailbox level to take advantage of indexes
-                if (fetch.isModSeq() && result.getModSeq().asLong() <= fetch.getChangedSince()) {
-                    continue;
-                }
-
-                try {
-                    final FetchResponse response = builder.build(fetch, result, mailbox, session, useUids);
-                    responder.respond(response);
-                } catch (MessageRangeException e) {
-                    // we can't for whatever reason find the message so
-                    // just skip it and log it to debug
-                    LOGGER.debug("Unable to find message with uid {}", result.getUid(), e);
-                } catch (MailboxException e) {
-                    // we can't for whatever reason find parse all requested parts of the message. This may because it was deleted while try to access the parts.
-                    // So we just skip it 
-                    //
-                    // See IMAP-347
-                    LOGGER.error("Unable to fetch message with uid {}, so skip it", result.getUid(), e);
-                }
+            try (Stream<MessageResult> results = prefetch(messages)) {
+                respond(results.iterator(), fetch, mailbox, session, useUids, responder, builder);
             }
 
             // Throw the exception if we received one
@@ -180,6 +184,62 @@ public class FetchProcessor extends AbstractMailboxProcessor<FetchRequest> {
 
     }
 
+    /**
+     * Only the messages changed since the mod-sequence supplied by the client are looked up, so that the cost of a
+     * CONDSTORE or QRESYNC resynchronisation scales with the number of changes rather than with the mailbox size.
+     */
+    private List<MessageUid> retrieveUidsChangedSince(MessageManager mailbox, long changedSince, MetaData metaData, MailboxSession mailboxSession) throws MailboxException {
+        if (metaData.getHighestModSeq().asLong() <= changedSince) {
+            return ImmutableList.of();
+        }
+        return mailbox.getUidsChangedSince(ModSeq.of(changedSince), mailboxSession);
+    }
+
+    private List<MessageRange> restrictToUids(List<MessageRange> ranges, List<MessageUid> uids) {
+        return MessageRange.toRanges(uids.stream()
+            .filter(uid -> ranges.stream().anyMatch(range -> range.includes(uid)))
+            .collect(Guavate.toImmutableList()));
+    }
+
+    /**
+     * When enabled, messages are read ahead from the mailbox on another thread while the responses of the previous
+     * ones are written. At most fetchPrefetchSize messages are held in memory.
+     */
+    private Stream<MessageResult> prefetch(MessageResultIterator messages) {
+        if (fetchPrefetchSize == 0) {
+            return Iterators.toStream(messages);
+        }
+        return Flux.fromIterable(() -> messages)
+            .subscribeOn(Schedulers.elastic())
+            .toStream(fetchPrefetchSize);
+    }
+
+    private void respond(Iterator<MessageResult> messages, FetchData fetch, MessageManager mailbox, ImapSession session, boolean useUids, Responder responder, FetchResponseBuilder builder) {
+        while (messages.hasNext()) {
+            final MessageResult result = messages.next();
+
+            //skip unchanged messages - this should be filtered at the mailbox level to take advantage of indexes
+            if (fetch.isModSeq() && result.getModSeq().asLong() <= fetch.getChangedSince()) {
+                continue;
+            }
+
+            try {
+                final FetchResponse response = builder.build(fetch, result, mailbox, session, useUids);
+                responder.respond(response);
+            } catch (MessageRangeException e) {
+                // we can't for whatever reason find the message so
+                // just skip it and log it to debug
+                LOGGER.debug("Unable to find message with uid {}", result.getUid(), e);
+            } catch (MailboxException e) {
+                // we can't for whatever reason find parse all requested parts of the message. This may because it was deleted while try to access the parts.
+                // So we just skip it 
+                //
+                // See IMAP-347
+                LOGGER.error("Unable to fetch message with uid {}, so skip it", result.getUid(), e);
+            }
+        }
+    }
+
 
     @Override
     protected Closeable addContextToMDC(FetchRequest request) {
@@ -186,4 +186,28 @@ public class ImapConfigurationTest {
 
         assertThat(imapConfiguration.isCondstoreEnable()).isFalse();
    }
-}
\ No newline at end of file
+
+    @Test
+    public void fetchPrefetchSizeShouldBeDefaultValueWhenNoSetting() {
+        ImapConfiguration imapConfiguration = ImapConfiguration.builder().build();
+
+        assertThat(imapConfiguration.getFetchPrefetchSize()).isEqualTo(ImapConfiguration.DEFAULT_FETCH_PREFETCH_SIZE);
+    }
+
+    @Test
+    public void fetchPrefetchSizeShouldReturnSetValue() {
+        ImapConfiguration imapConfiguration = ImapConfiguration.builder()
+                .fetchPrefetchSize(50)
+                .build();
+
+        assertThat(imapConfiguration.getFetchPrefetchSize()).isEqualTo(50);
+    }
+
+    @Test
+    public void fetchPrefetchSizeShouldThrowWhenNegative() {
+        expectedException.expect(IllegalArgumentException.class);
+
+        ImapConfiguration.builder()
+                .fetchPrefetchSize(-1);
+    }
+}
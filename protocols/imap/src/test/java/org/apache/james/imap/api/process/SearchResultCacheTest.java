@@ -0,0 +1,94 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imap.api.process;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.apache.james.imap.api.message.request.SearchKey;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.model.MessageRange;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class SearchResultCacheTest {
+    private static final MessageUid UID_1 = MessageUid.of(1);
+    private static final MessageUid UID_2 = MessageUid.of(2);
+    private static final MessageUid UID_5 = MessageUid.of(5);
+
+    private SearchResultCache testee;
+
+    @Before
+    public void setUp() {
+        testee = new SearchResultCache(2);
+    }
+
+    @Test
+    public void constructorShouldRejectNonPositiveMaxEntries() {
+        assertThatThrownBy(() -> new SearchResultCache(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void getShouldReturnEmptyWhenNotCached() {
+        assertThat(testee.get(SearchKey.buildAll())).isEmpty();
+    }
+
+    @Test
+    public void getShouldReturnCachedUidsAsRanges() {
+        testee.put(SearchKey.buildAll(), testee.generation(), ImmutableList.of(UID_5, UID_1, UID_2));
+
+        assertThat(testee.get(SearchKey.buildAll()))
+            .contains(ImmutableList.of(MessageRange.range(UID_1, UID_2), MessageRange.one(UID_5)));
+    }
+
+    @Test
+    public void putShouldIgnoreResultsComputedBeforeAnInvalidation() {
+        long generation = testee.generation();
+        testee.invalidate();
+
+        testee.put(SearchKey.buildAll(), generation, ImmutableList.of(UID_1));
+
+        assertThat(testee.get(SearchKey.buildAll())).isEmpty();
+    }
+
+    @Test
+    public void invalidateShouldDropCachedResults() {
+        testee.put(SearchKey.buildAll(), testee.generation(), ImmutableList.of(UID_1));
+
+        testee.invalidate();
+
+        assertThat(testee.get(SearchKey.buildAll())).isEmpty();
+    }
+
+    @Test
+    public void putShouldEvictLeastRecentlyUsedEntryWhenFull() {
+        testee.put(SearchKey.buildAll(), testee.generation(), ImmutableList.of(UID_1));
+        testee.put(SearchKey.buildSeen(), testee.generation(), ImmutableList.of(UID_2));
+        testee.get(SearchKey.buildAll());
+
+        testee.put(SearchKey.buildDeleted(), testee.generation(), ImmutableList.of(UID_5));
+
+        assertThat(testee.get(SearchKey.buildSeen())).isEmpty();
+        assertThat(testee.get(SearchKey.buildAll())).isPresent();
+        assertThat(testee.get(SearchKey.buildDeleted())).isPresent();
+    }
+}
@@ -20,9 +20,11 @@
 package org.apache.james.imap.processor;
 
 import static org.apache.james.imap.ImapFixture.TAG;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -51,6 +53,7 @@ import org.apache.james.imap.api.message.request.SearchOperation;
 import org.apache.james.imap.api.message.response.StatusResponse;
 import org.apache.james.imap.api.message.response.StatusResponseFactory;
 import org.apache.james.imap.api.process.ImapProcessor;
+import org.apache.james.imap.api.process.SearchResultCache;
 import org.apache.james.imap.api.process.SelectedMailbox;
 import org.apache.james.imap.encode.FakeImapSession;
 import org.apache.james.imap.message.request.SearchRequest;
@@ -72,6 +75,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 public class SearchProcessorTest {
     private static final int DAY = 6;
 
@@ -116,6 +121,7 @@ public class SearchProcessorTest {
     MailboxManager mailboxManager;
     MailboxSession mailboxSession;
     SelectedMailbox selectedMailbox;
+    SearchResultCache searchResultCache;
 
     @Before
     public void setUp() throws Exception {
@@ -129,6 +135,7 @@ public class SearchProcessorTest {
         mailboxManager = mock(MailboxManager.class);
         mailboxSession = MailboxSessionUtil.create(USER);
         selectedMailbox = mock(SelectedMailbox.class);
+        searchResultCache = new SearchResultCache();
         when(selectedMailbox.getMailboxId()).thenReturn(mailboxId);
         
         processor = new SearchProcessor(next,  mailboxManager, serverResponseFactory, new NoopMetricFactory());
@@ -194,6 +201,26 @@ public class SearchProcessorTest {
         check(SearchKey.buildAll(), SearchQuery.all());
     }
 
+    @Test
+    public void searchShouldReuseCachedResult() throws Exception {
+        expectsGetSelectedMailbox();
+        searchResultCache.put(SearchKey.buildAll(), searchResultCache.generation(), Collections.emptyList());
+
+        check(SearchKey.buildAll(), SearchQuery.all());
+
+        verify(mailbox, never()).search(any(), any());
+    }
+
+    @Test
+    public void searchShouldNotReuseResultCachedBeforeInvalidation() throws Exception {
+        expectsGetSelectedMailbox();
+        long generation = searchResultCache.generation();
+        searchResultCache.invalidate();
+        searchResultCache.put(SearchKey.buildAll(), generation, ImmutableList.of(MessageUid.of(1)));
+
+        check(SearchKey.buildAll(), SearchQuery.all());
+    }
+
     private void expectsGetSelectedMailbox() throws Exception {
         when(mailboxManager.getMailbox(mailboxId, mailboxSession)).thenReturn(mailbox, mailbox);
         session.selected(selectedMailbox);
@@ -202,6 +229,7 @@ public class SearchProcessorTest {
         when(selectedMailbox.getPath()).thenReturn(mailboxPath);
         when(selectedMailbox.flagUpdateUids()).thenReturn(Collections.<MessageUid>emptyList());
         when(selectedMailbox.getRecent()).thenReturn(new ArrayList<>());
+        when(selectedMailbox.getSearchResultCache()).thenReturn(searchResultCache);
     }
 
     private Calendar getGMT() {
@@ -0,0 +1,122 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imap.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.apache.james.imap.api.message.UidRange;
+import org.apache.james.imap.api.message.response.StatusResponseFactory;
+import org.apache.james.imap.api.process.ImapProcessor;
+import org.apache.james.imap.message.response.VanishedResponse;
+import org.apache.james.imap.processor.fetch.FetchProcessor;
+import org.apache.james.mailbox.MailboxManager;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.model.MessageRange;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.ImmutableList;
+
+public class VanishedResponseProcessingTest {
+    private static final MessageUid UID_1 = MessageUid.of(1);
+    private static final MessageUid UID_2 = MessageUid.of(2);
+    private static final MessageUid UID_3 = MessageUid.of(3);
+    private static final MessageUid UID_5 = MessageUid.of(5);
+    private static final MessageUid UID_7 = MessageUid.of(7);
+    private static final MessageUid UID_9 = MessageUid.of(9);
+    private static final MessageUid UID_10 = MessageUid.of(10);
+    private static final MessageUid UID_20 = MessageUid.of(20);
+
+    private FetchProcessor testee;
+    private ImapProcessor.Responder responder;
+
+    @Before
+    public void setUp() {
+        testee = new FetchProcessor(mock(ImapProcessor.class), mock(MailboxManager.class),
+            mock(StatusResponseFactory.class), new NoopMetricFactory());
+        responder = mock(ImapProcessor.Responder.class);
+    }
+
+    @Test
+    public void respondVanishedShouldReturnTheWholeRangesWhenNoChangedUids() {
+        testee.respondVanished(ImmutableList.of(MessageRange.range(UID_1, UID_5)), ImmutableList.of(), responder);
+
+        assertThat(vanishedUids()).containsExactly(new UidRange(UID_1, UID_5));
+    }
+
+    @Test
+    public void respondVanishedShouldExcludeChangedUids() {
+        testee.respondVanished(ImmutableList.of(MessageRange.range(UID_1, UID_10)), ImmutableList.of(UID_3, UID_7), responder);
+
+        assertThat(vanishedUids()).containsExactly(
+            new UidRange(UID_1, UID_2),
+            new UidRange(MessageUid.of(4), MessageUid.of(6)),
+            new UidRange(MessageUid.of(8), UID_10));
+    }
+
+    @Test
+    public void respondVanishedShouldHandleChangedUidsOnRangeBoundaries() {
+        testee.respondVanished(ImmutableList.of(MessageRange.range(UID_1, UID_5)), ImmutableList.of(UID_1, UID_5), responder);
+
+        assertThat(vanishedUids()).containsExactly(new UidRange(UID_2, MessageUid.of(4)));
+    }
+
+    @Test
+    public void respondVanishedShouldIgnoreChangedUidsOutsideOfTheRanges() {
+        testee.respondVanished(ImmutableList.of(MessageRange.range(UID_3, UID_5)), ImmutableList.of(UID_1, UID_20), responder);
+
+        assertThat(vanishedUids()).containsExactly(new UidRange(UID_3, UID_5));
+    }
+
+    @Test
+    public void respondVanishedShouldMergeOverlappingAndAdjacentRanges() {
+        testee.respondVanished(ImmutableList.of(
+                MessageRange.range(UID_7, UID_10),
+                MessageRange.range(UID_1, UID_5),
+                MessageRange.range(UID_3, MessageUid.of(6)),
+                MessageRange.one(UID_20)),
+            ImmutableList.of(UID_9),
+            responder);
+
+        assertThat(vanishedUids()).containsExactly(
+            new UidRange(UID_1, MessageUid.of(8)),
+            new UidRange(UID_10),
+            new UidRange(UID_20));
+    }
+
+    @Test
+    public void respondVanishedShouldReturnNothingWhenAllUidsChanged() {
+        testee.respondVanished(ImmutableList.of(MessageRange.range(UID_1, UID_3)), ImmutableList.of(UID_1, UID_2, UID_3), responder);
+
+        assertThat(vanishedUids()).isEmpty();
+    }
+
+    private List<UidRange> vanishedUids() {
+        ArgumentCaptor<VanishedResponse> captor = ArgumentCaptor.forClass(VanishedResponse.class);
+        verify(responder).respond(captor.capture());
+        assertThat(captor.getValue().isEarlier()).isTrue();
+        return ImmutableList.copyOf(captor.getValue().getUids());
+    }
+}
@@ -32,6 +32,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import javax.mail.Flags;
@@ -145,6 +146,35 @@ public class SelectedMailboxImplTest {
             .isEqualTo(1);
     }
 
+    @Test
+    public void expungedUidsShouldStayInTheViewUntilTheSessionNotifiesThem() throws Exception {
+        AtomicReference<MailboxListener> indexListener = new AtomicReference<>();
+        doAnswer(invocation -> {
+            indexListener.set(invocation.getArgument(0));
+            return null;
+        }).when(eventBus).register(any(MailboxListener.class), eq(mailboxIdRegistrationKey));
+        SelectedMailboxImpl selectedMailbox = new SelectedMailboxImpl(
+            mailboxManager,
+            eventBus,
+            imapSession,
+            mailboxPath);
+
+        indexListener.get().event(EventFactory.expunged()
+            .randomEventId()
+            .mailboxSession(MailboxSessionUtil.create(Username.of("user")))
+            .mailbox(mailbox)
+            .addMetaData(new MessageMetaData(MessageUid.of(1), MOD_SEQ, new Flags(), SIZE, new Date(), new DefaultMessageId()))
+            .build());
+
+        assertThat(selectedMailbox.existsCount()).isEqualTo(2);
+        assertThat(selectedMailbox.msn(MessageUid.of(3))).isEqualTo(2);
+
+        selectedMailbox.removeAll(selectedMailbox.expungedUids());
+
+        assertThat(selectedMailbox.existsCount()).isEqualTo(1);
+        assertThat(selectedMailbox.msn(MessageUid.of(3))).isEqualTo(1);
+    }
+
     private Answer<Stream<MessageUid>> delayedSearchAnswer() {
         return invocation -> {
             Thread.sleep(1000);
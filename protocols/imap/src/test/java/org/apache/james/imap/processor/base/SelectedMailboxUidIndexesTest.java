@@ -0,0 +1,211 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.imap.processor.base;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import javax.mail.Flags;
+
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MailboxSessionUtil;
+import org.apache.james.mailbox.MessageManager;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
+import org.apache.james.mailbox.events.Event;
+import org.apache.james.mailbox.events.InVMEventBus;
+import org.apache.james.mailbox.events.MailboxIdRegistrationKey;
+import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.events.delivery.InVmEventDelivery;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.model.MessageMetaData;
+import org.apache.james.mailbox.model.SearchQuery;
+import org.apache.james.mailbox.model.TestId;
+import org.apache.james.mailbox.store.event.EventFactory;
+import org.apache.james.mailbox.store.mail.model.DefaultMessageId;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SelectedMailboxUidIndexesTest {
+    private static final Username USER = Username.of("user");
+    private static final MailboxSession MAILBOX_SESSION = MailboxSessionUtil.create(USER);
+    private static final TestId MAILBOX_ID = TestId.of(42);
+    private static final MailboxPath MAILBOX_PATH = MailboxPath.inbox(USER);
+    private static final MessageUid UID_1 = MessageUid.of(1);
+    private static final MessageUid UID_2 = MessageUid.of(2);
+    private static final MessageUid UID_3 = MessageUid.of(3);
+
+    private InVMEventBus eventBus;
+    private MessageManager messageManager;
+    private SelectedMailboxUidIndexes testee;
+
+    @Before
+    public void setUp() throws Exception {
+        eventBus = new InVMEventBus(new InVmEventDelivery(new NoopMetricFactory()));
+        messageManager = mock(MessageManager.class);
+        when(messageManager.getId()).thenReturn(MAILBOX_ID);
+        when(messageManager.search(any(SearchQuery.class), any(MailboxSession.class)))
+            .then(invocation -> Stream.of(UID_1, UID_2));
+
+        testee = new SelectedMailboxUidIndexes(eventBus);
+    }
+
+    @Test
+    public void acquireShouldLoadMailboxUids() throws Exception {
+        SelectedMailboxUidIndexes.MailboxUidIndex index = testee.acquire(messageManager, MAILBOX_SESSION, mock(MailboxListener.class));
+
+        assertThat(index.snapshot().getNumMessage()).isEqualTo(2);
+        assertThat(index.snapshot().getLastUid()).contains(UID_2);
+    }
+
+    @Test
+    public void acquireShouldShareTheIndexAmongstSessions() throws Exception {
+        SelectedMailboxUidIndexes.MailboxUidIndex index1 = testee.acquire(messageManager, MAILBOX_SESSION, mock(MailboxListener.class));
+        SelectedMailboxUidIndexes.MailboxUidIndex index2 = testee.acquire(messageManager, MAILBOX_SESSION, mock(MailboxListener.class));
+
+        assertThat(index1).isSameAs(index2);
+        verify(messageManager, times(1)).search(any(SearchQuery.class), any(MailboxSession.class));
+    }
+
+    @Test
+    public void addedEventsShouldBeAppliedOnceAndForwardedToAllSessions() throws Exception {
+        MailboxListener session1 = mock(MailboxListener.class);
+        MailboxListener session2 = mock(MailboxListener.class);
+        SelectedMailboxUidIndexes.MailboxUidIndex index = testee.acquire(messageManager, MAILBOX_SESSION, session1);
+        testee.acquire(messageManager, MAILBOX_SESSION, session2);
+
+        Event added = added(UID_3);
+        eventBus.dispatch(added, new MailboxIdRegistrationKey(MAILBOX_ID)).block();
+
+        assertThat(index.snapshot().getLastUid()).contains(UID_3);
+        verify(session1, times(1)).event(added);
+        verify(session2, times(1)).event(added);
+    }
+
+    @Test
+    public void eventsShouldNotAlterPreviousSnapshots() throws Exception {
+        SelectedMailboxUidIndexes.MailboxUidIndex index = testee.acquire(messageManager, MAILBOX_SESSION, mock(MailboxListener.class));
+        UidMsnConverter snapshot = index.snapshot();
+
+        eventBus.dispatch(added(UID_3), new MailboxIdRegistrationKey(MAILBOX_ID)).block();
+
+        assertThat(snapshot.getNumMessage()).isEqualTo(2);
+    }
+
+    @Test
+    public void expungedEventsShouldBeRemovedFromTheSnapshotBeforeBeingForwarded() throws Exception {
+        AtomicReference<Optional<Integer>> msnDuringForward = new AtomicReference<>();
+        AtomicReference<SelectedMailboxUidIndexes.MailboxUidIndex> index = new AtomicReference<>();
+        index.set(testee.acquire(messageManager, MAILBOX_SESSION, event -> msnDuringForward.set(index.get().snapshot().getMsn(UID_1))));
+
+        eventBus.dispatch(expunged(UID_1), new MailboxIdRegistrationKey(MAILBOX_ID)).block();
+
+        assertThat(msnDuringForward.get()).isEmpty();
+        assertThat(index.get().snapshot().getMsn(UID_1)).isEmpty();
+    }
+
+    @Test
+    public void releaseShouldKeepTheIndexWhileOtherSessionsUseIt() throws Exception {
+        MailboxListener session1 = mock(MailboxListener.class);
+        MailboxListener session2 = mock(MailboxListener.class);
+        SelectedMailboxUidIndexes.MailboxUidIndex index = testee.acquire(messageManager, MAILBOX_SESSION, session1);
+        testee.acquire(messageManager, MAILBOX_SESSION, session2);
+
+        testee.release(index, session1);
+        eventBus.dispatch(added(UID_3), new MailboxIdRegistrationKey(MAILBOX_ID)).block();
+
+        assertThat(testee.indexCount()).isEqualTo(1);
+        assertThat(index.snapshot().getLastUid()).contains(UID_3);
+    }
+
+    @Test
+    public void releaseShouldDropTheIndexWhenTheLastSessionReleasesIt() throws Exception {
+        MailboxListener session = mock(MailboxListener.class);
+        SelectedMailboxUidIndexes.MailboxUidIndex index = testee.acquire(messageManager, MAILBOX_SESSION, session);
+
+        testee.release(index, session);
+        eventBus.dispatch(added(UID_3), new MailboxIdRegistrationKey(MAILBOX_ID)).block();
+
+        assertThat(testee.indexCount()).isEqualTo(0);
+        assertThat(index.snapshot().getNumMessage()).isEqualTo(2);
+        verify(session, never()).event(any());
+    }
+
+    @Test
+    public void releaseShouldBeIdempotent() throws Exception {
+        MailboxListener session1 = mock(MailboxListener.class);
+        MailboxListener session2 = mock(MailboxListener.class);
+        SelectedMailboxUidIndexes.MailboxUidIndex index = testee.acquire(messageManager, MAILBOX_SESSION, session1);
+        testee.acquire(messageManager, MAILBOX_SESSION, session2);
+
+        testee.release(index, session1);
+        testee.release(index, session1);
+
+        assertThat(testee.indexCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void acquireShouldReloadAReleasedIndex() throws Exception {
+        MailboxListener session = mock(MailboxListener.class);
+        SelectedMailboxUidIndexes.MailboxUidIndex index = testee.acquire(messageManager, MAILBOX_SESSION, session);
+        testee.release(index, session);
+
+        SelectedMailboxUidIndexes.MailboxUidIndex newIndex = testee.acquire(messageManager, MAILBOX_SESSION, session);
+
+        assertThat(newIndex).isNotSameAs(index);
+        assertThat(newIndex.snapshot().getNumMessage()).isEqualTo(2);
+    }
+
+    private Event added(MessageUid uid) {
+        return EventFactory.added()
+            .randomEventId()
+            .mailboxSession(MAILBOX_SESSION)
+            .mailboxId(MAILBOX_ID)
+            .mailboxPath(MAILBOX_PATH)
+            .addMetaData(metaData(uid))
+            .build();
+    }
+
+    private Event expunged(MessageUid uid) {
+        return EventFactory.expunged()
+            .randomEventId()
+            .mailboxSession(MAILBOX_SESSION)
+            .mailboxId(MAILBOX_ID)
+            .mailboxPath(MAILBOX_PATH)
+            .addMetaData(metaData(uid))
+            .build();
+    }
+
+    private MessageMetaData metaData(MessageUid uid) {
+        return new MessageMetaData(uid, ModSeq.first(), new Flags(), 12, new Date(), new DefaultMessageId());
+    }
+}
@@ -22,13 +22,17 @@ package org.apache.james.imap.processor.base;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.util.concurrency.ConcurrentTestRunner;
+import org.assertj.core.api.SoftAssertions;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.github.steveash.guavate.Guavate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
@@ -445,10 +449,152 @@ public class UidMsnConverterTest {
             .containsExactlyElementsOf(resultBuilder.build().entrySet());
     }
 
+    @Test
+    public void removeAllShouldKeepAMonoticMSNToUIDConversionMapping() {
+        testee.addAll(ImmutableList.of(messageUid1, messageUid2, messageUid3, messageUid4));
+
+        testee.removeAll(ImmutableList.of(messageUid1, messageUid3));
+
+        assertThat(mapTesteeInternalDataToMsnByUid())
+            .isEqualTo(ImmutableMap.of(1, messageUid2,
+                2, messageUid4));
+    }
+
+    @Test
+    public void removeAllShouldIgnoreUnknownUids() {
+        testee.addAll(ImmutableList.of(messageUid1, messageUid2));
+
+        testee.removeAll(ImmutableList.of(messageUid2, messageUid3, messageUid4));
+
+        assertThat(mapTesteeInternalDataToMsnByUid())
+            .isEqualTo(ImmutableMap.of(1, messageUid1));
+    }
+
+    @Test
+    public void getMsnShouldTakeGapsIntoAccount() {
+        testee.addAll(ImmutableList.of(MessageUid.of(1), MessageUid.of(2), MessageUid.of(10), MessageUid.of(11), MessageUid.of(20)));
+
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(testee.getMsn(MessageUid.of(2))).contains(2);
+            softly.assertThat(testee.getMsn(MessageUid.of(5))).isEmpty();
+            softly.assertThat(testee.getMsn(MessageUid.of(11))).contains(4);
+            softly.assertThat(testee.getMsn(MessageUid.of(20))).contains(5);
+            softly.assertThat(testee.getMsn(MessageUid.of(21))).isEmpty();
+        });
+    }
+
+    @Test
+    public void addUidShouldFillGaps() {
+        testee.addAll(ImmutableList.of(MessageUid.of(1), MessageUid.of(3), MessageUid.of(5)));
+
+        testee.addUid(MessageUid.of(2));
+        testee.addUid(MessageUid.of(4));
+
+        assertThat(mapTesteeInternalDataToMsnByUid())
+            .isEqualTo(ImmutableMap.of(1, MessageUid.of(1),
+                2, MessageUid.of(2),
+                3, MessageUid.of(3),
+                4, MessageUid.of(4),
+                5, MessageUid.of(5)));
+    }
+
+    @Test
+    public void removeAllShouldBeEquivalentToSuccessiveRemovesOnLargeMailboxes() {
+        int messageCount = 100000;
+        UidMsnConverter successiveRemoves = new UidMsnConverter();
+        ImmutableList<MessageUid> uids = IntStream.rangeClosed(1, messageCount)
+            .mapToObj(MessageUid::of)
+            .collect(Guavate.toImmutableList());
+        ImmutableList<MessageUid> removedUids = IntStream.rangeClosed(1, messageCount)
+            .filter(i -> i % 3 == 0)
+            .mapToObj(MessageUid::of)
+            .collect(Guavate.toImmutableList());
+        testee.addAll(uids);
+        successiveRemoves.addAll(uids);
+
+        testee.removeAll(removedUids);
+        removedUids.stream().limit(1000).forEach(successiveRemoves::remove);
+        successiveRemoves.removeAll(removedUids.subList(1000, removedUids.size()));
+
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(testee.getNumMessage()).isEqualTo(messageCount - removedUids.size());
+            softly.assertThat(testee.getUid(2)).contains(MessageUid.of(2));
+            softly.assertThat(testee.getUid(3)).contains(MessageUid.of(4));
+            softly.assertThat(testee.getMsn(MessageUid.of(messageCount))).contains(messageCount - removedUids.size());
+            softly.assertThat(mapTesteeInternalDataToMsnByUid()).isEqualTo(mapInternalDataToMsnByUid(successiveRemoves));
+        });
+    }
+
+    @Test
+    public void removeAllShouldTrimSplitAndDropRuns() {
+        testee.addAll(uids(1, 2, 3, 4, 5, 10, 11, 20, 21, 22));
+
+        testee.removeAll(uids(1, 3, 7, 10, 11, 22, 30));
+
+        assertThat(mapTesteeInternalDataToMsnByUid())
+            .isEqualTo(ImmutableMap.of(1, MessageUid.of(2),
+                2, MessageUid.of(4),
+                3, MessageUid.of(5),
+                4, MessageUid.of(20),
+                5, MessageUid.of(21)));
+    }
+
+    @Test
+    public void addAllShouldMergeOutOfOrderUidsWithExistingRuns() {
+        testee.addAll(uids(3, 4, 10, 11, 20));
+
+        testee.addAll(uids(12, 1, 5, 4, 9, 15));
+
+        assertThat(mapTesteeInternalDataToMsnByUid().values())
+            .containsExactlyElementsOf(uids(1, 3, 4, 5, 9, 10, 11, 12, 15, 20));
+        assertThat(testee.getMsn(MessageUid.of(20))).contains(10);
+    }
+
+    @Test
+    public void addAllShouldBridgeRunsSeparatedByTheAddedUids() {
+        testee.addAll(uids(1, 2, 4, 5, 7));
+
+        testee.addAll(uids(6, 3));
+        testee.addUid(MessageUid.of(8));
+
+        assertThat(mapTesteeInternalDataToMsnByUid().values())
+            .containsExactlyElementsOf(uids(1, 2, 3, 4, 5, 6, 7, 8));
+    }
+
+    private ImmutableList<MessageUid> uids(long... uids) {
+        return Arrays.stream(uids)
+            .mapToObj(MessageUid::of)
+            .collect(Guavate.toImmutableList());
+    }
+
+    @Test
+    public void copyShouldBeIndependentFromTheOriginal() {
+        testee.addAll(ImmutableList.of(messageUid1, messageUid2, messageUid3));
+
+        UidMsnConverter copy = testee.copy();
+        copy.remove(messageUid2);
+        testee.addUid(messageUid4);
+
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(mapInternalDataToMsnByUid(copy)).isEqualTo(ImmutableMap.of(
+                1, messageUid1,
+                2, messageUid3));
+            softly.assertThat(mapTesteeInternalDataToMsnByUid()).isEqualTo(ImmutableMap.of(
+                1, messageUid1,
+                2, messageUid2,
+                3, messageUid3,
+                4, messageUid4));
+        });
+    }
+
     private Map<Integer, MessageUid> mapTesteeInternalDataToMsnByUid() {
+        return mapInternalDataToMsnByUid(testee);
+    }
+
+    private Map<Integer, MessageUid> mapInternalDataToMsnByUid(UidMsnConverter converter) {
         ImmutableMap.Builder<Integer, MessageUid> result = ImmutableMap.builder();
-        for (int i = 0; i < testee.uids.size(); i++) {
-            result.put(i + 1, testee.uids.get(i));
+        for (int msn = 1; msn <= converter.getNumMessage(); msn++) {
+            result.put(msn, converter.getUid(msn).get());
         }
         return result.build();
     }
@@ -0,0 +1,105 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * Abstract base class for {@link ChannelInitializer} implementations, the Netty 4 counterpart of the
+ * AbstractSSLAwareChannelPipelineFactory.
+ *
+ * The core handler is run by the given {@link EventExecutorGroup} as protocol handlers are allowed to block.
+ */
+public abstract class AbstractChannelInitializer extends ChannelInitializer<Channel> {
+    public static final int MAX_LINE_LENGTH = 8192;
+
+    protected final ConnectionLimitInboundHandler connectionLimitHandler;
+    protected final ConnectionPerIpLimitInboundHandler connectionPerIpLimitHandler;
+    private final ChannelGroup channels;
+    private final EventExecutorGroup executorGroup;
+    private final int timeout;
+    private final FrameDecoderFactory frameDecoderFactory;
+
+    public AbstractChannelInitializer(int timeout, int maxConnections, int maxConnectsPerIp, ChannelGroup channels,
+                                      EventExecutorGroup executorGroup, FrameDecoderFactory frameDecoderFactory) {
+        this.connectionLimitHandler = new ConnectionLimitInboundHandler(maxConnections);
+        this.connectionPerIpLimitHandler = new ConnectionPerIpLimitInboundHandler(maxConnectsPerIp);
+        this.channels = channels;
+        this.executorGroup = executorGroup;
+        this.timeout = timeout;
+        this.frameDecoderFactory = frameDecoderFactory;
+    }
+
+    @Override
+    protected void initChannel(Channel channel) throws Exception {
+        ChannelPipeline pipeline = channel.pipeline();
+
+        if (isSSLSocket()) {
+            pipeline.addFirst(HandlerConstants.SSL_HANDLER, getSslContext().newHandler(channel.alloc()));
+        }
+
+        // Responses are flushed one by one by the protocol handlers, merge these flushes while reading
+        pipeline.addLast(HandlerConstants.FLUSH_CONSOLIDATION_HANDLER, new FlushConsolidationHandler());
+
+        channels.add(channel);
+
+        pipeline.addLast(HandlerConstants.CONNECTION_LIMIT_HANDLER, connectionLimitHandler);
+
+        pipeline.addLast(HandlerConstants.CONNECTION_PER_IP_LIMIT_HANDLER, connectionPerIpLimitHandler);
+
+        // Add the frame decoder which limit the max line length
+        pipeline.addLast(HandlerConstants.FRAMER, frameDecoderFactory.create(pipeline));
+
+        // Add the ChunkedWriteHandler to be able to write ChunkInput
+        pipeline.addLast(HandlerConstants.CHUNK_HANDLER, new ChunkedWriteHandler());
+        pipeline.addLast(HandlerConstants.TIMEOUT_HANDLER, new TimeoutHandler(timeout));
+
+        // Hand the events over to the executor ahead of the core handler. As pushed line handlers are added with the
+        // same executor, events queued while a line handler was pushed still go through it, as with Netty 3
+        // ExecutionHandler
+        pipeline.addLast(executorGroup, HandlerConstants.EXECUTION_HANDLER, new ChannelInboundHandlerAdapter());
+        pipeline.addLast(executorGroup, HandlerConstants.CORE_HANDLER, createHandler());
+    }
+
+    /**
+     * Create the core {@link ChannelHandler} to use
+     *
+     * @return coreHandler
+     */
+    protected abstract ChannelHandler createHandler();
+
+    /**
+     * Return if the socket is using SSL/TLS
+     */
+    protected abstract boolean isSSLSocket();
+
+    /**
+     * Return the {@link SslContext} to use, null if none is configured
+     */
+    protected abstract SslContext getSslContext();
+}
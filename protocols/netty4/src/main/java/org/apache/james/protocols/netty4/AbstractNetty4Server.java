@@ -0,0 +1,232 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.protocols.api.ProtocolServer;
+import org.apache.james.util.concurrent.NamedThreadFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.NonStickyEventExecutorGroup;
+import io.netty.util.concurrent.UnorderedThreadPoolEventExecutor;
+
+/**
+ * Abstract base class for Servers running on Netty 4.
+ *
+ * Sockets are served by the epoll native transport when available, unless disabled through
+ * {@link #setUseNativeTransport(boolean)}, and buffers are taken from the pooled allocator.
+ */
+public abstract class AbstractNetty4Server implements ProtocolServer {
+
+    public static final int DEFAULT_IO_WORKER_COUNT = Runtime.getRuntime().availableProcessors() * 2;
+    public static final int DEFAULT_MAX_EXECUTOR_COUNT = 16;
+    private static final int BOSS_THREAD_COUNT = 1;
+    private static final long NO_QUIET_PERIOD = 0;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 15;
+
+    private volatile int backlog = 250;
+
+    private volatile int timeout = 120;
+
+    private volatile int ioWorker = DEFAULT_IO_WORKER_COUNT;
+
+    private volatile int maxExecutorThreads = DEFAULT_MAX_EXECUTOR_COUNT;
+
+    private volatile boolean useNativeTransport = true;
+
+    private volatile boolean started;
+
+    private final ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    private List<InetSocketAddress> addresses = new ArrayList<>();
+
+    private EventLoopGroup bossGroup;
+
+    private EventLoopGroup workerGroup;
+
+    private EventExecutorGroup executorGroup;
+
+    private NativeTransport transport;
+
+    public synchronized void setListenAddresses(InetSocketAddress... addresses) {
+        checkNotStarted();
+        this.addresses = ImmutableList.copyOf(addresses);
+    }
+
+    /**
+     * Set the IO-worker thread count to use. Default is nCores * 2
+     */
+    public void setIoWorkerCount(int ioWorker) {
+        checkNotStarted();
+        this.ioWorker = ioWorker;
+    }
+
+    /**
+     * Set the count of threads running the protocol handlers, which are allowed to block. Default is 16
+     */
+    public void setMaxExecutorThreads(int maxExecutorThreads) {
+        checkNotStarted();
+        this.maxExecutorThreads = maxExecutorThreads;
+    }
+
+    /**
+     * Use the epoll native transport when available on this host. Default is true
+     */
+    public void setUseNativeTransport(boolean useNativeTransport) {
+        checkNotStarted();
+        this.useNativeTransport = useNativeTransport;
+    }
+
+    @Override
+    public synchronized void bind() throws Exception {
+        if (started) {
+            throw new IllegalStateException("Server running already");
+        }
+
+        if (addresses.isEmpty()) {
+            throw new RuntimeException("Please specify at least on socketaddress to which the server should get bound!");
+        }
+
+        transport = NativeTransport.select(useNativeTransport);
+        bossGroup = transport.createEventLoopGroup(BOSS_THREAD_COUNT, createThreadFactory());
+        workerGroup = transport.createEventLoopGroup(ioWorker, createThreadFactory());
+        // Events of a channel are run in order, but by any idle thread: a blocking handler does not hold back the
+        // other channels, as with Netty 3 OrderedMemoryAwareThreadPoolExecutor
+        executorGroup = new NonStickyEventExecutorGroup(new UnorderedThreadPoolEventExecutor(maxExecutorThreads, createThreadFactory()));
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+            .group(bossGroup, workerGroup)
+            .channel(transport.serverChannelClass())
+            .childHandler(createChannelInitializer(channels, executorGroup));
+        configureBootstrap(bootstrap);
+
+        for (InetSocketAddress address : addresses) {
+            channels.add(bootstrap.bind(address).sync().channel());
+        }
+        started = true;
+    }
+
+    /**
+     * Configure the bootstrap before it get bound
+     */
+    protected void configureBootstrap(ServerBootstrap bootstrap) {
+        bootstrap.option(ChannelOption.SO_BACKLOG, backlog)
+            .option(ChannelOption.SO_REUSEADDR, true)
+            .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+            .childOption(ChannelOption.TCP_NODELAY, true)
+            .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+    }
+
+    protected ThreadFactory createThreadFactory() {
+        return NamedThreadFactory.withClassName(getClass());
+    }
+
+    @Override
+    public synchronized void unbind() {
+        if (started == false) {
+            return;
+        }
+        channels.close().awaitUninterruptibly();
+        // Channels are closed already, no need to wait for a quiet period
+        bossGroup.shutdownGracefully(NO_QUIET_PERIOD, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS).awaitUninterruptibly();
+        workerGroup.shutdownGracefully(NO_QUIET_PERIOD, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS).awaitUninterruptibly();
+        executorGroup.shutdownGracefully(NO_QUIET_PERIOD, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS).awaitUninterruptibly();
+        started = false;
+    }
+
+    @Override
+    public synchronized List<InetSocketAddress> getListenAddresses() {
+        ImmutableList.Builder<InetSocketAddress> builder = ImmutableList.builder();
+        for (Channel channel : ImmutableList.copyOf(channels.iterator())) {
+            if (channel.parent() == null) {
+                builder.add((InetSocketAddress) channel.localAddress());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Return the transport the server is running on, or null if it is not bound
+     */
+    public NativeTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Create the {@link ChannelInitializer} setting up the pipeline of each accepted connection.
+     *
+     * Accepted channels are expected to be registered in the given {@link ChannelGroup}, and the handlers which can
+     * block to be run by the given {@link EventExecutorGroup} rather than by the IO-workers.
+     */
+    protected abstract ChannelInitializer<Channel> createChannelInitializer(ChannelGroup group, EventExecutorGroup executorGroup);
+
+    /**
+     * Set the read/write timeout for the server. This will throw a {@link IllegalStateException} if the
+     * server is running.
+     */
+    public void setTimeout(int timeout) {
+        checkNotStarted();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Set the Backlog for the socket. This will throw a {@link IllegalStateException} if the server is running.
+     */
+    public void setBacklog(int backlog) {
+        checkNotStarted();
+        this.backlog = backlog;
+    }
+
+    @Override
+    public int getBacklog() {
+        return backlog;
+    }
+
+    @Override
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public boolean isBound() {
+        return started;
+    }
+
+    private void checkNotStarted() {
+        if (started) {
+            throw new IllegalStateException("Can only be set when the server is not running");
+        }
+    }
+}
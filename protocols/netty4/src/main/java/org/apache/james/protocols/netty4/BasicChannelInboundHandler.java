@@ -0,0 +1,206 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import java.io.Closeable;
+import java.nio.channels.ClosedChannelException;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.james.protocols.api.Protocol;
+import org.apache.james.protocols.api.ProtocolSession;
+import org.apache.james.protocols.api.ProtocolSessionImpl;
+import org.apache.james.protocols.api.ProtocolTransport;
+import org.apache.james.protocols.api.Response;
+import org.apache.james.protocols.api.handler.ConnectHandler;
+import org.apache.james.protocols.api.handler.DisconnectHandler;
+import org.apache.james.protocols.api.handler.LineHandler;
+import org.apache.james.protocols.api.handler.ProtocolHandlerChain;
+import org.apache.james.protocols.api.handler.ProtocolHandlerResultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.ssl.SslContext;
+
+/**
+ * {@link SimpleChannelInboundHandler} which is used by the SMTPServer and other line based protocols.
+ *
+ * The {@link ProtocolSession} of each connection is stored as the {@link HandlerConstants#SESSION} channel attribute.
+ */
+@Sharable
+public class BasicChannelInboundHandler extends SimpleChannelInboundHandler<ByteBuf> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BasicChannelInboundHandler.class);
+    protected final Protocol protocol;
+    protected final ProtocolHandlerChain chain;
+    protected final SslContext startTlsContext;
+
+    public BasicChannelInboundHandler(Protocol protocol) {
+        this(protocol, null);
+    }
+
+    /**
+     * @param startTlsContext context used upon STARTTLS, null if STARTTLS is not supported
+     */
+    public BasicChannelInboundHandler(Protocol protocol, SslContext startTlsContext) {
+        this.protocol = protocol;
+        this.chain = protocol.getProtocolChain();
+        this.startTlsContext = startTlsContext;
+    }
+
+    @Override
+    public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+        ctx.channel().attr(HandlerConstants.SESSION).set(createSession(ctx));
+        super.channelRegistered(ctx);
+    }
+
+    /**
+     * Call the {@link ConnectHandler} instances which are stored in the {@link ProtocolHandlerChain}
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        try (Closeable closeable = ProtocolMDCContext.from(protocol, ctx)) {
+            List<ConnectHandler> connectHandlers = chain.getHandlers(ConnectHandler.class);
+            List<ProtocolHandlerResultHandler> resultHandlers = chain.getHandlers(ProtocolHandlerResultHandler.class);
+            ProtocolSession session = session(ctx);
+            LOGGER.info("Connection established from {}", session.getRemoteAddress().getAddress().getHostAddress());
+            if (connectHandlers != null) {
+                for (ConnectHandler cHandler : connectHandlers) {
+                    long start = System.currentTimeMillis();
+                    Response response = cHandler.onConnect(session);
+                    long executionTime = System.currentTimeMillis() - start;
+
+                    for (ProtocolHandlerResultHandler resultHandler : resultHandlers) {
+                        resultHandler.onResponse(session, response, executionTime, cHandler);
+                    }
+                    if (response != null) {
+                        transport(session).writeResponse(response, session);
+                    }
+
+                }
+            }
+            super.channelActive(ctx);
+        }
+    }
+
+    /**
+     * Call the {@link DisconnectHandler} instances which are stored in the {@link ProtocolHandlerChain}, and cleanup
+     * the session
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        try (Closeable closeable = ProtocolMDCContext.from(protocol, ctx)) {
+            List<DisconnectHandler> disconnectHandlers = chain.getHandlers(DisconnectHandler.class);
+            ProtocolSession session = session(ctx);
+            if (disconnectHandlers != null) {
+                for (DisconnectHandler disconnectHandler : disconnectHandlers) {
+                    disconnectHandler.onDisconnect(session);
+                }
+            }
+            LOGGER.info("Connection closed for {}", session.getRemoteAddress().getAddress().getHostAddress());
+            cleanup(ctx);
+            super.channelInactive(ctx);
+        }
+    }
+
+    /**
+     * Call the {@link LineHandler}
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf buf) throws Exception {
+        try (Closeable closeable = ProtocolMDCContext.from(protocol, ctx)) {
+            ProtocolSession pSession = session(ctx);
+            LinkedList<LineHandler> lineHandlers = chain.getHandlers(LineHandler.class);
+            LinkedList<ProtocolHandlerResultHandler> resultHandlers = chain.getHandlers(ProtocolHandlerResultHandler.class);
+
+            if (lineHandlers.size() > 0) {
+                LineHandler lHandler = lineHandlers.getLast();
+                long start = System.currentTimeMillis();
+                Response response = lHandler.onLine(pSession, buf.nioBuffer());
+                long executionTime = System.currentTimeMillis() - start;
+
+                for (ProtocolHandlerResultHandler resultHandler : resultHandlers) {
+                    response = resultHandler.onResponse(pSession, response, executionTime, lHandler);
+                }
+                if (response != null) {
+                    transport(pSession).writeResponse(response, pSession);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cleanup the channel
+     */
+    protected void cleanup(ChannelHandlerContext ctx) {
+        ProtocolSession session = ctx.channel().attr(HandlerConstants.SESSION).getAndSet(null);
+        if (session != null) {
+            session.resetState();
+        }
+    }
+
+    protected ProtocolSession createSession(ChannelHandlerContext ctx) throws Exception {
+        return protocol.newSession(new Netty4ProtocolTransport(ctx.channel(), startTlsContext));
+    }
+
+    protected ProtocolSession session(ChannelHandlerContext ctx) {
+        return ctx.channel().attr(HandlerConstants.SESSION).get();
+    }
+
+    private ProtocolTransport transport(ProtocolSession session) {
+        return ((ProtocolSessionImpl) session).getProtocolTransport();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        try (Closeable closeable = ProtocolMDCContext.from(protocol, ctx)) {
+            ProtocolSession session = session(ctx);
+            if (cause instanceof TooLongFrameException && session != null) {
+                Response r = session.newLineTooLongResponse();
+                if (r != null) {
+                    transport(session).writeResponse(r, session);
+                }
+            } else {
+                if (ctx.channel().isActive() && session != null) {
+                    ProtocolTransport transport = transport(session);
+
+                    Response r = session.newFatalErrorResponse();
+                    if (r != null) {
+                        transport.writeResponse(r, session);
+                    }
+                    transport.writeResponse(Response.DISCONNECT, session);
+                }
+                if (cause instanceof ClosedChannelException) {
+                    LOGGER.info("Unable to process request", cause);
+                } else {
+                    LOGGER.error("Unable to process request", cause);
+                }
+                cleanup(ctx);
+            }
+        }
+    }
+
+}
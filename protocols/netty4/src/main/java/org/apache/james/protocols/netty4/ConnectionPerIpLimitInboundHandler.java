@@ -0,0 +1,74 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+
+/**
+ * {@link ChannelInboundHandlerAdapter} which limit connections per IP
+ *
+ * This handler must be used as singleton when adding it to the {@link ChannelPipeline} to work correctly
+ */
+@Sharable
+public class ConnectionPerIpLimitInboundHandler extends ChannelInboundHandlerAdapter {
+
+    private final ConcurrentMap<String, AtomicInteger> connections = new ConcurrentHashMap<>();
+    private final int maxConnectionsPerIp;
+
+    public ConnectionPerIpLimitInboundHandler(int maxConnectionsPerIp) {
+        this.maxConnectionsPerIp = maxConnectionsPerIp;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (maxConnectionsPerIp > 0) {
+            int count = connections.computeIfAbsent(remoteIp(ctx), any -> new AtomicInteger(0))
+                .incrementAndGet();
+            if (count > maxConnectionsPerIp) {
+                ctx.channel().close();
+            }
+        }
+
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (maxConnectionsPerIp > 0) {
+            AtomicInteger atomicCount = connections.get(remoteIp(ctx));
+            if (atomicCount != null) {
+                atomicCount.decrementAndGet();
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    private String remoteIp(ChannelHandlerContext ctx) {
+        InetSocketAddress remoteAddress = (InetSocketAddress) ctx.channel().remoteAddress();
+        return remoteAddress.getAddress().getHostAddress();
+    }
+}
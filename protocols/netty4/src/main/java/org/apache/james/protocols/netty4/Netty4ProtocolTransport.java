@@ -0,0 +1,161 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+
+import org.apache.james.protocols.api.AbstractProtocolTransport;
+import org.apache.james.protocols.api.ProtocolSession;
+import org.apache.james.protocols.api.handler.LineHandler;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedStream;
+
+/**
+ * A Netty 4 implementation of a ProtocolTransport
+ */
+public class Netty4ProtocolTransport extends AbstractProtocolTransport {
+    private static final boolean START_TLS = true;
+
+    private final Channel channel;
+    private final SslContext sslContext;
+    private int lineHandlerCount = 0;
+
+    public Netty4ProtocolTransport(Channel channel, SslContext sslContext) {
+        this.channel = channel;
+        this.sslContext = sslContext;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return (InetSocketAddress) channel.remoteAddress();
+    }
+
+    @Override
+    public String getId() {
+        // Numeric as with Netty 3, some protocols rely on it, for instance for the APOP timestamp
+        return Integer.toString(channel.id().hashCode());
+    }
+
+    @Override
+    public boolean isTLSStarted() {
+        return channel.pipeline().get(SslHandler.class) != null;
+    }
+
+    @Override
+    public boolean isStartTLSSupported() {
+        return sslContext != null;
+    }
+
+    @Override
+    public void popLineHandler() {
+        if (lineHandlerCount > 0) {
+            channel.pipeline().remove("lineHandler" + lineHandlerCount);
+            lineHandlerCount--;
+        }
+    }
+
+    @Override
+    public int getPushedLineHandlerCount() {
+        return lineHandlerCount;
+    }
+
+    /**
+     * Write the given message and, when requested, add the {@link SslHandler} once it was sent in clear.
+     *
+     * Both are done from the event loop so that the listener runs as soon as the response reached the socket, hence
+     * before the client handshake can be read.
+     */
+    private void write(Object message, boolean startTLS) {
+        if (startTLS) {
+            channel.eventLoop().execute(() -> channel.writeAndFlush(message)
+                .addListener(future -> channel.pipeline()
+                    .addFirst(HandlerConstants.SSL_HANDLER, new SslHandler(sslContext.newEngine(channel.alloc()), !START_TLS))));
+        } else {
+            channel.writeAndFlush(message);
+        }
+    }
+
+    @Override
+    protected void writeToClient(byte[] bytes, ProtocolSession session, boolean startTLS) {
+        write(Unpooled.wrappedBuffer(bytes), startTLS);
+    }
+
+    @Override
+    protected void close() {
+        channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    @Override
+    protected void writeToClient(InputStream in, ProtocolSession session, boolean startTLS) {
+        write(toMessage(in), startTLS);
+    }
+
+    private Object toMessage(InputStream in) {
+        if (in instanceof FileInputStream && !isTLSStarted()) {
+            FileChannel fileChannel = ((FileInputStream) in).getChannel();
+            try {
+                return new DefaultFileRegion(fileChannel, fileChannel.position(), fileChannel.size() - fileChannel.position());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new ChunkedStream(in);
+    }
+
+    @Override
+    public void setReadable(boolean readable) {
+        channel.config().setAutoRead(readable);
+    }
+
+    @Override
+    public boolean isReadable() {
+        return channel.config().isAutoRead();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) channel.localAddress();
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void pushLineHandler(LineHandler<? extends ProtocolSession> overrideCommandHandler, ProtocolSession session) {
+        lineHandlerCount++;
+        // Add the linehandler in front of the coreHandler, and run it on the same executor so that it is executed
+        // in order with the coreHandler
+        //
+        // See JAMES-1277
+        ChannelHandlerContext coreHandlerContext = channel.pipeline().context(HandlerConstants.CORE_HANDLER);
+        channel.pipeline().addBefore(coreHandlerContext.executor(), HandlerConstants.CORE_HANDLER, "lineHandler" + lineHandlerCount,
+            new LineHandlerInboundHandler(session, overrideCommandHandler));
+    }
+
+}
@@ -0,0 +1,137 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import java.util.Optional;
+
+import org.apache.james.protocols.api.Encryption;
+import org.apache.james.protocols.api.Protocol;
+
+import com.google.common.base.Preconditions;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * Generic server running on Netty 4
+ */
+public class Netty4Server extends AbstractNetty4Server {
+
+    public static class Factory {
+
+        private Protocol protocol;
+        private Optional<Encryption> secure;
+        private Optional<FrameDecoderFactory> frameDecoderFactory;
+
+        public Factory() {
+            secure = Optional.empty();
+            frameDecoderFactory = Optional.empty();
+        }
+
+        public Factory protocol(Protocol protocol) {
+            Preconditions.checkNotNull(protocol, "'protocol' is mandatory");
+            this.protocol = protocol;
+            return this;
+        }
+
+        public Factory secure(Encryption secure) {
+            this.secure = Optional.ofNullable(secure);
+            return this;
+        }
+
+        public Factory frameDecoderFactory(FrameDecoderFactory frameDecoderFactory) {
+            this.frameDecoderFactory = Optional.ofNullable(frameDecoderFactory);
+            return this;
+        }
+
+        public Netty4Server build() {
+            Preconditions.checkState(protocol != null, "'protocol' is mandatory");
+            return new Netty4Server(protocol,
+                    secure.orElse(null),
+                    frameDecoderFactory.orElse(new LineBasedFrameDecoderFactory(AbstractChannelInitializer.MAX_LINE_LENGTH)));
+        }
+    }
+
+    protected final Encryption secure;
+    protected final Protocol protocol;
+    private final SslContext sslContext;
+    private final FrameDecoderFactory frameDecoderFactory;
+
+    private ChannelHandler coreHandler;
+
+    private int maxCurConnections;
+
+    private int maxCurConnectionsPerIP;
+
+    private Netty4Server(Protocol protocol, Encryption secure, FrameDecoderFactory frameDecoderFactory) {
+        this.protocol = protocol;
+        this.secure = secure;
+        this.sslContext = Optional.ofNullable(secure).map(SslContexts::from).orElse(null);
+        this.frameDecoderFactory = frameDecoderFactory;
+    }
+
+    protected ChannelHandler createCoreHandler() {
+        return new BasicChannelInboundHandler(protocol, startTlsContext());
+    }
+
+    private SslContext startTlsContext() {
+        if (secure != null && secure.isStartTLS()) {
+            return sslContext;
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void bind() throws Exception {
+        coreHandler = createCoreHandler();
+        super.bind();
+    }
+
+    @Override
+    protected ChannelInitializer<Channel> createChannelInitializer(ChannelGroup group, EventExecutorGroup executorGroup) {
+        return new AbstractChannelInitializer(
+            getTimeout(),
+            maxCurConnections,
+            maxCurConnectionsPerIP,
+            group,
+            executorGroup,
+            frameDecoderFactory) {
+
+            @Override
+            protected ChannelHandler createHandler() {
+                return coreHandler;
+            }
+
+            @Override
+            protected boolean isSSLSocket() {
+                return sslContext != null && !secure.isStartTLS();
+            }
+
+            @Override
+            protected SslContext getSslContext() {
+                return sslContext;
+            }
+        };
+    }
+
+}
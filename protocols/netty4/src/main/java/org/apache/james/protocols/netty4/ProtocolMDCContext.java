@@ -0,0 +1,69 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Optional;
+
+import org.apache.james.protocols.api.Protocol;
+import org.apache.james.protocols.api.ProtocolSession;
+import org.apache.james.util.MDCBuilder;
+
+import io.netty.channel.ChannelHandlerContext;
+
+public class ProtocolMDCContext {
+    public static Closeable from(Protocol protocol, ChannelHandlerContext ctx) {
+        return MDCBuilder.create()
+            .addContext(from(ctx.channel().attr(HandlerConstants.SESSION).get()))
+            .addContext(MDCBuilder.PROTOCOL, protocol.getName())
+            .addContext(MDCBuilder.IP, retrieveIp(ctx))
+            .addContext(MDCBuilder.HOST, retrieveHost(ctx))
+            .build();
+    }
+
+    private static String retrieveIp(ChannelHandlerContext ctx) {
+        SocketAddress remoteAddress = ctx.channel().remoteAddress();
+        if (remoteAddress instanceof InetSocketAddress) {
+            InetSocketAddress address = (InetSocketAddress) remoteAddress;
+            return address.getAddress().getHostAddress();
+        }
+        return String.valueOf(remoteAddress);
+    }
+
+    private static String retrieveHost(ChannelHandlerContext ctx) {
+        SocketAddress remoteAddress = ctx.channel().remoteAddress();
+        if (remoteAddress instanceof InetSocketAddress) {
+            InetSocketAddress address = (InetSocketAddress) remoteAddress;
+            return address.getHostName();
+        }
+        return String.valueOf(remoteAddress);
+    }
+
+    private static MDCBuilder from(ProtocolSession protocolSession) {
+        return Optional.ofNullable(protocolSession)
+            .map(session -> MDCBuilder.create()
+                .addContext(MDCBuilder.SESSION_ID, session.getSessionID())
+                .addContext(MDCBuilder.CHARSET, session.getCharset().displayName())
+                .addContext(MDCBuilder.USER, session.getUsername()))
+            .orElse(MDCBuilder.create());
+    }
+
+}
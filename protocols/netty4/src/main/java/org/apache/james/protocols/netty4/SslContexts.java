@@ -0,0 +1,57 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.james.protocols.api.Encryption;
+
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.IdentityCipherSuiteFilter;
+import io.netty.handler.ssl.JdkSslContext;
+import io.netty.handler.ssl.SslContext;
+
+public class SslContexts {
+    private static final boolean SERVER_MODE = false;
+    private static final boolean START_TLS = true;
+
+    /**
+     * Wrap the JDK {@link javax.net.ssl.SSLContext} of the given {@link Encryption} so that it can be used by Netty 4
+     * pipelines, restricted to the configured cipher suites if any.
+     */
+    public static SslContext from(Encryption encryption) {
+        return new JdkSslContext(encryption.getContext(),
+            SERVER_MODE,
+            enabledCipherSuites(encryption.getEnabledCipherSuites()),
+            IdentityCipherSuiteFilter.INSTANCE,
+            null,
+            ClientAuth.NONE,
+            null,
+            !START_TLS);
+    }
+
+    private static List<String> enabledCipherSuites(String[] enabledCipherSuites) {
+        return Optional.ofNullable(enabledCipherSuites)
+            .filter(cipherSuites -> cipherSuites.length > 0)
+            .map(Arrays::asList)
+            .orElse(null);
+    }
+}
@@ -0,0 +1,206 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty4;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.james.protocols.api.Encryption;
+import org.apache.james.protocols.api.Protocol;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+public class Netty4ServerTest {
+    private static final int SOCKET_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Answers each line with the same line, after waiting for the unblock latch when receiving "block".
+     */
+    private static class BlockingEchoServer extends AbstractNetty4Server {
+        private final CountDownLatch blocking = new CountDownLatch(1);
+        private final CountDownLatch unblock = new CountDownLatch(1);
+
+        @Override
+        protected ChannelInitializer<Channel> createChannelInitializer(ChannelGroup group, EventExecutorGroup executorGroup) {
+            return new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel channel) {
+                    group.add(channel);
+                    channel.pipeline().addLast(new LineBasedFrameDecoder(1024));
+                    channel.pipeline().addLast(executorGroup, new SimpleChannelInboundHandler<ByteBuf>() {
+                        @Override
+                        public void channelActive(ChannelHandlerContext ctx) {
+                            ctx.writeAndFlush(Unpooled.copiedBuffer("hello\n", StandardCharsets.US_ASCII));
+                        }
+
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf line) throws Exception {
+                            String content = line.toString(StandardCharsets.US_ASCII);
+                            if (content.equals("block")) {
+                                blocking.countDown();
+                                unblock.await();
+                            }
+                            ctx.writeAndFlush(Unpooled.copiedBuffer(content + "\n", StandardCharsets.US_ASCII));
+                        }
+                    });
+                }
+            };
+        }
+    }
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void protocolShouldThrowWhenProtocolIsNull() {
+        expectedException.expect(NullPointerException.class);
+        new Netty4Server.Factory().protocol(null);
+    }
+
+    @Test
+    public void buildShouldThrowWhenProtocolIsNotGiven() {
+        expectedException.expect(IllegalStateException.class);
+        new Netty4Server.Factory()
+            .build();
+    }
+
+    @Test
+    public void buildShouldWorkWhenProtocolIsGiven() {
+        Protocol protocol = mock(Protocol.class);
+        new Netty4Server.Factory()
+            .protocol(protocol)
+            .build();
+    }
+
+    @Test
+    public void buildShouldWorkWhenEverythingIsGiven() throws Exception {
+        Protocol protocol = mock(Protocol.class);
+        Encryption encryption = Encryption.createStartTls(SSLContext.getDefault());
+        FrameDecoderFactory frameDecoderFactory = mock(FrameDecoderFactory.class);
+        new Netty4Server.Factory()
+            .protocol(protocol)
+            .secure(encryption)
+            .frameDecoderFactory(frameDecoderFactory)
+            .build();
+    }
+
+    @Test
+    public void bindShouldListenOnTheGivenAddresses() throws Exception {
+        Protocol protocol = mock(Protocol.class);
+        Netty4Server server = new Netty4Server.Factory()
+            .protocol(protocol)
+            .build();
+        server.setListenAddresses(new InetSocketAddress("127.0.0.1", 0));
+
+        server.bind();
+        try {
+            assertThat(server.isBound()).isTrue();
+            assertThat(server.getListenAddresses()).hasSize(1);
+        } finally {
+            server.unbind();
+        }
+        assertThat(server.isBound()).isFalse();
+    }
+
+    @Test
+    public void bindShouldFallbackToNioWhenNativeTransportIsDisabled() throws Exception {
+        Netty4Server server = new Netty4Server.Factory()
+            .protocol(mock(Protocol.class))
+            .build();
+        server.setListenAddresses(new InetSocketAddress("127.0.0.1", 0));
+        server.setUseNativeTransport(false);
+
+        server.bind();
+        try {
+            assertThat(server.getTransport()).isEqualTo(NativeTransport.NIO);
+        } finally {
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void blockedChannelShouldNotDelayOtherChannels() throws Exception {
+        BlockingEchoServer server = new BlockingEchoServer();
+        server.setListenAddresses(new InetSocketAddress("127.0.0.1", 0));
+        server.setMaxExecutorThreads(2);
+        server.bind();
+
+        // More channels than executor threads: the third one would share the thread of the first one if channels
+        // were pinned to a thread
+        try (Socket blocked = connect(server);
+             Socket idle = connect(server);
+             Socket active = connect(server)) {
+            send(blocked, "block");
+            assertThat(server.blocking.await(SOCKET_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)).isTrue();
+
+            send(active, "ping");
+
+            assertThat(readLine(active)).isEqualTo("ping");
+        } finally {
+            server.unblock.countDown();
+            server.unbind();
+        }
+    }
+
+    private Socket connect(AbstractNetty4Server server) throws IOException {
+        Socket socket = new Socket();
+        socket.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+        socket.connect(server.getListenAddresses().get(0));
+        // Reading the greeting ensures channels are set up one after the other
+        assertThat(readLine(socket)).isEqualTo("hello");
+        return socket;
+    }
+
+    private void send(Socket socket, String line) throws IOException {
+        OutputStream outputStream = socket.getOutputStream();
+        outputStream.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+        outputStream.flush();
+    }
+
+    private String readLine(Socket socket) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int read = socket.getInputStream().read();
+        while (read != -1 && read != '\n') {
+            line.append((char) read);
+            read = socket.getInputStream().read();
+        }
+        return line.toString();
+    }
+}
@@ -20,8 +20,10 @@ package org.apache.james.protocols.smtp.core.fastfail;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.StringTokenizer;
 
 import org.apache.james.core.MailAddress;
@@ -116,12 +118,7 @@ public class DNSRBLHandler implements RcptHook {
         }
         
         if (whitelist != null || blacklist != null) {
-            StringBuilder sb = new StringBuilder();
-            StringTokenizer st = new StringTokenizer(ipAddress, " .", false);
-            while (st.hasMoreTokens()) {
-                sb.insert(0, st.nextToken() + ".");
-            }
-            String reversedOctets = sb.toString();
+            String reversedOctets = reversedOctets(ipAddress);
 
             if (whitelist != null) {
                 String[] rblList = whitelist;
@@ -166,6 +163,40 @@ public class DNSRBLHandler implements RcptHook {
         }
     }
     
+    /**
+     * Return the prefix of the names looked up on the RBL servers for the given IPv4 address, made of its octets in
+     * reverse order, each followed by a dot.
+     */
+    protected String reversedOctets(String ipAddress) {
+        StringBuilder sb = new StringBuilder();
+        StringTokenizer st = new StringTokenizer(ipAddress, " .", false);
+        while (st.hasMoreTokens()) {
+            sb.insert(0, st.nextToken() + ".");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return the configured whitelist RBL servers, in the order they are checked
+     */
+    protected List<String> getWhitelist() {
+        return asList(whitelist);
+    }
+
+    /**
+     * Return the configured blacklist RBL servers, in the order they are checked
+     */
+    protected List<String> getBlacklist() {
+        return asList(blacklist);
+    }
+
+    private List<String> asList(String[] rblServers) {
+        if (rblServers == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(rblServers));
+    }
+
     @Override
     public HookResult doRcpt(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
         checkDNSRBL(session, session.getRemoteAddress().getAddress().getHostAddress());
@@ -0,0 +1,135 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.api;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+public final class BlobReference {
+    public enum State {
+        /**
+         * All the owners of the blob are tracked: it is garbage collected once no longer referenced.
+         */
+        TRACKED,
+        /**
+         * The blob was stored before its references started being tracked: it might have unknown owners, thus it is
+         * never garbage collected.
+         */
+        PRE_EXISTING,
+        /**
+         * The blob is being deleted by the garbage collection: it can no longer be referenced.
+         */
+        BEING_COLLECTED
+    }
+
+    public static BlobReference of(BucketName bucketName, BlobId blobId, long referenceCount, Instant lastUpdate) {
+        return of(bucketName, blobId, referenceCount, lastUpdate, State.TRACKED);
+    }
+
+    public static BlobReference of(BucketName bucketName, BlobId blobId, long referenceCount, Instant lastUpdate, State state) {
+        return new BlobReference(bucketName, blobId, referenceCount, lastUpdate, state);
+    }
+
+    private final BucketName bucketName;
+    private final BlobId blobId;
+    private final long referenceCount;
+    private final Instant lastUpdate;
+    private final State state;
+
+    private BlobReference(BucketName bucketName, BlobId blobId, long referenceCount, Instant lastUpdate, State state) {
+        Preconditions.checkNotNull(bucketName);
+        Preconditions.checkNotNull(blobId);
+        Preconditions.checkNotNull(lastUpdate);
+        Preconditions.checkNotNull(state);
+        Preconditions.checkArgument(referenceCount >= 0, "'referenceCount' can not be negative");
+        Preconditions.checkArgument(state != State.BEING_COLLECTED || referenceCount == 0, "A blob being collected can not be referenced");
+
+        this.bucketName = bucketName;
+        this.blobId = blobId;
+        this.referenceCount = referenceCount;
+        this.lastUpdate = lastUpdate;
+        this.state = state;
+    }
+
+    public BucketName getBucketName() {
+        return bucketName;
+    }
+
+    public BlobId getBlobId() {
+        return blobId;
+    }
+
+    public long getReferenceCount() {
+        return referenceCount;
+    }
+
+    public Instant getLastUpdate() {
+        return lastUpdate;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isBeingCollected() {
+        return state == State.BEING_COLLECTED;
+    }
+
+    public boolean isUnreferencedSince(Instant instant) {
+        return state != State.PRE_EXISTING && referenceCount == 0 && lastUpdate.isBefore(instant);
+    }
+
+    public BlobReference beingCollected() {
+        return of(bucketName, blobId, referenceCount, lastUpdate, State.BEING_COLLECTED);
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof BlobReference) {
+            BlobReference that = (BlobReference) o;
+
+            return Objects.equals(this.referenceCount, that.referenceCount)
+                && Objects.equals(this.bucketName, that.bucketName)
+                && Objects.equals(this.blobId, that.blobId)
+                && Objects.equals(this.lastUpdate, that.lastUpdate)
+                && Objects.equals(this.state, that.state);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(bucketName, blobId, referenceCount, lastUpdate, state);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("bucketName", bucketName)
+            .add("blobId", blobId)
+            .add("referenceCount", referenceCount)
+            .add("lastUpdate", lastUpdate)
+            .add("state", state)
+            .toString();
+    }
+}
@@ -0,0 +1,82 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.api;
+
+import java.time.Instant;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tracks how many owners reference a given blob, allowing content addressed blobs to be shared between owners and
+ * only be deleted once none of them needs it anymore.
+ */
+public interface BlobReferenceStore {
+
+    /**
+     * Records a new reference to the given blob, starting to track it if needed.
+     *
+     * Fails with a {@link BlobBeingCollectedException} while the blob is being deleted by the garbage collection. The
+     * blob then needs to be referenced again once the collection is over, and stored again.
+     *
+     * @param preExisting whether the blob was already stored before this reference, and thus might have owners
+     *                    unknown to this store. Only taken into account when the blob starts being tracked, see
+     *                    {@link BlobReference.State#PRE_EXISTING}.
+     */
+    Mono<Void> increment(BucketName bucketName, BlobId blobId, boolean preExisting);
+
+    default Mono<Void> increment(BucketName bucketName, BlobId blobId) {
+        return increment(bucketName, blobId, false);
+    }
+
+    /**
+     * Releases a reference to the given blob.
+     *
+     * Blobs that are not tracked are left untouched: their owners are unknown, thus they can never be considered
+     * unreferenced. The reference count never goes below zero.
+     */
+    Mono<Void> decrement(BucketName bucketName, BlobId blobId);
+
+    /**
+     * @return the tracking entry of the given blob, empty if it is not tracked.
+     */
+    Mono<BlobReference> read(BucketName bucketName, BlobId blobId);
+
+    /**
+     * Lists tracked blobs no longer referenced, whose reference count was last updated before the given instant.
+     *
+     * {@link BlobReference.State#PRE_EXISTING} blobs are never listed, whereas blobs already being collected are, so
+     * that an interrupted collection can be resumed.
+     */
+    Flux<BlobReference> listUnreferenced(Instant lastUpdateBefore);
+
+    /**
+     * Marks a blob as {@link BlobReference.State#BEING_COLLECTED}, only if its entry was not updated since the given
+     * reference was read. Once marked, the blob can no longer be referenced, and can be safely deleted.
+     *
+     * @return true if the entry had been marked, false if it was concurrently updated.
+     */
+    Mono<Boolean> markAsBeingCollected(BlobReference reference);
+
+    /**
+     * Stops tracking a blob being collected, once it has been deleted. Entries in other states are left untouched.
+     */
+    Mono<Void> removeCollected(BucketName bucketName, BlobId blobId);
+}
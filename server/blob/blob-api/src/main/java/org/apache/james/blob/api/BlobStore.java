@@ -18,9 +18,15 @@
  ****************************************************************/
 package org.apache.james.blob.api;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface BlobStore {
@@ -29,10 +35,56 @@ public interface BlobStore {
 
     Mono<BlobId> save(BucketName bucketName, InputStream data);
 
+    /**
+     * Saves a blob whose content is provided chunk by chunk.
+     *
+     * Implementations consume the given publisher honoring backpressure and should not hold the full content in memory.
+     */
+    Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data);
+
     Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId);
 
     InputStream read(BucketName bucketName, BlobId blobId);
 
+    /**
+     * Reads at most {@code length} bytes of a blob, starting at {@code offset}.
+     *
+     * The default implementation skips the content preceding the requested range. Implementations storing blobs in
+     * parts are expected to only retrieve the parts covering the requested range.
+     */
+    default InputStream read(BucketName bucketName, BlobId blobId, long offset, long length) {
+        Preconditions.checkArgument(offset >= 0, "'offset' can not be negative");
+        Preconditions.checkArgument(length >= 0, "'length' can not be negative");
+
+        InputStream content = read(bucketName, blobId);
+        try {
+            ByteStreams.exhaust(ByteStreams.limit(content, offset));
+            return ByteStreams.limit(content, length);
+        } catch (IOException e) {
+            throw new ObjectStoreException("Failed to skip the " + offset + " first bytes of blob " + blobId.asString(), e);
+        }
+    }
+
+    /**
+     * Reads a blob chunk by chunk.
+     *
+     * Chunks are fetched from the underlying storage on demand, thus only a bounded number of chunks is held in memory
+     * at a given time. Errors, including {@link ObjectNotFoundException}, are propagated upon subscription.
+     */
+    Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId);
+
+    /**
+     * Size in bytes of a blob, failing with {@link ObjectNotFoundException} when it does not exist.
+     *
+     * The default implementation reads the blob chunk by chunk. Implementations are expected to rely on the metadata
+     * they store alongside blobs instead.
+     */
+    default Mono<Long> size(BucketName bucketName, BlobId blobId) {
+        return readReactive(bucketName, blobId)
+            .map(chunk -> (long) chunk.remaining())
+            .reduce(0L, Long::sum);
+    }
+
     default Mono<BlobId> save(BucketName bucketName, String data) {
         return save(bucketName, data.getBytes(StandardCharsets.UTF_8));
     }
@@ -19,12 +19,14 @@
 package org.apache.james.blob.api;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.james.metrics.api.MetricFactory;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class MetricableBlobStore implements BlobStore {
@@ -34,8 +36,12 @@ public class MetricableBlobStore implements BlobStore {
     static final String BLOB_STORE_METRIC_PREFIX = "blobStore:";
     static final String SAVE_BYTES_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "saveBytes";
     static final String SAVE_INPUT_STREAM_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "saveInputStream";
+    static final String SAVE_REACTIVE_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "saveReactive";
     static final String READ_BYTES_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "readBytes";
     static final String READ_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "read";
+    static final String READ_RANGE_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "readRange";
+    static final String READ_REACTIVE_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "readReactive";
+    static final String SIZE_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "size";
     static final String DELETE_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "delete";
     static final String DELETE_BUCKET_TIMER_NAME = BLOB_STORE_METRIC_PREFIX + "deleteBucket";
 
@@ -61,6 +67,12 @@ public class MetricableBlobStore implements BlobStore {
             .runPublishingTimerMetric(SAVE_INPUT_STREAM_TIMER_NAME, blobStoreImpl.save(bucketName, data));
     }
 
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+        return metricFactory
+            .runPublishingTimerMetric(SAVE_REACTIVE_TIMER_NAME, blobStoreImpl.save(bucketName, data));
+    }
+
     @Override
     public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
         return metricFactory
@@ -73,6 +85,24 @@ public class MetricableBlobStore implements BlobStore {
             .runPublishingTimerMetric(READ_TIMER_NAME, () -> blobStoreImpl.read(bucketName, blobId));
     }
 
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId, long offset, long length) {
+        return metricFactory
+            .runPublishingTimerMetric(READ_RANGE_TIMER_NAME, () -> blobStoreImpl.read(bucketName, blobId, offset, length));
+    }
+
+    @Override
+    public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+        return metricFactory
+            .runPublishingTimerMetric(READ_REACTIVE_TIMER_NAME, blobStoreImpl.readReactive(bucketName, blobId));
+    }
+
+    @Override
+    public Mono<Long> size(BucketName bucketName, BlobId blobId) {
+        return metricFactory
+            .runPublishingTimerMetric(SIZE_TIMER_NAME, blobStoreImpl.size(bucketName, blobId));
+    }
+
     @Override
     public Mono<Void> deleteBucket(BucketName bucketName) {
         return metricFactory
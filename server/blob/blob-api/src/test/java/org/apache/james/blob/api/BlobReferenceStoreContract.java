@@ -0,0 +1,330 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.james.util.concurrency.ConcurrentTestRunner;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.jupiter.api.Test;
+
+public interface BlobReferenceStoreContract {
+    Instant NOW = Instant.parse("2019-11-06T10:15:30.00Z");
+    Instant ONE_HOUR_LATER = NOW.plus(Duration.ofHours(1));
+    BucketName CUSTOM = BucketName.of("custom");
+    HashBlobId.Factory BLOB_ID_FACTORY = new HashBlobId.Factory();
+    BlobId BLOB_ID = BLOB_ID_FACTORY.from("blob-1");
+    BlobId OTHER_BLOB_ID = BLOB_ID_FACTORY.from("blob-2");
+
+    BlobReferenceStore referenceStore();
+
+    /**
+     * The clock used by {@link #referenceStore()} to timestamp its updates, set to {@link #NOW} before each test.
+     */
+    UpdatableTickingClock clock();
+
+    @Test
+    default void readShouldReturnEmptyWhenNotTracked() {
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void incrementShouldStartTrackingBlob() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, BLOB_ID, 1, NOW));
+    }
+
+    @Test
+    default void incrementShouldIncreaseReferenceCount() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block().getReferenceCount())
+            .isEqualTo(2);
+    }
+
+    @Test
+    default void incrementShouldUpdateLastUpdate() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        clock().setInstant(ONE_HOUR_LATER);
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block().getLastUpdate())
+            .isEqualTo(ONE_HOUR_LATER);
+    }
+
+    @Test
+    default void decrementShouldDecreaseReferenceCount() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block().getReferenceCount())
+            .isEqualTo(1);
+    }
+
+    @Test
+    default void decrementShouldUpdateLastUpdate() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        clock().setInstant(ONE_HOUR_LATER);
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, BLOB_ID, 0, ONE_HOUR_LATER));
+    }
+
+    @Test
+    default void decrementShouldNotTrackUntrackedBlob() {
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void decrementShouldNotGoBelowZero() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block().getReferenceCount())
+            .isEqualTo(0);
+    }
+
+    @Test
+    default void referencesShouldBeScopedByBucket() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(CUSTOM, BLOB_ID).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void listUnreferencedShouldReturnEmptyByDefault() {
+        assertThat(referenceStore().listUnreferenced(ONE_HOUR_LATER).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void listUnreferencedShouldReturnUnreferencedBlobsNotUpdatedSinceTheGivenInstant() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().increment(CUSTOM, OTHER_BLOB_ID).block();
+        referenceStore().decrement(CUSTOM, OTHER_BLOB_ID).block();
+
+        assertThat(referenceStore().listUnreferenced(ONE_HOUR_LATER).collectList().block())
+            .containsOnly(
+                BlobReference.of(BucketName.DEFAULT, BLOB_ID, 0, NOW),
+                BlobReference.of(CUSTOM, OTHER_BLOB_ID, 0, NOW));
+    }
+
+    @Test
+    default void listUnreferencedShouldNotReturnReferencedBlobs() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().listUnreferenced(ONE_HOUR_LATER).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void listUnreferencedShouldNotReturnBlobsUpdatedAfterTheGivenInstant() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        clock().setInstant(ONE_HOUR_LATER);
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().listUnreferenced(ONE_HOUR_LATER).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void incrementShouldTrackPreExistingBlobs() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID, true).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, BLOB_ID, 1, NOW, BlobReference.State.PRE_EXISTING));
+    }
+
+    @Test
+    default void incrementShouldKeepTheStateOfTrackedBlobs() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID, true).block();
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID, false).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block().getState())
+            .isEqualTo(BlobReference.State.PRE_EXISTING);
+    }
+
+    @Test
+    default void listUnreferencedShouldNotReturnPreExistingBlobs() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID, true).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().listUnreferenced(ONE_HOUR_LATER).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void markAsBeingCollectedShouldMarkTheEntry() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        BlobReference reference = referenceStore().read(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().markAsBeingCollected(reference).block())
+            .isTrue();
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(reference.beingCollected());
+    }
+
+    @Test
+    default void markAsBeingCollectedShouldNotMarkConcurrentlyUpdatedEntry() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        BlobReference reference = referenceStore().read(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().markAsBeingCollected(reference).block())
+            .isFalse();
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, BLOB_ID, 1, NOW));
+    }
+
+    @Test
+    default void markAsBeingCollectedShouldReturnFalseWhenNotTracked() {
+        assertThat(referenceStore().markAsBeingCollected(BlobReference.of(BucketName.DEFAULT, BLOB_ID, 0, NOW)).block())
+            .isFalse();
+    }
+
+    @Test
+    default void markAsBeingCollectedShouldNotMarkPreExistingBlobs() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID, true).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        BlobReference reference = referenceStore().read(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().markAsBeingCollected(reference).block())
+            .isFalse();
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block().getState())
+            .isEqualTo(BlobReference.State.PRE_EXISTING);
+    }
+
+    @Test
+    default void markAsBeingCollectedShouldReturnTrueWhenAlreadyMarked() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().markAsBeingCollected(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block()).block();
+
+        assertThat(referenceStore().markAsBeingCollected(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block()).block())
+            .isTrue();
+    }
+
+    @Test
+    default void incrementShouldFailWhenBeingCollected() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        BlobReference reference = referenceStore().read(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().markAsBeingCollected(reference).block();
+
+        assertThatThrownBy(() -> referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block())
+            .isInstanceOf(BlobBeingCollectedException.class);
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(reference.beingCollected());
+    }
+
+    @Test
+    default void decrementShouldNotUpdateBlobsBeingCollected() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        BlobReference reference = referenceStore().read(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().markAsBeingCollected(reference).block();
+        clock().setInstant(ONE_HOUR_LATER);
+
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(reference.beingCollected());
+    }
+
+    @Test
+    default void listUnreferencedShouldReturnBlobsBeingCollected() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        BlobReference reference = referenceStore().read(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().markAsBeingCollected(reference).block();
+
+        assertThat(referenceStore().listUnreferenced(ONE_HOUR_LATER).collectList().block())
+            .containsOnly(reference.beingCollected());
+    }
+
+    @Test
+    default void removeCollectedShouldStopTrackingBlobsBeingCollected() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().markAsBeingCollected(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block()).block();
+
+        referenceStore().removeCollected(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void removeCollectedShouldNotRemoveBlobsNotBeingCollected() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+
+        referenceStore().removeCollected(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, BLOB_ID, 0, NOW));
+    }
+
+    @Test
+    default void incrementShouldStartTrackingAgainAfterRemoval() {
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().decrement(BucketName.DEFAULT, BLOB_ID).block();
+        referenceStore().markAsBeingCollected(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block()).block();
+        referenceStore().removeCollected(BucketName.DEFAULT, BLOB_ID).block();
+
+        referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block();
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, BLOB_ID, 1, NOW));
+    }
+
+    @Test
+    default void concurrentIncrementsShouldNotBeLost() throws Exception {
+        int threadCount = 10;
+        int operationCount = 5;
+
+        ConcurrentTestRunner.builder()
+            .operation((threadNumber, step) -> referenceStore().increment(BucketName.DEFAULT, BLOB_ID).block())
+            .threadCount(threadCount)
+            .operationCount(operationCount)
+            .runSuccessfullyWithin(Duration.ofMinutes(1));
+
+        assertThat(referenceStore().read(BucketName.DEFAULT, BLOB_ID).block().getReferenceCount())
+            .isEqualTo(threadCount * operationCount);
+    }
+}
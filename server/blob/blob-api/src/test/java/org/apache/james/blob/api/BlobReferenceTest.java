@@ -0,0 +1,83 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+
+class BlobReferenceTest {
+    private static final BucketName BUCKET_NAME = BucketName.DEFAULT;
+    private static final BlobId BLOB_ID = new TestBlobId("id");
+    private static final Instant NOW = Instant.parse("2019-11-06T10:15:30.00Z");
+
+    @Test
+    void shouldMatchBeanContract() {
+        EqualsVerifier.forClass(BlobReference.class)
+            .verify();
+    }
+
+    @Test
+    void ofShouldThrowWhenNegativeReferenceCount() {
+        assertThatThrownBy(() -> BlobReference.of(BUCKET_NAME, BLOB_ID, -1, NOW))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void isUnreferencedSinceShouldReturnTrueWhenNoReferenceAndOlderUpdate() {
+        assertThat(BlobReference.of(BUCKET_NAME, BLOB_ID, 0, NOW).isUnreferencedSince(NOW.plusSeconds(1)))
+            .isTrue();
+    }
+
+    @Test
+    void isUnreferencedSinceShouldReturnFalseWhenReferenced() {
+        assertThat(BlobReference.of(BUCKET_NAME, BLOB_ID, 1, NOW).isUnreferencedSince(NOW.plusSeconds(1)))
+            .isFalse();
+    }
+
+    @Test
+    void isUnreferencedSinceShouldReturnFalseWhenUpdatedAtThatInstant() {
+        assertThat(BlobReference.of(BUCKET_NAME, BLOB_ID, 0, NOW).isUnreferencedSince(NOW))
+            .isFalse();
+    }
+
+    @Test
+    void ofShouldThrowWhenReferencedBlobIsBeingCollected() {
+        assertThatThrownBy(() -> BlobReference.of(BUCKET_NAME, BLOB_ID, 1, NOW, BlobReference.State.BEING_COLLECTED))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void isUnreferencedSinceShouldReturnFalseWhenPreExisting() {
+        assertThat(BlobReference.of(BUCKET_NAME, BLOB_ID, 0, NOW, BlobReference.State.PRE_EXISTING).isUnreferencedSince(NOW.plusSeconds(1)))
+            .isFalse();
+    }
+
+    @Test
+    void isUnreferencedSinceShouldReturnTrueWhenBeingCollected() {
+        assertThat(BlobReference.of(BUCKET_NAME, BLOB_ID, 0, NOW, BlobReference.State.BEING_COLLECTED).isUnreferencedSince(NOW.plusSeconds(1)))
+            .isTrue();
+    }
+}
@@ -24,12 +24,16 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
+import org.apache.james.util.ReactorUtils;
 import org.junit.jupiter.api.Test;
 
 import com.google.common.base.Strings;
 
+import reactor.core.publisher.Flux;
+
 public interface BlobStoreContract extends DeleteBlobStoreContract, BucketBlobStoreContract {
 
     String SHORT_STRING = "toto";
@@ -225,4 +229,203 @@ public interface BlobStoreContract extends DeleteBlobStoreContract, BucketBlobSt
 
         assertThat(read).hasSameContentAs(new ByteArrayInputStream(TWELVE_MEGABYTES));
     }
+
+    @Test
+    default void saveShouldThrowWhenNullFlux() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        assertThatThrownBy(() -> store.save(defaultBucketName, (Flux<ByteBuffer>) null).block())
+            .isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    default void saveShouldSaveEmptyFlux() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, Flux.empty()).block();
+
+        byte[] bytes = store.readBytes(defaultBucketName, blobId).block();
+
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).isEmpty();
+    }
+
+    @Test
+    default void saveShouldReturnBlobIdOfFlux() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, Flux.just(ByteBuffer.wrap(SHORT_BYTEARRAY))).block();
+
+        assertThat(blobId).isEqualTo(blobIdFactory().from("31f7a65e315586ac198bd798b6629ce4903d0899476d5741a9f32e2e521b6a66"));
+    }
+
+    @Test
+    default void saveFluxShouldConcatenateChunks() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, Flux.just(
+                ByteBuffer.wrap("to".getBytes(StandardCharsets.UTF_8)),
+                ByteBuffer.wrap("to".getBytes(StandardCharsets.UTF_8))))
+            .block();
+
+        assertThat(store.readBytes(defaultBucketName, blobId).block()).isEqualTo(SHORT_BYTEARRAY);
+    }
+
+    @Test
+    default void saveFluxShouldSaveBigData() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, ReactorUtils.toChunks(new ByteArrayInputStream(TWELVE_MEGABYTES), 64 * 1024)).block();
+
+        assertThat(store.read(defaultBucketName, blobId)).hasSameContentAs(new ByteArrayInputStream(TWELVE_MEGABYTES));
+    }
+
+    @Test
+    default void readReactiveShouldThrowWhenNoExisting() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        assertThatThrownBy(() -> store.readReactive(defaultBucketName, blobIdFactory().from("unknown")).blockLast())
+            .isInstanceOf(ObjectNotFoundException.class);
+    }
+
+    @Test
+    default void readReactiveShouldReturnSavedData() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, SHORT_BYTEARRAY).block();
+
+        assertThat(ReactorUtils.toInputStream(store.readReactive(defaultBucketName, blobId)))
+            .hasSameContentAs(new ByteArrayInputStream(SHORT_BYTEARRAY));
+    }
+
+    @Test
+    default void readReactiveShouldReturnBigSavedData() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, TWELVE_MEGABYTES).block();
+
+        assertThat(ReactorUtils.toInputStream(store.readReactive(defaultBucketName, blobId)))
+            .hasSameContentAs(new ByteArrayInputStream(TWELVE_MEGABYTES));
+    }
+
+    @Test
+    default void readRangeShouldReturnRequestedBytes() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, ELEVEN_KILOBYTES).block();
+
+        assertThat(store.read(defaultBucketName, blobId, 5000, 3000))
+            .hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES, 5000, 3000));
+    }
+
+    @Test
+    default void readRangeShouldReturnRequestedBytesOfBigData() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, TWELVE_MEGABYTES).block();
+
+        assertThat(store.read(defaultBucketName, blobId, 3_000_000, 5_000_000))
+            .hasSameContentAs(new ByteArrayInputStream(TWELVE_MEGABYTES, 3_000_000, 5_000_000));
+    }
+
+    @Test
+    default void readRangeShouldBeTruncatedWhenExceedingBlobSize() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, ELEVEN_KILOBYTES).block();
+
+        assertThat(store.read(defaultBucketName, blobId, 10000, Long.MAX_VALUE))
+            .hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES, 10000, ELEVEN_KILOBYTES.length - 10000));
+    }
+
+    @Test
+    default void readRangeShouldReturnEmptyWhenOffsetExceedsBlobSize() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, SHORT_BYTEARRAY).block();
+
+        assertThat(store.read(defaultBucketName, blobId, 100, 10))
+            .hasSameContentAs(new ByteArrayInputStream(EMPTY_BYTEARRAY));
+    }
+
+    @Test
+    default void readRangeShouldReturnEmptyWhenZeroLength() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, SHORT_BYTEARRAY).block();
+
+        assertThat(store.read(defaultBucketName, blobId, 1, 0))
+            .hasSameContentAs(new ByteArrayInputStream(EMPTY_BYTEARRAY));
+    }
+
+    @Test
+    default void readRangeShouldThrowWhenNegativeOffset() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, SHORT_BYTEARRAY).block();
+
+        assertThatThrownBy(() -> store.read(defaultBucketName, blobId, -1, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    default void readRangeShouldThrowWhenNoExisting() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        assertThatThrownBy(() -> store.read(defaultBucketName, blobIdFactory().from("unknown"), 0, 10))
+            .isInstanceOf(ObjectNotFoundException.class);
+    }
+
+    @Test
+    default void sizeShouldReturnZeroForEmptyData() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, EMPTY_BYTEARRAY).block();
+
+        assertThat(store.size(defaultBucketName, blobId).block()).isEqualTo(0L);
+    }
+
+    @Test
+    default void sizeShouldReturnTheSizeOfSavedData() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, ELEVEN_KILOBYTES).block();
+
+        assertThat(store.size(defaultBucketName, blobId).block()).isEqualTo(ELEVEN_KILOBYTES.length);
+    }
+
+    @Test
+    default void sizeShouldReturnTheSizeOfBigData() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        BlobId blobId = store.save(defaultBucketName, TWELVE_MEGABYTES).block();
+
+        assertThat(store.size(defaultBucketName, blobId).block()).isEqualTo(TWELVE_MEGABYTES.length);
+    }
+
+    @Test
+    default void sizeShouldThrowWhenNoExisting() {
+        BlobStore store = testee();
+        BucketName defaultBucketName = store.getDefaultBucketName();
+
+        assertThatThrownBy(() -> store.size(defaultBucketName, blobIdFactory().from("unknown")).block())
+            .isInstanceOf(ObjectNotFoundException.class);
+    }
 }
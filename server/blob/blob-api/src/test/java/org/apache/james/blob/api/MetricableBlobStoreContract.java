@@ -22,12 +22,17 @@ package org.apache.james.blob.api;
 import static org.apache.james.blob.api.MetricableBlobStore.DELETE_BUCKET_TIMER_NAME;
 import static org.apache.james.blob.api.MetricableBlobStore.DELETE_TIMER_NAME;
 import static org.apache.james.blob.api.MetricableBlobStore.READ_BYTES_TIMER_NAME;
+import static org.apache.james.blob.api.MetricableBlobStore.READ_RANGE_TIMER_NAME;
+import static org.apache.james.blob.api.MetricableBlobStore.READ_REACTIVE_TIMER_NAME;
 import static org.apache.james.blob.api.MetricableBlobStore.READ_TIMER_NAME;
 import static org.apache.james.blob.api.MetricableBlobStore.SAVE_BYTES_TIMER_NAME;
 import static org.apache.james.blob.api.MetricableBlobStore.SAVE_INPUT_STREAM_TIMER_NAME;
+import static org.apache.james.blob.api.MetricableBlobStore.SAVE_REACTIVE_TIMER_NAME;
+import static org.apache.james.blob.api.MetricableBlobStore.SIZE_TIMER_NAME;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.james.metrics.tests.RecordingMetricFactory;
@@ -36,6 +41,8 @@ import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import reactor.core.publisher.Flux;
+
 
 public interface MetricableBlobStoreContract extends BlobStoreContract {
 
@@ -90,6 +97,17 @@ public interface MetricableBlobStoreContract extends BlobStoreContract {
             .hasSize(2);
     }
 
+    @Test
+    default void saveFluxShouldPublishSaveReactiveTimerMetrics() {
+        BlobStore store = testee();
+
+        store.save(store.getDefaultBucketName(), Flux.just(ByteBuffer.wrap(BYTES_CONTENT))).block();
+        store.save(store.getDefaultBucketName(), Flux.just(ByteBuffer.wrap(BYTES_CONTENT))).block();
+
+        assertThat(metricsTestExtension.getMetricFactory().executionTimesFor(SAVE_REACTIVE_TIMER_NAME))
+            .hasSize(2);
+    }
+
     @Test
     default void readBytesShouldPublishReadBytesTimerMetrics() {
         BlobStore store = testee();
@@ -114,6 +132,42 @@ public interface MetricableBlobStoreContract extends BlobStoreContract {
             .hasSize(2);
     }
 
+    @Test
+    default void readRangeShouldPublishReadRangeTimerMetrics() {
+        BlobStore store = testee();
+
+        BlobId blobId = store.save(store.getDefaultBucketName(), BYTES_CONTENT).block();
+        store.read(store.getDefaultBucketName(), blobId, 1, 2);
+        store.read(store.getDefaultBucketName(), blobId, 1, 2);
+
+        assertThat(metricsTestExtension.getMetricFactory().executionTimesFor(READ_RANGE_TIMER_NAME))
+            .hasSize(2);
+    }
+
+    @Test
+    default void sizeShouldPublishSizeTimerMetrics() {
+        BlobStore store = testee();
+
+        BlobId blobId = store.save(store.getDefaultBucketName(), BYTES_CONTENT).block();
+        store.size(store.getDefaultBucketName(), blobId).block();
+        store.size(store.getDefaultBucketName(), blobId).block();
+
+        assertThat(metricsTestExtension.getMetricFactory().executionTimesFor(SIZE_TIMER_NAME))
+            .hasSize(2);
+    }
+
+    @Test
+    default void readReactiveShouldPublishReadReactiveTimerMetrics() {
+        BlobStore store = testee();
+
+        BlobId blobId = store.save(store.getDefaultBucketName(), BYTES_CONTENT).block();
+        store.readReactive(store.getDefaultBucketName(), blobId).blockLast();
+        store.readReactive(store.getDefaultBucketName(), blobId).blockLast();
+
+        assertThat(metricsTestExtension.getMetricFactory().executionTimesFor(READ_REACTIVE_TIMER_NAME))
+            .hasSize(2);
+    }
+
     @Test
     default void deleteBucketShouldPublishDeleteBucketTimerMetrics() {
         BlobStore store = testee();
@@ -0,0 +1,206 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStore;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectStoreException;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps small blobs, typically message headers, in a size bounded in memory cache in front of a slower
+ * {@link BlobStore}, like an object storage.
+ *
+ * Blobs bigger than {@link CachedBlobStoreConfiguration#getSizeThresholdInBytes()} are never cached. The least
+ * recently used blobs are evicted first once the cache exceeds {@link CachedBlobStoreConfiguration#getCacheWeightInBytes()}.
+ *
+ * Blob ids being content addressed, a cached blob can not become stale. Deletions are only known to the local cache
+ * though: a blob deleted by another James server is served from this cache until its eviction.
+ */
+public class CachedBlobStore implements BlobStore {
+    static final String CACHE_HIT_METRIC_NAME = "blobStore:cache:hit";
+    static final String CACHE_MISS_METRIC_NAME = "blobStore:cache:miss";
+
+    private final BlobStore backend;
+    private final int sizeThresholdInBytes;
+    private final Cache<Pair<BucketName, BlobId>, byte[]> cache;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+
+    public CachedBlobStore(BlobStore backend, CachedBlobStoreConfiguration configuration, MetricFactory metricFactory) {
+        this.backend = backend;
+        this.sizeThresholdInBytes = Ints.checkedCast(configuration.getSizeThresholdInBytes());
+        this.cache = CacheBuilder.newBuilder()
+            .expireAfterAccess(configuration.getEvictionPeriod().toMillis(), TimeUnit.MILLISECONDS)
+            .maximumWeight(configuration.getCacheWeightInBytes())
+            .weigher((Pair<BucketName, BlobId> key, byte[] content) -> content.length)
+            .build();
+        this.hitMetric = metricFactory.generate(CACHE_HIT_METRIC_NAME);
+        this.missMetric = metricFactory.generate(CACHE_MISS_METRIC_NAME);
+    }
+
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, byte[] data) {
+        return backend.save(bucketName, data)
+            .doOnNext(blobId -> cacheIfSmall(Pair.of(bucketName, blobId), data));
+    }
+
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, InputStream data) {
+        return backend.save(bucketName, data);
+    }
+
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+        return backend.save(bucketName, data);
+    }
+
+    @Override
+    public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
+        Pair<BucketName, BlobId> key = Pair.of(bucketName, blobId);
+
+        // Callers own the returned array: cached content is copied so that they can not alter it
+        return Mono.defer(() -> lookup(key)
+            .map(content -> Mono.just(content.clone()))
+            .orElseGet(() -> backend.readBytes(bucketName, blobId)
+                .doOnNext(content -> cacheIfSmall(key, content))));
+    }
+
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId) {
+        Pair<BucketName, BlobId> key = Pair.of(bucketName, blobId);
+
+        return lookup(key)
+            .<InputStream>map(ByteArrayInputStream::new)
+            .orElseGet(() -> readAndCacheIfSmall(key, backend.read(bucketName, blobId)));
+    }
+
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId, long offset, long length) {
+        Preconditions.checkArgument(offset >= 0, "'offset' can not be negative");
+        Preconditions.checkArgument(length >= 0, "'length' can not be negative");
+
+        return lookup(Pair.of(bucketName, blobId))
+            .<InputStream>map(content -> slice(content, offset, length))
+            .orElseGet(() -> backend.read(bucketName, blobId, offset, length));
+    }
+
+    @Override
+    public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+        Pair<BucketName, BlobId> key = Pair.of(bucketName, blobId);
+
+        return Flux.defer(() -> lookup(key)
+            .map(content -> Flux.just(ByteBuffer.wrap(content).asReadOnlyBuffer()))
+            .orElseGet(() -> backend.readReactive(bucketName, blobId)));
+    }
+
+    @Override
+    public Mono<Long> size(BucketName bucketName, BlobId blobId) {
+        Pair<BucketName, BlobId> key = Pair.of(bucketName, blobId);
+
+        return Mono.defer(() -> lookup(key)
+            .map(content -> Mono.just((long) content.length))
+            .orElseGet(() -> backend.size(bucketName, blobId)));
+    }
+
+    @Override
+    public BucketName getDefaultBucketName() {
+        return backend.getDefaultBucketName();
+    }
+
+    @Override
+    public Mono<Void> deleteBucket(BucketName bucketName) {
+        return backend.deleteBucket(bucketName)
+            .then(Mono.fromRunnable(() -> cache.asMap().keySet()
+                .removeIf(key -> key.getLeft().equals(bucketName))));
+    }
+
+    @Override
+    public Mono<Void> delete(BucketName bucketName, BlobId blobId) {
+        return backend.delete(bucketName, blobId)
+            .then(Mono.fromRunnable(() -> cache.invalidate(Pair.of(bucketName, blobId))));
+    }
+
+    private Optional<byte[]> lookup(Pair<BucketName, BlobId> key) {
+        Optional<byte[]> cached = Optional.ofNullable(cache.getIfPresent(key));
+        if (cached.isPresent()) {
+            hitMetric.increment();
+        } else {
+            missMetric.increment();
+        }
+        return cached;
+    }
+
+    private void cacheIfSmall(Pair<BucketName, BlobId> key, byte[] content) {
+        if (content.length <= sizeThresholdInBytes) {
+            cache.put(key, content.clone());
+        }
+    }
+
+    /**
+     * Reads at most one byte more than the size threshold: smaller blobs are fully buffered and cached, bigger ones
+     * are streamed as is, prefixed by the bytes already read.
+     */
+    private InputStream readAndCacheIfSmall(Pair<BucketName, BlobId> key, InputStream content) {
+        try {
+            byte[] head = ByteStreams.toByteArray(ByteStreams.limit(content, sizeThresholdInBytes + 1L));
+            if (head.length <= sizeThresholdInBytes) {
+                content.close();
+                cache.put(key, head);
+                return new ByteArrayInputStream(head);
+            }
+            return new SequenceInputStream(new ByteArrayInputStream(head), content);
+        } catch (IOException e) {
+            throw new ObjectStoreException("Failed to read blob " + key.getRight().asString(), e);
+        }
+    }
+
+    private InputStream slice(byte[] content, long offset, long length) {
+        int start = Ints.saturatedCast(Math.min(offset, content.length));
+        int sliceLength = Ints.saturatedCast(Math.min(length, content.length - start));
+        return new ByteArrayInputStream(content, start, sliceLength);
+    }
+
+    @VisibleForTesting
+    long size() {
+        return cache.size();
+    }
+}
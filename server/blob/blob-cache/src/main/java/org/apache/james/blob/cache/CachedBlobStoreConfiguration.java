@@ -0,0 +1,152 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+public class CachedBlobStoreConfiguration {
+
+    public static class Builder {
+        private Optional<Long> sizeThresholdInBytes;
+        private Optional<Long> cacheWeightInBytes;
+        private Optional<Duration> evictionPeriod;
+
+        private Builder() {
+            sizeThresholdInBytes = Optional.empty();
+            cacheWeightInBytes = Optional.empty();
+            evictionPeriod = Optional.empty();
+        }
+
+        public Builder sizeThresholdInBytes(long sizeThresholdInBytes) {
+            this.sizeThresholdInBytes = Optional.of(sizeThresholdInBytes);
+            return this;
+        }
+
+        public Builder sizeThresholdInBytes(Optional<Long> sizeThresholdInBytes) {
+            Preconditions.checkNotNull(sizeThresholdInBytes);
+            this.sizeThresholdInBytes = sizeThresholdInBytes;
+            return this;
+        }
+
+        public Builder cacheWeightInBytes(long cacheWeightInBytes) {
+            this.cacheWeightInBytes = Optional.of(cacheWeightInBytes);
+            return this;
+        }
+
+        public Builder cacheWeightInBytes(Optional<Long> cacheWeightInBytes) {
+            Preconditions.checkNotNull(cacheWeightInBytes);
+            this.cacheWeightInBytes = cacheWeightInBytes;
+            return this;
+        }
+
+        public Builder evictionPeriod(Duration evictionPeriod) {
+            this.evictionPeriod = Optional.of(evictionPeriod);
+            return this;
+        }
+
+        public Builder evictionPeriod(Optional<Duration> evictionPeriod) {
+            Preconditions.checkNotNull(evictionPeriod);
+            this.evictionPeriod = evictionPeriod;
+            return this;
+        }
+
+        public CachedBlobStoreConfiguration build() {
+            long sizeThreshold = sizeThresholdInBytes.orElse(DEFAULT_SIZE_THRESHOLD_IN_BYTES);
+            long cacheWeight = cacheWeightInBytes.orElse(DEFAULT_CACHE_WEIGHT_IN_BYTES);
+            Duration eviction = evictionPeriod.orElse(DEFAULT_EVICTION_PERIOD);
+
+            Preconditions.checkArgument(sizeThreshold > 0, "'sizeThresholdInBytes' needs to be strictly positive");
+            Preconditions.checkArgument(sizeThreshold < Integer.MAX_VALUE, "'sizeThresholdInBytes' needs to fit in a byte array");
+            Preconditions.checkArgument(cacheWeight >= sizeThreshold, "'cacheWeightInBytes' can not be lower than 'sizeThresholdInBytes'");
+            Preconditions.checkArgument(!eviction.isNegative() && !eviction.isZero(), "'evictionPeriod' needs to be strictly positive");
+
+            return new CachedBlobStoreConfiguration(sizeThreshold, cacheWeight, eviction);
+        }
+    }
+
+    public static final long DEFAULT_SIZE_THRESHOLD_IN_BYTES = 8L * 1024L;
+    public static final long DEFAULT_CACHE_WEIGHT_IN_BYTES = 50L * 1024L * 1024L;
+    public static final Duration DEFAULT_EVICTION_PERIOD = Duration.ofHours(1);
+
+    public static final CachedBlobStoreConfiguration DEFAULT = builder().build();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final long sizeThresholdInBytes;
+    private final long cacheWeightInBytes;
+    private final Duration evictionPeriod;
+
+    private CachedBlobStoreConfiguration(long sizeThresholdInBytes, long cacheWeightInBytes, Duration evictionPeriod) {
+        this.sizeThresholdInBytes = sizeThresholdInBytes;
+        this.cacheWeightInBytes = cacheWeightInBytes;
+        this.evictionPeriod = evictionPeriod;
+    }
+
+    /**
+     * Blobs strictly bigger than this threshold are never cached.
+     */
+    public long getSizeThresholdInBytes() {
+        return sizeThresholdInBytes;
+    }
+
+    public long getCacheWeightInBytes() {
+        return cacheWeightInBytes;
+    }
+
+    /**
+     * Cached blobs not read for this period are evicted.
+     */
+    public Duration getEvictionPeriod() {
+        return evictionPeriod;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof CachedBlobStoreConfiguration) {
+            CachedBlobStoreConfiguration that = (CachedBlobStoreConfiguration) o;
+
+            return Objects.equals(this.sizeThresholdInBytes, that.sizeThresholdInBytes)
+                && Objects.equals(this.cacheWeightInBytes, that.cacheWeightInBytes)
+                && Objects.equals(this.evictionPeriod, that.evictionPeriod);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(sizeThresholdInBytes, cacheWeightInBytes, evictionPeriod);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("sizeThresholdInBytes", sizeThresholdInBytes)
+            .add("cacheWeightInBytes", cacheWeightInBytes)
+            .add("evictionPeriod", evictionPeriod)
+            .toString();
+    }
+}
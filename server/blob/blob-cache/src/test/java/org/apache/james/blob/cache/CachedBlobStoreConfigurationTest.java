@@ -0,0 +1,72 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+
+class CachedBlobStoreConfigurationTest {
+
+    @Test
+    void shouldMatchBeanContract() {
+        EqualsVerifier.forClass(CachedBlobStoreConfiguration.class)
+            .verify();
+    }
+
+    @Test
+    void buildShouldUseDefaultValues() {
+        CachedBlobStoreConfiguration configuration = CachedBlobStoreConfiguration.builder().build();
+
+        assertThat(configuration.getSizeThresholdInBytes()).isEqualTo(CachedBlobStoreConfiguration.DEFAULT_SIZE_THRESHOLD_IN_BYTES);
+        assertThat(configuration.getCacheWeightInBytes()).isEqualTo(CachedBlobStoreConfiguration.DEFAULT_CACHE_WEIGHT_IN_BYTES);
+        assertThat(configuration.getEvictionPeriod()).isEqualTo(CachedBlobStoreConfiguration.DEFAULT_EVICTION_PERIOD);
+    }
+
+    @Test
+    void buildShouldThrowWhenSizeThresholdIsZero() {
+        assertThatThrownBy(() -> CachedBlobStoreConfiguration.builder()
+                .sizeThresholdInBytes(0)
+                .build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void buildShouldThrowWhenCacheWeightIsLowerThanSizeThreshold() {
+        assertThatThrownBy(() -> CachedBlobStoreConfiguration.builder()
+                .sizeThresholdInBytes(1024)
+                .cacheWeightInBytes(512)
+                .build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void buildShouldThrowWhenEvictionPeriodIsZero() {
+        assertThatThrownBy(() -> CachedBlobStoreConfiguration.builder()
+                .evictionPeriod(Duration.ZERO)
+                .build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,246 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStore;
+import org.apache.james.blob.api.BlobStoreContract;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.api.ObjectStoreException;
+import org.apache.james.blob.memory.MemoryBlobStore;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Strings;
+
+import reactor.core.publisher.Flux;
+
+class CachedBlobStoreTest implements BlobStoreContract {
+    private static final HashBlobId.Factory BLOB_ID_FACTORY = new HashBlobId.Factory();
+    private static final BucketName CUSTOM = BucketName.of("custom");
+    private static final byte[] SMALL = "small content".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BIG = Strings.repeat("0123456789", 10).getBytes(StandardCharsets.UTF_8);
+    private static final CachedBlobStoreConfiguration CONFIGURATION = CachedBlobStoreConfiguration.builder()
+        .sizeThresholdInBytes(50)
+        .cacheWeightInBytes(1000)
+        .build();
+
+    private BlobStore backend;
+    private RecordingMetricFactory metricFactory;
+    private CachedBlobStore testee;
+
+    @BeforeEach
+    void setUp() {
+        backend = spy(new MemoryBlobStore(BLOB_ID_FACTORY));
+        metricFactory = new RecordingMetricFactory();
+        testee = new CachedBlobStore(backend, CONFIGURATION, metricFactory);
+    }
+
+    @Override
+    public BlobStore testee() {
+        return testee;
+    }
+
+    @Override
+    public BlobId.Factory blobIdFactory() {
+        return BLOB_ID_FACTORY;
+    }
+
+    @Test
+    void saveShouldCacheSmallBlobs() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, SMALL).block();
+
+        assertThat(testee.readBytes(BucketName.DEFAULT, blobId).block()).isEqualTo(SMALL);
+        verify(backend, times(0)).readBytes(BucketName.DEFAULT, blobId);
+    }
+
+    @Test
+    void cachedContentShouldNotBeAlteredBySavedArrayMutation() {
+        byte[] data = SMALL.clone();
+        BlobId blobId = testee.save(BucketName.DEFAULT, data).block();
+
+        data[0] = 'X';
+
+        assertThat(testee.readBytes(BucketName.DEFAULT, blobId).block()).isEqualTo(SMALL);
+    }
+
+    @Test
+    void cachedContentShouldNotBeAlteredByReadArrayMutation() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, SMALL).block();
+
+        testee.readBytes(BucketName.DEFAULT, blobId).block()[0] = 'X';
+
+        assertThat(testee.readBytes(BucketName.DEFAULT, blobId).block()).isEqualTo(SMALL);
+    }
+
+    @Test
+    void saveShouldNotCacheBigBlobs() {
+        testee.save(BucketName.DEFAULT, BIG).block();
+
+        assertThat(testee.size()).isEqualTo(0);
+    }
+
+    @Test
+    void readBytesShouldServeSubsequentReadsFromCache() {
+        BlobId blobId = backend.save(BucketName.DEFAULT, SMALL).block();
+
+        testee.readBytes(BucketName.DEFAULT, blobId).block();
+        byte[] content = testee.readBytes(BucketName.DEFAULT, blobId).block();
+
+        assertThat(content).isEqualTo(SMALL);
+        verify(backend, times(1)).readBytes(BucketName.DEFAULT, blobId);
+    }
+
+    @Test
+    void readBytesShouldNotCacheBigBlobs() {
+        BlobId blobId = backend.save(BucketName.DEFAULT, BIG).block();
+
+        testee.readBytes(BucketName.DEFAULT, blobId).block();
+        byte[] content = testee.readBytes(BucketName.DEFAULT, blobId).block();
+
+        assertThat(content).isEqualTo(BIG);
+        verify(backend, times(2)).readBytes(BucketName.DEFAULT, blobId);
+    }
+
+    @Test
+    void readShouldServeSubsequentReadsFromCache() {
+        BlobId blobId = backend.save(BucketName.DEFAULT, SMALL).block();
+
+        testee.read(BucketName.DEFAULT, blobId);
+
+        assertThat(testee.read(BucketName.DEFAULT, blobId)).hasSameContentAs(new ByteArrayInputStream(SMALL));
+        verify(backend, times(1)).read(BucketName.DEFAULT, blobId);
+    }
+
+    @Test
+    void readShouldReturnFullContentOfBigBlobs() {
+        BlobId blobId = backend.save(BucketName.DEFAULT, BIG).block();
+
+        assertThat(testee.read(BucketName.DEFAULT, blobId)).hasSameContentAs(new ByteArrayInputStream(BIG));
+        assertThat(testee.size()).isEqualTo(0);
+    }
+
+    @Test
+    void readShouldCacheBlobsOfThresholdSize() {
+        byte[] thresholdSized = Strings.repeat("0", 50).getBytes(StandardCharsets.UTF_8);
+        BlobId blobId = backend.save(BucketName.DEFAULT, thresholdSized).block();
+
+        assertThat(testee.read(BucketName.DEFAULT, blobId)).hasSameContentAs(new ByteArrayInputStream(thresholdSized));
+        assertThat(testee.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rangedReadShouldBeServedFromCache() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, SMALL).block();
+
+        assertThat(testee.read(BucketName.DEFAULT, blobId, 6, 4))
+            .hasSameContentAs(new ByteArrayInputStream("cont".getBytes(StandardCharsets.UTF_8)));
+        verify(backend, never()).read(any(), any(), anyLong(), anyLong());
+        verify(backend, never()).read(any(), any());
+    }
+
+    @Test
+    void rangedReadShouldBeEmptyWhenOffsetExceedsCachedContent() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, SMALL).block();
+
+        assertThat(testee.read(BucketName.DEFAULT, blobId, 100, 4))
+            .hasSameContentAs(new ByteArrayInputStream(new byte[0]));
+    }
+
+    @Test
+    void readReactiveShouldBeServedFromCache() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, SMALL).block();
+
+        ByteBuffer content = Flux.from(testee.readReactive(BucketName.DEFAULT, blobId)).single().block();
+
+        byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+        assertThat(bytes).isEqualTo(SMALL);
+        verify(backend, times(0)).readReactive(BucketName.DEFAULT, blobId);
+    }
+
+    @Test
+    void deleteShouldInvalidateCachedBlob() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, SMALL).block();
+
+        testee.delete(BucketName.DEFAULT, blobId).block();
+
+        assertThatThrownBy(() -> testee.readBytes(BucketName.DEFAULT, blobId).block())
+            .isInstanceOf(ObjectStoreException.class);
+    }
+
+    @Test
+    void deleteBucketShouldInvalidateCachedBlobsOfThisBucket() {
+        BlobId blobId = testee.save(CUSTOM, SMALL).block();
+        testee.save(BucketName.DEFAULT, SMALL).block();
+
+        testee.deleteBucket(CUSTOM).block();
+
+        assertThatThrownBy(() -> testee.readBytes(CUSTOM, blobId).block())
+            .isInstanceOf(ObjectStoreException.class);
+        assertThat(testee.size()).isEqualTo(1);
+    }
+
+    @Test
+    void cacheShouldBeScopedByBucket() {
+        BlobId blobId = testee.save(CUSTOM, SMALL).block();
+
+        assertThatThrownBy(() -> testee.readBytes(BucketName.DEFAULT, blobId).block())
+            .isInstanceOf(ObjectStoreException.class);
+    }
+
+    @Test
+    void readsShouldRecordHitsAndMisses() {
+        BlobId blobId = backend.save(BucketName.DEFAULT, SMALL).block();
+
+        testee.readBytes(BucketName.DEFAULT, blobId).block();
+        testee.readBytes(BucketName.DEFAULT, blobId).block();
+        testee.read(BucketName.DEFAULT, blobId);
+
+        assertThat(metricFactory.countFor(CachedBlobStore.CACHE_MISS_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(CachedBlobStore.CACHE_HIT_METRIC_NAME)).isEqualTo(2);
+    }
+
+    @Test
+    void cacheShouldEvictBlobsWhenExceedingItsWeight() {
+        for (int i = 0; i < 100; i++) {
+            testee.save(BucketName.DEFAULT, Strings.padStart(String.valueOf(i), 50, '0').getBytes(StandardCharsets.UTF_8)).block();
+        }
+
+        assertThat(testee.size())
+            .isPositive()
+            .isLessThanOrEqualTo(CONFIGURATION.getCacheWeightInBytes() / 50);
+    }
+}
@@ -48,4 +48,13 @@ public interface BlobTables {
         String CHUNK_NUMBER = "chunkNumber";
         String DATA = "data";
     }
+
+    interface BlobReferences {
+        String TABLE_NAME = "blobReferences";
+        String BUCKET = "bucket";
+        String ID = "id";
+        String REFERENCE_COUNT = "referenceCount";
+        String LAST_UPDATE = "lastUpdate";
+        String STATE = "state";
+    }
 }
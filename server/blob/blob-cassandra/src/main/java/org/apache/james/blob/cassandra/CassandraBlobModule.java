@@ -22,6 +22,7 @@ package org.apache.james.blob.cassandra;
 import static org.apache.james.blob.cassandra.BlobTables.DefaultBucketBlobParts.DATA;
 
 import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.blob.cassandra.BlobTables.BlobReferences;
 import org.apache.james.blob.cassandra.BlobTables.BucketBlobParts;
 import org.apache.james.blob.cassandra.BlobTables.BucketBlobTable;
 import org.apache.james.blob.cassandra.BlobTables.DefaultBucketBlobParts;
@@ -65,5 +66,15 @@ public interface CassandraBlobModule {
             .addPartitionKey(BucketBlobParts.ID, DataType.text())
             .addClusteringColumn(BucketBlobTable.NUMBER_OF_CHUNK, DataType.cint()))
 
+        .table(BlobReferences.TABLE_NAME)
+        .comment("Counts the owners referencing a deduplicated blob, along with the date of the last update of this count. " +
+            "Unreferenced blobs are deleted by the blob garbage collection.")
+        .statement(statement -> statement
+            .addPartitionKey(BlobReferences.BUCKET, DataType.text())
+            .addPartitionKey(BlobReferences.ID, DataType.text())
+            .addColumn(BlobReferences.REFERENCE_COUNT, DataType.bigint())
+            .addColumn(BlobReferences.LAST_UPDATE, DataType.timestamp())
+            .addColumn(BlobReferences.STATE, DataType.text()))
+
         .build();
 }
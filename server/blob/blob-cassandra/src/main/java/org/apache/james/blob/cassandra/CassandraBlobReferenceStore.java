@@ -0,0 +1,267 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cassandra;
+
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.delete;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.select;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.set;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.update;
+import static org.apache.james.blob.cassandra.BlobTables.BlobReferences.BUCKET;
+import static org.apache.james.blob.cassandra.BlobTables.BlobReferences.ID;
+import static org.apache.james.blob.cassandra.BlobTables.BlobReferences.LAST_UPDATE;
+import static org.apache.james.blob.cassandra.BlobTables.BlobReferences.REFERENCE_COUNT;
+import static org.apache.james.blob.cassandra.BlobTables.BlobReferences.STATE;
+import static org.apache.james.blob.cassandra.BlobTables.BlobReferences.TABLE_NAME;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import javax.inject.Inject;
+
+import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
+import org.apache.james.blob.api.BlobBeingCollectedException;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReference;
+import org.apache.james.blob.api.BlobReferenceStore;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.util.FunctionalUtils;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reference counts are updated with lightweight transactions conditioned on the previously read value, retried upon
+ * concurrent updates. Regular counters can not be used here as they can neither be conditionally updated nor safely
+ * deleted.
+ *
+ * Marking a blob as being collected is conditioned the same way, so that it can not be referenced anymore once marked.
+ */
+public class CassandraBlobReferenceStore implements BlobReferenceStore {
+    private enum IncrementResult {
+        APPLIED,
+        CONCURRENTLY_UPDATED,
+        BEING_COLLECTED
+    }
+
+    private static final String OLD_REFERENCE_COUNT = "oldReferenceCount";
+    private static final String OLD_LAST_UPDATE = "oldLastUpdate";
+    private static final String OLD_STATE = "oldState";
+    private static final int MAX_RETRY = 100;
+    private static final Duration FIRST_BACKOFF = Duration.ofMillis(5);
+
+    private final CassandraAsyncExecutor executor;
+    private final BlobId.Factory blobIdFactory;
+    private final Clock clock;
+    private final PreparedStatement select;
+    private final PreparedStatement selectAll;
+    private final PreparedStatement conditionalInsert;
+    private final PreparedStatement conditionalUpdate;
+    private final PreparedStatement markAsBeingCollected;
+    private final PreparedStatement deleteCollected;
+
+    @Inject
+    public CassandraBlobReferenceStore(Session session, BlobId.Factory blobIdFactory, Clock clock) {
+        this.executor = new CassandraAsyncExecutor(session);
+        this.blobIdFactory = blobIdFactory;
+        this.clock = clock;
+        this.select = prepareSelect(session);
+        this.selectAll = prepareSelectAll(session);
+        this.conditionalInsert = prepareConditionalInsert(session);
+        this.conditionalUpdate = prepareConditionalUpdate(session);
+        this.markAsBeingCollected = prepareMarkAsBeingCollected(session);
+        this.deleteCollected = prepareDeleteCollected(session);
+    }
+
+    private PreparedStatement prepareSelect(Session session) {
+        return session.prepare(select(REFERENCE_COUNT, LAST_UPDATE, STATE)
+            .from(TABLE_NAME)
+            .where(eq(BUCKET, bindMarker(BUCKET)))
+            .and(eq(ID, bindMarker(ID))));
+    }
+
+    private PreparedStatement prepareSelectAll(Session session) {
+        return session.prepare(select()
+            .from(TABLE_NAME));
+    }
+
+    private PreparedStatement prepareConditionalInsert(Session session) {
+        return session.prepare(insertInto(TABLE_NAME)
+            .value(BUCKET, bindMarker(BUCKET))
+            .value(ID, bindMarker(ID))
+            .value(REFERENCE_COUNT, bindMarker(REFERENCE_COUNT))
+            .value(LAST_UPDATE, bindMarker(LAST_UPDATE))
+            .value(STATE, bindMarker(STATE))
+            .ifNotExists());
+    }
+
+    private PreparedStatement prepareConditionalUpdate(Session session) {
+        return session.prepare(update(TABLE_NAME)
+            .with(set(REFERENCE_COUNT, bindMarker(REFERENCE_COUNT)))
+            .and(set(LAST_UPDATE, bindMarker(LAST_UPDATE)))
+            .where(eq(BUCKET, bindMarker(BUCKET)))
+            .and(eq(ID, bindMarker(ID)))
+            .onlyIf(eq(REFERENCE_COUNT, bindMarker(OLD_REFERENCE_COUNT)))
+            .and(eq(LAST_UPDATE, bindMarker(OLD_LAST_UPDATE)))
+            .and(eq(STATE, bindMarker(OLD_STATE))));
+    }
+
+    private PreparedStatement prepareMarkAsBeingCollected(Session session) {
+        return session.prepare(update(TABLE_NAME)
+            .with(set(STATE, BlobReference.State.BEING_COLLECTED.name()))
+            .where(eq(BUCKET, bindMarker(BUCKET)))
+            .and(eq(ID, bindMarker(ID)))
+            .onlyIf(eq(REFERENCE_COUNT, bindMarker(REFERENCE_COUNT)))
+            .and(eq(LAST_UPDATE, bindMarker(LAST_UPDATE)))
+            .and(eq(STATE, BlobReference.State.TRACKED.name())));
+    }
+
+    private PreparedStatement prepareDeleteCollected(Session session) {
+        return session.prepare(delete()
+            .from(TABLE_NAME)
+            .where(eq(BUCKET, bindMarker(BUCKET)))
+            .and(eq(ID, bindMarker(ID)))
+            .onlyIf(eq(STATE, BlobReference.State.BEING_COLLECTED.name())));
+    }
+
+    @Override
+    public Mono<Void> increment(BucketName bucketName, BlobId blobId, boolean preExisting) {
+        return Mono.defer(() -> read(bucketName, blobId)
+                .flatMap(this::incrementReferenceCount)
+                .switchIfEmpty(Mono.defer(() -> insertFirstReference(bucketName, blobId, preExisting))))
+            .filter(result -> result != IncrementResult.CONCURRENTLY_UPDATED)
+            .single()
+            .retryBackoff(MAX_RETRY, FIRST_BACKOFF)
+            .flatMap(result -> {
+                if (result == IncrementResult.BEING_COLLECTED) {
+                    return Mono.error(new BlobBeingCollectedException(bucketName, blobId));
+                }
+                return Mono.empty();
+            });
+    }
+
+    private Mono<IncrementResult> incrementReferenceCount(BlobReference reference) {
+        if (reference.isBeingCollected()) {
+            return Mono.just(IncrementResult.BEING_COLLECTED);
+        }
+        return updateReferenceCount(reference, reference.getReferenceCount() + 1)
+            .map(this::toIncrementResult);
+    }
+
+    @Override
+    public Mono<Void> decrement(BucketName bucketName, BlobId blobId) {
+        return Mono.defer(() -> read(bucketName, blobId)
+                .flatMap(reference -> {
+                    if (reference.isBeingCollected()) {
+                        return Mono.just(true);
+                    }
+                    return updateReferenceCount(reference, Math.max(0, reference.getReferenceCount() - 1));
+                })
+                .defaultIfEmpty(true))
+            .filter(FunctionalUtils.identityPredicate())
+            .single()
+            .retryBackoff(MAX_RETRY, FIRST_BACKOFF)
+            .then();
+    }
+
+    @Override
+    public Mono<BlobReference> read(BucketName bucketName, BlobId blobId) {
+        return executor.executeSingleRow(
+                select.bind()
+                    .setString(BUCKET, bucketName.asString())
+                    .setString(ID, blobId.asString())
+                    .setConsistencyLevel(ConsistencyLevel.SERIAL))
+            .map(row -> toReference(bucketName, blobId, row));
+    }
+
+    @Override
+    public Flux<BlobReference> listUnreferenced(Instant lastUpdateBefore) {
+        return executor.executeRows(selectAll.bind())
+            .map(row -> toReference(BucketName.of(row.getString(BUCKET)), blobIdFactory.from(row.getString(ID)), row))
+            .filter(reference -> reference.isUnreferencedSince(lastUpdateBefore));
+    }
+
+    @Override
+    public Mono<Boolean> markAsBeingCollected(BlobReference reference) {
+        if (reference.getState() != BlobReference.State.TRACKED) {
+            return Mono.just(reference.isBeingCollected());
+        }
+        return executor.executeReturnApplied(
+            markAsBeingCollected.bind()
+                .setString(BUCKET, reference.getBucketName().asString())
+                .setString(ID, reference.getBlobId().asString())
+                .setLong(REFERENCE_COUNT, reference.getReferenceCount())
+                .setTimestamp(LAST_UPDATE, Date.from(reference.getLastUpdate())));
+    }
+
+    @Override
+    public Mono<Void> removeCollected(BucketName bucketName, BlobId blobId) {
+        return executor.executeReturnApplied(
+                deleteCollected.bind()
+                    .setString(BUCKET, bucketName.asString())
+                    .setString(ID, blobId.asString()))
+            .then();
+    }
+
+    private Mono<IncrementResult> insertFirstReference(BucketName bucketName, BlobId blobId, boolean preExisting) {
+        BlobReference.State state = preExisting ? BlobReference.State.PRE_EXISTING : BlobReference.State.TRACKED;
+        return executor.executeReturnApplied(
+                conditionalInsert.bind()
+                    .setString(BUCKET, bucketName.asString())
+                    .setString(ID, blobId.asString())
+                    .setLong(REFERENCE_COUNT, 1)
+                    .setTimestamp(LAST_UPDATE, Date.from(clock.instant()))
+                    .setString(STATE, state.name()))
+            .map(this::toIncrementResult);
+    }
+
+    private IncrementResult toIncrementResult(boolean applied) {
+        if (applied) {
+            return IncrementResult.APPLIED;
+        }
+        return IncrementResult.CONCURRENTLY_UPDATED;
+    }
+
+    private Mono<Boolean> updateReferenceCount(BlobReference reference, long referenceCount) {
+        return executor.executeReturnApplied(
+            conditionalUpdate.bind()
+                .setString(BUCKET, reference.getBucketName().asString())
+                .setString(ID, reference.getBlobId().asString())
+                .setLong(REFERENCE_COUNT, referenceCount)
+                .setTimestamp(LAST_UPDATE, Date.from(clock.instant()))
+                .setLong(OLD_REFERENCE_COUNT, reference.getReferenceCount())
+                .setTimestamp(OLD_LAST_UPDATE, Date.from(reference.getLastUpdate()))
+                .setString(OLD_STATE, reference.getState().name()));
+    }
+
+    private BlobReference toReference(BucketName bucketName, BlobId blobId, Row row) {
+        return BlobReference.of(bucketName, blobId, row.getLong(REFERENCE_COUNT), row.getTimestamp(LAST_UPDATE).toInstant(),
+            BlobReference.State.valueOf(row.getString(STATE)));
+    }
+}
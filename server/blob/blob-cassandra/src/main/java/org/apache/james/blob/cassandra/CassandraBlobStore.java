@@ -21,6 +21,8 @@ package org.apache.james.blob.cassandra;
 
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -29,7 +31,6 @@ import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.blob.api.BlobId;
@@ -41,8 +42,13 @@ import org.apache.james.blob.cassandra.utils.DataChunker;
 import org.apache.james.util.ReactorUtils;
 
 import com.datastax.driver.core.Session;
+import com.github.fge.lambdas.Throwing;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteSource;
+import com.google.common.io.FileBackedOutputStream;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -51,7 +57,7 @@ import reactor.core.scheduler.Schedulers;
 public class CassandraBlobStore implements BlobStore {
 
     private static final int PREFETCH = 16;
-    private static final int MAX_CONCURRENCY = 1;
+    private static final int FILE_THRESHOLD = 100 * 1024;
     private final CassandraDefaultBucketDAO defaultBucketDAO;
     private final CassandraBucketDAO bucketDAO;
     private final DataChunker dataChunker;
@@ -94,7 +100,7 @@ public class CassandraBlobStore implements BlobStore {
         return Flux.fromStream(chunks)
             .publishOn(Schedulers.boundedElastic(), PREFETCH)
             .flatMap(pair -> writePart(bucketName, blobId, pair.getKey(), pair.getValue())
-                .then(Mono.just(getChunkNum(pair))))
+                .then(Mono.just(getChunkNum(pair))), configuration.getBlobPartWriteParallelism())
             .collect(Collectors.maxBy(Comparator.comparingInt(x -> x)))
             .flatMap(Mono::justOrEmpty)
             .map(this::numToCount)
@@ -110,16 +116,141 @@ public class CassandraBlobStore implements BlobStore {
         return pair.getKey();
     }
 
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, InputStream data) {
+        Preconditions.checkNotNull(data);
+        return save(bucketName, ReactorUtils.toChunks(data, configuration.getBlobPartSize()));
+    }
+
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+        Preconditions.checkNotNull(data);
+        return Mono.using(
+            () -> new FileBackedOutputStream(FILE_THRESHOLD),
+            buffer -> bufferAndComputeBlobId(data, buffer)
+                .flatMap(blobId -> saveBlobParts(bucketName, buffer.asByteSource(), blobId)
+                    .flatMap(numberOfChunk -> saveBlobPartReference(bucketName, blobId, numberOfChunk))
+                    .thenReturn(blobId)),
+            Throwing.consumer(FileBackedOutputStream::reset).sneakyThrow());
+    }
+
+    private Mono<BlobId> bufferAndComputeBlobId(Flux<ByteBuffer> data, FileBackedOutputStream buffer) {
+        HashingOutputStream hashingOutputStream = new HashingOutputStream(Hashing.sha256(), buffer);
+        WritableByteChannel channel = Channels.newChannel(hashingOutputStream);
+
+        return data.publishOn(Schedulers.boundedElastic())
+            .concatMap(chunk -> Mono.fromCallable(() -> channel.write(chunk)))
+            .then(Mono.fromCallable(() -> {
+                hashingOutputStream.flush();
+                return blobIdFactory.from(hashingOutputStream.hash().toString());
+            }));
+    }
+
+    private Mono<Integer> saveBlobParts(BucketName bucketName, ByteSource content, BlobId blobId) {
+        return Flux.using(content::openStream,
+                stream -> ReactorUtils.toChunks(stream, configuration.getBlobPartSize())
+                    .defaultIfEmpty(ByteBuffer.wrap(new byte[0]))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .index()
+                    .flatMap(chunk -> writePart(bucketName, blobId, chunk.getT1().intValue(), chunk.getT2())
+                        .thenReturn(chunk.getT1()), configuration.getBlobPartWriteParallelism(), PREFETCH),
+                Throwing.consumer(InputStream::close).sneakyThrow())
+            .count()
+            .map(Long::intValue);
+    }
+
     @Override
     public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
-        return readBlobParts(bucketName, blobId)
+        return readReactive(bucketName, blobId)
             .collectList()
             .map(this::byteBuffersToBytesArray);
     }
 
     @Override
     public InputStream read(BucketName bucketName, BlobId blobId) {
-        return ReactorUtils.toInputStream(readBlobParts(bucketName, blobId));
+        Integer rowCount = selectRowCountOrFail(bucketName, blobId)
+            .publishOn(Schedulers.boundedElastic())
+            .block();
+        return ReactorUtils.toInputStream(readBlobParts(bucketName, blobId, rowCount));
+    }
+
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId, long offset, long length) {
+        Preconditions.checkArgument(offset >= 0, "'offset' can not be negative");
+        Preconditions.checkArgument(length >= 0, "'length' can not be negative");
+
+        Integer rowCount = selectRowCountOrFail(bucketName, blobId)
+            .publishOn(Schedulers.boundedElastic())
+            .block();
+        return ReactorUtils.toInputStream(readBlobRange(bucketName, blobId, rowCount, offset, length));
+    }
+
+    @Override
+    public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+        return selectRowCountOrFail(bucketName, blobId)
+            .flatMapMany(rowCount -> readBlobParts(bucketName, blobId, rowCount));
+    }
+
+    /**
+     * Only reads the first and last parts: all parts but the last one have the size of the first one.
+     */
+    @Override
+    public Mono<Long> size(BucketName bucketName, BlobId blobId) {
+        return selectRowCountOrFail(bucketName, blobId)
+            .flatMap(rowCount -> {
+                if (rowCount == 0) {
+                    return Mono.just(0L);
+                }
+                if (rowCount == 1) {
+                    return readPartOrFail(bucketName, blobId, 0)
+                        .map(part -> (long) part.remaining());
+                }
+                return readPartOrFail(bucketName, blobId, 0)
+                    .zipWith(readPartOrFail(bucketName, blobId, rowCount - 1),
+                        (firstPart, lastPart) -> (long) firstPart.remaining() * (rowCount - 1) + lastPart.remaining());
+            });
+    }
+
+    /**
+     * All parts but the last one have the same size. As the part size might have been changed since this blob
+     * was written, it is inferred from the first part rather than read from the configuration.
+     */
+    private Flux<ByteBuffer> readBlobRange(BucketName bucketName, BlobId blobId, int rowCount, long offset, long length) {
+        if (length == 0 || rowCount == 0) {
+            return Flux.empty();
+        }
+        long end = offset + Math.min(length, Long.MAX_VALUE - offset);
+        return readPartOrFail(bucketName, blobId, 0)
+            .flatMapMany(firstPart -> {
+                int partSize = firstPart.remaining();
+                if (rowCount == 1 || partSize == 0) {
+                    return Flux.just(slice(firstPart, 0, offset, end));
+                }
+                int firstPartIndex = (int) Math.min(offset / partSize, rowCount);
+                int lastPartIndex = (int) Math.min((end - 1) / partSize, rowCount - 1);
+                return Flux.range(firstPartIndex, Math.max(lastPartIndex - firstPartIndex + 1, 0))
+                    .publishOn(Schedulers.boundedElastic(), PREFETCH)
+                    .flatMapSequential(partIndex -> readPartOrReuseFirst(bucketName, blobId, partIndex, firstPart)
+                            .map(part -> slice(part, (long) partIndex * partSize, offset, end)),
+                        configuration.getBlobPartReadParallelism(), PREFETCH);
+            })
+            .filter(ByteBuffer::hasRemaining);
+    }
+
+    private Mono<ByteBuffer> readPartOrReuseFirst(BucketName bucketName, BlobId blobId, int partIndex, ByteBuffer firstPart) {
+        if (partIndex == 0) {
+            return Mono.just(firstPart);
+        }
+        return readPartOrFail(bucketName, blobId, partIndex);
+    }
+
+    private ByteBuffer slice(ByteBuffer part, long partStart, long rangeStart, long rangeEnd) {
+        ByteBuffer slice = part.slice();
+        int sliceStart = (int) Math.min(Math.max(rangeStart - partStart, 0), slice.limit());
+        int sliceEnd = (int) Math.max(Math.min(rangeEnd - partStart, slice.limit()), sliceStart);
+        slice.limit(sliceEnd);
+        slice.position(sliceStart);
+        return slice;
     }
 
     @Override
@@ -127,27 +258,25 @@ public class CassandraBlobStore implements BlobStore {
         return BucketName.DEFAULT;
     }
 
-    private Flux<ByteBuffer> readBlobParts(BucketName bucketName, BlobId blobId) {
-        Integer rowCount = selectRowCount(bucketName, blobId)
-            .publishOn(Schedulers.boundedElastic())
+    private Mono<Integer> selectRowCountOrFail(BucketName bucketName, BlobId blobId) {
+        return selectRowCount(bucketName, blobId)
             .single()
             .onErrorResume(NoSuchElementException.class, e -> Mono.error(
-                new ObjectNotFoundException(String.format("Could not retrieve blob metadata for %s", blobId))))
-            .block();
+                new ObjectNotFoundException(String.format("Could not retrieve blob metadata for %s", blobId))));
+    }
+
+    private Flux<ByteBuffer> readBlobParts(BucketName bucketName, BlobId blobId, int rowCount) {
         return Flux.range(0, rowCount)
             .publishOn(Schedulers.boundedElastic(), PREFETCH)
-            .flatMapSequential(partIndex -> readPart(bucketName, blobId, partIndex)
-                .single()
-                .onErrorResume(NoSuchElementException.class, e -> Mono.error(
-                    new ObjectNotFoundException(String.format("Missing blob part for blobId %s and position %d", blobId, partIndex)))),
-                MAX_CONCURRENCY, PREFETCH);
+            .flatMapSequential(partIndex -> readPartOrFail(bucketName, blobId, partIndex),
+                configuration.getBlobPartReadParallelism(), PREFETCH);
     }
 
-    @Override
-    public Mono<BlobId> save(BucketName bucketName, InputStream data) {
-        Preconditions.checkNotNull(data);
-        return Mono.fromCallable(() -> IOUtils.toByteArray(data))
-            .flatMap(bytes -> saveAsMono(bucketName, bytes));
+    private Mono<ByteBuffer> readPartOrFail(BucketName bucketName, BlobId blobId, int partIndex) {
+        return readPart(bucketName, blobId, partIndex)
+            .single()
+            .onErrorResume(NoSuchElementException.class, e -> Mono.error(
+                new ObjectNotFoundException(String.format("Missing blob part for blobId %s and position %d", blobId, partIndex))));
     }
 
     @Override
@@ -0,0 +1,51 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cassandra;
+
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.blob.api.BlobReferenceStore;
+import org.apache.james.blob.api.BlobReferenceStoreContract;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class CassandraBlobReferenceStoreTest implements BlobReferenceStoreContract {
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(CassandraBlobModule.MODULE);
+
+    private UpdatableTickingClock clock;
+    private CassandraBlobReferenceStore referenceStore;
+
+    @BeforeEach
+    void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        referenceStore = new CassandraBlobReferenceStore(cassandraCluster.getCassandraCluster().getConf(), BLOB_ID_FACTORY, clock);
+    }
+
+    @Override
+    public BlobReferenceStore referenceStore() {
+        return referenceStore;
+    }
+
+    @Override
+    public UpdatableTickingClock clock() {
+        return clock;
+    }
+}
@@ -21,9 +21,12 @@ package org.apache.james.blob.cassandra;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -120,6 +123,38 @@ public class CassandraBlobStoreTest implements MetricableBlobStoreContract {
             .hasMessageContaining("Missing blob part for blobId");
     }
 
+    @Test
+    void readRangeShouldOnlyReadNeededParts() {
+        byte[] data = Strings.repeat("0123456789\n", MULTIPLE_CHUNK_SIZE * CHUNK_SIZE).getBytes(StandardCharsets.UTF_8);
+        BlobId blobId = testee.save(testee.getDefaultBucketName(), data).block();
+
+        InputStream range = testee.read(testee.getDefaultBucketName(), blobId, 3 * CHUNK_SIZE + 10, CHUNK_SIZE);
+
+        assertThat(range).hasSameContentAs(new ByteArrayInputStream(data, 3 * CHUNK_SIZE + 10, CHUNK_SIZE));
+        verify(defaultBucketDAO).readPart(blobId, 0);
+        verify(defaultBucketDAO).readPart(blobId, 3);
+        verify(defaultBucketDAO).readPart(blobId, 4);
+        verify(defaultBucketDAO, never()).readPart(blobId, 1);
+        verify(defaultBucketDAO, never()).readPart(blobId, 5);
+    }
+
+    @Test
+    void readRangeShouldNotDependOnCurrentPartSize(CassandraCluster cassandra) {
+        byte[] data = Strings.repeat("0123456789\n", MULTIPLE_CHUNK_SIZE * CHUNK_SIZE).getBytes(StandardCharsets.UTF_8);
+        BlobId blobId = testee.save(testee.getDefaultBucketName(), data).block();
+
+        HashBlobId.Factory blobIdFactory = new HashBlobId.Factory();
+        CassandraBlobStore storeWithOtherPartSize = new CassandraBlobStore(defaultBucketDAO,
+            new CassandraBucketDAO(blobIdFactory, cassandra.getConf()),
+            CassandraConfiguration.builder()
+                .blobPartSize(CHUNK_SIZE * 2 + 1)
+                .build(),
+            blobIdFactory);
+
+        assertThat(storeWithOtherPartSize.read(testee.getDefaultBucketName(), blobId, CHUNK_SIZE + 10, 3 * CHUNK_SIZE))
+            .hasSameContentAs(new ByteArrayInputStream(data, CHUNK_SIZE + 10, 3 * CHUNK_SIZE));
+    }
+
     @Test
     void deleteBucketShouldThrowWhenDeletingDefaultBucket() {
         assertThatThrownBy(() ->  testee.deleteBucket(testee.getDefaultBucketName()))
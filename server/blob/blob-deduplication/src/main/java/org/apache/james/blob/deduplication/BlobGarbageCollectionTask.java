@@ -0,0 +1,119 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.deduplication;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.task.TaskType;
+
+public class BlobGarbageCollectionTask implements Task {
+    static final TaskType TYPE = TaskType.of("blob-garbage-collection");
+
+    public static class AdditionalInformation implements TaskExecutionDetails.AdditionalInformation {
+        private final Duration gracePeriod;
+        private final long collectedBlobCount;
+        private final long concurrentlyReferencedBlobCount;
+        private final long failedBlobCount;
+        private final Instant timestamp;
+
+        AdditionalInformation(Duration gracePeriod, long collectedBlobCount, long concurrentlyReferencedBlobCount, long failedBlobCount, Instant timestamp) {
+            this.gracePeriod = gracePeriod;
+            this.collectedBlobCount = collectedBlobCount;
+            this.concurrentlyReferencedBlobCount = concurrentlyReferencedBlobCount;
+            this.failedBlobCount = failedBlobCount;
+            this.timestamp = timestamp;
+        }
+
+        public Duration getGracePeriod() {
+            return gracePeriod;
+        }
+
+        public long getCollectedBlobCount() {
+            return collectedBlobCount;
+        }
+
+        public long getConcurrentlyReferencedBlobCount() {
+            return concurrentlyReferencedBlobCount;
+        }
+
+        public long getFailedBlobCount() {
+            return failedBlobCount;
+        }
+
+        @Override
+        public Instant timestamp() {
+            return timestamp;
+        }
+    }
+
+    public static class Factory {
+        private final BlobGarbageCollector garbageCollector;
+
+        @Inject
+        public Factory(BlobGarbageCollector garbageCollector) {
+            this.garbageCollector = garbageCollector;
+        }
+
+        public BlobGarbageCollectionTask create(Duration gracePeriod) {
+            return new BlobGarbageCollectionTask(garbageCollector, gracePeriod);
+        }
+    }
+
+    private final BlobGarbageCollector garbageCollector;
+    private final Duration gracePeriod;
+    private final BlobGarbageCollector.Context context;
+
+    private BlobGarbageCollectionTask(BlobGarbageCollector garbageCollector, Duration gracePeriod) {
+        this.garbageCollector = garbageCollector;
+        this.gracePeriod = gracePeriod;
+        this.context = new BlobGarbageCollector.Context();
+    }
+
+    @Override
+    public Result run() {
+        return garbageCollector.collect(gracePeriod, context)
+            .block();
+    }
+
+    @Override
+    public TaskType type() {
+        return TYPE;
+    }
+
+    @Override
+    public Optional<TaskExecutionDetails.AdditionalInformation> details() {
+        return Optional.of(new AdditionalInformation(gracePeriod,
+            context.getCollectedBlobCount(),
+            context.getConcurrentlyReferencedBlobCount(),
+            context.getFailedBlobCount(),
+            Clock.systemUTC().instant()));
+    }
+
+    Duration getGracePeriod() {
+        return gracePeriod;
+    }
+}
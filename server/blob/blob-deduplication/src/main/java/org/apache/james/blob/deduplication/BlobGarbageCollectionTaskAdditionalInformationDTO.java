@@ -0,0 +1,106 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.deduplication;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTO;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class BlobGarbageCollectionTaskAdditionalInformationDTO implements AdditionalInformationDTO {
+    static BlobGarbageCollectionTaskAdditionalInformationDTO fromDomainObject(BlobGarbageCollectionTask.AdditionalInformation additionalInformation, String type) {
+        return new BlobGarbageCollectionTaskAdditionalInformationDTO(
+            type,
+            additionalInformation.getGracePeriod().toString(),
+            additionalInformation.getCollectedBlobCount(),
+            additionalInformation.getConcurrentlyReferencedBlobCount(),
+            additionalInformation.getFailedBlobCount(),
+            additionalInformation.timestamp());
+    }
+
+    public static final AdditionalInformationDTOModule<BlobGarbageCollectionTask.AdditionalInformation, BlobGarbageCollectionTaskAdditionalInformationDTO> MODULE =
+        DTOModule
+            .forDomainObject(BlobGarbageCollectionTask.AdditionalInformation.class)
+            .convertToDTO(BlobGarbageCollectionTaskAdditionalInformationDTO.class)
+            .toDomainObjectConverter(BlobGarbageCollectionTaskAdditionalInformationDTO::toDomainObject)
+            .toDTOConverter(BlobGarbageCollectionTaskAdditionalInformationDTO::fromDomainObject)
+            .typeName(BlobGarbageCollectionTask.TYPE.asString())
+            .withFactory(AdditionalInformationDTOModule::new);
+
+    private final String type;
+    private final String gracePeriod;
+    private final long collectedBlobCount;
+    private final long concurrentlyReferencedBlobCount;
+    private final long failedBlobCount;
+    private final Instant timestamp;
+
+    BlobGarbageCollectionTaskAdditionalInformationDTO(@JsonProperty("type") String type,
+                                                      @JsonProperty("gracePeriod") String gracePeriod,
+                                                      @JsonProperty("collectedBlobCount") long collectedBlobCount,
+                                                      @JsonProperty("concurrentlyReferencedBlobCount") long concurrentlyReferencedBlobCount,
+                                                      @JsonProperty("failedBlobCount") long failedBlobCount,
+                                                      @JsonProperty("timestamp") Instant timestamp) {
+        this.type = type;
+        this.gracePeriod = gracePeriod;
+        this.collectedBlobCount = collectedBlobCount;
+        this.concurrentlyReferencedBlobCount = concurrentlyReferencedBlobCount;
+        this.failedBlobCount = failedBlobCount;
+        this.timestamp = timestamp;
+    }
+
+    BlobGarbageCollectionTask.AdditionalInformation toDomainObject() {
+        return new BlobGarbageCollectionTask.AdditionalInformation(
+            Duration.parse(gracePeriod),
+            collectedBlobCount,
+            concurrentlyReferencedBlobCount,
+            failedBlobCount,
+            timestamp);
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    public String getGracePeriod() {
+        return gracePeriod;
+    }
+
+    public long getCollectedBlobCount() {
+        return collectedBlobCount;
+    }
+
+    public long getConcurrentlyReferencedBlobCount() {
+        return concurrentlyReferencedBlobCount;
+    }
+
+    public long getFailedBlobCount() {
+        return failedBlobCount;
+    }
+
+    @Override
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,128 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.deduplication;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.james.blob.api.BlobReference;
+import org.apache.james.blob.api.BlobReferenceStore;
+import org.apache.james.blob.api.BlobStore;
+import org.apache.james.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Deletes blobs no longer referenced by any owner of a {@link DeDuplicationBlobStore}.
+ *
+ * The collection runs on live data without locking. Only blobs whose references were not updated during the grace
+ * period are considered. Their tracking entry is first marked as being collected, only if it was not updated in the
+ * meantime. Once marked, the blob can no longer be referenced: a concurrent save of the same content waits for the
+ * collection to end, then stores the blob again. The blob is then deleted, and its tracking entry removed last.
+ *
+ * A collection interrupted after marking a blob is resumed by the next one.
+ */
+public class BlobGarbageCollector {
+    public static final Duration DEFAULT_GRACE_PERIOD = Duration.ofDays(1);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlobGarbageCollector.class);
+    private static final int CONCURRENCY = 8;
+
+    public static class Context {
+        private final AtomicLong collectedBlobCount;
+        private final AtomicLong concurrentlyReferencedBlobCount;
+        private final AtomicLong failedBlobCount;
+
+        public Context() {
+            this.collectedBlobCount = new AtomicLong(0L);
+            this.concurrentlyReferencedBlobCount = new AtomicLong(0L);
+            this.failedBlobCount = new AtomicLong(0L);
+        }
+
+        public long getCollectedBlobCount() {
+            return collectedBlobCount.get();
+        }
+
+        public long getConcurrentlyReferencedBlobCount() {
+            return concurrentlyReferencedBlobCount.get();
+        }
+
+        public long getFailedBlobCount() {
+            return failedBlobCount.get();
+        }
+
+        void incrementCollectedBlobCount() {
+            collectedBlobCount.incrementAndGet();
+        }
+
+        void incrementConcurrentlyReferencedBlobCount() {
+            concurrentlyReferencedBlobCount.incrementAndGet();
+        }
+
+        void incrementFailedBlobCount() {
+            failedBlobCount.incrementAndGet();
+        }
+    }
+
+    private final BlobStore blobStore;
+    private final BlobReferenceStore referenceStore;
+    private final Clock clock;
+
+    /**
+     * @param blobStore the deduplicated {@link BlobStore}, in which unreferenced blobs are actually deleted.
+     */
+    public BlobGarbageCollector(BlobStore blobStore, BlobReferenceStore referenceStore, Clock clock) {
+        this.blobStore = blobStore;
+        this.referenceStore = referenceStore;
+        this.clock = clock;
+    }
+
+    public Mono<Task.Result> collect(Duration gracePeriod, Context context) {
+        Instant lastUpdateBefore = clock.instant().minus(gracePeriod);
+
+        return referenceStore.listUnreferenced(lastUpdateBefore)
+            .flatMap(reference -> collect(reference, context), CONCURRENCY)
+            .reduce(Task.Result.COMPLETED, Task::combine);
+    }
+
+    private Mono<Task.Result> collect(BlobReference reference, Context context) {
+        return referenceStore.markAsBeingCollected(reference)
+            .flatMap(marked -> {
+                if (marked) {
+                    return blobStore.delete(reference.getBucketName(), reference.getBlobId())
+                        .then(referenceStore.removeCollected(reference.getBucketName(), reference.getBlobId()))
+                        .then(Mono.fromRunnable(context::incrementCollectedBlobCount))
+                        .thenReturn(Task.Result.COMPLETED);
+                }
+                context.incrementConcurrentlyReferencedBlobCount();
+                return Mono.just(Task.Result.COMPLETED);
+            })
+            .onErrorResume(e -> {
+                LOGGER.error("Error while garbage collecting blob {} in bucket {}",
+                    reference.getBlobId().asString(), reference.getBucketName().asString(), e);
+                context.incrementFailedBlobCount();
+                return Mono.just(Task.Result.PARTIAL);
+            });
+    }
+}
@@ -0,0 +1,220 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.deduplication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.apache.james.blob.api.BlobBeingCollectedException;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReferenceStore;
+import org.apache.james.blob.api.BlobStore;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectNotFoundException;
+
+import com.github.fge.lambdas.Throwing;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.FileBackedOutputStream;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Shares content addressed blobs between all their owners.
+ *
+ * Each save records a new reference to the resulting blob, and {@link #delete(BucketName, BlobId)} only releases
+ * one. The blob itself is deleted later on by the {@link BlobGarbageCollector}, once no owner references it anymore.
+ *
+ * Blobs saved before deduplication was enabled are not tracked: deleting them is a no-op, as their other owners are
+ * unknown. Saving such a blob again tracks it as pre-existing, and it is never garbage collected.
+ *
+ * A save racing the garbage collection of the same content waits for the collection to end, then stores the blob
+ * again. Streamed content is thus buffered, in memory or in a temporary file for bigger blobs, until referenced.
+ */
+public class DeDuplicationBlobStore implements BlobStore {
+    private static final int FILE_THRESHOLD = 100 * 1024;
+    private static final int MAX_COLLECTION_WAIT_RETRIES = 10;
+    private static final Duration FIRST_COLLECTION_WAIT_BACKOFF = Duration.ofMillis(10);
+    private static final Duration MAX_COLLECTION_WAIT_BACKOFF = Duration.ofSeconds(1);
+
+    private final BlobStore blobStore;
+    private final BlobReferenceStore referenceStore;
+    private final BlobId.Factory blobIdFactory;
+
+    public DeDuplicationBlobStore(BlobStore blobStore, BlobReferenceStore referenceStore, BlobId.Factory blobIdFactory) {
+        this.blobStore = blobStore;
+        this.referenceStore = referenceStore;
+        this.blobIdFactory = blobIdFactory;
+    }
+
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, byte[] data) {
+        Preconditions.checkNotNull(data);
+
+        return saveAndReference(bucketName, blobIdFactory.forPayload(data), () -> blobStore.save(bucketName, data));
+    }
+
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, InputStream data) {
+        Preconditions.checkNotNull(data);
+
+        return Mono.using(
+            () -> new FileBackedOutputStream(FILE_THRESHOLD),
+            buffer -> Mono.fromCallable(() -> bufferAndComputeBlobId(data, buffer))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(blobId -> saveAndReference(bucketName, blobId, () -> saveBuffered(bucketName, buffer.asByteSource()))),
+            Throwing.consumer(FileBackedOutputStream::reset).sneakyThrow());
+    }
+
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+        Preconditions.checkNotNull(data);
+
+        return Mono.using(
+            () -> new FileBackedOutputStream(FILE_THRESHOLD),
+            buffer -> bufferAndComputeBlobId(data, buffer)
+                .flatMap(blobId -> saveAndReference(bucketName, blobId, () -> saveBuffered(bucketName, buffer.asByteSource()))),
+            Throwing.consumer(FileBackedOutputStream::reset).sneakyThrow());
+    }
+
+    private BlobId bufferAndComputeBlobId(InputStream data, FileBackedOutputStream buffer) throws IOException {
+        HashingOutputStream hashingOutputStream = new HashingOutputStream(Hashing.sha256(), buffer);
+        ByteStreams.copy(data, hashingOutputStream);
+        hashingOutputStream.flush();
+        return blobIdFactory.from(hashingOutputStream.hash().toString());
+    }
+
+    private Mono<BlobId> bufferAndComputeBlobId(Flux<ByteBuffer> data, FileBackedOutputStream buffer) {
+        HashingOutputStream hashingOutputStream = new HashingOutputStream(Hashing.sha256(), buffer);
+        WritableByteChannel channel = Channels.newChannel(hashingOutputStream);
+
+        return data.publishOn(Schedulers.boundedElastic())
+            .concatMap(chunk -> Mono.fromCallable(() -> channel.write(chunk)))
+            .then(Mono.fromCallable(() -> {
+                hashingOutputStream.flush();
+                return blobIdFactory.from(hashingOutputStream.hash().toString());
+            }));
+    }
+
+    private Mono<BlobId> saveBuffered(BucketName bucketName, ByteSource content) {
+        return Mono.using(content::openStream,
+            stream -> blobStore.save(bucketName, stream),
+            Throwing.consumer(InputStream::close).sneakyThrow());
+    }
+
+    /**
+     * Whether the blob was already stored is only looked up when it is not tracked yet: an untracked blob already
+     * stored was saved before deduplication was enabled, and might have unknown owners.
+     *
+     * The blob is written before being referenced, so that a reference never points to a missing blob. If the blob is
+     * being garbage collected, this write might be lost: the reference is then recorded once the collection is over,
+     * and the blob written again.
+     */
+    private Mono<BlobId> saveAndReference(BucketName bucketName, BlobId blobId, Supplier<Mono<BlobId>> write) {
+        return isUntrackedAndStored(bucketName, blobId)
+            .flatMap(preExisting -> write(blobId, write)
+                .then(referenceStore.increment(bucketName, blobId, preExisting)))
+            .onErrorResume(BlobBeingCollectedException.class, e -> referenceOnceCollected(bucketName, blobId)
+                .then(write(blobId, write)))
+            .thenReturn(blobId);
+    }
+
+    private Mono<Void> write(BlobId blobId, Supplier<Mono<BlobId>> write) {
+        return write.get()
+            .doOnNext(savedBlobId -> Preconditions.checkState(savedBlobId.equals(blobId),
+                "Underlying blob store saved blob %s under a different id %s", blobId.asString(), savedBlobId.asString()))
+            .then();
+    }
+
+    private Mono<Boolean> isUntrackedAndStored(BucketName bucketName, BlobId blobId) {
+        return referenceStore.read(bucketName, blobId)
+            .map(reference -> false)
+            .switchIfEmpty(Mono.defer(() -> exists(bucketName, blobId)));
+    }
+
+    private Mono<Boolean> exists(BucketName bucketName, BlobId blobId) {
+        return blobStore.readReactive(bucketName, blobId)
+            .take(1)
+            .then(Mono.just(true))
+            .onErrorResume(ObjectNotFoundException.class, e -> Mono.just(false));
+    }
+
+    private Mono<Void> referenceOnceCollected(BucketName bucketName, BlobId blobId) {
+        return Mono.defer(() -> referenceStore.increment(bucketName, blobId))
+            .retryBackoff(MAX_COLLECTION_WAIT_RETRIES, FIRST_COLLECTION_WAIT_BACKOFF, MAX_COLLECTION_WAIT_BACKOFF);
+    }
+
+    @Override
+    public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
+        return blobStore.readBytes(bucketName, blobId);
+    }
+
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId) {
+        return blobStore.read(bucketName, blobId);
+    }
+
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId, long offset, long length) {
+        return blobStore.read(bucketName, blobId, offset, length);
+    }
+
+    @Override
+    public Mono<Long> size(BucketName bucketName, BlobId blobId) {
+        return blobStore.size(bucketName, blobId);
+    }
+
+    @Override
+    public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+        return blobStore.readReactive(bucketName, blobId);
+    }
+
+    @Override
+    public BucketName getDefaultBucketName() {
+        return blobStore.getDefaultBucketName();
+    }
+
+    /**
+     * Deletes the bucket along with all its blobs, whatever their owners. References to these blobs are left as is,
+     * the garbage collection tolerating blobs that no longer exist.
+     */
+    @Override
+    public Mono<Void> deleteBucket(BucketName bucketName) {
+        return blobStore.deleteBucket(bucketName);
+    }
+
+    @Override
+    public Mono<Void> delete(BucketName bucketName, BlobId blobId) {
+        Preconditions.checkNotNull(bucketName);
+        Preconditions.checkNotNull(blobId);
+
+        return referenceStore.decrement(bucketName, blobId);
+    }
+}
@@ -0,0 +1,243 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.deduplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.api.ObjectStoreException;
+import org.apache.james.blob.memory.MemoryBlobReferenceStore;
+import org.apache.james.blob.memory.MemoryBlobStore;
+import org.apache.james.task.Task;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class BlobGarbageCollectorTest {
+    private static final Instant NOW = Instant.parse("2019-11-06T10:15:30.00Z");
+    private static final Duration GRACE_PERIOD = Duration.ofDays(1);
+    private static final Instant AFTER_GRACE_PERIOD = NOW.plus(GRACE_PERIOD).plusSeconds(1);
+    private static final BucketName CUSTOM = BucketName.of("custom");
+    private static final byte[] DATA = "content".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_DATA = "other content".getBytes(StandardCharsets.UTF_8);
+
+    private UpdatableTickingClock clock;
+    private MemoryBlobStore blobStore;
+    private MemoryBlobReferenceStore referenceStore;
+    private DeDuplicationBlobStore deDuplicationBlobStore;
+    private BlobGarbageCollector testee;
+
+    @BeforeEach
+    void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        blobStore = spy(new MemoryBlobStore(new HashBlobId.Factory()));
+        referenceStore = spy(new MemoryBlobReferenceStore(clock));
+        deDuplicationBlobStore = new DeDuplicationBlobStore(blobStore, referenceStore, new HashBlobId.Factory());
+        testee = new BlobGarbageCollector(blobStore, referenceStore, clock);
+    }
+
+    @Test
+    void collectShouldDeleteUnreferencedBlobs() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        BlobId otherBlobId = deDuplicationBlobStore.save(CUSTOM, OTHER_DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+        deDuplicationBlobStore.delete(CUSTOM, otherBlobId).block();
+
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block();
+
+        assertThatThrownBy(() -> blobStore.read(BucketName.DEFAULT, blobId))
+            .isInstanceOf(ObjectStoreException.class);
+        assertThatThrownBy(() -> blobStore.read(CUSTOM, otherBlobId))
+            .isInstanceOf(ObjectStoreException.class);
+    }
+
+    @Test
+    void collectShouldStopTrackingCollectedBlobs() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block();
+
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    void collectShouldNotDeleteBlobsStillReferencedByAnotherOwner() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block();
+
+        assertThat(blobStore.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+    }
+
+    @Test
+    void collectShouldNotDeleteBlobsReleasedDuringTheGracePeriod() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+
+        clock.setInstant(NOW.plus(Duration.ofHours(1)));
+        testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block();
+
+        assertThat(blobStore.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+    }
+
+    @Test
+    void collectShouldNotDeleteUntrackedBlobs() {
+        BlobId blobId = blobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block();
+
+        assertThat(blobStore.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+    }
+
+    @Test
+    void collectShouldNotDeleteBlobsSavedBeforeDeduplicationAndSavedAgain() {
+        BlobId blobId = blobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block();
+
+        assertThat(blobStore.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+    }
+
+    @Test
+    void collectShouldNotDeleteBlobsReferencedWhileCollecting() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        doAnswer(invocation -> {
+            deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+            return invocation.callRealMethod();
+        }).when(referenceStore).markAsBeingCollected(any());
+
+        BlobGarbageCollector.Context context = new BlobGarbageCollector.Context();
+        testee.collect(GRACE_PERIOD, context).block();
+
+        assertThat(blobStore.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+        assertThat(context.getConcurrentlyReferencedBlobCount())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void collectShouldNotLoseBlobsSavedWhileBeingDeleted() throws Exception {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        AtomicReference<CompletableFuture<BlobId>> concurrentSave = new AtomicReference<>();
+        doAnswer(invocation -> {
+            concurrentSave.set(deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).toFuture());
+            return invocation.callRealMethod();
+        }).when(blobStore).delete(BucketName.DEFAULT, blobId);
+
+        testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block();
+        concurrentSave.get().get(10, TimeUnit.SECONDS);
+
+        assertThat(blobStore.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).block().getReferenceCount())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void collectShouldResumeInterruptedCollections() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        referenceStore.markAsBeingCollected(referenceStore.read(BucketName.DEFAULT, blobId).block()).block();
+
+        testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block();
+
+        assertThatThrownBy(() -> blobStore.read(BucketName.DEFAULT, blobId))
+            .isInstanceOf(ObjectStoreException.class);
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    void collectShouldReturnCompletedWhenNothingToCollect() {
+        assertThat(testee.collect(GRACE_PERIOD, new BlobGarbageCollector.Context()).block())
+            .isEqualTo(Task.Result.COMPLETED);
+    }
+
+    @Test
+    void collectShouldCountCollectedBlobs() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        BlobId otherBlobId = deDuplicationBlobStore.save(BucketName.DEFAULT, OTHER_DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, otherBlobId).block();
+
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        BlobGarbageCollector.Context context = new BlobGarbageCollector.Context();
+        Task.Result result = testee.collect(GRACE_PERIOD, context).block();
+
+        assertThat(result).isEqualTo(Task.Result.COMPLETED);
+        assertThat(context.getCollectedBlobCount()).isEqualTo(2);
+        assertThat(context.getFailedBlobCount()).isEqualTo(0);
+    }
+
+    @Test
+    void collectShouldReturnPartialWhenFailingToDeleteABlob() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        BlobId otherBlobId = deDuplicationBlobStore.save(BucketName.DEFAULT, OTHER_DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, otherBlobId).block();
+        doReturn(Mono.error(new RuntimeException()))
+            .when(blobStore).delete(BucketName.DEFAULT, blobId);
+
+        clock.setInstant(AFTER_GRACE_PERIOD);
+        BlobGarbageCollector.Context context = new BlobGarbageCollector.Context();
+        Task.Result result = testee.collect(GRACE_PERIOD, context).block();
+
+        assertThat(result).isEqualTo(Task.Result.PARTIAL);
+        assertThat(context.getCollectedBlobCount()).isEqualTo(1);
+        assertThat(context.getFailedBlobCount()).isEqualTo(1);
+    }
+}
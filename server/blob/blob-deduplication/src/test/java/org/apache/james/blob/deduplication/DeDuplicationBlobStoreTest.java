@@ -0,0 +1,182 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.deduplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReference;
+import org.apache.james.blob.api.BlobStore;
+import org.apache.james.blob.api.BlobStoreContract;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.api.ObjectStoreException;
+import org.apache.james.blob.memory.MemoryBlobReferenceStore;
+import org.apache.james.blob.memory.MemoryBlobStore;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+
+class DeDuplicationBlobStoreTest implements BlobStoreContract {
+    private static final Instant NOW = Instant.parse("2019-11-06T10:15:30.00Z");
+    private static final HashBlobId.Factory BLOB_ID_FACTORY = new HashBlobId.Factory();
+    private static final byte[] DATA = "content".getBytes(StandardCharsets.UTF_8);
+
+    private UpdatableTickingClock clock;
+    private MemoryBlobStore blobStore;
+    private MemoryBlobReferenceStore referenceStore;
+    private DeDuplicationBlobStore testee;
+    private BlobGarbageCollector garbageCollector;
+
+    @BeforeEach
+    void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        blobStore = new MemoryBlobStore(BLOB_ID_FACTORY);
+        referenceStore = new MemoryBlobReferenceStore(clock);
+        testee = new DeDuplicationBlobStore(blobStore, referenceStore, BLOB_ID_FACTORY);
+        garbageCollector = new BlobGarbageCollector(blobStore, referenceStore, clock);
+    }
+
+    @Override
+    public BlobStore testee() {
+        return testee;
+    }
+
+    @Override
+    public BlobId.Factory blobIdFactory() {
+        return BLOB_ID_FACTORY;
+    }
+
+    @Override
+    @Test
+    public void deleteShouldDeleteExistingBlobData() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, SHORT_BYTEARRAY).block();
+        testee.delete(BucketName.DEFAULT, blobId).block();
+
+        clock.setInstant(NOW.plus(Duration.ofDays(2)));
+        garbageCollector.collect(Duration.ofDays(1), new BlobGarbageCollector.Context()).block();
+
+        assertThatThrownBy(() -> testee.read(BucketName.DEFAULT, blobId))
+            .isInstanceOf(ObjectStoreException.class);
+    }
+
+    @Test
+    void saveShouldRecordAReference() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, DATA).block();
+
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, blobId, 1, NOW));
+    }
+
+    @Test
+    void savingTheSameContentShouldRecordOneReferencePerSave() {
+        testee.save(BucketName.DEFAULT, DATA).block();
+        testee.save(BucketName.DEFAULT, new ByteArrayInputStream(DATA)).block();
+        BlobId blobId = testee.save(BucketName.DEFAULT, DATA).block();
+
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).block().getReferenceCount())
+            .isEqualTo(3);
+    }
+
+    @Test
+    void deleteShouldOnlyReleaseAReference() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, DATA).block();
+        testee.save(BucketName.DEFAULT, DATA).block();
+
+        testee.delete(BucketName.DEFAULT, blobId).block();
+
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).block().getReferenceCount())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void deleteShouldNotDeleteBlobContentRightAway() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, DATA).block();
+
+        testee.delete(BucketName.DEFAULT, blobId).block();
+
+        assertThat(testee.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+    }
+
+    @Test
+    void deleteShouldNotTrackBlobsSavedBeforeDeduplication() {
+        BlobId blobId = blobStore.save(BucketName.DEFAULT, DATA).block();
+
+        testee.delete(BucketName.DEFAULT, blobId).block();
+
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    void savingTheSameStreamedContentShouldReturnTheSameBlobId() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, DATA).block();
+
+        assertThat(testee.save(BucketName.DEFAULT, new ByteArrayInputStream(DATA)).block())
+            .isEqualTo(blobId);
+        assertThat(testee.save(BucketName.DEFAULT, Flux.just(ByteBuffer.wrap(DATA))).block())
+            .isEqualTo(blobId);
+    }
+
+    @Test
+    void saveShouldTrackBlobsSavedBeforeDeduplicationAsPreExisting() {
+        BlobId blobId = blobStore.save(BucketName.DEFAULT, DATA).block();
+
+        testee.save(BucketName.DEFAULT, DATA).block();
+
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, blobId, 1, NOW, BlobReference.State.PRE_EXISTING));
+    }
+
+    @Test
+    void saveShouldTrackStreamedBlobsSavedBeforeDeduplicationAsPreExisting() {
+        BlobId blobId = blobStore.save(BucketName.DEFAULT, DATA).block();
+
+        testee.save(BucketName.DEFAULT, new ByteArrayInputStream(DATA)).block();
+
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).block().getState())
+            .isEqualTo(BlobReference.State.PRE_EXISTING);
+    }
+
+    @Test
+    void saveShouldStoreTheBlobAgainOnceCollected() {
+        BlobId blobId = testee.save(BucketName.DEFAULT, DATA).block();
+        testee.delete(BucketName.DEFAULT, blobId).block();
+        clock.setInstant(NOW.plus(Duration.ofDays(2)));
+        garbageCollector.collect(Duration.ofDays(1), new BlobGarbageCollector.Context()).block();
+
+        testee.save(BucketName.DEFAULT, DATA).block();
+
+        assertThat(testee.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+        assertThat(referenceStore.read(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(BlobReference.of(BucketName.DEFAULT, blobId, 1, NOW.plus(Duration.ofDays(2))));
+    }
+}
@@ -0,0 +1,100 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.memory;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.james.blob.api.BlobBeingCollectedException;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReference;
+import org.apache.james.blob.api.BlobReferenceStore;
+import org.apache.james.blob.api.BucketName;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class MemoryBlobReferenceStore implements BlobReferenceStore {
+    private final Clock clock;
+    private final ConcurrentHashMap<Pair<BucketName, BlobId>, BlobReference> references;
+
+    @Inject
+    public MemoryBlobReferenceStore(Clock clock) {
+        this.clock = clock;
+        this.references = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Mono<Void> increment(BucketName bucketName, BlobId blobId, boolean preExisting) {
+        return Mono.fromRunnable(() -> references.compute(Pair.of(bucketName, blobId), (key, reference) -> {
+            if (reference == null) {
+                return BlobReference.of(bucketName, blobId, 1, clock.instant(), initialState(preExisting));
+            }
+            if (reference.isBeingCollected()) {
+                throw new BlobBeingCollectedException(bucketName, blobId);
+            }
+            return BlobReference.of(bucketName, blobId, reference.getReferenceCount() + 1, clock.instant(), reference.getState());
+        }));
+    }
+
+    @Override
+    public Mono<Void> decrement(BucketName bucketName, BlobId blobId) {
+        return Mono.fromRunnable(() -> references.computeIfPresent(Pair.of(bucketName, blobId), (key, reference) -> {
+            if (reference.isBeingCollected()) {
+                return reference;
+            }
+            return BlobReference.of(bucketName, blobId, Math.max(0, reference.getReferenceCount() - 1), clock.instant(), reference.getState());
+        }));
+    }
+
+    @Override
+    public Mono<BlobReference> read(BucketName bucketName, BlobId blobId) {
+        return Mono.fromCallable(() -> references.get(Pair.of(bucketName, blobId)));
+    }
+
+    @Override
+    public Flux<BlobReference> listUnreferenced(Instant lastUpdateBefore) {
+        return Flux.fromIterable(references.values())
+            .filter(reference -> reference.isUnreferencedSince(lastUpdateBefore));
+    }
+
+    @Override
+    public Mono<Boolean> markAsBeingCollected(BlobReference reference) {
+        return Mono.fromCallable(() -> reference.getState() != BlobReference.State.PRE_EXISTING
+            && references.replace(Pair.of(reference.getBucketName(), reference.getBlobId()), reference, reference.beingCollected()));
+    }
+
+    @Override
+    public Mono<Void> removeCollected(BucketName bucketName, BlobId blobId) {
+        return Mono.fromRunnable(() -> references.computeIfPresent(Pair.of(bucketName, blobId),
+            (key, reference) -> reference.isBeingCollected() ? null : reference));
+    }
+
+    private BlobReference.State initialState(boolean preExisting) {
+        if (preExisting) {
+            return BlobReference.State.PRE_EXISTING;
+        }
+        return BlobReference.State.TRACKED;
+    }
+}
@@ -20,8 +20,10 @@
 package org.apache.james.blob.memory;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 import javax.inject.Inject;
@@ -37,6 +39,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class MemoryBlobStore implements BlobStore {
@@ -83,6 +86,20 @@ public class MemoryBlobStore implements BlobStore {
         }
     }
 
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+        Preconditions.checkNotNull(bucketName);
+        Preconditions.checkNotNull(data);
+
+        return data.reduceWith(ByteArrayOutputStream::new, (accumulator, buffer) -> {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                accumulator.write(bytes, 0, bytes.length);
+                return accumulator;
+            })
+            .flatMap(accumulator -> save(bucketName, accumulator.toByteArray()));
+    }
+
     @Override
     public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
         Preconditions.checkNotNull(bucketName);
@@ -95,6 +112,20 @@ public class MemoryBlobStore implements BlobStore {
         return new ByteArrayInputStream(retrieveStoredValue(bucketName, blobId));
     }
 
+    @Override
+    public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+        Preconditions.checkNotNull(bucketName);
+        return Mono.fromCallable(() -> retrieveStoredValue(bucketName, blobId))
+            .map(ByteBuffer::wrap)
+            .flux();
+    }
+
+    @Override
+    public Mono<Long> size(BucketName bucketName, BlobId blobId) {
+        Preconditions.checkNotNull(bucketName);
+        return Mono.fromCallable(() -> (long) retrieveStoredValue(bucketName, blobId).length);
+    }
+
     @Override
     public Mono<Void> deleteBucket(BucketName bucketName) {
         Preconditions.checkNotNull(bucketName);
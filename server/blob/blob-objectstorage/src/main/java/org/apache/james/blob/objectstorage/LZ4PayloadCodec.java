@@ -0,0 +1,186 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.objectstorage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.james.blob.api.ObjectStoreException;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.FileBackedOutputStream;
+
+/**
+ * Compresses payloads with LZ4 before handing them to an underlying codec, for instance {@link AESPayloadCodec}, as
+ * encrypted data no longer compresses.
+ *
+ * Compressed payloads start with a {@link #HEADER} recording the compression format. Payloads not starting with it,
+ * typically written before compression was enabled, are read as is.
+ *
+ * The LZ4 window is prefilled with a dictionary of common mail header fields, so that even small header blobs
+ * compress well. The dictionary is part of the format: changing it requires a new header.
+ *
+ * Empty payloads are stored as is, LZ4 blocks needing at least one literal.
+ */
+public class LZ4PayloadCodec implements PayloadCodec {
+    static final byte[] HEADER = {'J', 'L', 'Z', '4', 1};
+
+    private static final byte[] MAIL_HEADERS_DICTIONARY = String.join("\r\n",
+        "Content-Disposition: attachment; filename=\"",
+        "Content-Type: application/octet-stream; name=\"",
+        "Content-Type: multipart/mixed; boundary=\"",
+        "Content-Type: multipart/related; boundary=\"",
+        "Content-Type: multipart/alternative; boundary=\"",
+        "Content-Type: text/html; charset=\"utf-8\"",
+        "Content-Type: text/plain; charset=\"utf-8\"",
+        "Content-Type: text/plain; charset=UTF-8; format=flowed",
+        "Content-Transfer-Encoding: base64",
+        "Content-Transfer-Encoding: 7bit",
+        "Content-Transfer-Encoding: 8bit",
+        "Content-Transfer-Encoding: quoted-printable",
+        "Content-Language: en-US",
+        "MIME-Version: 1.0",
+        "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:68.0) Gecko/20100101 Thunderbird/68.2.1",
+        "X-Mailer: ",
+        "List-Unsubscribe: <mailto:",
+        "List-Id: <",
+        "Precedence: bulk",
+        "Auto-Submitted: auto-generated",
+        "Authentication-Results: ",
+        "ARC-Seal: i=1; a=rsa-sha256; t=",
+        "ARC-Message-Signature: i=1; a=rsa-sha256; c=relaxed/relaxed; d=",
+        "DKIM-Signature: v=1; a=rsa-sha256; c=relaxed/relaxed; d=",
+        " s=selector1; h=from:to:subject:date:message-id:mime-version:content-type; bh=",
+        "Received-SPF: pass (domain of designates as permitted sender) client-ip=",
+        "Received: from localhost (localhost [127.0.0.1]) by ",
+        " with ESMTPS id ; ",
+        " with ESMTP id ",
+        " with LMTP id ",
+        " (using TLSv1.2 with cipher ECDHE-RSA-AES256-GCM-SHA384 (256/256 bits))",
+        "Return-Path: <",
+        "Delivered-To: ",
+        "In-Reply-To: <",
+        "References: <",
+        "Reply-To: ",
+        "Message-ID: <",
+        "Date: Mon, Tue, Wed, Thu, Fri, Sat, Sun, Jan Feb Mar Apr May Jun Jul Aug Sep Oct Nov Dec 2019 +0000 (UTC)",
+        "Subject: Re: ",
+        "Cc: ",
+        "To: ",
+        "From: ",
+        "")
+        .getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MAX_BYTES_IN_MEMORY = FileUtils.ONE_MB_BI.intValue();
+
+    private final PayloadCodec underlying;
+
+    public LZ4PayloadCodec(PayloadCodec underlying) {
+        this.underlying = underlying;
+    }
+
+    @Override
+    public Payload write(byte[] bytes) {
+        if (bytes.length == 0) {
+            return underlying.write(bytes);
+        }
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 2 + HEADER.length)) {
+            compress(outputStream, out -> out.write(bytes));
+            return underlying.write(outputStream.toByteArray());
+        } catch (IOException e) {
+            throw new ObjectStoreException("Unable to build payload for object storage, failed to compress", e);
+        }
+    }
+
+    @Override
+    public Payload write(InputStream inputStream) {
+        FileBackedOutputStream outputStream = new FileBackedOutputStream(MAX_BYTES_IN_MEMORY);
+        try {
+            PushbackInputStream content = new PushbackInputStream(inputStream);
+            int firstByte = content.read();
+            if (firstByte == -1) {
+                return underlying.write(new byte[0]);
+            }
+            content.unread(firstByte);
+
+            compress(outputStream, out -> IOUtils.copy(content, out));
+            outputStream.close();
+            ByteSource compressed = outputStream.asByteSource();
+            if (compressed.size() <= MAX_BYTES_IN_MEMORY) {
+                return underlying.write(compressed.read());
+            }
+            // Bigger content is buffered in a temporary file, read by the upload and deleted once the payload is released
+            InputStream compressedContent = compressed.openStream();
+            return underlying.write(compressedContent)
+                .releasing(compressedContent)
+                .releasing(outputStream::reset);
+        } catch (IOException e) {
+            discard(outputStream, e);
+            throw new ObjectStoreException("Unable to build payload for object storage, failed to compress", e);
+        }
+    }
+
+    @Override
+    public InputStream read(Payload payload) throws IOException {
+        InputStream content = new BufferedInputStream(underlying.read(payload));
+        content.mark(HEADER.length);
+        byte[] header = new byte[HEADER.length];
+        int headerLength = IOUtils.read(content, header);
+
+        if (headerLength == HEADER.length && Arrays.equals(header, HEADER)) {
+            BlockLZ4CompressorInputStream decompressed = new BlockLZ4CompressorInputStream(content);
+            decompressed.prefill(MAIL_HEADERS_DICTIONARY);
+            return decompressed;
+        }
+        content.reset();
+        return content;
+    }
+
+    private void discard(FileBackedOutputStream outputStream, IOException cause) {
+        try {
+            outputStream.reset();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    private void compress(OutputStream outputStream, ContentWriter contentWriter) throws IOException {
+        outputStream.write(HEADER);
+        BlockLZ4CompressorOutputStream compressor = new BlockLZ4CompressorOutputStream(outputStream);
+        compressor.prefill(MAIL_HEADERS_DICTIONARY, 0, MAIL_HEADERS_DICTIONARY.length);
+        contentWriter.write(compressor);
+        compressor.finish();
+    }
+}
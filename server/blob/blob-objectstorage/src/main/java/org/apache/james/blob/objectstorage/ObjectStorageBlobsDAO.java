@@ -22,6 +22,7 @@ package org.apache.james.blob.objectstorage;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -38,10 +39,13 @@ import org.apache.james.blob.objectstorage.aws.AwsS3ObjectStorage;
 import org.apache.james.blob.objectstorage.swift.SwiftKeystone2ObjectStorage;
 import org.apache.james.blob.objectstorage.swift.SwiftKeystone3ObjectStorage;
 import org.apache.james.blob.objectstorage.swift.SwiftTempAuthObjectStorage;
+import org.apache.james.util.ReactorUtils;
 import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 
+import com.github.fge.lambdas.Throwing;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.hash.Hashing;
@@ -101,14 +105,17 @@ public class ObjectStorageBlobsDAO implements BlobStore {
         ObjectStorageBucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
 
         BlobId blobId = blobIdFactory.forPayload(data);
-        Payload payload = payloadCodec.write(data);
 
-        Blob blob = blobStore.blobBuilder(blobId.asString())
-            .payload(payload.getPayload())
-            .contentLength(payload.getLength().orElse(Long.valueOf(data.length)))
-            .build();
-
-        return Mono.fromRunnable(() -> blobPutter.putDirectly(resolvedBucketName, blob))
+        return Mono.using(
+            () -> payloadCodec.write(data),
+            payload -> {
+                Blob blob = blobStore.blobBuilder(blobId.asString())
+                    .payload(payload.getPayload())
+                    .contentLength(payload.getLength().orElse(Long.valueOf(data.length)))
+                    .build();
+                return Mono.fromRunnable(() -> blobPutter.putDirectly(resolvedBucketName, blob));
+            },
+            Throwing.consumer(Payload::release).sneakyThrow())
             .thenReturn(blobId);
     }
 
@@ -119,6 +126,14 @@ public class ObjectStorageBlobsDAO implements BlobStore {
         return Mono.defer(() -> savingStrategySelection(bucketName, data));
     }
 
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+        Preconditions.checkNotNull(data);
+
+        return Mono.defer(() -> savingStrategySelection(bucketName, ReactorUtils.toInputStream(data)))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
     private Mono<BlobId> savingStrategySelection(BucketName bucketName, InputStream data) {
         InputStream bufferedData = new BufferedInputStream(data, BUFFERED_SIZE + 1);
         try {
@@ -145,13 +160,17 @@ public class ObjectStorageBlobsDAO implements BlobStore {
 
         BlobId tmpId = blobIdFactory.randomId();
         HashingInputStream hashingInputStream = new HashingInputStream(Hashing.sha256(), data);
-        Payload payload = payloadCodec.write(hashingInputStream);
-        Blob blob = blobStore.blobBuilder(tmpId.asString())
-                            .payload(payload.getPayload())
-                            .build();
-
         Supplier<BlobId> blobIdSupplier = () -> blobIdFactory.from(hashingInputStream.hash().toString());
-        return Mono.fromRunnable(() -> blobPutter.putAndComputeId(resolvedBucketName, blob, blobIdSupplier));
+
+        return Mono.using(
+            () -> payloadCodec.write(hashingInputStream),
+            payload -> {
+                Blob blob = blobStore.blobBuilder(tmpId.asString())
+                    .payload(payload.getPayload())
+                    .build();
+                return Mono.fromRunnable(() -> blobPutter.putAndComputeId(resolvedBucketName, blob, blobIdSupplier));
+            },
+            Throwing.consumer(Payload::release).sneakyThrow());
     }
 
     @Override
@@ -177,6 +196,31 @@ public class ObjectStorageBlobsDAO implements BlobStore {
         }
     }
 
+    @Override
+    public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+        return Flux.using(() -> read(bucketName, blobId),
+                data -> ReactorUtils.toChunks(data, BUFFERED_SIZE),
+                Throwing.consumer(InputStream::close).sneakyThrow())
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Encoded payloads are stored with a different size: the size metadata of the stored blob can only be used with
+     * the default codec.
+     */
+    @Override
+    public Mono<Long> size(BucketName bucketName, BlobId blobId) {
+        if (!(payloadCodec instanceof DefaultPayloadCodec)) {
+            return BlobStore.super.size(bucketName, blobId);
+        }
+        ObjectStorageBucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
+        return Mono.fromCallable(() -> Optional.ofNullable(blobStore.blobMetadata(resolvedBucketName.asString(), blobId.asString()))
+                .map(BlobMetadata::getContentMetadata)
+                .map(contentMetadata -> contentMetadata.getContentLength())
+                .orElseThrow(() -> new ObjectNotFoundException("fail to load blob with id " + blobId)))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
     @Override
     public BucketName getDefaultBucketName() {
         return defaultBucketName;
@@ -19,16 +19,45 @@
 
 package org.apache.james.blob.objectstorage;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Optional;
 
+import com.google.common.collect.ImmutableList;
+
 public class Payload {
 
     private final org.jclouds.io.Payload payload;
     private final Optional<Long> length;
+    private final ImmutableList<Closeable> resources;
 
     public Payload(org.jclouds.io.Payload payload, Optional<Long> length) {
+        this(payload, length, ImmutableList.of());
+    }
+
+    private Payload(org.jclouds.io.Payload payload, Optional<Long> length, ImmutableList<Closeable> resources) {
         this.payload = payload;
         this.length = length;
+        this.resources = resources;
+    }
+
+    /**
+     * Returns this payload, additionally closing the given resource once released.
+     */
+    public Payload releasing(Closeable resource) {
+        return new Payload(payload, length, ImmutableList.<Closeable>builder()
+            .addAll(resources)
+            .add(resource)
+            .build());
+    }
+
+    /**
+     * Releases the resources backing this payload, such as temporary files, once it has been stored.
+     */
+    public void release() throws IOException {
+        for (Closeable resource : resources) {
+            resource.close();
+        }
     }
 
     public org.jclouds.io.Payload getPayload() {
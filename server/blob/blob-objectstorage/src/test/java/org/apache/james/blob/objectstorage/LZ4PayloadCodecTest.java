@@ -0,0 +1,160 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.objectstorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.james.blob.objectstorage.crypto.CryptoConfig;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Strings;
+
+class LZ4PayloadCodecTest implements PayloadCodecContract {
+    private static final byte[] HEADERS = ("Return-Path: <bob@domain.tld>\r\n" +
+        "Received: from localhost (localhost [127.0.0.1]) by mx.domain.tld with ESMTP id 8A3F2C0011 for <alice@domain.tld>; Wed, 6 Nov 2019 10:15:30 +0000 (UTC)\r\n" +
+        "MIME-Version: 1.0\r\n" +
+        "Content-Type: text/plain; charset=\"utf-8\"\r\n" +
+        "Content-Transfer-Encoding: quoted-printable\r\n" +
+        "Message-ID: <8A3F2C0011@mx.domain.tld>\r\n" +
+        "Date: Wed, 6 Nov 2019 10:15:30 +0000\r\n" +
+        "Subject: Re: Weekly meeting\r\n" +
+        "To: alice@domain.tld\r\n" +
+        "From: bob@domain.tld\r\n" +
+        "\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    public PayloadCodec codec() {
+        return new LZ4PayloadCodec(PayloadCodec.DEFAULT_CODEC);
+    }
+
+    @Test
+    void writeShouldPrefixPayloadWithCodecHeader() throws Exception {
+        Payload payload = codec().write(SOME_BYTES);
+
+        byte[] stored = IOUtils.toByteArray(payload.getPayload().openStream());
+        assertThat(stored).startsWith(LZ4PayloadCodec.HEADER);
+    }
+
+    @Test
+    void writeShouldCompressMailHeaders() throws Exception {
+        Payload payload = codec().write(HEADERS);
+
+        assertThat(payload.getLength()).hasValueSatisfying(length -> assertThat(length).isLessThan(HEADERS.length / 2));
+    }
+
+    @Test
+    void readShouldReturnCompressedContent() throws Exception {
+        PayloadCodec codec = codec();
+
+        assertThat(codec.read(codec.write(HEADERS))).hasSameContentAs(new ByteArrayInputStream(HEADERS));
+    }
+
+    @Test
+    void readShouldReturnLegacyUncompressedContent() throws Exception {
+        Payload legacyPayload = PayloadCodec.DEFAULT_CODEC.write(HEADERS);
+
+        assertThat(codec().read(legacyPayload)).hasSameContentAs(new ByteArrayInputStream(HEADERS));
+    }
+
+    @Test
+    void readShouldReturnLegacyContentShorterThanHeader() throws Exception {
+        byte[] shortContent = "JL".getBytes(StandardCharsets.US_ASCII);
+        Payload legacyPayload = PayloadCodec.DEFAULT_CODEC.write(shortContent);
+
+        assertThat(codec().read(legacyPayload)).hasSameContentAs(new ByteArrayInputStream(shortContent));
+    }
+
+    @Test
+    void readShouldReturnEmptyContent() throws Exception {
+        PayloadCodec codec = codec();
+
+        assertThat(codec.read(codec.write(new byte[0]))).hasSameContentAs(new ByteArrayInputStream(new byte[0]));
+    }
+
+    @Test
+    void readShouldReturnEmptyStreamedContent() throws Exception {
+        PayloadCodec codec = codec();
+
+        assertThat(codec.read(codec.write(new ByteArrayInputStream(new byte[0]))))
+            .hasSameContentAs(new ByteArrayInputStream(new byte[0]));
+    }
+
+    @Test
+    void readShouldReturnBigStreamedContent() throws Exception {
+        byte[] bigContent = Strings.repeat("0123456789\r\n", 200 * 1024).getBytes(StandardCharsets.US_ASCII);
+        PayloadCodec codec = codec();
+
+        assertThat(codec.read(codec.write(new ByteArrayInputStream(bigContent))))
+            .hasSameContentAs(new ByteArrayInputStream(bigContent));
+    }
+
+    @Test
+    void releaseShouldDeleteTemporaryFileOfBigStreamedContent() throws Exception {
+        byte[] incompressibleContent = new byte[2 * 1024 * 1024];
+        new Random(42).nextBytes(incompressibleContent);
+        long temporaryFiles = countTemporaryFiles();
+
+        Payload payload = codec().write(new ByteArrayInputStream(incompressibleContent));
+        assertThat(countTemporaryFiles()).isEqualTo(temporaryFiles + 1);
+
+        payload.release();
+        assertThat(countTemporaryFiles()).isEqualTo(temporaryFiles);
+    }
+
+    private long countTemporaryFiles() {
+        File[] temporaryFiles = new File(System.getProperty("java.io.tmpdir"))
+            .listFiles((directory, name) -> name.startsWith("FileBackedOutputStream"));
+        return temporaryFiles.length;
+    }
+
+    @Nested
+    class ChainedWithAES implements PayloadCodecContract {
+        private final AESPayloadCodec aesPayloadCodec = new AESPayloadCodec(
+            new CryptoConfig(
+                "c603a7327ee3dcbc031d8d34b1096c605feca5e1",
+                "foobar".toCharArray()));
+
+        @Override
+        public PayloadCodec codec() {
+            return new LZ4PayloadCodec(aesPayloadCodec);
+        }
+
+        @Test
+        void readShouldReturnCompressedContent() throws Exception {
+            PayloadCodec codec = codec();
+
+            assertThat(codec.read(codec.write(HEADERS))).hasSameContentAs(new ByteArrayInputStream(HEADERS));
+        }
+
+        @Test
+        void readShouldReturnLegacyEncryptedContent() throws Exception {
+            Payload legacyPayload = aesPayloadCodec.write(HEADERS);
+
+            assertThat(codec().read(legacyPayload)).hasSameContentAs(new ByteArrayInputStream(HEADERS));
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.james.blob.union;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -37,6 +38,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class UnionBlobStore implements BlobStore {
@@ -129,6 +131,18 @@ public class UnionBlobStore implements BlobStore {
         }
     }
 
+    @Override
+    public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+        try {
+            return saveToCurrentFallbackIfFails(bucketName, data,
+                currentBlobStore::save,
+                legacyBlobStore::save);
+        } catch (Exception e) {
+            LOGGER.error("exception directly happens while saving Flux data, fall back to legacy blob store", e);
+            return legacyBlobStore.save(bucketName, data);
+        }
+    }
+
     @Override
     public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
         try {
@@ -149,6 +163,37 @@ public class UnionBlobStore implements BlobStore {
         }
     }
 
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId, long offset, long length) {
+        try {
+            return currentBlobStore.read(bucketName, blobId, offset, length);
+        } catch (Exception e) {
+            LOGGER.error("exception directly happens while reading a range, fall back to legacy blob store", e);
+            return legacyBlobStore.read(bucketName, blobId, offset, length);
+        }
+    }
+
+    @Override
+    public Mono<Long> size(BucketName bucketName, BlobId blobId) {
+        return Mono.defer(() -> currentBlobStore.size(bucketName, blobId))
+            .onErrorResume(this::logAndReturnEmpty)
+            .switchIfEmpty(Mono.defer(() -> legacyBlobStore.size(bucketName, blobId)));
+    }
+
+    @Override
+    public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+        return Flux.defer(() -> currentBlobStore.readReactive(bucketName, blobId))
+            .switchOnFirst((firstSignal, content) -> {
+                if (firstSignal.hasValue()) {
+                    return content;
+                }
+                if (firstSignal.isOnError()) {
+                    LOGGER.error("error happens from current blob store, fall back to legacy blob store", firstSignal.getThrowable());
+                }
+                return Flux.defer(() -> legacyBlobStore.readReactive(bucketName, blobId));
+            });
+    }
+
     @Override
     public Mono<Void> deleteBucket(BucketName bucketName) {
         return Mono.defer(() -> currentBlobStore.deleteBucket(bucketName))
@@ -26,6 +26,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -37,6 +38,7 @@ import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.api.HashBlobId;
 import org.apache.james.blob.api.ObjectStoreException;
 import org.apache.james.blob.memory.MemoryBlobStore;
+import org.apache.james.util.ReactorUtils;
 import org.apache.james.util.StreamUtils;
 import org.assertj.core.api.SoftAssertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -50,6 +52,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 class UnionBlobStoreTest implements BlobStoreContract {
@@ -76,6 +79,11 @@ class UnionBlobStoreTest implements BlobStoreContract {
             return Mono.error(new RuntimeException("broken everywhere"));
         }
 
+        @Override
+        public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+            return Mono.error(new RuntimeException("broken everywhere"));
+        }
+
         @Override
         public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
             return Mono.error(new RuntimeException("broken everywhere"));
@@ -86,6 +94,11 @@ class UnionBlobStoreTest implements BlobStoreContract {
             throw new RuntimeException("broken everywhere");
         }
 
+        @Override
+        public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+            return Flux.error(new RuntimeException("broken everywhere"));
+        }
+
         @Override
         public Mono<Void> deleteBucket(BucketName bucketName) {
             return Mono.error(new RuntimeException("broken everywhere"));
@@ -125,6 +138,11 @@ class UnionBlobStoreTest implements BlobStoreContract {
             throw new RuntimeException("broken everywhere");
         }
 
+        @Override
+        public Mono<BlobId> save(BucketName bucketName, Flux<ByteBuffer> data) {
+            throw new RuntimeException("broken everywhere");
+        }
+
         @Override
         public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
             throw new RuntimeException("broken everywhere");
@@ -135,6 +153,11 @@ class UnionBlobStoreTest implements BlobStoreContract {
             throw new RuntimeException("broken everywhere");
         }
 
+        @Override
+        public Flux<ByteBuffer> readReactive(BucketName bucketName, BlobId blobId) {
+            throw new RuntimeException("broken everywhere");
+        }
+
         @Override
         public Mono<Void> deleteBucket(BucketName bucketName) {
             return Mono.error(new RuntimeException("broken everywhere"));
@@ -287,6 +310,19 @@ class UnionBlobStoreTest implements BlobStoreContract {
                 .isEqualTo(BLOB_CONTENT);
         }
 
+        @Test
+        void readReactiveShouldReturnFallbackToLegacyWhenCurrentGotException() {
+            MemoryBlobStore legacyBlobStore = new MemoryBlobStore(BLOB_ID_FACTORY);
+            UnionBlobStore unionBlobStore = UnionBlobStore.builder()
+                .current(new ThrowingBlobStore())
+                .legacy(legacyBlobStore)
+                .build();
+            BlobId blobId = legacyBlobStore.save(unionBlobStore.getDefaultBucketName(), BLOB_CONTENT).block();
+
+            assertThat(ReactorUtils.toInputStream(unionBlobStore.readReactive(unionBlobStore.getDefaultBucketName(), blobId)))
+                .hasSameContentAs(new ByteArrayInputStream(BLOB_CONTENT));
+        }
+
     }
 
     @Nested
@@ -317,6 +353,19 @@ class UnionBlobStoreTest implements BlobStoreContract {
             assertThat(unionBlobStore.readBytes(unionBlobStore.getDefaultBucketName(), blobId).block())
                 .isEqualTo(BLOB_CONTENT);
         }
+
+        @Test
+        void readReactiveShouldReturnFallbackToLegacyWhenCurrentCompletedExceptionally() {
+            MemoryBlobStore legacyBlobStore = new MemoryBlobStore(BLOB_ID_FACTORY);
+            UnionBlobStore unionBlobStore = UnionBlobStore.builder()
+                .current(new FailingBlobStore())
+                .legacy(legacyBlobStore)
+                .build();
+            BlobId blobId = legacyBlobStore.save(unionBlobStore.getDefaultBucketName(), BLOB_CONTENT).block();
+
+            assertThat(ReactorUtils.toInputStream(unionBlobStore.readReactive(unionBlobStore.getDefaultBucketName(), blobId)))
+                .hasSameContentAs(new ByteArrayInputStream(BLOB_CONTENT));
+        }
     }
 
     @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -329,6 +378,8 @@ class UnionBlobStoreTest implements BlobStoreContract {
                 blobStore -> blobStore.save(blobStore.getDefaultBucketName(), BLOB_CONTENT),
                 blobStore -> blobStore.save(blobStore.getDefaultBucketName(), STRING_CONTENT),
                 blobStore -> blobStore.save(blobStore.getDefaultBucketName(), new ByteArrayInputStream(BLOB_CONTENT)),
+                blobStore -> blobStore.save(blobStore.getDefaultBucketName(), Flux.just(ByteBuffer.wrap(BLOB_CONTENT))),
+                blobStore -> blobStore.readReactive(blobStore.getDefaultBucketName(), BLOB_ID_FACTORY.randomId()).then(),
                 blobStore -> blobStore.readBytes(blobStore.getDefaultBucketName(), BLOB_ID_FACTORY.randomId()));
         }
 
@@ -436,6 +487,38 @@ class UnionBlobStoreTest implements BlobStoreContract {
             .isInstanceOf(ObjectStoreException.class);
     }
 
+    @Test
+    void readReactiveShouldReturnFromCurrentWhenAvailable() {
+        BlobId blobId = currentBlobStore.save(currentBlobStore.getDefaultBucketName(), BLOB_CONTENT).block();
+
+        assertThat(ReactorUtils.toInputStream(unionBlobStore.readReactive(unionBlobStore.getDefaultBucketName(), blobId)))
+            .hasSameContentAs(new ByteArrayInputStream(BLOB_CONTENT));
+    }
+
+    @Test
+    void readReactiveShouldReturnFromLegacyWhenCurrentNotAvailable() {
+        BlobId blobId = legacyBlobStore.save(unionBlobStore.getDefaultBucketName(), BLOB_CONTENT).block();
+
+        assertThat(ReactorUtils.toInputStream(unionBlobStore.readReactive(unionBlobStore.getDefaultBucketName(), blobId)))
+            .hasSameContentAs(new ByteArrayInputStream(BLOB_CONTENT));
+    }
+
+    @Test
+    void saveFluxShouldWriteToCurrent() {
+        BlobId blobId = unionBlobStore.save(unionBlobStore.getDefaultBucketName(), Flux.just(ByteBuffer.wrap(BLOB_CONTENT))).block();
+
+        assertThat(currentBlobStore.readBytes(currentBlobStore.getDefaultBucketName(), blobId).block())
+            .isEqualTo(BLOB_CONTENT);
+    }
+
+    @Test
+    void saveFluxShouldNotWriteToLegacy() {
+        BlobId blobId = unionBlobStore.save(unionBlobStore.getDefaultBucketName(), Flux.just(ByteBuffer.wrap(BLOB_CONTENT))).block();
+
+        assertThatThrownBy(() -> legacyBlobStore.readBytes(legacyBlobStore.getDefaultBucketName(), blobId).block())
+            .isInstanceOf(ObjectStoreException.class);
+    }
+
     @Test
     void saveStringShouldWriteToCurrent() {
         BlobId blobId = unionBlobStore.save(unionBlobStore.getDefaultBucketName(), STRING_CONTENT).block();
@@ -0,0 +1,83 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.mail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+import com.google.common.base.Suppliers;
+
+/**
+ * A {@link MimeMessage} whose headers are parsed upfront while its body is only loaded upon first access, for
+ * instance when reading its content or writing it.
+ *
+ * Header only operations, like routing on recipients or reading the subject, thus never load the body. Neither does
+ * computing the size, which relies on the given body size loader until the body is loaded.
+ */
+class LazyLoadedMimeMessage extends MimeMessage {
+    private final Supplier<byte[]> bodyLoader;
+    private final Supplier<Integer> bodySize;
+    private boolean bodyLoaded;
+
+    LazyLoadedMimeMessage(Session session, byte[] headers, Supplier<byte[]> bodyLoader, Supplier<Integer> bodySizeLoader) throws MessagingException {
+        super(session);
+        this.headers = createInternetHeaders(new ByteArrayInputStream(headers));
+        this.bodyLoader = bodyLoader;
+        this.bodySize = Suppliers.memoize(bodySizeLoader::get);
+        this.bodyLoaded = false;
+        this.modified = false;
+        this.saved = true;
+    }
+
+    private synchronized void loadBody() {
+        if (!bodyLoaded) {
+            if (content == null && contentStream == null) {
+                content = bodyLoader.get();
+            }
+            bodyLoaded = true;
+        }
+    }
+
+    synchronized boolean isBodyLoaded() {
+        return bodyLoaded;
+    }
+
+    @Override
+    protected InputStream getContentStream() throws MessagingException {
+        loadBody();
+        return super.getContentStream();
+    }
+
+    @Override
+    public int getSize() throws MessagingException {
+        synchronized (this) {
+            if (!bodyLoaded && content == null && contentStream == null) {
+                return bodySize.get();
+            }
+        }
+        loadBody();
+        return super.getSize();
+    }
+}
@@ -19,34 +19,28 @@
 
 package org.apache.james.blob.mail;
 
-import static org.apache.commons.io.output.NullOutputStream.NULL_OUTPUT_STREAM;
-import static org.apache.james.blob.mail.MimeMessagePartsId.BODY_BLOB_TYPE;
-import static org.apache.james.blob.mail.MimeMessagePartsId.HEADER_BLOB_TYPE;
-
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.SequenceInputStream;
-import java.nio.ByteBuffer;
-import java.util.Map;
+import java.io.OutputStream;
 import java.util.Properties;
-import java.util.stream.Stream;
+import java.util.function.Supplier;
 
 import javax.inject.Inject;
 import javax.mail.MessagingException;
 import javax.mail.Session;
 import javax.mail.internet.MimeMessage;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.tuple.Pair;
+import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.BlobStore;
+import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.api.Store;
-import org.apache.james.blob.api.Store.BlobType;
-import org.apache.james.util.BodyOffsetInputStream;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 public class MimeMessageStore {
 
@@ -59,90 +53,174 @@ public class MimeMessageStore {
         }
 
         public Store<MimeMessage, MimeMessagePartsId> mimeMessageStore() {
-            return new Store.Impl<>(
-                new MimeMessagePartsId.Factory(),
-                new MimeMessageEncoder(),
-                new MimeMessageDecoder(),
-                blobStore);
+            return new Impl(blobStore);
         }
     }
 
-    static class MimeMessageEncoder implements Store.Impl.Encoder<MimeMessage> {
+    /**
+     * Stores headers and body of a message as two blobs.
+     *
+     * Read messages only load their headers, their body being read from the {@link BlobStore} upon first access. Their
+     * size is read from the metadata of the body blob.
+     */
+    static class Impl implements Store<MimeMessage, MimeMessagePartsId> {
+        private final BlobStore blobStore;
+        private final MimeMessageEncoder encoder;
+        private final MimeMessageDecoder decoder;
+
+        Impl(BlobStore blobStore) {
+            this.blobStore = blobStore;
+            this.encoder = new MimeMessageEncoder();
+            this.decoder = new MimeMessageDecoder();
+        }
+
         @Override
-        public Stream<Pair<BlobType, Store.Impl.ValueToSave>> encode(MimeMessage message) {
-            try {
-                byte[] messageAsArray = messageToArray(message);
-                int bodyStartOctet = computeBodyStartOctet(messageAsArray);
-                byte[] headerBytes = getHeaderBytes(messageAsArray, bodyStartOctet);
-                byte[] bodyBytes = getBodyBytes(messageAsArray, bodyStartOctet);
-                return Stream.of(
-                    Pair.of(HEADER_BLOB_TYPE, new Store.Impl.BytesToSave(headerBytes)),
-                    Pair.of(BODY_BLOB_TYPE, new Store.Impl.BytesToSave(bodyBytes)));
-            } catch (MessagingException | IOException e) {
-                throw new RuntimeException(e);
-            }
+        public Mono<MimeMessagePartsId> save(MimeMessage message) {
+            Preconditions.checkNotNull(message);
+            BucketName bucketName = blobStore.getDefaultBucketName();
+
+            return Mono.fromCallable(() -> encoder.encode(message))
+                .flatMap(parts -> blobStore.save(bucketName, parts.getHeaders())
+                    .zipWith(blobStore.save(bucketName, parts.getBody())))
+                .map(blobIds -> MimeMessagePartsId.builder()
+                    .headerBlobId(blobIds.getT1())
+                    .bodyBlobId(blobIds.getT2())
+                    .build());
         }
-        
-        private static byte[] messageToArray(MimeMessage message) throws IOException, MessagingException {
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            message.writeTo(byteArrayOutputStream);
-            return byteArrayOutputStream.toByteArray();
+
+        @Override
+        public Mono<MimeMessage> read(MimeMessagePartsId blobIds) {
+            Preconditions.checkNotNull(blobIds);
+            BucketName bucketName = blobStore.getDefaultBucketName();
+            BlobId bodyBlobId = blobIds.getBodyBlobId();
+
+            return blobStore.readBytes(bucketName, blobIds.getHeaderBlobId())
+                .flatMap(headers -> {
+                    if (headers.length == 0) {
+                        return blobStore.readBytes(bucketName, bodyBlobId)
+                            .map(decoder::decodeWithoutHeaders);
+                    }
+                    // The body is loaded by the consumers of the message, from any thread: blocking reads are
+                    // performed on an elastic scheduler
+                    return Mono.fromCallable(() -> decoder.decode(headers,
+                        () -> blobStore.readBytes(bucketName, bodyBlobId)
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .block(),
+                        () -> blobStore.size(bucketName, bodyBlobId)
+                            .map(Ints::saturatedCast)
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .block()));
+                });
         }
+    }
+
+    static class HeadersAndBody {
+        private final byte[] headers;
+        private final byte[] body;
 
-        private static byte[] getHeaderBytes(byte[] messageContentAsArray, int bodyStartOctet) {
-            ByteBuffer headerContent = ByteBuffer.wrap(messageContentAsArray, 0, bodyStartOctet);
-            byte[] headerBytes = new byte[bodyStartOctet];
-            headerContent.get(headerBytes);
-            return headerBytes;
+        HeadersAndBody(byte[] headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
         }
 
-        private static byte[] getBodyBytes(byte[] messageContentAsArray, int bodyStartOctet) {
-            if (bodyStartOctet < messageContentAsArray.length) {
-                ByteBuffer bodyContent = ByteBuffer.wrap(messageContentAsArray,
-                    bodyStartOctet,
-                    messageContentAsArray.length - bodyStartOctet);
-                byte[] bodyBytes = new byte[messageContentAsArray.length - bodyStartOctet];
-                bodyContent.get(bodyBytes);
-                return bodyBytes;
-            } else {
-                return new byte[] {};
-            }
+        byte[] getHeaders() {
+            return headers;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * Splits headers from body while the message is being written, without buffering the full message first.
+     *
+     * Headers end with the first empty line, which is kept in the headers. Content without empty line is considered
+     * to be a body without headers.
+     */
+    static class MimeMessageEncoder {
+        private static final int HEADERS_INITIAL_SIZE = 4096;
+
+        HeadersAndBody encode(MimeMessage message) throws IOException, MessagingException {
+            HeadersAndBodySplitter splitter = new HeadersAndBodySplitter(Math.max(message.getSize(), 0));
+            message.writeTo(splitter);
+            return splitter.headersAndBody();
         }
 
-        private static int computeBodyStartOctet(byte[] messageAsArray) throws IOException {
-            try (BodyOffsetInputStream bodyOffsetInputStream =
-                     new BodyOffsetInputStream(new ByteArrayInputStream(messageAsArray))) {
-                consume(bodyOffsetInputStream);
+        private static class HeadersAndBodySplitter extends OutputStream {
+            private static final int EMPTY_LINE = 0x0D0A0D0A;
+
+            private final ExposedByteArrayOutputStream headers;
+            private final ExposedByteArrayOutputStream body;
+            private int lastFourBytes;
+            private boolean inBody;
+
+            HeadersAndBodySplitter(int expectedBodySize) {
+                this.headers = new ExposedByteArrayOutputStream(HEADERS_INITIAL_SIZE);
+                this.body = new ExposedByteArrayOutputStream(expectedBodySize);
+                this.lastFourBytes = 0;
+                this.inBody = false;
+            }
+
+            @Override
+            public void write(int b) {
+                if (inBody) {
+                    body.write(b);
+                    return;
+                }
+                headers.write(b);
+                lastFourBytes = (lastFourBytes << 8) | (b & 0xFF);
+                inBody = lastFourBytes == EMPTY_LINE;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                int position = offset;
+                int end = offset + length;
+                while (!inBody && position < end) {
+                    write(bytes[position]);
+                    position++;
+                }
+                if (position < end) {
+                    body.write(bytes, position, end - position);
+                }
+            }
 
-                if (bodyOffsetInputStream.getBodyStartOffset() == -1) {
-                    return 0;
+            HeadersAndBody headersAndBody() {
+                if (!inBody) {
+                    return new HeadersAndBody(new byte[0], headers.toExactSizeArray());
                 }
-                return (int) bodyOffsetInputStream.getBodyStartOffset();
+                return new HeadersAndBody(headers.toExactSizeArray(), body.toExactSizeArray());
             }
         }
 
-        private static void consume(InputStream in) throws IOException {
-            IOUtils.copy(in, NULL_OUTPUT_STREAM);
+        private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+            ExposedByteArrayOutputStream(int size) {
+                super(size);
+            }
+
+            /**
+             * Avoids copying the underlying buffer when it is already fully used.
+             */
+            byte[] toExactSizeArray() {
+                if (count == buf.length) {
+                    return buf;
+                }
+                return toByteArray();
+            }
         }
     }
 
-    static class MimeMessageDecoder implements Store.Impl.Decoder<MimeMessage> {
-        @Override
-        public MimeMessage decode(Stream<Pair<BlobType, byte[]>> streams) {
-            Preconditions.checkNotNull(streams);
-            Map<BlobType,byte[]> pairs = streams.collect(ImmutableMap.toImmutableMap(Pair::getLeft, Pair::getRight));
-            Preconditions.checkArgument(pairs.containsKey(HEADER_BLOB_TYPE));
-            Preconditions.checkArgument(pairs.containsKey(BODY_BLOB_TYPE));
-
-            return toMimeMessage(
-                new SequenceInputStream(
-                    new ByteArrayInputStream(pairs.get(HEADER_BLOB_TYPE)),
-                    new ByteArrayInputStream(pairs.get(BODY_BLOB_TYPE))));
+    static class MimeMessageDecoder {
+        private final Session session = Session.getInstance(new Properties());
+
+        MimeMessage decode(byte[] headers, Supplier<byte[]> bodyLoader, Supplier<Integer> bodySizeLoader) throws MessagingException {
+            return new LazyLoadedMimeMessage(session, headers, bodyLoader, bodySizeLoader);
         }
 
-        private MimeMessage toMimeMessage(InputStream inputStream) {
+        MimeMessage decodeWithoutHeaders(byte[] content) {
             try {
-                return new MimeMessage(Session.getInstance(new Properties()), inputStream);
+                return new MimeMessage(session, new ByteArrayInputStream(content));
             } catch (MessagingException e) {
                 throw new RuntimeException(e);
             }
@@ -21,9 +21,17 @@ package org.apache.james.blob.mail;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Properties;
 
+import javax.mail.Session;
 import javax.mail.internet.MimeMessage;
 
 import org.apache.james.blob.api.BlobId;
@@ -45,7 +53,7 @@ class MimeMessageStoreTest {
 
     @BeforeEach
     void setUp() {
-        blobStore = new MemoryBlobStore(BLOB_ID_FACTORY);
+        blobStore = spy(new MemoryBlobStore(BLOB_ID_FACTORY));
         testee = MimeMessageStore.factory(blobStore).mimeMessageStore();
     }
 
@@ -125,4 +133,103 @@ class MimeMessageStoreTest {
                     .isEqualTo("Important mail content");
             });
     }
+
+    @Test
+    void readShouldParseBodyWhenHeadersAreEmpty() throws Exception {
+        BlobId headerBlobId = blobStore.save(blobStore.getDefaultBucketName(), new byte[0]).block();
+        BlobId bodyBlobId = blobStore.save(blobStore.getDefaultBucketName(),
+            "Subject: Important Mail\r\n\r\nImportant mail content".getBytes(StandardCharsets.UTF_8)).block();
+
+        MimeMessage retrievedMessage = testee.read(MimeMessagePartsId.builder()
+                .headerBlobId(headerBlobId)
+                .bodyBlobId(bodyBlobId)
+                .build())
+            .block();
+
+        assertThat(retrievedMessage.getSubject()).isEqualTo("Important Mail");
+        assertThat(retrievedMessage.getContent()).isEqualTo("Important mail content");
+    }
+
+    @Test
+    void readShouldPreserveContentWithoutEmptyLine() throws Exception {
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()),
+            new ByteArrayInputStream("Subject: no body\r\n".getBytes(StandardCharsets.UTF_8)));
+
+        MimeMessagePartsId parts = testee.save(message).block();
+
+        MimeMessage retrievedMessage = testee.read(parts).block();
+
+        assertThat(MimeMessageUtil.asString(retrievedMessage))
+            .isEqualTo(MimeMessageUtil.asString(message));
+    }
+
+    @Test
+    void readShouldNotLoadBodyWhenOnlyAccessingHeaders() throws Exception {
+        MimeMessage message = MimeMessageBuilder.mimeMessageBuilder()
+            .addFrom("any@any.com")
+            .addToRecipient("toddy@any.com")
+            .setSubject("Important Mail")
+            .setText("Important mail content")
+            .build();
+
+        MimeMessagePartsId parts = testee.save(message).block();
+
+        MimeMessage retrievedMessage = testee.read(parts).block();
+
+        assertThat(retrievedMessage.getSubject()).isEqualTo("Important Mail");
+        verify(blobStore, never()).readBytes(any(), eq(parts.getBodyBlobId()));
+    }
+
+    @Test
+    void readShouldLoadBodyWhenAccessingContent() throws Exception {
+        MimeMessage message = MimeMessageBuilder.mimeMessageBuilder()
+            .addFrom("any@any.com")
+            .addToRecipient("toddy@any.com")
+            .setSubject("Important Mail")
+            .setText("Important mail content")
+            .build();
+
+        MimeMessagePartsId parts = testee.save(message).block();
+
+        MimeMessage retrievedMessage = testee.read(parts).block();
+
+        assertThat(retrievedMessage.getContent()).isEqualTo("Important mail content");
+        verify(blobStore).readBytes(any(), eq(parts.getBodyBlobId()));
+    }
+
+    @Test
+    void readShouldNotLoadBodyWhenComputingSize() throws Exception {
+        MimeMessage message = MimeMessageBuilder.mimeMessageBuilder()
+            .addFrom("any@any.com")
+            .addToRecipient("toddy@any.com")
+            .setSubject("Important Mail")
+            .setText("Important mail content")
+            .build();
+
+        MimeMessagePartsId parts = testee.save(message).block();
+
+        MimeMessage retrievedMessage = testee.read(parts).block();
+        int size = retrievedMessage.getSize();
+
+        verify(blobStore, never()).readBytes(any(), eq(parts.getBodyBlobId()));
+        assertThat(size).isEqualTo(blobStore.readBytes(blobStore.getDefaultBucketName(), parts.getBodyBlobId()).block().length);
+    }
+
+    @Test
+    void sizeShouldMatchTheLoadedBody() throws Exception {
+        MimeMessage message = MimeMessageBuilder.mimeMessageBuilder()
+            .addFrom("any@any.com")
+            .addToRecipient("toddy@any.com")
+            .setSubject("Important Mail")
+            .setText("Important mail content")
+            .build();
+
+        MimeMessagePartsId parts = testee.save(message).block();
+
+        MimeMessage retrievedMessage = testee.read(parts).block();
+        int sizeBeforeLoading = retrievedMessage.getSize();
+        retrievedMessage.getContent();
+
+        assertThat(retrievedMessage.getSize()).isEqualTo(sizeBeforeLoading);
+    }
 }
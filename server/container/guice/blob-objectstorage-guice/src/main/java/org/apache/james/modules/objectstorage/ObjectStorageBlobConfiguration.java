@@ -171,7 +171,7 @@ public class ObjectStorageBlobConfiguration {
             }
 
             public ObjectStorageBlobConfiguration build() {
-                if (payloadCodecFactory == PayloadCodecFactory.AES256) {
+                if (payloadCodecFactory == PayloadCodecFactory.AES256 || payloadCodecFactory == PayloadCodecFactory.LZ4_AES256) {
                     aesSalt.filter(s -> !s.isEmpty())
                         .orElseThrow(() -> new IllegalStateException("AES code requires an non-empty salt parameter"));
                     aesPassword.filter(s -> s.length > 0)
@@ -21,6 +21,7 @@ package org.apache.james.modules.objectstorage;
 
 import org.apache.james.blob.objectstorage.AESPayloadCodec;
 import org.apache.james.blob.objectstorage.DefaultPayloadCodec;
+import org.apache.james.blob.objectstorage.LZ4PayloadCodec;
 import org.apache.james.blob.objectstorage.PayloadCodec;
 import org.apache.james.blob.objectstorage.crypto.CryptoConfig;
 
@@ -36,6 +37,18 @@ public enum PayloadCodecFactory {
         public PayloadCodec create(ObjectStorageBlobConfiguration configuration) {
             return new AESPayloadCodec(new CryptoConfig(configuration.getAesSalt().get(), configuration.getAesPassword().get()));
         }
+    },
+    LZ4 {
+        @Override
+        public PayloadCodec create(ObjectStorageBlobConfiguration configuration) {
+            return new LZ4PayloadCodec(DEFAULT.create(configuration));
+        }
+    },
+    LZ4_AES256 {
+        @Override
+        public PayloadCodec create(ObjectStorageBlobConfiguration configuration) {
+            return new LZ4PayloadCodec(AES256.create(configuration));
+        }
     };
 
     public abstract PayloadCodec create(ObjectStorageBlobConfiguration configuration);
@@ -9,6 +9,7 @@ import java.util.stream.Stream;
 import org.apache.commons.configuration2.MapConfiguration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.objectstorage.LZ4PayloadCodec;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -85,6 +86,41 @@ class ObjectStorageBlobConfigurationTest {
         assertThat(actual.getAesPassword()).contains("james is great".toCharArray());
     }
 
+    @Test
+    void shouldBuildAnLZ4PayloadCodecForLZ4Config() throws Exception {
+        ObjectStorageBlobConfiguration actual = ObjectStorageBlobConfiguration.from(new MapConfiguration(
+            ImmutableMap.<String, Object>builder()
+                .putAll(CONFIGURATION_WITHOUT_CODEC)
+                .put("objectstorage.payload.codec", PayloadCodecFactory.LZ4.name())
+            .build()));
+        assertThat(actual.getPayloadCodecFactory()).isEqualTo(PayloadCodecFactory.LZ4);
+        assertThat(actual.getPayloadCodec()).isInstanceOf(LZ4PayloadCodec.class);
+    }
+
+    @Test
+    void shouldBuildAnLZ4PayloadCodecForLZ4AESConfig() throws Exception {
+        ObjectStorageBlobConfiguration actual = ObjectStorageBlobConfiguration.from(new MapConfiguration(
+            ImmutableMap.<String, Object>builder()
+                .putAll(CONFIGURATION_WITHOUT_CODEC)
+                .put("objectstorage.payload.codec", PayloadCodecFactory.LZ4_AES256.name())
+                .put("objectstorage.aes256.hexsalt", "12345123451234512345")
+                .put("objectstorage.aes256.password", "james is great")
+            .build()));
+        assertThat(actual.getPayloadCodecFactory()).isEqualTo(PayloadCodecFactory.LZ4_AES256);
+        assertThat(actual.getPayloadCodec()).isInstanceOf(LZ4PayloadCodec.class);
+    }
+
+    @Test
+    void shouldFailForLZ4AESCodecWhenSaltKeyIsMissing() throws Exception {
+        MapConfiguration configuration = new MapConfiguration(
+            ImmutableMap.<String, Object>builder()
+                .putAll(CONFIGURATION_WITHOUT_CODEC)
+                .put("objectstorage.payload.codec", PayloadCodecFactory.LZ4_AES256.name())
+                .put("objectstorage.aes256.password", "james is great")
+                .build());
+        assertThatThrownBy(() -> ObjectStorageBlobConfiguration.from(configuration)).isInstanceOf(IllegalStateException.class);
+    }
+
     @Test
     void shouldFailIfCodecKeyIsIncorrect() throws Exception {
         MapConfiguration configuration = new MapConfiguration(
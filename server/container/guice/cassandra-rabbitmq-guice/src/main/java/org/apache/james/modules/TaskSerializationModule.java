@@ -28,6 +28,9 @@ import javax.inject.Named;
 import org.apache.james.backends.cassandra.migration.MigrationTask;
 import org.apache.james.backends.cassandra.migration.MigrationTaskAdditionalInformationDTO;
 import org.apache.james.backends.cassandra.migration.MigrationTaskDTO;
+import org.apache.james.blob.deduplication.BlobGarbageCollectionTask;
+import org.apache.james.blob.deduplication.BlobGarbageCollectionTaskAdditionalInformationDTO;
+import org.apache.james.blob.deduplication.BlobGarbageCollectionTaskDTO;
 import org.apache.james.eventsourcing.eventstore.cassandra.dto.EventDTOModule;
 import org.apache.james.json.DTOConverter;
 import org.apache.james.json.DTOModule;
@@ -158,6 +161,11 @@ public class TaskSerializationModule extends AbstractModule {
         return TasksSerializationModule.FAILED.create(jsonTaskSerializer, additionalInformationConverter, taskConverter);
     }
 
+    @ProvidesIntoSet
+    public TaskDTOModule<?, ?> blobGarbageCollectionTask(BlobGarbageCollectionTask.Factory factory) {
+        return BlobGarbageCollectionTaskDTO.module(factory);
+    }
+
     @ProvidesIntoSet
     public TaskDTOModule<?, ?> blobStoreVaultGarbageCollectionTask(BlobStoreVaultGarbageCollectionTask.Factory factory) {
         return BlobStoreVaultGarbageCollectionTaskDTO.module(factory);
@@ -263,6 +271,11 @@ public class TaskSerializationModule extends AbstractModule {
         return UserReindexingTaskDTO.module(factory);
     }
 
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<?, ?> blobGarbageCollectionAdditionalInformation() {
+        return BlobGarbageCollectionTaskAdditionalInformationDTO.MODULE;
+    }
+
     @ProvidesIntoSet
     public AdditionalInformationDTOModule<?, ?> blobStoreVaultGarbageCollectionAdditionalInformation() {
         return BlobStoreVaultGarbageCollectionTaskAdditionalInformationDTO.MODULE;
@@ -19,6 +19,8 @@
 
 package org.apache.james.modules.blobstore;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -26,7 +28,11 @@ import java.util.stream.Stream;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.james.blob.cache.CachedBlobStoreConfiguration;
+import org.apache.james.util.DurationParser;
+import org.apache.james.util.Size;
 
+import com.github.fge.lambdas.Throwing;
 import com.google.common.base.MoreObjects;
 
 public class BlobStoreChoosingConfiguration {
@@ -62,6 +68,13 @@ public class BlobStoreChoosingConfiguration {
     }
 
     static final String BLOBSTORE_IMPLEMENTATION_PROPERTY = "implementation";
+    static final String DEDUPLICATION_ENABLE_PROPERTY = "deduplication.enable";
+    static final boolean DEDUPLICATION_ENABLE_DEFAULT = false;
+    static final String CACHE_ENABLE_PROPERTY = "cache.enable";
+    static final boolean CACHE_ENABLE_DEFAULT = false;
+    static final String CACHE_SIZE_THRESHOLD_PROPERTY = "cache.sizeThreshold";
+    static final String CACHE_WEIGHT_MAX_PROPERTY = "cache.weight.max";
+    static final String CACHE_EVICTION_PERIOD_PROPERTY = "cache.eviction.period";
 
     static BlobStoreChoosingConfiguration from(Configuration configuration) {
         BlobStoreImplName blobStoreImplName = Optional.ofNullable(configuration.getString(BLOBSTORE_IMPLEMENTATION_PROPERTY))
@@ -71,50 +84,92 @@ public class BlobStoreChoosingConfiguration {
             .orElseThrow(() -> new IllegalStateException(String.format("%s property is missing please use one of " +
                 "supported values in: %s", BLOBSTORE_IMPLEMENTATION_PROPERTY, BlobStoreImplName.supportedImplNames())));
 
-        return new BlobStoreChoosingConfiguration(blobStoreImplName);
+        boolean deduplicationEnabled = configuration.getBoolean(DEDUPLICATION_ENABLE_PROPERTY, DEDUPLICATION_ENABLE_DEFAULT);
+
+        return new BlobStoreChoosingConfiguration(blobStoreImplName, deduplicationEnabled, readCacheConfiguration(configuration));
+    }
+
+    private static Optional<CachedBlobStoreConfiguration> readCacheConfiguration(Configuration configuration) {
+        if (!configuration.getBoolean(CACHE_ENABLE_PROPERTY, CACHE_ENABLE_DEFAULT)) {
+            return Optional.empty();
+        }
+
+        Optional<Long> sizeThreshold = Optional.ofNullable(configuration.getString(CACHE_SIZE_THRESHOLD_PROPERTY, null))
+            .map(Throwing.function(Size::parse))
+            .map(Size::asBytes);
+
+        Optional<Long> cacheWeight = Optional.ofNullable(configuration.getString(CACHE_WEIGHT_MAX_PROPERTY, null))
+            .map(Throwing.function(Size::parse))
+            .map(Size::asBytes);
+
+        Optional<Duration> evictionPeriod = Optional.ofNullable(configuration.getString(CACHE_EVICTION_PERIOD_PROPERTY, null))
+            .map(rawString -> DurationParser.parse(rawString, ChronoUnit.SECONDS));
+
+        return Optional.of(CachedBlobStoreConfiguration.builder()
+            .sizeThresholdInBytes(sizeThreshold)
+            .cacheWeightInBytes(cacheWeight)
+            .evictionPeriod(evictionPeriod)
+            .build());
     }
 
     public static BlobStoreChoosingConfiguration cassandra() {
-        return new BlobStoreChoosingConfiguration(BlobStoreImplName.CASSANDRA);
+        return new BlobStoreChoosingConfiguration(BlobStoreImplName.CASSANDRA, DEDUPLICATION_ENABLE_DEFAULT, Optional.empty());
     }
 
     public static BlobStoreChoosingConfiguration objectStorage() {
-        return new BlobStoreChoosingConfiguration(BlobStoreImplName.OBJECTSTORAGE);
+        return new BlobStoreChoosingConfiguration(BlobStoreImplName.OBJECTSTORAGE, DEDUPLICATION_ENABLE_DEFAULT, Optional.empty());
     }
 
     public static BlobStoreChoosingConfiguration union() {
-        return new BlobStoreChoosingConfiguration(BlobStoreImplName.UNION);
+        return new BlobStoreChoosingConfiguration(BlobStoreImplName.UNION, DEDUPLICATION_ENABLE_DEFAULT, Optional.empty());
     }
 
     private final BlobStoreImplName implementation;
+    private final boolean deduplicationEnabled;
+    private final Optional<CachedBlobStoreConfiguration> cacheConfiguration;
 
-    BlobStoreChoosingConfiguration(BlobStoreImplName implementation) {
+    BlobStoreChoosingConfiguration(BlobStoreImplName implementation, boolean deduplicationEnabled,
+                                   Optional<CachedBlobStoreConfiguration> cacheConfiguration) {
         this.implementation = implementation;
+        this.deduplicationEnabled = deduplicationEnabled;
+        this.cacheConfiguration = cacheConfiguration;
     }
 
     BlobStoreImplName getImplementation() {
         return implementation;
     }
 
+    boolean isDeduplicationEnabled() {
+        return deduplicationEnabled;
+    }
+
+    Optional<CachedBlobStoreConfiguration> getCacheConfiguration() {
+        return cacheConfiguration;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (o instanceof BlobStoreChoosingConfiguration) {
             BlobStoreChoosingConfiguration that = (BlobStoreChoosingConfiguration) o;
 
-            return Objects.equals(this.implementation, that.implementation);
+            return Objects.equals(this.implementation, that.implementation)
+                && Objects.equals(this.deduplicationEnabled, that.deduplicationEnabled)
+                && Objects.equals(this.cacheConfiguration, that.cacheConfiguration);
         }
         return false;
     }
 
     @Override
     public final int hashCode() {
-        return Objects.hash(implementation);
+        return Objects.hash(implementation, deduplicationEnabled, cacheConfiguration);
     }
 
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
             .add("implementation", implementation)
+            .add("deduplicationEnabled", deduplicationEnabled)
+            .add("cacheConfiguration", cacheConfiguration)
             .toString();
     }
 }
@@ -20,6 +20,7 @@
 package org.apache.james.modules.blobstore;
 
 import java.io.FileNotFoundException;
+import java.time.Clock;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -28,32 +29,50 @@ import javax.inject.Singleton;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobReferenceStore;
 import org.apache.james.blob.api.BlobStore;
 import org.apache.james.blob.api.MetricableBlobStore;
+import org.apache.james.blob.cache.CachedBlobStore;
 import org.apache.james.blob.cassandra.CassandraBlobModule;
+import org.apache.james.blob.cassandra.CassandraBlobReferenceStore;
 import org.apache.james.blob.cassandra.CassandraBlobStore;
+import org.apache.james.blob.deduplication.BlobGarbageCollector;
+import org.apache.james.blob.deduplication.DeDuplicationBlobStore;
 import org.apache.james.blob.objectstorage.ObjectStorageBlobsDAO;
 import org.apache.james.blob.union.UnionBlobStore;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.modules.mailbox.ConfigurationComponent;
 import org.apache.james.modules.objectstorage.ObjectStorageDependenciesModule;
 import org.apache.james.utils.PropertiesProvider;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.routes.BlobRoutes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.Scopes;
 import com.google.inject.multibindings.Multibinder;
 
 public class BlobStoreChoosingModule extends AbstractModule {
     private static final Logger LOGGER = LoggerFactory.getLogger(BlobStoreChoosingModule.class);
 
+    static final String UNDERLYING_BLOB_STORE = "underlyingBlobStore";
+    static final String CHOSEN_BLOB_STORE = "chosenBlobStore";
+
     @Override
     protected void configure() {
         install(new ObjectStorageDependenciesModule());
 
         Multibinder<CassandraModule> cassandraDataDefinitions = Multibinder.newSetBinder(binder(), CassandraModule.class);
         cassandraDataDefinitions.addBinding().toInstance(CassandraBlobModule.MODULE);
+
+        bind(CassandraBlobReferenceStore.class).in(Scopes.SINGLETON);
+        bind(BlobReferenceStore.class).to(CassandraBlobReferenceStore.class);
+
+        Multibinder.newSetBinder(binder(), Routes.class).addBinding().to(BlobRoutes.class);
     }
 
     @VisibleForTesting
@@ -71,7 +90,7 @@ public class BlobStoreChoosingModule extends AbstractModule {
 
     @VisibleForTesting
     @Provides
-    @Named(MetricableBlobStore.BLOB_STORE_IMPLEMENTATION)
+    @Named(UNDERLYING_BLOB_STORE)
     @Singleton
     BlobStore provideBlobStore(BlobStoreChoosingConfiguration choosingConfiguration,
                                Provider<CassandraBlobStore> cassandraBlobStoreProvider,
@@ -93,4 +112,37 @@ public class BlobStoreChoosingModule extends AbstractModule {
         }
     }
 
+    @VisibleForTesting
+    @Provides
+    @Named(CHOSEN_BLOB_STORE)
+    @Singleton
+    BlobStore provideCachedBlobStore(BlobStoreChoosingConfiguration choosingConfiguration,
+                                     @Named(UNDERLYING_BLOB_STORE) BlobStore underlyingBlobStore,
+                                     MetricFactory metricFactory) {
+        return choosingConfiguration.getCacheConfiguration()
+            .<BlobStore>map(cacheConfiguration -> new CachedBlobStore(underlyingBlobStore, cacheConfiguration, metricFactory))
+            .orElse(underlyingBlobStore);
+    }
+
+    @VisibleForTesting
+    @Provides
+    @Named(MetricableBlobStore.BLOB_STORE_IMPLEMENTATION)
+    @Singleton
+    BlobStore provideDeDuplicatingBlobStore(BlobStoreChoosingConfiguration choosingConfiguration,
+                                            @Named(CHOSEN_BLOB_STORE) BlobStore chosenBlobStore,
+                                            BlobReferenceStore referenceStore,
+                                            BlobId.Factory blobIdFactory) {
+        if (choosingConfiguration.isDeduplicationEnabled()) {
+            return new DeDuplicationBlobStore(chosenBlobStore, referenceStore, blobIdFactory);
+        }
+        return chosenBlobStore;
+    }
+
+    @Provides
+    @Singleton
+    BlobGarbageCollector provideBlobGarbageCollector(@Named(CHOSEN_BLOB_STORE) BlobStore chosenBlobStore,
+                                                     BlobReferenceStore referenceStore,
+                                                     Clock clock) {
+        return new BlobGarbageCollector(chosenBlobStore, referenceStore, clock);
+    }
 }
@@ -19,16 +19,24 @@
 
 package org.apache.james.modules.event;
 
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.event.json.BinaryEventSerializer;
 import org.apache.james.event.json.EventSerializer;
 import org.apache.james.mailbox.events.EventBus;
 import org.apache.james.mailbox.events.MailboxIdRegistrationKey;
 import org.apache.james.mailbox.events.RabbitMQEventBus;
+import org.apache.james.mailbox.events.RabbitMQEventBusConfiguration;
 import org.apache.james.mailbox.events.RegistrationKey;
 import org.apache.james.mailbox.events.RetryBackoffConfiguration;
+import org.apache.james.modules.rabbitmq.RabbitMQModule;
 import org.apache.james.utils.InitializationOperation;
 import org.apache.james.utils.InitilizationOperationBuilder;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
@@ -38,6 +46,7 @@ public class RabbitMQEventBusModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(EventSerializer.class).in(Scopes.SINGLETON);
+        bind(BinaryEventSerializer.class).in(Scopes.SINGLETON);
 
         bind(RabbitMQEventBus.class).in(Scopes.SINGLETON);
         bind(EventBus.class).to(RabbitMQEventBus.class);
@@ -48,6 +57,12 @@ public class RabbitMQEventBusModule extends AbstractModule {
         bind(RetryBackoffConfiguration.class).toInstance(RetryBackoffConfiguration.DEFAULT);
     }
 
+    @Provides
+    @Singleton
+    RabbitMQEventBusConfiguration provideRabbitMQEventBusConfiguration(@Named(RabbitMQModule.RABBITMQ_CONFIGURATION_NAME) Configuration configuration) {
+        return RabbitMQEventBusConfiguration.from(configuration);
+    }
+
     @ProvidesIntoSet
     InitializationOperation workQueue(RabbitMQEventBus instance) {
         return InitilizationOperationBuilder
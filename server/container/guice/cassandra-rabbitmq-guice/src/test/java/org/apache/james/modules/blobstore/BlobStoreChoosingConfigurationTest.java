@@ -22,7 +22,10 @@ package org.apache.james.modules.blobstore;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.time.Duration;
+
 import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.james.blob.cache.CachedBlobStoreConfiguration;
 import org.junit.jupiter.api.Test;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
@@ -137,4 +140,59 @@ class BlobStoreChoosingConfigurationTest {
                 .getName())
             .isEqualTo(CASSANDRA);
     }
-}
\ No newline at end of file
+
+    @Test
+    void fromShouldDisableDeduplicationByDefault() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", CASSANDRA);
+
+        assertThat(BlobStoreChoosingConfiguration.from(configuration).isDeduplicationEnabled())
+            .isFalse();
+    }
+
+    @Test
+    void fromShouldEnableDeduplicationWhenConfigured() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", CASSANDRA);
+        configuration.addProperty("deduplication.enable", "true");
+
+        assertThat(BlobStoreChoosingConfiguration.from(configuration).isDeduplicationEnabled())
+            .isTrue();
+    }
+
+    @Test
+    void fromShouldDisableCacheByDefault() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", OBJECT_STORAGE);
+
+        assertThat(BlobStoreChoosingConfiguration.from(configuration).getCacheConfiguration())
+            .isEmpty();
+    }
+
+    @Test
+    void fromShouldUseCacheDefaultsWhenOnlyEnabled() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", OBJECT_STORAGE);
+        configuration.addProperty("cache.enable", "true");
+
+        assertThat(BlobStoreChoosingConfiguration.from(configuration).getCacheConfiguration())
+            .contains(CachedBlobStoreConfiguration.DEFAULT);
+    }
+
+    @Test
+    void fromShouldReadCacheConfiguration() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", OBJECT_STORAGE);
+        configuration.addProperty("cache.enable", "true");
+        configuration.addProperty("cache.sizeThreshold", "16K");
+        configuration.addProperty("cache.weight.max", "100M");
+        configuration.addProperty("cache.eviction.period", "30m");
+
+        assertThat(BlobStoreChoosingConfiguration.from(configuration).getCacheConfiguration())
+            .contains(CachedBlobStoreConfiguration.builder()
+                .sizeThresholdInBytes(16L * 1024L)
+                .cacheWeightInBytes(100L * 1024L * 1024L)
+                .evictionPeriod(Duration.ofMinutes(30))
+                .build());
+    }
+}
@@ -23,11 +23,19 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 
+import java.util.Optional;
+
 import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.apache.james.FakePropertiesProvider;
+import org.apache.james.blob.api.BlobReferenceStore;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.cache.CachedBlobStore;
+import org.apache.james.blob.cache.CachedBlobStoreConfiguration;
 import org.apache.james.blob.cassandra.CassandraBlobStore;
+import org.apache.james.blob.deduplication.DeDuplicationBlobStore;
 import org.apache.james.blob.objectstorage.ObjectStorageBlobsDAO;
 import org.apache.james.blob.union.UnionBlobStore;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.apache.james.modules.blobstore.BlobStoreChoosingConfiguration.BlobStoreImplName;
 import org.apache.james.modules.mailbox.ConfigurationComponent;
 import org.junit.jupiter.api.Test;
@@ -40,6 +48,7 @@ class BlobStoreChoosingModuleTest {
     private static Provider<CassandraBlobStore> CASSANDRA_BLOBSTORE_PROVIDER = () -> CASSANDRA_BLOBSTORE;
     private static ObjectStorageBlobsDAO OBJECT_STORAGE_BLOBSTORE = mock(ObjectStorageBlobsDAO.class);
     private static Provider<ObjectStorageBlobsDAO> OBJECT_STORAGE_BLOBSTORE_PROVIDER = () -> OBJECT_STORAGE_BLOBSTORE;
+    private static BlobReferenceStore REFERENCE_STORE = mock(BlobReferenceStore.class);
 
     @Test
     void provideChoosingConfigurationShouldThrowWhenMissingPropertyField() {
@@ -156,4 +165,55 @@ class BlobStoreChoosingModuleTest {
             CASSANDRA_BLOBSTORE_PROVIDER, OBJECT_STORAGE_BLOBSTORE_PROVIDER))
             .isInstanceOf(UnionBlobStore.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    void provideChoosingConfigurationShouldEnableDeduplicationWhenConfigured() throws Exception {
+        BlobStoreChoosingModule module = new BlobStoreChoosingModule();
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", BlobStoreImplName.CASSANDRA.getName());
+        configuration.addProperty("deduplication.enable", "true");
+        FakePropertiesProvider propertyProvider = FakePropertiesProvider.builder()
+            .register(ConfigurationComponent.NAME, configuration)
+            .build();
+
+        assertThat(module.provideChoosingConfiguration(propertyProvider))
+            .isEqualTo(new BlobStoreChoosingConfiguration(BlobStoreImplName.CASSANDRA, true, Optional.empty()));
+    }
+
+    @Test
+    void provideDeDuplicatingBlobStoreShouldReturnChosenBlobStoreWhenDeduplicationDisabled() {
+        BlobStoreChoosingModule module = new BlobStoreChoosingModule();
+
+        assertThat(module.provideDeDuplicatingBlobStore(BlobStoreChoosingConfiguration.cassandra(),
+            CASSANDRA_BLOBSTORE, REFERENCE_STORE, new HashBlobId.Factory()))
+            .isEqualTo(CASSANDRA_BLOBSTORE);
+    }
+
+    @Test
+    void provideDeDuplicatingBlobStoreShouldWrapChosenBlobStoreWhenDeduplicationEnabled() {
+        BlobStoreChoosingModule module = new BlobStoreChoosingModule();
+
+        assertThat(module.provideDeDuplicatingBlobStore(new BlobStoreChoosingConfiguration(BlobStoreImplName.CASSANDRA, true, Optional.empty()),
+            CASSANDRA_BLOBSTORE, REFERENCE_STORE, new HashBlobId.Factory()))
+            .isInstanceOf(DeDuplicationBlobStore.class);
+    }
+
+    @Test
+    void provideCachedBlobStoreShouldReturnUnderlyingBlobStoreWhenCacheDisabled() {
+        BlobStoreChoosingModule module = new BlobStoreChoosingModule();
+
+        assertThat(module.provideCachedBlobStore(BlobStoreChoosingConfiguration.objectStorage(),
+            OBJECT_STORAGE_BLOBSTORE, new NoopMetricFactory()))
+            .isEqualTo(OBJECT_STORAGE_BLOBSTORE);
+    }
+
+    @Test
+    void provideCachedBlobStoreShouldWrapUnderlyingBlobStoreWhenCacheEnabled() {
+        BlobStoreChoosingModule module = new BlobStoreChoosingModule();
+        BlobStoreChoosingConfiguration configuration = new BlobStoreChoosingConfiguration(BlobStoreImplName.OBJECTSTORAGE,
+            false, Optional.of(CachedBlobStoreConfiguration.DEFAULT));
+
+        assertThat(module.provideCachedBlobStore(configuration, OBJECT_STORAGE_BLOBSTORE, new NoopMetricFactory()))
+            .isInstanceOf(CachedBlobStore.class);
+    }
+}
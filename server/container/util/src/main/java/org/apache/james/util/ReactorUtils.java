@@ -25,6 +25,10 @@ import java.util.Optional;
 import java.util.Spliterator;
 import java.util.stream.Stream;
 
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.base.Preconditions;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -37,6 +41,25 @@ public class ReactorUtils {
         return new StreamInputStream(byteArrays.toStream(1));
     }
 
+    public static Flux<ByteBuffer> toChunks(InputStream inputStream, int bufferSize) {
+        Preconditions.checkArgument(bufferSize > 0, "'bufferSize' must be strictly positive");
+
+        return Flux.generate(sink -> {
+            try {
+                byte[] buffer = new byte[bufferSize];
+                int read = IOUtils.read(inputStream, buffer);
+                if (read > 0) {
+                    sink.next(ByteBuffer.wrap(buffer, 0, read));
+                }
+                if (read < bufferSize) {
+                    sink.complete();
+                }
+            } catch (IOException e) {
+                sink.error(e);
+            }
+        });
+    }
+
     private static  class StreamInputStream extends InputStream {
         private static final int NO_MORE_DATA = -1;
 
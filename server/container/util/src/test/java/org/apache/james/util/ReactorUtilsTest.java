@@ -19,11 +19,14 @@
 package org.apache.james.util;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Nested;
@@ -154,4 +157,74 @@ class ReactorUtilsTest {
             assertThat(generateElements.get()).isEqualTo(1);
         }
     }
+
+    @Nested
+    class ToChunks {
+        @Test
+        void givenAnEmptyStreamShouldReturnNoChunk() {
+            assertThat(ReactorUtils.toChunks(new ByteArrayInputStream(new byte[0]), 3).collectList().block())
+                .isEmpty();
+        }
+
+        @Test
+        void givenAStreamSmallerThanTheBufferShouldReturnASingleChunk() {
+            List<byte[]> chunks = ReactorUtils.toChunks(new ByteArrayInputStream(new byte[] {0, 1}), 3)
+                .map(this::toBytes)
+                .collectList()
+                .block();
+
+            assertThat(chunks).containsExactly(new byte[] {0, 1});
+        }
+
+        @Test
+        void givenAStreamOfExactlyTheBufferSizeShouldReturnASingleChunk() {
+            List<byte[]> chunks = ReactorUtils.toChunks(new ByteArrayInputStream(new byte[] {0, 1, 2}), 3)
+                .map(this::toBytes)
+                .collectList()
+                .block();
+
+            assertThat(chunks).containsExactly(new byte[] {0, 1, 2});
+        }
+
+        @Test
+        void givenABiggerStreamShouldSplitItInBufferSizedChunks() {
+            List<byte[]> chunks = ReactorUtils.toChunks(new ByteArrayInputStream(new byte[] {0, 1, 2, 3, 4, 5, 6}), 3)
+                .map(this::toBytes)
+                .collectList()
+                .block();
+
+            assertThat(chunks).containsExactly(new byte[] {0, 1, 2}, new byte[] {3, 4, 5}, new byte[] {6});
+        }
+
+        @Test
+        void shouldReadTheStreamLazily() {
+            AtomicInteger readBytes = new AtomicInteger(0);
+            InputStream source = new ByteArrayInputStream(new byte[] {0, 1, 2, 3, 4, 5, 6}) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    int read = super.read(b, off, len);
+                    readBytes.addAndGet(Math.max(read, 0));
+                    return read;
+                }
+            };
+
+            ReactorUtils.toChunks(source, 3)
+                .take(1)
+                .blockLast();
+
+            assertThat(readBytes.get()).isEqualTo(3);
+        }
+
+        @Test
+        void shouldRejectNonPositiveBufferSize() {
+            assertThatThrownBy(() -> ReactorUtils.toChunks(new ByteArrayInputStream(new byte[0]), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        private byte[] toBytes(ByteBuffer byteBuffer) {
+            byte[] bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.get(bytes);
+            return bytes;
+        }
+    }
 }
@@ -20,12 +20,15 @@ package org.apache.james.dnsservice.dnsjava;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -60,6 +63,9 @@ import org.xbill.DNS.Type;
 
 import com.google.common.collect.ImmutableList;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 /**
  * Provides DNS client functionality to services running inside James
  */
@@ -67,6 +73,8 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
     private static final Logger LOGGER = LoggerFactory.getLogger(DNSJavaService.class);
 
     private static final int CACHE_TTL_DISABLE = -1;
+    private static final Duration DEFAULT_NEGATIVE_LOOKUP_TTL = Duration.ofMinutes(1);
+    private static final int DEFAULT_STALE_WHILE_REVALIDATE = 60;
 
     /**
      * A resolver instance used to retrieve DNS records. This is a reference to
@@ -87,6 +95,16 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
 
     private int negativeCacheTTL;
 
+    /**
+     * Seconds during which an expired lookup is still served while being refreshed.
+     */
+    private int staleWhileRevalidate;
+
+    /**
+     * Server wide cache of lookup results, shared by blocking and reactive callers.
+     */
+    private DNSLookupCache lookupCache;
+
     /**
      * Whether the DNS response is required to be authoritative
      */
@@ -191,6 +209,11 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         maxCacheSize = configuration.getInt("maxcachesize", maxCacheSize);
 
         negativeCacheTTL = configuration.getInt("negativeCacheTTL", CACHE_TTL_DISABLE);
+
+        staleWhileRevalidate = configuration.getInt("staleWhileRevalidate", DEFAULT_STALE_WHILE_REVALIDATE);
+        if (staleWhileRevalidate < 0) {
+            throw new ConfigurationException("staleWhileRevalidate can not be negative");
+        }
     }
 
     @PostConstruct
@@ -226,6 +249,14 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         cache.setMaxEntries(maxCacheSize);
         cache.setMaxNCache(negativeCacheTTL);
 
+        lookupCache = new DNSLookupCache((name, type) -> lookup(name, type, Type.string(type)),
+            maxCacheSize,
+            negativeLookupTTL(),
+            Duration.ofSeconds(staleWhileRevalidate),
+            metricFactory,
+            Schedulers.boundedElastic(),
+            Clock.systemUTC());
+
         if (setAsDNSJavaDefault) {
             Lookup.setDefaultResolver(resolver);
             Lookup.setDefaultCache(cache, DClass.IN);
@@ -245,6 +276,13 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         LOGGER.debug("DNSService ...init end");
     }
 
+    private Duration negativeLookupTTL() {
+        if (negativeCacheTTL >= 0) {
+            return Duration.ofSeconds(negativeCacheTTL);
+        }
+        return DEFAULT_NEGATIVE_LOOKUP_TTL;
+    }
+
     /**
      * Return the list of DNS servers in use by this service
      *
@@ -273,16 +311,19 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
      * @throws TemporaryResolutionException get thrown on temporary problems
      */
     private List<String> findMXRecordsRaw(String hostname) throws TemporaryResolutionException {
-        Record[] answers = lookup(hostname, Type.MX, "MX");
+        return toMXHosts(lookupCache.lookup(hostname, Type.MX));
+    }
+
+    private List<String> toMXHosts(List<Record> answers) {
         List<String> servers = new ArrayList<>();
-        if (answers == null) {
+        if (answers.isEmpty()) {
             return servers;
         }
 
-        MXRecord[] mxAnswers = new MXRecord[answers.length];
+        MXRecord[] mxAnswers = new MXRecord[answers.size()];
 
-        for (int i = 0; i < answers.length; i++) {
-            mxAnswers[i] = (MXRecord) answers[i];
+        for (int i = 0; i < answers.size(); i++) {
+            mxAnswers[i] = (MXRecord) answers.get(i);
         }
         // just sort for now.. This will ensure that mx records with same prio
         // are in sequence
@@ -353,6 +394,25 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         }
     }
 
+    @Override
+    public Mono<Collection<String>> findMXRecordsReactive(String hostname) {
+        return metricFactory.runPublishingTimerMetric("findMXRecords",
+            lookupCache.lookupReactive(hostname, Type.MX)
+                .map(this::toMXHosts)
+                .flatMap(servers -> {
+                    if (!servers.isEmpty()) {
+                        return Mono.just(Collections.unmodifiableCollection(servers));
+                    }
+                    LOGGER.info("Couldn't resolve MX records for domain {}.", hostname);
+                    return getByNameReactive(hostname)
+                        .map(any -> (Collection<String>) ImmutableList.of(hostname))
+                        .onErrorResume(UnknownHostException.class, e -> {
+                            LOGGER.error("Couldn't resolve IP address for host {}.", hostname, e);
+                            return Mono.just(ImmutableList.of());
+                        });
+                }));
+    }
+
     /**
      * Looks up DNS records of the specified type for the specified name.
      * <p/>
@@ -395,14 +455,19 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         }
     }
 
-    protected Record[] lookupNoException(String namestr, int type, String typeDesc) {
+    private List<Record> cachedLookupNoException(String name, int type) {
         try {
-            return lookup(namestr, type, typeDesc);
+            return lookupCache.lookup(name, type);
         } catch (TemporaryResolutionException e) {
-            return null;
+            return ImmutableList.of();
         }
     }
 
+    private Mono<ImmutableList<Record>> cachedLookupNoExceptionReactive(String name, int type) {
+        return lookupCache.lookupReactive(name, type)
+            .onErrorReturn(TemporaryResolutionException.class, ImmutableList.of());
+    }
+
 
 
     /*
@@ -431,6 +496,27 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         return host;
     }
 
+    private boolean isLocal(String name) {
+        return name.equalsIgnoreCase(localHostName) || name.equalsIgnoreCase(localCanonicalHostName) || name.equals(localAddress);
+    }
+
+    private Optional<InetAddress> asIPLiteral(String name) {
+        try {
+            return Optional.of(org.xbill.DNS.Address.getByAddress(name));
+        } catch (UnknownHostException e) {
+            return Optional.empty();
+        }
+    }
+
+    private ImmutableList<InetAddress> toInetAddresses(String name, List<Record> records) throws UnknownHostException {
+        ImmutableList.Builder<InetAddress> addresses = ImmutableList.builder();
+        for (Record record : records) {
+            ARecord a = (ARecord) record;
+            addresses.add(InetAddress.getByAddress(name, a.getAddress().getAddress()));
+        }
+        return addresses.build();
+    }
+
     @Override
     public InetAddress getByName(String host) throws UnknownHostException {
         TimeMetric timeMetric = metricFactory.timer("getByName");
@@ -438,16 +524,16 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
 
         try {
             // Check if its local
-            if (name.equalsIgnoreCase(localHostName) || name.equalsIgnoreCase(localCanonicalHostName) || name.equals(localAddress)) {
+            if (isLocal(name)) {
                 return getLocalHost();
             }
 
             return org.xbill.DNS.Address.getByAddress(name);
         } catch (UnknownHostException e) {
-            Record[] records = lookupNoException(name, Type.A, "A");
+            List<Record> records = cachedLookupNoException(name, Type.A);
 
-            if (records != null && records.length >= 1) {
-                ARecord a = (ARecord) records[0];
+            if (records.size() >= 1) {
+                ARecord a = (ARecord) records.get(0);
                 return InetAddress.getByAddress(name, a.getAddress().getAddress());
             } else {
                 throw e;
@@ -457,28 +543,29 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         }
     }
 
+    @Override
+    public Mono<InetAddress> getByNameReactive(String host) {
+        return getAllByNameReactive(host)
+            .map(addresses -> addresses.iterator().next());
+    }
+
     @Override
     public Collection<InetAddress> getAllByName(String host) throws UnknownHostException {
         TimeMetric timeMetric = metricFactory.timer("getAllByName");
         String name = allowIPLiteral(host);
         try {
             // Check if its local
-            if (name.equalsIgnoreCase(localHostName) || name.equalsIgnoreCase(localCanonicalHostName) || name.equals(localAddress)) {
+            if (isLocal(name)) {
                 return ImmutableList.of(getLocalHost());
             }
 
             InetAddress addr = org.xbill.DNS.Address.getByAddress(name);
             return ImmutableList.of(addr);
         } catch (UnknownHostException e) {
-            Record[] records = lookupNoException(name, Type.A, "A");
+            List<Record> records = cachedLookupNoException(name, Type.A);
 
-            if (records != null && records.length >= 1) {
-                InetAddress[] addrs = new InetAddress[records.length];
-                for (int i = 0; i < records.length; i++) {
-                    ARecord a = (ARecord) records[i];
-                    addrs[i] = InetAddress.getByAddress(name, a.getAddress().getAddress());
-                }
-                return ImmutableList.copyOf(addrs);
+            if (records.size() >= 1) {
+                return toInetAddresses(name, records);
             } else {
                 throw e;
             }
@@ -487,46 +574,84 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         }
     }
 
+    @Override
+    public Mono<Collection<InetAddress>> getAllByNameReactive(String host) {
+        String name = allowIPLiteral(host);
+        if (isLocal(name)) {
+            return Mono.fromCallable(() -> ImmutableList.of(getLocalHost()));
+        }
+        Optional<InetAddress> ipLiteral = asIPLiteral(name);
+        if (ipLiteral.isPresent()) {
+            return Mono.just(ImmutableList.of(ipLiteral.get()));
+        }
+        return metricFactory.runPublishingTimerMetric("getAllByName",
+            cachedLookupNoExceptionReactive(name, Type.A)
+                .handle((records, sink) -> {
+                    if (records.isEmpty()) {
+                        sink.error(new UnknownHostException(name));
+                        return;
+                    }
+                    try {
+                        sink.next(toInetAddresses(name, records));
+                    } catch (UnknownHostException e) {
+                        sink.error(e);
+                    }
+                }));
+    }
+
     @Override
     public Collection<String> findTXTRecords(String hostname) {
         TimeMetric timeMetric = metricFactory.timer("findTXTRecords");
-        List<String> txtR = new ArrayList<>();
-        Record[] records = lookupNoException(hostname, Type.TXT, "TXT");
-
         try {
-            if (records != null) {
-                for (Record record : records) {
-                    TXTRecord txt = (TXTRecord) record;
-                    txtR.add(txt.rdataToString());
-                }
-
-            }
-            return txtR;
+            return toTXTValues(cachedLookupNoException(hostname, Type.TXT));
         } finally {
             timeMetric.stopAndPublish();
         }
     }
 
+    @Override
+    public Mono<Collection<String>> findTXTRecordsReactive(String hostname) {
+        return metricFactory.runPublishingTimerMetric("findTXTRecords",
+            cachedLookupNoExceptionReactive(hostname, Type.TXT)
+                .map(this::toTXTValues));
+    }
+
+    private Collection<String> toTXTValues(List<Record> records) {
+        List<String> txtR = new ArrayList<>();
+        for (Record record : records) {
+            TXTRecord txt = (TXTRecord) record;
+            txtR.add(txt.rdataToString());
+        }
+        return txtR;
+    }
+
     @Override
     public String getHostName(InetAddress addr) {
         TimeMetric timeMetric = metricFactory.timer("getHostName");
-        String result;
         Name name = ReverseMap.fromAddress(addr);
-        Record[] records = lookupNoException(name.toString(), Type.PTR, "PTR");
-
         try {
-            if (records == null) {
-                result = addr.getHostAddress();
-            } else {
-                PTRRecord ptr = (PTRRecord) records[0];
-                result = ptr.getTarget().toString();
-            }
-            return result;
+            return toHostName(addr, cachedLookupNoException(name.toString(), Type.PTR));
         } finally {
             timeMetric.stopAndPublish();
         }
     }
 
+    @Override
+    public Mono<String> getHostNameReactive(InetAddress addr) {
+        Name name = ReverseMap.fromAddress(addr);
+        return metricFactory.runPublishingTimerMetric("getHostName",
+            cachedLookupNoExceptionReactive(name.toString(), Type.PTR)
+                .map(records -> toHostName(addr, records)));
+    }
+
+    private String toHostName(InetAddress addr, List<Record> records) {
+        if (records.isEmpty()) {
+            return addr.getHostAddress();
+        }
+        PTRRecord ptr = (PTRRecord) records.get(0);
+        return ptr.getTarget().toString();
+    }
+
     @Override
     public InetAddress getLocalHost() throws UnknownHostException {
         return InetAddress.getLocalHost();
@@ -545,6 +670,7 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
     @Override
     public void clearCache() {
         cache.clearCache();
+        lookupCache.clear();
     }
 
 }
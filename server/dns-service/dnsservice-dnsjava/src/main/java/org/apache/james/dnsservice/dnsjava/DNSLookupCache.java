@@ -0,0 +1,249 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.dnsservice.dnsjava;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.james.dnsservice.api.TemporaryResolutionException;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Server wide cache of DNS lookup results, sitting in front of the dnsjava resolution.
+ *
+ * <ul>
+ *     <li>Concurrent lookups of the same name and record type share a single resolution.</li>
+ *     <li>Answers are kept for the smallest TTL of their records. Names or records that do not exist are kept for
+ *     the negative cache TTL.</li>
+ *     <li>Once expired, an answer is still served for staleWhileRevalidate while it gets refreshed in the
+ *     background. It is kept if that refresh fails.</li>
+ * </ul>
+ *
+ * Temporary resolution failures are never cached.
+ */
+class DNSLookupCache {
+
+    @FunctionalInterface
+    interface Resolver {
+        /**
+         * @return the matching records, null when the name or the records do not exist
+         */
+        Record[] lookup(String name, int type) throws TemporaryResolutionException;
+    }
+
+    private static class Key {
+        private final String name;
+        private final int type;
+
+        private Key(String name, int type) {
+            this.name = name.toLowerCase(Locale.US);
+            this.type = type;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof Key) {
+                Key that = (Key) o;
+
+                return Objects.equals(this.type, that.type)
+                    && Objects.equals(this.name, that.name);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(name, type);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("type", Type.string(type))
+                .toString();
+        }
+    }
+
+    private static class CachedLookup {
+        private final ImmutableList<Record> records;
+        private final Instant expiry;
+        private final Instant staleUntil;
+
+        private CachedLookup(ImmutableList<Record> records, Instant expiry, Duration staleWhileRevalidate) {
+            this.records = records;
+            this.expiry = expiry;
+            this.staleUntil = expiry.plus(staleWhileRevalidate);
+        }
+    }
+
+    private final Resolver resolver;
+    private final Duration negativeCacheTTL;
+    private final Duration staleWhileRevalidate;
+    private final MetricFactory metricFactory;
+    private final Scheduler scheduler;
+    private final Clock clock;
+    private final Cache<Key, CachedLookup> lookups;
+    private final ConcurrentHashMap<Key, CompletableFuture<CachedLookup>> pendingLookups;
+
+    DNSLookupCache(Resolver resolver, long maximumSize, Duration negativeCacheTTL, Duration staleWhileRevalidate,
+                   MetricFactory metricFactory, Scheduler scheduler, Clock clock) {
+        this.resolver = resolver;
+        this.negativeCacheTTL = negativeCacheTTL;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.metricFactory = metricFactory;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.lookups = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .build();
+        this.pendingLookups = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Resolves on the calling thread upon cache misses, unless an identical resolution is already running.
+     */
+    ImmutableList<Record> lookup(String name, int type) throws TemporaryResolutionException {
+        Key key = new Key(name, type);
+        Optional<ImmutableList<Record>> cached = fromCache(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        CompletableFuture<CachedLookup> resolution = new CompletableFuture<>();
+        CompletableFuture<CachedLookup> pendingResolution = pendingLookups.putIfAbsent(key, resolution);
+        if (pendingResolution != null) {
+            metricFactory.generate(metricName(type, "coalesced")).increment();
+            return await(pendingResolution);
+        }
+        resolve(key, resolution);
+        return await(resolution);
+    }
+
+    /**
+     * Resolves on the supplied scheduler upon cache misses, unless an identical resolution is already running.
+     */
+    Mono<ImmutableList<Record>> lookupReactive(String name, int type) {
+        return Mono.defer(() -> {
+            Key key = new Key(name, type);
+            Optional<ImmutableList<Record>> cached = fromCache(key);
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+            // Depending on a copy so that cancelling this subscription does not cancel the shared resolution
+            return Mono.fromFuture(pendingResolution(key).thenApply(cachedLookup -> cachedLookup.records));
+        });
+    }
+
+    void clear() {
+        lookups.invalidateAll();
+    }
+
+    private Optional<ImmutableList<Record>> fromCache(Key key) {
+        Optional<CachedLookup> cached = Optional.ofNullable(lookups.getIfPresent(key));
+        Instant now = clock.instant();
+        if (cached.isPresent() && now.isBefore(cached.get().expiry)) {
+            metricFactory.generate(metricName(key.type, "hit")).increment();
+            return Optional.of(cached.get().records);
+        }
+        if (cached.isPresent() && now.isBefore(cached.get().staleUntil)) {
+            metricFactory.generate(metricName(key.type, "stale")).increment();
+            pendingResolution(key);
+            return Optional.of(cached.get().records);
+        }
+        metricFactory.generate(metricName(key.type, "miss")).increment();
+        return Optional.empty();
+    }
+
+    private CompletableFuture<CachedLookup> pendingResolution(Key key) {
+        CompletableFuture<CachedLookup> resolution = new CompletableFuture<>();
+        CompletableFuture<CachedLookup> pendingResolution = pendingLookups.putIfAbsent(key, resolution);
+        if (pendingResolution != null) {
+            metricFactory.generate(metricName(key.type, "coalesced")).increment();
+            return pendingResolution;
+        }
+        scheduler.schedule(() -> resolve(key, resolution));
+        return resolution;
+    }
+
+    private void resolve(Key key, CompletableFuture<CachedLookup> resolution) {
+        TimeMetric timeMetric = metricFactory.timer(metricName(key.type, "lookup"));
+        try {
+            CachedLookup result = toCachedLookup(resolver.lookup(key.name, key.type));
+            lookups.put(key, result);
+            resolution.complete(result);
+        } catch (Exception e) {
+            resolution.completeExceptionally(e);
+        } finally {
+            pendingLookups.remove(key, resolution);
+            timeMetric.stopAndPublish();
+        }
+    }
+
+    private CachedLookup toCachedLookup(Record[] records) {
+        Instant now = clock.instant();
+        if (records == null || records.length == 0) {
+            return new CachedLookup(ImmutableList.of(), now.plus(negativeCacheTTL), staleWhileRevalidate);
+        }
+        long ttlInSeconds = Arrays.stream(records)
+            .mapToLong(Record::getTTL)
+            .min()
+            .getAsLong();
+        return new CachedLookup(ImmutableList.copyOf(records), now.plusSeconds(ttlInSeconds), staleWhileRevalidate);
+    }
+
+    private ImmutableList<Record> await(CompletableFuture<CachedLookup> resolution) throws TemporaryResolutionException {
+        try {
+            return resolution.get().records;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TemporaryResolutionException("Interrupted while waiting for the DNS resolution");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TemporaryResolutionException) {
+                throw (TemporaryResolutionException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private String metricName(int type, String event) {
+        return "dns." + Type.string(type) + "." + event;
+    }
+}
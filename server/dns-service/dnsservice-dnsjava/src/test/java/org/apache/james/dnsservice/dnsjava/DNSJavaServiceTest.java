@@ -27,6 +27,7 @@ import static org.mockito.Mockito.mock;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -101,6 +102,32 @@ public class DNSJavaServiceTest {
         assertThat(records.iterator().next()).isEqualTo("nomx.dnstest.com.");
     }
 
+    @Test
+    public void findMXRecordsReactiveShouldFallBackToTheHostWhenNoMX() throws Exception {
+        doAnswer(new ZoneCacheLookupRecordsAnswer(loadZone("dnstest.com.")))
+                .when(mockedCache).lookupRecords(any(Name.class), anyInt(), anyInt());
+        dnsServer.setCache(mockedCache);
+
+        Collection<String> records = dnsServer.findMXRecordsReactive("nomx.dnstest.com.").block();
+        assertThat(records).containsExactly("nomx.dnstest.com.");
+    }
+
+    @Test
+    public void findMXRecordsReactiveShouldReturnMXRecords() throws Exception {
+        doAnswer(new ZoneCacheLookupRecordsAnswer(loadZone("dnstest.com.")))
+                .when(mockedCache).lookupRecords(any(Name.class), anyInt(), anyInt());
+        dnsServer.setCache(mockedCache);
+
+        Collection<String> records = dnsServer.findMXRecordsReactive("badmx.dnstest.com.").block();
+        assertThat(records).containsExactly("badhost.dnstest.com.");
+    }
+
+    @Test
+    public void getAllByNameReactiveShouldReturnIPLiterals() throws Exception {
+        assertThat(dnsServer.getAllByNameReactive("192.0.2.1.").block())
+            .containsExactly(InetAddress.getByName("192.0.2.1"));
+    }
+
     @Test
     public void testBadMX() throws Exception {
         doAnswer(new ZoneCacheLookupRecordsAnswer(loadZone("dnstest.com.")))
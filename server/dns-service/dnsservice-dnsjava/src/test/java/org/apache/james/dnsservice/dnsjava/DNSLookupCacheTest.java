@@ -0,0 +1,271 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.dnsservice.dnsjava;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.dnsservice.api.TemporaryResolutionException;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.Before;
+import org.junit.Test;
+import org.xbill.DNS.ARecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Type;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.scheduler.Schedulers;
+
+public class DNSLookupCacheTest {
+    private static final Instant NOW = Instant.parse("2020-01-01T10:00:00Z");
+    private static final Duration NEGATIVE_CACHE_TTL = Duration.ofSeconds(30);
+    private static final Duration STALE_WHILE_REVALIDATE = Duration.ofSeconds(60);
+    private static final long RECORD_TTL = 120;
+    private static final String NAME = "host.domain.com.";
+
+    private UpdatableTickingClock clock;
+    private RecordingMetricFactory metricFactory;
+    private AtomicInteger resolutions;
+    private Record record;
+
+    @Before
+    public void setUp() throws Exception {
+        clock = new UpdatableTickingClock(NOW);
+        metricFactory = new RecordingMetricFactory();
+        resolutions = new AtomicInteger();
+        record = new ARecord(Name.fromString(NAME), DClass.IN, RECORD_TTL, InetAddress.getByName("192.0.2.1"));
+    }
+
+    private DNSLookupCache cache(DNSLookupCache.Resolver resolver) {
+        return new DNSLookupCache((name, type) -> {
+            resolutions.incrementAndGet();
+            return resolver.lookup(name, type);
+        }, 100, NEGATIVE_CACHE_TTL, STALE_WHILE_REVALIDATE, metricFactory, Schedulers.immediate(), clock);
+    }
+
+    @Test
+    public void lookupShouldReturnResolvedRecords() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        assertThat(testee.lookup(NAME, Type.A)).containsExactly(record);
+    }
+
+    @Test
+    public void lookupShouldReturnEmptyWhenNoRecords() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> null);
+
+        assertThat(testee.lookup(NAME, Type.A)).isEmpty();
+    }
+
+    @Test
+    public void lookupShouldNotResolveAgainBeforeTTL() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        testee.lookup(NAME, Type.A);
+        clock.setInstant(NOW.plusSeconds(RECORD_TTL - 1));
+        testee.lookup(NAME, Type.A);
+
+        assertThat(resolutions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void lookupShouldIgnoreNameCase() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        testee.lookup(NAME, Type.A);
+        testee.lookup(NAME.toUpperCase(), Type.A);
+
+        assertThat(resolutions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void lookupShouldDistinguishRecordTypes() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        testee.lookup(NAME, Type.A);
+        testee.lookup(NAME, Type.TXT);
+
+        assertThat(resolutions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void lookupShouldResolveAgainAfterStaleWindow() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        testee.lookup(NAME, Type.A);
+        clock.setInstant(NOW.plusSeconds(RECORD_TTL).plus(STALE_WHILE_REVALIDATE));
+        testee.lookup(NAME, Type.A);
+
+        assertThat(resolutions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void negativeAnswersShouldBeCachedForNegativeCacheTTL() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> null);
+
+        testee.lookup(NAME, Type.A);
+        clock.setInstant(NOW.plus(NEGATIVE_CACHE_TTL).minusSeconds(1));
+        testee.lookup(NAME, Type.A);
+
+        assertThat(resolutions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void temporaryFailuresShouldNotBeCached() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> {
+            throw new TemporaryResolutionException("DNSService is temporary not reachable");
+        });
+
+        assertThatThrownBy(() -> testee.lookup(NAME, Type.A)).isInstanceOf(TemporaryResolutionException.class);
+        assertThatThrownBy(() -> testee.lookup(NAME, Type.A)).isInstanceOf(TemporaryResolutionException.class);
+        assertThat(resolutions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void staleRecordsShouldBeServedWhileRefreshed() throws Exception {
+        AtomicInteger ttl = new AtomicInteger((int) RECORD_TTL);
+        Record refreshedRecord = new ARecord(Name.fromString(NAME), DClass.IN, RECORD_TTL, InetAddress.getByName("192.0.2.2"));
+        DNSLookupCache testee = cache((name, type) -> {
+            if (ttl.getAndIncrement() == RECORD_TTL) {
+                return new Record[]{record};
+            }
+            return new Record[]{refreshedRecord};
+        });
+
+        testee.lookup(NAME, Type.A);
+        clock.setInstant(NOW.plusSeconds(RECORD_TTL + 1));
+
+        assertThat(testee.lookup(NAME, Type.A)).containsExactly(record);
+        assertThat(testee.lookup(NAME, Type.A)).containsExactly(refreshedRecord);
+        assertThat(resolutions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void failedRefreshShouldKeepServingStaleRecords() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        DNSLookupCache testee = cache((name, type) -> {
+            if (calls.getAndIncrement() == 0) {
+                return new Record[]{record};
+            }
+            throw new TemporaryResolutionException("DNSService is temporary not reachable");
+        });
+
+        testee.lookup(NAME, Type.A);
+        clock.setInstant(NOW.plusSeconds(RECORD_TTL + 1));
+        testee.lookup(NAME, Type.A);
+
+        assertThat(testee.lookup(NAME, Type.A)).containsExactly(record);
+    }
+
+    @Test
+    public void concurrentLookupsShouldShareTheSameResolution() throws Exception {
+        CountDownLatch resolutionStarted = new CountDownLatch(1);
+        CountDownLatch resolutionAllowed = new CountDownLatch(1);
+        DNSLookupCache testee = cache((name, type) -> {
+            resolutionStarted.countDown();
+            try {
+                resolutionAllowed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return new Record[]{record};
+        });
+
+        CompletableFuture<ImmutableList<Record>> firstLookup = CompletableFuture.supplyAsync(() -> {
+            try {
+                return testee.lookup(NAME, Type.A);
+            } catch (TemporaryResolutionException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        resolutionStarted.await(10, TimeUnit.SECONDS);
+        CompletableFuture<ImmutableList<Record>> secondLookup = testee.lookupReactive(NAME, Type.A).toFuture();
+        resolutionAllowed.countDown();
+
+        assertThat(firstLookup.get(10, TimeUnit.SECONDS)).containsExactly(record);
+        assertThat(secondLookup.get(10, TimeUnit.SECONDS)).containsExactly(record);
+        assertThat(resolutions.get()).isEqualTo(1);
+        assertThat(metricFactory.countFor("dns.A.coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    public void lookupReactiveShouldReturnResolvedRecords() {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        assertThat(testee.lookupReactive(NAME, Type.A).block()).containsExactly(record);
+    }
+
+    @Test
+    public void lookupReactiveShouldPropagateTemporaryFailures() {
+        DNSLookupCache testee = cache((name, type) -> {
+            throw new TemporaryResolutionException("DNSService is temporary not reachable");
+        });
+
+        assertThatThrownBy(() -> testee.lookupReactive(NAME, Type.A).block())
+            .hasCauseInstanceOf(TemporaryResolutionException.class);
+    }
+
+    @Test
+    public void lookupReactiveShouldShareTheCacheWithBlockingLookups() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        testee.lookup(NAME, Type.A);
+        testee.lookupReactive(NAME, Type.A).block();
+
+        assertThat(resolutions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void metricsShouldBeRecordedPerRecordType() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        testee.lookup(NAME, Type.MX);
+        testee.lookup(NAME, Type.MX);
+        clock.setInstant(NOW.plusSeconds(RECORD_TTL + 1));
+        testee.lookup(NAME, Type.MX);
+
+        assertThat(metricFactory.countFor("dns.MX.miss")).isEqualTo(1);
+        assertThat(metricFactory.countFor("dns.MX.hit")).isEqualTo(1);
+        assertThat(metricFactory.countFor("dns.MX.stale")).isEqualTo(1);
+        assertThat(metricFactory.executionTimesFor("dns.MX.lookup")).hasSize(2);
+    }
+
+    @Test
+    public void clearShouldDropCachedLookups() throws Exception {
+        DNSLookupCache testee = cache((name, type) -> new Record[]{record});
+
+        testee.lookup(NAME, Type.A);
+        testee.clear();
+        testee.lookup(NAME, Type.A);
+
+        assertThat(resolutions.get()).isEqualTo(2);
+    }
+}
@@ -24,7 +24,6 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.james.dnsservice.api.DNSService;
@@ -34,9 +33,12 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /**
  *
  *
@@ -54,32 +56,33 @@ public class MXHostAddressIterator implements Iterator<HostAddress> {
     public MXHostAddressIterator(Iterator<String> hosts, int defaultPort, DNSService dns, boolean useSingleIP) {
         checkNotNull(hosts, "Hosts is null");
         checkNotNull(dns, "Dns is null");
-        final List<HostAddress> hAddresses = Lists.newArrayList();
-
-        while (hosts.hasNext()) {
-            String nextHostname = hosts.next();
-            Map.Entry<String, String> hostAndPort = extractHostAndPort(nextHostname, defaultPort);
-
-            try {
-                final Collection<InetAddress> addrs;
-                if (useSingleIP) {
-                    addrs = ImmutableList.of(dns.getByName(hostAndPort.getKey()));
-                } else {
-                    addrs = dns.getAllByName(hostAndPort.getKey());
-                }
-                for (InetAddress addr : addrs) {
-                    hAddresses.add(new HostAddress(hostAndPort.getKey(),
-                        "smtp://" + addr.getHostAddress() + ":" + hostAndPort.getValue()));
-                }
-            } catch (UnknownHostException uhe) {
-                // this should never happen, since we just got
-                // this host from mxHosts, which should have
-                // already done this check.
-                String logBuffer = "Couldn't resolve IP address for discovered host " + hostAndPort.getKey() + ".";
-                LOGGER.error(logBuffer);
-            }
+        ImmutableList<Map.Entry<String, String>> hostsAndPorts = ImmutableList.copyOf(
+            Iterators.transform(hosts, hostname -> extractHostAndPort(hostname, defaultPort)));
+
+        // Hosts are resolved concurrently, while preserving their order
+        addresses = Flux.fromIterable(hostsAndPorts)
+            .flatMapSequential(hostAndPort -> resolve(dns, hostAndPort.getKey(), useSingleIP)
+                .flatMapIterable(addrs -> addrs)
+                .map(addr -> new HostAddress(hostAndPort.getKey(),
+                    "smtp://" + addr.getHostAddress() + ":" + hostAndPort.getValue()))
+                .onErrorResume(UnknownHostException.class, e -> {
+                    // this should never happen, since we just got
+                    // this host from mxHosts, which should have
+                    // already done this check.
+                    LOGGER.error("Couldn't resolve IP address for discovered host {}.", hostAndPort.getKey());
+                    return Flux.empty();
+                }))
+            .collectList()
+            .block()
+            .iterator();
+    }
+
+    private static Mono<Collection<InetAddress>> resolve(DNSService dns, String host, boolean useSingleIP) {
+        if (useSingleIP) {
+            return dns.getByNameReactive(host)
+                .<Collection<InetAddress>>map(ImmutableList::of);
         }
-        addresses = hAddresses.iterator();
+        return dns.getAllByNameReactive(host);
     }
 
     private static ImmutableMap.Entry<String, String> extractHostAndPort(String nextHostname, int defaultPort) {
@@ -25,6 +25,7 @@ import java.util.Arrays;
 
 import org.apache.james.dnsservice.api.DNSService;
 import org.apache.james.dnsservice.api.InMemoryDNSService;
+import org.apache.mailet.HostAddress;
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
@@ -66,4 +67,32 @@ public class MXHostAddressIteratorTest {
         MXHostAddressIterator it = new MXHostAddressIterator(Arrays.asList("localhost").iterator(), new InMemoryDNSService(), false);
         assertThat(it.hasNext()).isFalse();
     }
+
+    @Test
+    public void iteratorShouldPreserveHostsOrder() throws Exception {
+        ImmutableList<String> noRecord = ImmutableList.of();
+        DNSService dns = new InMemoryDNSService()
+            .registerRecord("mx1", ImmutableList.of(InetAddress.getByName("192.0.2.1")), noRecord, noRecord)
+            .registerRecord("mx2", ImmutableList.of(InetAddress.getByName("192.0.2.2")), noRecord, noRecord)
+            .registerRecord("mx3", ImmutableList.of(InetAddress.getByName("192.0.2.3")), noRecord, noRecord);
+
+        MXHostAddressIterator it = new MXHostAddressIterator(Arrays.asList("mx1", "mx2", "mx3").iterator(), dns, false);
+
+        assertThat(ImmutableList.copyOf(it))
+            .extracting(HostAddress::getHostName)
+            .containsExactly("mx1", "mx2", "mx3");
+    }
+
+    @Test
+    public void iteratorShouldSkipUnresolvedHosts() throws Exception {
+        ImmutableList<String> noRecord = ImmutableList.of();
+        DNSService dns = new InMemoryDNSService()
+            .registerRecord("mx1", ImmutableList.of(InetAddress.getByName("192.0.2.1")), noRecord, noRecord);
+
+        MXHostAddressIterator it = new MXHostAddressIterator(Arrays.asList("unknown", "mx1").iterator(), dns, false);
+
+        assertThat(ImmutableList.copyOf(it))
+            .extracting(HostAddress::getHostName)
+            .containsExactly("mx1");
+    }
 }
@@ -40,10 +40,20 @@ import org.apache.mailet.base.GenericMailet;
  * This mailet is a composition of RecipientRewriteTable, SieveMailet 
  * and MailboxManager configured to mimic the old "LocalDelivery"
  * James 2.3 behavior.
+ *
+ * The mail is stored for up to 'concurrency' recipients at once, defaulting to 1. Note that each recipient still gets
+ * its own copy of the message: it is parsed and stored once per recipient.
+ *
+ * <pre>
+ * &lt;mailet match="RecipientIsLocal" class="LocalDelivery"&gt;
+ *    &lt;concurrency&gt;8&lt;/concurrency&gt;
+ * &lt;/mailet&gt;
+ * </pre>
  */
 public class LocalDelivery extends GenericMailet {
 
     public static final String LOCAL_DELIVERED_MAILS_METRIC_NAME = "localDeliveredMails";
+    public static final String CONCURRENCY_PARAMETER = "concurrency";
     private final UsersRepository usersRepository;
     private final MailboxManager mailboxManager;
     private final MetricFactory metricFactory;
@@ -77,6 +87,9 @@ public class LocalDelivery extends GenericMailet {
                 .metric(metricFactory.generate(LOCAL_DELIVERED_MAILS_METRIC_NAME))
                 .build())
             .consume(getInitParameter("consume", true))
+            .concurrency(getInitParameterAsOptional(CONCURRENCY_PARAMETER)
+                .map(Integer::parseInt)
+                .orElse(MailDispatcher.Builder.DEFAULT_CONCURRENCY))
             .mailetContext(getMailetContext())
             .build();
     }
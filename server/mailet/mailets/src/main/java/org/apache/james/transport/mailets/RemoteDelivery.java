@@ -35,6 +35,7 @@ import org.apache.james.queue.api.MailPrioritySupport;
 import org.apache.james.queue.api.MailQueue;
 import org.apache.james.queue.api.MailQueue.MailQueueException;
 import org.apache.james.queue.api.MailQueueFactory;
+import org.apache.james.server.core.MailImpl;
 import org.apache.james.transport.mailets.remote.delivery.Bouncer;
 import org.apache.james.transport.mailets.remote.delivery.DeliveryRunnable;
 import org.apache.james.transport.mailets.remote.delivery.RemoteDeliveryConfiguration;
@@ -44,7 +45,9 @@ import org.apache.mailet.base.GenericMailet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.steveash.guavate.Guavate;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * <p>The RemoteDelivery mailet delivers messages to a remote SMTP server able to deliver or forward messages to their final
@@ -80,6 +83,22 @@ import com.google.common.collect.HashMultimap;
  * Default is 0.
  * <li><b>timeout</b> (optional) - an Integer for the Socket I/O timeout in milliseconds. Default is 180000</li>
  * <li><b>connectionTimeout</b> (optional) - an Integer for the Socket connection timeout in milliseconds. Default is 60000</li>
+ * <li><b>maxMessagesPerConnection</b> (optional) - an Integer for the number of messages sent over a single SMTP connection
+ * before closing it. Connections are kept open between deliveries to the same server only if greater than 1. Default is 1</li>
+ * <li><b>maxIdleConnectionsPerHost</b> (optional) - an Integer for the number of open connections kept idle for each outgoing
+ * mail server. Default is 4</li>
+ * <li><b>connectionIdleTimeout</b> (optional) - a Duration after which an idle connection is closed. Default is 30 seconds</li>
+ * <li><b>maxConcurrentDeliveriesPerDomain</b> (optional) - an Integer for the number of deliveries to a single domain that can
+ * run at the same time. Mails above this limit are deferred. Default is unlimited</li>
+ * <li><b>maxDeliveriesPerSecondPerDomain</b> (optional) - an Integer for the number of deliveries to a single domain that can be
+ * started each second. Mails above this limit are deferred. Default is unlimited</li>
+ * <li><b>maxDeferredDeliveriesPerDomain</b> (optional) - an Integer for the number of mails above the limits of a single domain
+ * that wait in memory for a delivery slot. Further mails are put back in the queue for a second. Default is 16</li>
+ * <li><b>domainFailureThreshold</b> (optional) - an Integer for the number of consecutive temporary failures after which deliveries
+ * to a domain are suspended. Deferred mails do not consume retries. Default is to never suspend deliveries</li>
+ * <li><b>domainBackoff</b> (optional) - a Duration for which deliveries to a failing domain are first suspended. It doubles each
+ * time the trial delivery made once the suspension ends fails. Default is 1 minute</li>
+ * <li><b>domainMaxBackoff</b> (optional) - a Duration capping the suspension of deliveries to a failing domain. Default is 1 hour</li>
  * <li><b>bounceProcessor</b> (optional) - a String containing the name of the mailet processor to pass messages that cannot
  * be delivered to for DSN bounce processing. Default is to send a traditional message containing the bounce details.</li>
  * <li><b>startTLS</b> (optional) - a Boolean (true/false) indicating whether the STARTTLS command (if supported by the server)
@@ -218,25 +237,56 @@ public class RemoteDelivery extends GenericMailet {
         }
     }
 
-    private void serviceNoGateway(Mail mail) {
+    private void serviceNoGateway(Mail mail) throws MessagingException {
         String mailName = mail.getName();
         Map<Domain, Collection<MailAddress>> targets = groupByServer(mail.getRecipients());
+        ImmutableList.Builder<Mail> perServerMails = ImmutableList.builder();
         for (Map.Entry<Domain, Collection<MailAddress>> entry : targets.entrySet()) {
-            serviceSingleServer(mail, mailName, entry);
+            perServerMails.add(forSingleServer(mail, mailName, entry));
+        }
+        ImmutableList<Mail> mails = perServerMails.build();
+        try {
+            queue.enQueue(mails);
+        } catch (MailQueue.PartialEnqueueException e) {
+            LOGGER.warn("Unable to queue {} of mail {} in a batch, enqueuing them one by one",
+                e.getFailedMails().stream().map(Mail::getName).collect(Guavate.toImmutableList()), mailName, e);
+            enqueueOneByOne(e.getFailedMails());
+        } catch (MailQueueException e) {
+            LOGGER.warn("Unable to queue mail {} in a batch, enqueuing it one domain at a time", mailName, e);
+            enqueueOneByOne(mails);
+        }
+    }
+
+    private void enqueueOneByOne(Collection<Mail> mails) {
+        for (Mail mail : mails) {
+            try {
+                queue.enQueue(mail);
+            } catch (MailQueueException e) {
+                LOGGER.error("Unable to queue mail {} for recipients {}", mail.getName(), mail.getRecipients(), e);
+            }
         }
     }
 
-    private void serviceSingleServer(Mail mail, String originalName, Map.Entry<Domain, Collection<MailAddress>> entry) {
+    /**
+     * The per server mails share the MimeMessage of the original mail, which allows the underlying queue to store it
+     * only once.
+     */
+    private Mail forSingleServer(Mail mail, String originalName, Map.Entry<Domain, Collection<MailAddress>> entry) throws MessagingException {
         if (configuration.isDebug()) {
             LOGGER.debug("Sending mail to {} on host {}", entry.getValue(), entry.getKey());
         }
-        mail.setRecipients(entry.getValue());
-        mail.setName(originalName + NAME_JUNCTION + entry.getKey().name());
-        try {
-            queue.enQueue(mail);
-        } catch (MailQueueException e) {
-            LOGGER.error("Unable to queue mail {} for recipients {}", mail.getName(), mail.getRecipients(), e);
-        }
+        return MailImpl.builder()
+            .name(originalName + NAME_JUNCTION + entry.getKey().name())
+            .sender(mail.getMaybeSender())
+            .addRecipients(entry.getValue())
+            .mimeMessage(mail.getMessage())
+            .remoteHost(mail.getRemoteHost())
+            .remoteAddr(mail.getRemoteAddr())
+            .lastUpdated(mail.getLastUpdated())
+            .errorMessage(mail.getErrorMessage())
+            .addAttributes(mail.attributes().collect(Guavate.toImmutableList()))
+            .addAllHeadersForRecipients(mail.getPerRecipientSpecificHeaders())
+            .build();
     }
 
     private Map<Domain, Collection<MailAddress>> groupByServer(Collection<MailAddress> recipients) {
@@ -30,6 +30,7 @@ import org.apache.james.sieverepository.api.SieveRepository;
 import org.apache.james.transport.mailets.jsieve.ResourceLocator;
 import org.apache.james.transport.mailets.jsieve.delivery.SieveExecutor;
 import org.apache.james.transport.mailets.jsieve.delivery.SievePoster;
+import org.apache.james.transport.mailets.jsieve.delivery.SieveScriptCache;
 import org.apache.james.user.api.UsersRepository;
 import org.apache.mailet.Mail;
 import org.apache.mailet.base.GenericMailet;
@@ -41,16 +42,18 @@ public class Sieve extends GenericMailet {
 
     private final UsersRepository usersRepository;
     private final ResourceLocator resourceLocator;
+    private final SieveScriptCache scriptCache;
     private SieveExecutor sieveExecutor;
 
     @Inject
-    public Sieve(UsersRepository usersRepository, SieveRepository sieveRepository) {
-        this(usersRepository, new ResourceLocator(sieveRepository, usersRepository));
+    public Sieve(UsersRepository usersRepository, SieveRepository sieveRepository, SieveScriptCache scriptCache) {
+        this(usersRepository, new ResourceLocator(sieveRepository, usersRepository), scriptCache);
     }
 
-    public Sieve(UsersRepository usersRepository, ResourceLocator resourceLocator) {
+    public Sieve(UsersRepository usersRepository, ResourceLocator resourceLocator, SieveScriptCache scriptCache) {
         this.usersRepository = usersRepository;
         this.resourceLocator = resourceLocator;
+        this.scriptCache = scriptCache;
     }
 
     @Override
@@ -63,6 +66,7 @@ public class Sieve extends GenericMailet {
         Log log = LogFactory.getLog(Sieve.class);
         sieveExecutor = SieveExecutor.builder()
             .resourceLocator(resourceLocator)
+            .scriptCache(scriptCache)
             .mailetContext(getMailetContext())
             .log(log)
             .sievePoster(new SievePoster(usersRepository, MailboxConstants.INBOX))
@@ -19,10 +19,7 @@
 package org.apache.james.transport.mailets.delivery;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import javax.mail.MessagingException;
@@ -32,22 +29,20 @@ import org.apache.james.core.MailAddress;
 import org.apache.james.server.core.MailImpl;
 import org.apache.mailet.Mail;
 import org.apache.mailet.MailetContext;
-import org.apache.mailet.PerRecipientHeaders.Header;
 import org.apache.mailet.base.RFC2822Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.fge.lambdas.runnable.ThrowingRunnable;
+import com.github.steveash.guavate.Guavate;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
 public class MailDispatcher {
     private static final Logger LOGGER = LoggerFactory.getLogger(MailDispatcher.class);
-    private static final String[] NO_HEADERS = {};
     private static final int RETRIES = 3;
     private static final Duration FIRST_BACKOFF = Duration.ofMillis(200);
     private static final Duration MAX_BACKOFF = Duration.ofSeconds(1);
@@ -58,8 +53,10 @@ public class MailDispatcher {
 
     public static class Builder {
         static final boolean CONSUME = true;
+        public static final int DEFAULT_CONCURRENCY = 1;
         private MailStore mailStore;
         private Optional<Boolean> consume = Optional.empty();
+        private Optional<Integer> concurrency = Optional.empty();
         private MailetContext mailetContext;
 
         public Builder consume(boolean consume) {
@@ -67,6 +64,15 @@ public class MailDispatcher {
             return this;
         }
 
+        /**
+         * Number of recipients the mail is stored for concurrently
+         */
+        public Builder concurrency(int concurrency) {
+            Preconditions.checkArgument(concurrency > 0, "'concurrency' needs to be strictly positive");
+            this.concurrency = Optional.of(concurrency);
+            return this;
+        }
+
         public Builder mailStore(MailStore mailStore) {
             this.mailStore = mailStore;
             return this;
@@ -80,19 +86,21 @@ public class MailDispatcher {
         public MailDispatcher build() {
             Preconditions.checkNotNull(mailStore);
             Preconditions.checkNotNull(mailetContext);
-            return new MailDispatcher(mailStore, consume.orElse(CONSUME), mailetContext);
+            return new MailDispatcher(mailStore, consume.orElse(CONSUME), concurrency.orElse(DEFAULT_CONCURRENCY), mailetContext);
         }
 
     }
 
     private final MailStore mailStore;
     private final boolean consume;
+    private final int concurrency;
     private final MailetContext mailetContext;
     private final Scheduler scheduler;
 
-    private MailDispatcher(MailStore mailStore, boolean consume, MailetContext mailetContext) {
+    private MailDispatcher(MailStore mailStore, boolean consume, int concurrency, MailetContext mailetContext) {
         this.mailStore = mailStore;
         this.consume = consume;
+        this.concurrency = concurrency;
         this.mailetContext = mailetContext;
         this.scheduler = Schedulers.boundedElastic();
     }
@@ -128,27 +136,27 @@ public class MailDispatcher {
         // This only works because there is a placeholder inserted by MimeMessageWrapper
         message.setHeader(RFC2822Headers.RETURN_PATH, mail.getMaybeSender().asPrettyString());
 
-        List<MailAddress> errors = deliver(mail, message);
+        List<MailAddress> errors = deliver(mail);
 
         return errors;
     }
 
-    private List<MailAddress> deliver(Mail mail, MimeMessage message) {
-        List<MailAddress> errors = new ArrayList<>();
-        for (MailAddress recipient : mail.getRecipients()) {
-            try {
-                Map<String, List<String>> savedHeaders = saveHeaders(mail, recipient);
-
-                addSpecificHeadersForRecipient(mail, message, recipient);
-                storeMailWithRetry(mail, recipient).block();
-
-                restoreHeaders(mail.getMessage(), savedHeaders);
-            } catch (Exception ex) {
-                LOGGER.error("Error while storing mail.", ex);
-                errors.add(recipient);
-            }
-        }
-        return errors;
+    /**
+     * The message is shared by the recipients: headers specific to a recipient are added by the {@link MailStore} to
+     * the stored content only, allowing to store it for several recipients concurrently.
+     *
+     * Only the in-memory message is shared: each recipient mailbox still parses and stores its own copy of it.
+     */
+    private List<MailAddress> deliver(Mail mail) {
+        return Flux.fromIterable(mail.getRecipients())
+            .flatMap(recipient -> storeMailWithRetry(mail, recipient)
+                .then(Mono.<MailAddress>empty())
+                .onErrorResume(error -> {
+                    LOGGER.error("Error while storing mail.", error);
+                    return Mono.just(recipient);
+                }), concurrency)
+            .collect(Guavate.toImmutableList())
+            .block();
     }
 
     private Mono<Void> storeMailWithRetry(Mail mail, MailAddress recipient) {
@@ -158,32 +166,4 @@ public class MailDispatcher {
            .retryBackoff(RETRIES, FIRST_BACKOFF, MAX_BACKOFF, scheduler)
            .then();
     }
-
-    private Map<String, List<String>> saveHeaders(Mail mail, MailAddress recipient) throws MessagingException {
-        ImmutableMap.Builder<String, List<String>> backup = ImmutableMap.builder();
-        Collection<String> headersToSave = mail.getPerRecipientSpecificHeaders().getHeaderNamesForRecipient(recipient);
-        for (String headerName: headersToSave) {
-            List<String> values = ImmutableList.copyOf(
-                        Optional.ofNullable(mail.getMessage().getHeader(headerName))
-                            .orElse(NO_HEADERS));
-            backup.put(headerName, values);
-        }
-        return backup.build();
-    }
-
-    private void restoreHeaders(MimeMessage mimeMessage, Map<String, List<String>> savedHeaders) throws MessagingException {
-        for (Map.Entry<String, List<String>> header: savedHeaders.entrySet()) {
-            String name = header.getKey();
-            mimeMessage.removeHeader(name);
-            for (String value: header.getValue()) {
-                mimeMessage.addHeader(name, value);
-            }
-        }
-    }
-
-    private void addSpecificHeadersForRecipient(Mail mail, MimeMessage message, MailAddress recipient) throws MessagingException {
-        for (Header header: mail.getPerRecipientSpecificHeaders().getHeadersForRecipient(recipient)) {
-            message.addHeader(header.getName(), header.getValue());
-        }
-    }
 }
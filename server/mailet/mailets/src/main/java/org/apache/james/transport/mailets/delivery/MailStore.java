@@ -27,5 +27,11 @@ import org.apache.mailet.Mail;
 public interface MailStore {
     String DELIVERY_PATH_PREFIX = "DeliveryPath_";
 
+    /**
+     * Store the mail for the given recipient, along with the headers specific to that recipient.
+     *
+     * The message of the mail is shared by all recipients and might be stored concurrently: implementations should not
+     * modify it.
+     */
     void storeMail(MailAddress recipient, Mail mail) throws MessagingException;
 }
@@ -19,6 +19,13 @@
 
 package org.apache.james.transport.mailets.delivery;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 
@@ -31,10 +38,12 @@ import org.apache.james.mailbox.exception.MailboxExistsException;
 import org.apache.james.mailbox.model.ComposedMessageId;
 import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.server.core.MimeMessageInputStream;
+import org.apache.mailet.PerRecipientHeaders.Header;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 
 public class MailboxAppender {
     private static final Logger LOGGER = LoggerFactory.getLogger(MailboxAppender.class);
@@ -46,8 +55,20 @@ public class MailboxAppender {
     }
 
     public ComposedMessageId append(MimeMessage mail, Username user, String folder) throws MessagingException {
+        return append(mail, ImmutableList.of(), user, folder);
+    }
+
+    /**
+     * Append the message along with additional headers. The headers are added to the appended content only, leaving the
+     * message untouched so that it can be appended concurrently for several users.
+     *
+     * Each call still appends a distinct message: the mailbox parses and stores its own copy of the content, as the
+     * prepended headers make it specific to the user anyway. Only the storage layer might deduplicate the unchanged
+     * body, as content addressed blob stores do.
+     */
+    public ComposedMessageId append(MimeMessage mail, Collection<Header> additionalHeaders, Username user, String folder) throws MessagingException {
         MailboxSession session = createMailboxSession(user);
-        return append(mail, user, useSlashAsSeparator(folder, session), session);
+        return append(mail, additionalHeaders, user, useSlashAsSeparator(folder, session), session);
     }
 
     private String useSlashAsSeparator(String urlPath, MailboxSession session) throws MessagingException {
@@ -61,11 +82,11 @@ public class MailboxAppender {
         return destination;
     }
 
-    private ComposedMessageId append(MimeMessage mail, Username user, String folder, MailboxSession session) throws MessagingException {
+    private ComposedMessageId append(MimeMessage mail, Collection<Header> additionalHeaders, Username user, String folder, MailboxSession session) throws MessagingException {
         mailboxManager.startProcessingRequest(session);
         try {
             MailboxPath mailboxPath = MailboxPath.forUser(user, folder);
-            return appendMessageToMailbox(mail, session, mailboxPath);
+            return appendMessageToMailbox(mail, additionalHeaders, session, mailboxPath);
         } catch (MailboxException e) {
             throw new MessagingException("Unable to access mailbox.", e);
         } finally {
@@ -73,7 +94,7 @@ public class MailboxAppender {
         }
     }
 
-    private ComposedMessageId appendMessageToMailbox(MimeMessage mail, MailboxSession session, MailboxPath path) throws MailboxException, MessagingException {
+    private ComposedMessageId appendMessageToMailbox(MimeMessage mail, Collection<Header> additionalHeaders, MailboxSession session, MailboxPath path) throws MailboxException, MessagingException {
         createMailboxIfNotExist(session, path);
         final MessageManager mailbox = mailboxManager.getMailbox(path, session);
         if (mailbox == null) {
@@ -81,10 +102,26 @@ public class MailboxAppender {
         }
         return mailbox.appendMessage(MessageManager.AppendCommand.builder()
             .recent()
-            .build(new MimeMessageInputStream(mail)),
+            .build(content(mail, additionalHeaders)),
             session);
     }
 
+    /**
+     * Streams the source of {@link org.apache.james.server.core.MimeMessageWrapper} messages, other messages are
+     * serialized again for each call.
+     */
+    private InputStream content(MimeMessage mail, Collection<Header> additionalHeaders) throws MessagingException {
+        InputStream messageContent = new MimeMessageInputStream(mail);
+        if (additionalHeaders.isEmpty()) {
+            return messageContent;
+        }
+        // Prepending the headers, like trace fields, keeps the original content untouched and spares parsing it
+        String headerLines = additionalHeaders.stream()
+            .map(header -> header.getName() + ": " + header.getValue() + "\r\n")
+            .collect(Collectors.joining());
+        return new SequenceInputStream(new ByteArrayInputStream(headerLines.getBytes(StandardCharsets.UTF_8)), messageContent);
+    }
+
     private void createMailboxIfNotExist(MailboxSession session, MailboxPath path) throws MailboxException {
         if (!mailboxManager.mailboxExists(path, session)) {
             try {
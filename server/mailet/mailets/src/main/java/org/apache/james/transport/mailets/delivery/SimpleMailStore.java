@@ -95,7 +95,8 @@ public class SimpleMailStore implements MailStore {
         Username username = computeUsername(recipient);
 
         String locatedFolder = locateFolder(username, mail);
-        ComposedMessageId composedMessageId = mailboxAppender.append(mail.getMessage(), username, locatedFolder);
+        ComposedMessageId composedMessageId = mailboxAppender.append(mail.getMessage(),
+            mail.getPerRecipientSpecificHeaders().getHeadersForRecipient(recipient), username, locatedFolder);
 
         metric.increment();
         LOGGER.info("Local delivered mail {} successfully from {} to {} in folder {} with composedMessageId {}", mail.getName(),
@@ -20,6 +20,8 @@
 
 package org.apache.james.transport.mailets.jsieve.delivery;
 
+import java.io.IOException;
+
 import javax.mail.MessagingException;
 
 import org.apache.commons.logging.Log;
@@ -59,6 +61,7 @@ public class SieveExecutor {
         private MailetContext mailetContext;
         private SievePoster sievePoster;
         private ResourceLocator resourceLocator;
+        private SieveScriptCache scriptCache;
         private Log log;
 
         public Builder sievePoster(SievePoster sievePoster) {
@@ -76,6 +79,11 @@ public class SieveExecutor {
             return this;
         }
 
+        public Builder scriptCache(SieveScriptCache scriptCache) {
+            this.scriptCache = scriptCache;
+            return this;
+        }
+
         public Builder log(Log log) {
             this.log = log;
             return this;
@@ -84,23 +92,26 @@ public class SieveExecutor {
         public SieveExecutor build() throws MessagingException {
             Preconditions.checkNotNull(mailetContext);
             Preconditions.checkNotNull(resourceLocator);
+            Preconditions.checkNotNull(scriptCache);
             Preconditions.checkNotNull(log);
             Preconditions.checkNotNull(sievePoster);
-            return new SieveExecutor(mailetContext, sievePoster, resourceLocator, log);
+            return new SieveExecutor(mailetContext, sievePoster, resourceLocator, scriptCache, log);
         }
     }
 
     private final MailetContext mailetContext;
     private final SievePoster sievePoster;
     private final ResourceLocator resourceLocator;
+    private final SieveScriptCache scriptCache;
     private final SieveFactory factory;
     private final ActionDispatcher actionDispatcher;
 
     public SieveExecutor(MailetContext mailetContext, SievePoster sievePoster,
-                         ResourceLocator resourceLocator, Log log) throws MessagingException {
+                         ResourceLocator resourceLocator, SieveScriptCache scriptCache, Log log) throws MessagingException {
         this.mailetContext = mailetContext;
         this.sievePoster = sievePoster;
         this.resourceLocator = resourceLocator;
+        this.scriptCache = scriptCache;
         factory = createFactory(log);
         this.actionDispatcher = new ActionDispatcher();
     }
@@ -136,7 +147,7 @@ public class SieveExecutor {
         }
     }
 
-    private void sieveMessageEvaluate(MailAddress recipient, Mail aMail, ResourceLocator.UserSieveInformation userSieveInformation) throws MessagingException {
+    private void sieveMessageEvaluate(MailAddress recipient, Mail aMail, ResourceLocator.UserSieveInformation userSieveInformation) throws MessagingException, IOException {
         try {
             SieveMailAdapter aMailAdapter = new SieveMailAdapter(aMail,
                 mailetContext, actionDispatcher, sievePoster, userSieveInformation.getScriptActivationDate(),
@@ -145,7 +156,7 @@ public class SieveExecutor {
                 // This logging operation is potentially costly
                 LOGGER.debug("Evaluating " + aMailAdapter.toString() + " against \"" + recipient.asPrettyString() + "\"");
             }
-            factory.evaluate(aMailAdapter, factory.parse(userSieveInformation.getScriptContent()));
+            factory.evaluate(aMailAdapter, scriptCache.parse(factory, userSieveInformation.getScriptContent()));
         } catch (SieveException | ParseException ex) {
             handleFailure(recipient, aMail, ex);
         } catch (TokenMgrError ex) {
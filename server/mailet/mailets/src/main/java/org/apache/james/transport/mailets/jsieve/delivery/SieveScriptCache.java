@@ -0,0 +1,105 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.transport.mailets.jsieve.delivery;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.jsieve.SieveFactory;
+import org.apache.jsieve.parser.generated.Node;
+import org.apache.jsieve.parser.generated.ParseException;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Node wide cache of the parsed Sieve scripts, shared by the {@link SieveExecutor}s.
+ *
+ * Entries are keyed by a digest of the script content: storing or activating another script changes the key of a
+ * user, whichever node received the update, and users sharing the same script share the parsed tree. The tree is only
+ * read while evaluating a mail, and can thus be evaluated concurrently.
+ */
+@Singleton
+public class SieveScriptCache {
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private final Cache<String, Node> cache;
+
+    @Inject
+    public SieveScriptCache(GaugeRegistry gaugeRegistry) {
+        this(gaugeRegistry, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public SieveScriptCache(GaugeRegistry gaugeRegistry, long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+        recordStats(gaugeRegistry);
+    }
+
+    private void recordStats(GaugeRegistry gaugeRegistry) {
+        gaugeRegistry
+            .register(
+                "sieve.script.cache.hit.rate",
+                () -> cache.stats().hitRate())
+            .register(
+                "sieve.script.cache.hit.count",
+                () -> cache.stats().hitCount())
+            .register(
+                "sieve.script.cache.miss.count",
+                () -> cache.stats().missCount())
+            .register(
+                "sieve.script.cache.eviction.count",
+                () -> cache.stats().evictionCount())
+            .register(
+                "sieve.script.cache.size",
+                cache::size);
+    }
+
+    public Node parse(SieveFactory factory, InputStream scriptContent) throws IOException, ParseException {
+        byte[] bytes = ByteStreams.toByteArray(scriptContent);
+        String key = Hashing.sha256().hashBytes(bytes).toString();
+
+        try {
+            return cache.get(key, () -> factory.parse(new ByteArrayInputStream(bytes)));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwables.throwIfInstanceOf(e.getCause(), ParseException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @VisibleForTesting
+    long size() {
+        return cache.size();
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.james.transport.mailets.remote.delivery;
 
 import java.time.Duration;
 import java.util.Date;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
@@ -36,9 +37,11 @@ import org.apache.mailet.MailetContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.fge.lambdas.Throwing;
 import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
@@ -59,30 +62,51 @@ public class DeliveryRunnable implements Disposable {
     private final Bouncer bouncer;
     private final MailDelivrer mailDelivrer;
     private final Supplier<Date> dateSupplier;
+    private final Disposable connectionPool;
+    private final DomainDeliveryScheduler domainDeliveryScheduler;
+    private final Scheduler remoteDeliveryScheduler;
     private Disposable disposable;
-    private Scheduler remoteDeliveryScheduler;
 
     public DeliveryRunnable(MailQueue queue, RemoteDeliveryConfiguration configuration, DNSService dnsServer, MetricFactory metricFactory,
                             MailetContext mailetContext, Bouncer bouncer) {
+        this(queue, configuration, dnsServer, metricFactory, mailetContext, bouncer, new SMTPConnectionPool(configuration, metricFactory));
+    }
+
+    private DeliveryRunnable(MailQueue queue, RemoteDeliveryConfiguration configuration, DNSService dnsServer, MetricFactory metricFactory,
+                             MailetContext mailetContext, Bouncer bouncer, SMTPConnectionPool connectionPool) {
         this(queue, configuration, metricFactory, bouncer,
-            new MailDelivrer(configuration, new MailDelivrerToHost(configuration, mailetContext), dnsServer, bouncer),
-            CURRENT_DATE_SUPPLIER);
+            new MailDelivrer(configuration, new MailDelivrerToHost(configuration, mailetContext, connectionPool), dnsServer, bouncer),
+            connectionPool, new DomainDeliveryScheduler(configuration, metricFactory), CURRENT_DATE_SUPPLIER);
     }
 
     @VisibleForTesting
     DeliveryRunnable(MailQueue queue, RemoteDeliveryConfiguration configuration, MetricFactory metricFactory, Bouncer bouncer,
                      MailDelivrer mailDelivrer, Supplier<Date> dateSupplier) {
+        this(queue, configuration, metricFactory, bouncer, mailDelivrer, new DomainDeliveryScheduler(configuration, metricFactory), dateSupplier);
+    }
+
+    @VisibleForTesting
+    DeliveryRunnable(MailQueue queue, RemoteDeliveryConfiguration configuration, MetricFactory metricFactory, Bouncer bouncer,
+                     MailDelivrer mailDelivrer, DomainDeliveryScheduler domainDeliveryScheduler, Supplier<Date> dateSupplier) {
+        this(queue, configuration, metricFactory, bouncer, mailDelivrer, Disposables.disposed(), domainDeliveryScheduler, dateSupplier);
+    }
+
+    private DeliveryRunnable(MailQueue queue, RemoteDeliveryConfiguration configuration, MetricFactory metricFactory, Bouncer bouncer,
+                             MailDelivrer mailDelivrer, Disposable connectionPool, DomainDeliveryScheduler domainDeliveryScheduler,
+                             Supplier<Date> dateSupplier) {
         this.queue = queue;
         this.configuration = configuration;
         this.outgoingMailsMetric = metricFactory.generate(OUTGOING_MAILS);
         this.bouncer = bouncer;
         this.mailDelivrer = mailDelivrer;
         this.dateSupplier = dateSupplier;
+        this.connectionPool = connectionPool;
+        this.domainDeliveryScheduler = domainDeliveryScheduler;
         this.metricFactory = metricFactory;
+        this.remoteDeliveryScheduler = Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "RemoteDelivery");
     }
 
     public void start() {
-        remoteDeliveryScheduler = Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "RemoteDelivery");
         disposable = Flux.from(queue.deQueue())
             .flatMap(queueItem -> runStep(queueItem).subscribeOn(remoteDeliveryScheduler))
             .onErrorContinue(((throwable, nothing) -> LOGGER.error("Exception caught in RemoteDelivery", throwable)))
@@ -100,28 +124,63 @@ public class DeliveryRunnable implements Disposable {
         }
     }
 
-    private Mono<Void> processMail(MailQueue.MailQueueItem queueItem) throws MailQueue.MailQueueException {
+    /**
+     * The queue item is acknowledged once the mail was delivered or put back in the queue: mails deferred in memory by
+     * their {@link DomainDeliveryLane} are hence not lost upon restarts.
+     */
+    private Mono<Void> processMail(MailQueue.MailQueueItem queueItem) {
         Mail mail = queueItem.getMail();
+        LOGGER.debug("will process mail {}", mail.getName());
 
-        try {
-            LOGGER.debug("will process mail {}", mail.getName());
-            attemptDelivery(mail);
-            queueItem.done(true);
-            return Mono.empty();
-        } catch (Exception e) {
+        return scheduleDelivery(mail)
+            .then(Mono.fromRunnable(Throwing.runnable(() -> queueItem.done(true)).sneakyThrow()))
             // Prevent unexpected exceptions from causing looping by removing message from outgoing.
             // DO NOT CHANGE THIS to catch Error!
             // For example, if there were an OutOfMemory condition caused because
             // something else in the server was abusing memory, we would not want to start purging the retrying spool!
-            queueItem.done(false);
-            return Mono.error(e);
+            .onErrorResume(Exception.class, e -> Mono.fromRunnable(Throwing.runnable(() -> queueItem.done(false)).sneakyThrow())
+                .then(Mono.error(e)))
+            .then()
+            .doFinally(any -> LifecycleUtil.dispose(mail));
+    }
+
+    @VisibleForTesting
+    Mono<Void> scheduleDelivery(Mail mail) {
+        Optional<DomainDeliveryLane> lane = domainDeliveryScheduler.laneFor(mail);
+        if (!lane.isPresent()) {
+            return Mono.fromCallable(() -> attemptDelivery(mail)).then();
+        }
+        return lane.get().acquire()
+            // Deferred deliveries are resumed from the lane: deliveries run on the RemoteDelivery threads
+            .publishOn(remoteDeliveryScheduler)
+            .flatMap(deferral -> {
+                if (deferral.isPresent()) {
+                    return Mono.fromRunnable(Throwing.runnable(() -> defer(mail, deferral.get())).sneakyThrow());
+                }
+                return Mono.fromRunnable(Throwing.runnable(() -> deliver(mail, lane.get())).sneakyThrow());
+            })
+            .then();
+    }
+
+    private void deliver(Mail mail, DomainDeliveryLane lane) throws MailQueue.MailQueueException {
+        TimeMetric timeMetric = lane.startDeliveryTimer();
+        Optional<ExecutionResult.ExecutionState> executionState = Optional.empty();
+        try {
+            executionState = Optional.of(attemptDelivery(mail).getExecutionState());
         } finally {
-            LifecycleUtil.dispose(mail);
+            timeMetric.stopAndPublish();
+            lane.release(executionState);
         }
     }
 
+    private void defer(Mail mail, Duration delay) throws MailQueue.MailQueueException {
+        // Deferring is not a delivery attempt: retries are left untouched
+        LOGGER.debug("Deferring delivery of {} by {}", mail.getName(), delay);
+        queue.enQueue(mail, delay);
+    }
+
     @VisibleForTesting
-    void attemptDelivery(Mail mail) throws MailQueue.MailQueueException {
+    ExecutionResult attemptDelivery(Mail mail) throws MailQueue.MailQueueException {
         ExecutionResult executionResult = mailDelivrer.deliver(mail);
         switch (executionResult.getExecutionState()) {
             case SUCCESS:
@@ -134,6 +193,7 @@ public class DeliveryRunnable implements Disposable {
                 bouncer.bounce(mail, executionResult.getException().orElse(null));
                 break;
         }
+        return executionResult;
     }
 
     private void handleTemporaryFailure(Mail mail, ExecutionResult executionResult) throws MailQueue.MailQueueException {
@@ -177,5 +237,6 @@ public class DeliveryRunnable implements Disposable {
     public void dispose() {
         disposable.dispose();
         remoteDeliveryScheduler.dispose();
+        connectionPool.dispose();
     }
 }
@@ -0,0 +1,268 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.transport.mailets.remote.delivery;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.core.Domain;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Ordering;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Admission control for the deliveries towards one destination domain.
+ *
+ * A lane caps the number of concurrent deliveries and the number of deliveries started per second. Deliveries above
+ * these limits wait in the lane, up to maxDeferredDeliveriesPerDomain of them, and start as soon as the limits allow it.
+ *
+ * It also acts as a circuit breaker: after domainFailureThreshold consecutive temporary failures, deliveries to the
+ * domain are suspended for domainBackoff. Once that delay elapsed a single trial delivery is let through. Its success
+ * resumes normal operations, its temporary failure suspends the domain again for twice as long, up to domainMaxBackoff.
+ */
+public class DomainDeliveryLane {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DomainDeliveryLane.class);
+
+    public static final String IN_FLIGHT_METRIC_PREFIX = "remoteDelivery.domain.inFlight.";
+    public static final String DEFERRED_METRIC_PREFIX = "remoteDelivery.domain.deferred.";
+    public static final String DELIVERY_METRIC_PREFIX = "remoteDelivery.domain.delivery.";
+    public static final Duration FULL_LANE_DEFERRAL = Duration.ofSeconds(1);
+    private static final Duration RATE_WINDOW = Duration.ofSeconds(1);
+
+    private final Domain domain;
+    private final String metricScope;
+    private final Optional<Integer> maxConcurrentDeliveries;
+    private final Optional<Integer> maxDeliveriesPerSecond;
+    private final int maxDeferredDeliveries;
+    private final Optional<Integer> failureThreshold;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final MetricFactory metricFactory;
+    private final Metric inFlightMetric;
+    private final Metric deferredMetric;
+    private final Deque<MonoProcessor<Optional<Duration>>> deferredDeliveries;
+
+    private int inFlight;
+    private Instant rateWindowStart;
+    private int deliveriesInRateWindow;
+    private int consecutiveFailures;
+    private Optional<Instant> suspendedUntil;
+    private Duration nextBackoff;
+    private boolean trialInFlight;
+    private boolean drainScheduled;
+
+    /**
+     * @param metricScope suffix of the metrics of this lane, shared by several lanes to bound the number of metrics
+     */
+    DomainDeliveryLane(Domain domain, String metricScope, RemoteDeliveryConfiguration configuration, MetricFactory metricFactory, Clock clock) {
+        this.domain = domain;
+        this.metricScope = metricScope;
+        this.maxConcurrentDeliveries = configuration.getMaxConcurrentDeliveriesPerDomain();
+        this.maxDeliveriesPerSecond = configuration.getMaxDeliveriesPerSecondPerDomain();
+        this.maxDeferredDeliveries = configuration.getMaxDeferredDeliveriesPerDomain();
+        this.failureThreshold = configuration.getDomainFailureThreshold();
+        this.initialBackoff = configuration.getDomainBackoff();
+        this.maxBackoff = configuration.getDomainMaxBackoff();
+        this.clock = clock;
+        this.scheduler = Schedulers.parallel();
+        this.metricFactory = metricFactory;
+        this.inFlightMetric = metricFactory.generate(IN_FLIGHT_METRIC_PREFIX + metricScope);
+        this.deferredMetric = metricFactory.generate(DEFERRED_METRIC_PREFIX + metricScope);
+        this.deferredDeliveries = new ArrayDeque<>();
+        this.inFlight = 0;
+        this.rateWindowStart = Instant.EPOCH;
+        this.deliveriesInRateWindow = 0;
+        this.consecutiveFailures = 0;
+        this.suspendedUntil = Optional.empty();
+        this.nextBackoff = initialBackoff;
+        this.trialInFlight = false;
+        this.drainScheduled = false;
+    }
+
+    /**
+     * Deliveries above the limits of the lane are deferred in memory: the returned Mono then emits once they can start.
+     *
+     * @return a Mono emitting empty when the delivery can start, in which case {@link #release(Optional)} needs to be
+     * called once it completes. Otherwise it emits the delay after which the delivery should be attempted again: the
+     * domain is suspended, or too many deliveries are already deferred.
+     */
+    public Mono<Optional<Duration>> acquire() {
+        return Mono.defer(this::admit);
+    }
+
+    private synchronized Mono<Optional<Duration>> admit() {
+        Instant now = clock.instant();
+        Optional<Duration> suspension = computeSuspension(now);
+        if (suspension.isPresent()) {
+            return Mono.just(suspension);
+        }
+        if (deferredDeliveries.isEmpty() && hasFreeSlot()) {
+            Optional<Duration> rateLimitDelay = computeRateLimitDelay(now);
+            if (!rateLimitDelay.isPresent()) {
+                start();
+                return Mono.just(Optional.empty());
+            }
+            scheduleDrain(rateLimitDelay.get());
+        }
+        if (deferredDeliveries.size() >= maxDeferredDeliveries) {
+            return Mono.just(Optional.of(FULL_LANE_DEFERRAL));
+        }
+        MonoProcessor<Optional<Duration>> deferredDelivery = MonoProcessor.create();
+        deferredDeliveries.add(deferredDelivery);
+        deferredMetric.increment();
+        return deferredDelivery;
+    }
+
+    private Optional<Duration> computeSuspension(Instant now) {
+        return suspendedUntil
+            .filter(now::isBefore)
+            .map(until -> Duration.between(now, until));
+    }
+
+    private boolean hasFreeSlot() {
+        if (suspendedUntil.isPresent() && trialInFlight) {
+            return false;
+        }
+        return !maxConcurrentDeliveries.isPresent() || inFlight < maxConcurrentDeliveries.get();
+    }
+
+    private Optional<Duration> computeRateLimitDelay(Instant now) {
+        if (!maxDeliveriesPerSecond.isPresent()) {
+            return Optional.empty();
+        }
+        Instant rateWindowEnd = rateWindowStart.plus(RATE_WINDOW);
+        if (!now.isBefore(rateWindowEnd)) {
+            rateWindowStart = now;
+            deliveriesInRateWindow = 0;
+            return Optional.empty();
+        }
+        if (deliveriesInRateWindow >= maxDeliveriesPerSecond.get()) {
+            return Optional.of(Duration.between(now, rateWindowEnd));
+        }
+        return Optional.empty();
+    }
+
+    private void start() {
+        if (suspendedUntil.isPresent()) {
+            trialInFlight = true;
+        }
+        inFlight++;
+        deliveriesInRateWindow++;
+        inFlightMetric.increment();
+    }
+
+    public TimeMetric startDeliveryTimer() {
+        return metricFactory.timer(DELIVERY_METRIC_PREFIX + metricScope);
+    }
+
+    /**
+     * @param executionState outcome of the delivery, empty if it failed for reasons unrelated to the remote domain
+     */
+    public synchronized void release(Optional<ExecutionResult.ExecutionState> executionState) {
+        inFlight--;
+        inFlightMetric.decrement();
+        executionState.ifPresent(this::recordOutcome);
+        drain();
+    }
+
+    private void recordOutcome(ExecutionResult.ExecutionState executionState) {
+        if (executionState != ExecutionResult.ExecutionState.TEMPORARY_FAILURE) {
+            // The remote servers answered: permanent failures are not a matter of availability
+            consecutiveFailures = 0;
+            suspendedUntil = Optional.empty();
+            nextBackoff = initialBackoff;
+            trialInFlight = false;
+            return;
+        }
+        consecutiveFailures++;
+        if (trialInFlight) {
+            trialInFlight = false;
+            suspend();
+        } else if (!suspendedUntil.isPresent() && failureThreshold.map(threshold -> consecutiveFailures >= threshold).orElse(false)) {
+            suspend();
+        }
+    }
+
+    private void suspend() {
+        LOGGER.info("Suspending deliveries to {} for {} after {} consecutive temporary failures", domain.asString(), nextBackoff, consecutiveFailures);
+        suspendedUntil = Optional.of(clock.instant().plus(nextBackoff));
+        nextBackoff = Ordering.natural().min(nextBackoff.multipliedBy(2), maxBackoff);
+    }
+
+    /**
+     * Starts the deferred deliveries the limits allow, in order. Once the domain is suspended they are all handed back
+     * with the suspension delay.
+     */
+    private void drain() {
+        Instant now = clock.instant();
+        while (!deferredDeliveries.isEmpty()) {
+            Optional<Duration> suspension = computeSuspension(now);
+            if (suspension.isPresent()) {
+                resume(suspension);
+                continue;
+            }
+            if (!hasFreeSlot()) {
+                return;
+            }
+            Optional<Duration> rateLimitDelay = computeRateLimitDelay(now);
+            if (rateLimitDelay.isPresent()) {
+                scheduleDrain(rateLimitDelay.get());
+                return;
+            }
+            start();
+            resume(Optional.empty());
+        }
+    }
+
+    private void resume(Optional<Duration> deferral) {
+        MonoProcessor<Optional<Duration>> deferredDelivery = deferredDeliveries.poll();
+        deferredMetric.decrement();
+        // Emitting outside of the lock of the lane, and off the thread releasing it
+        scheduler.schedule(() -> deferredDelivery.onNext(deferral));
+    }
+
+    private void scheduleDrain(Duration delay) {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        scheduler.schedule(this::scheduledDrain, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void scheduledDrain() {
+        drainScheduled = false;
+        drain();
+    }
+}
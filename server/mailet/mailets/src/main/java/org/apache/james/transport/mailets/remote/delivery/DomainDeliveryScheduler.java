@@ -0,0 +1,98 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.transport.mailets.remote.delivery;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.james.core.Domain;
+import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.mailet.Mail;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Dispatches outgoing mails to the {@link DomainDeliveryLane} of their destination domain, so that a slow, failing or
+ * greylisting domain can not hold all delivery slots.
+ *
+ * Only enabled when one of maxConcurrentDeliveriesPerDomain, maxDeliveriesPerSecondPerDomain or domainFailureThreshold
+ * is configured.
+ *
+ * Only the first {@link #MAX_DOMAINS_WITH_METRICS} domains get metrics of their own, the lanes of the other domains
+ * share the {@link #OTHER_DOMAINS_METRIC_SCOPE} ones.
+ */
+public class DomainDeliveryScheduler {
+    public static final int MAX_DOMAINS_WITH_METRICS = 100;
+    public static final String OTHER_DOMAINS_METRIC_SCOPE = "others";
+    private static final Duration UNUSED_LANE_EXPIRY = Duration.ofHours(1);
+
+    private final RemoteDeliveryConfiguration configuration;
+    private final LoadingCache<Domain, DomainDeliveryLane> lanes;
+    private final Set<Domain> domainsWithMetrics;
+
+    public DomainDeliveryScheduler(RemoteDeliveryConfiguration configuration, MetricFactory metricFactory) {
+        this(configuration, metricFactory, Clock.systemUTC());
+    }
+
+    @VisibleForTesting
+    DomainDeliveryScheduler(RemoteDeliveryConfiguration configuration, MetricFactory metricFactory, Clock clock) {
+        this.configuration = configuration;
+        this.domainsWithMetrics = new HashSet<>();
+        // Suspended lanes are accessed again when their deferred mails come back, at most domainMaxBackoff later
+        this.lanes = CacheBuilder.newBuilder()
+            .expireAfterAccess(configuration.getDomainMaxBackoff().plus(UNUSED_LANE_EXPIRY))
+            .build(CacheLoader.from(domain -> new DomainDeliveryLane(domain, metricScope(domain), configuration, metricFactory, clock)));
+    }
+
+    private synchronized String metricScope(Domain domain) {
+        if (domainsWithMetrics.contains(domain) || domainsWithMetrics.size() < MAX_DOMAINS_WITH_METRICS) {
+            domainsWithMetrics.add(domain);
+            return domain.asString();
+        }
+        return OTHER_DOMAINS_METRIC_SCOPE;
+    }
+
+    public boolean isEnabled() {
+        return configuration.getMaxConcurrentDeliveriesPerDomain().isPresent()
+            || configuration.getMaxDeliveriesPerSecondPerDomain().isPresent()
+            || configuration.getDomainFailureThreshold().isPresent();
+    }
+
+    /**
+     * RemoteDelivery enqueues one mail per destination domain unless a gateway is used, in which case the domain of
+     * the first recipient is retained.
+     */
+    public Optional<DomainDeliveryLane> laneFor(Mail mail) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        return mail.getRecipients()
+            .stream()
+            .findFirst()
+            .map(MailAddress::getDomain)
+            .map(lanes::getUnchecked);
+    }
+}
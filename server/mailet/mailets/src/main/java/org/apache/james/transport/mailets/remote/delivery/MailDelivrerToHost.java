@@ -21,6 +21,7 @@ package org.apache.james.transport.mailets.remote.delivery;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Optional;
 import java.util.Properties;
 
 import javax.mail.MessagingException;
@@ -44,11 +45,13 @@ public class MailDelivrerToHost {
     private final RemoteDeliveryConfiguration configuration;
     private final Converter7Bit converter7Bit;
     private final Session session;
+    private final SMTPConnectionPool connectionPool;
 
-    public MailDelivrerToHost(RemoteDeliveryConfiguration remoteDeliveryConfiguration, MailetContext mailetContext) {
+    public MailDelivrerToHost(RemoteDeliveryConfiguration remoteDeliveryConfiguration, MailetContext mailetContext, SMTPConnectionPool connectionPool) {
         this.configuration = remoteDeliveryConfiguration;
         this.converter7Bit = new Converter7Bit(mailetContext);
         this.session = Session.getInstance(configuration.createFinalJavaxProperties());
+        this.connectionPool = connectionPool;
     }
 
     public ExecutionResult tryDeliveryToHost(Mail mail, Collection<InternetAddress> addr, HostAddress outgoingMailServer) throws MessagingException {
@@ -62,16 +65,28 @@ public class MailDelivrerToHost {
         // "mail.smtp.dsn.ret"        //default to nothing... appended as RET= after MAIL FROM line.
         // "mail.smtp.dsn.notify"     //default to nothing... appended as NOTIFY= after RCPT TO line.
 
-        SMTPTransport transport = null;
+        SMTPConnectionPool.PooledTransport pooledTransport = null;
+        boolean sent = false;
         try {
-            transport = (SMTPTransport) session.getTransport(outgoingMailServer);
-            transport.setLocalHost(props.getProperty("mail.smtp.localhost", configuration.getHeloNameProvider().getHeloName()));
-            connect(outgoingMailServer, transport);
+            Optional<SMTPConnectionPool.PooledTransport> idleTransport = connectionPool.borrow(outgoingMailServer);
+            if (idleTransport.isPresent()) {
+                LOGGER.debug("Reusing connection to host {} at {}", outgoingMailServer.getHostName(), outgoingMailServer.getHost());
+                pooledTransport = idleTransport.get();
+            } else {
+                pooledTransport = connectionPool.newConnection((SMTPTransport) session.getTransport(outgoingMailServer));
+                pooledTransport.getTransport().setLocalHost(props.getProperty("mail.smtp.localhost", configuration.getHeloNameProvider().getHeloName()));
+                connect(outgoingMailServer, pooledTransport.getTransport());
+            }
+            SMTPTransport transport = pooledTransport.getTransport();
             transport.sendMessage(adaptToTransport(mail.getMessage(), transport), toArray(addr));
+            sent = true;
             LOGGER.debug("Mail ({})  sent successfully to {} at {} from {} for {}", mail.getName(), outgoingMailServer.getHostName(),
                 outgoingMailServer.getHost(), props.get("mail.smtp.from"), mail.getRecipients());
         } finally {
-            closeTransport(mail, outgoingMailServer, transport);
+            // Failed sessions are never pooled: their state towards the remote server is unknown
+            if (pooledTransport != null && !(sent && connectionPool.release(outgoingMailServer, pooledTransport))) {
+                closeTransport(mail, outgoingMailServer, pooledTransport.getTransport());
+            }
         }
         return ExecutionResult.success();
     }
@@ -130,7 +145,6 @@ public class MailDelivrerToHost {
                         "probably the server has already closed the connection. Message is considered to be delivered. Exception: {}",
                     mail.getName(), outgoingMailServer.getHostName(), outgoingMailServer.getHost(), mail.getRecipients(), e.getMessage());
             }
-            transport = null;
         }
     }
 
@@ -27,12 +27,14 @@ import java.util.Properties;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.james.domainlist.api.DomainList;
+import org.apache.james.util.DurationParser;
 import org.apache.mailet.MailetConfig;
 import org.apache.mailet.base.MailetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.steveash.guavate.Guavate;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -61,11 +63,26 @@ public class RemoteDeliveryConfiguration {
     public static final String MAX_RETRIES = "maxRetries";
     public static final String DELAY_TIME = "delayTime";
     public static final String DEBUG = "debug";
+    public static final String MAX_MESSAGES_PER_CONNECTION = "maxMessagesPerConnection";
+    public static final String MAX_IDLE_CONNECTIONS_PER_HOST = "maxIdleConnectionsPerHost";
+    public static final String CONNECTION_IDLE_TIMEOUT = "connectionIdleTimeout";
+    public static final String MAX_CONCURRENT_DELIVERIES_PER_DOMAIN = "maxConcurrentDeliveriesPerDomain";
+    public static final String MAX_DELIVERIES_PER_SECOND_PER_DOMAIN = "maxDeliveriesPerSecondPerDomain";
+    public static final String MAX_DEFERRED_DELIVERIES_PER_DOMAIN = "maxDeferredDeliveriesPerDomain";
+    public static final String DOMAIN_FAILURE_THRESHOLD = "domainFailureThreshold";
+    public static final String DOMAIN_BACKOFF = "domainBackoff";
+    public static final String DOMAIN_MAX_BACKOFF = "domainMaxBackoff";
     public static final int DEFAULT_SMTP_TIMEOUT = 180000;
     public static final String DEFAULT_OUTGOING_QUEUE_NAME = "outgoing";
     public static final int DEFAULT_CONNECTION_TIMEOUT = 60000;
     public static final int DEFAULT_DNS_RETRY_PROBLEM = 0;
     public static final int DEFAULT_MAX_RETRY = 5;
+    public static final int DEFAULT_MAX_MESSAGES_PER_CONNECTION = 1;
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST = 4;
+    public static final Duration DEFAULT_CONNECTION_IDLE_TIMEOUT = Duration.ofSeconds(30);
+    public static final int DEFAULT_MAX_DEFERRED_DELIVERIES_PER_DOMAIN = 16;
+    public static final Duration DEFAULT_DOMAIN_BACKOFF = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_DOMAIN_MAX_BACKOFF = Duration.ofHours(1);
     public static final String ADDRESS_PORT_SEPARATOR = ":";
 
     private final boolean isDebug;
@@ -78,6 +95,15 @@ public class RemoteDeliveryConfiguration {
     private final long smtpTimeout;
     private final int dnsProblemRetry;
     private final int connectionTimeout;
+    private final int maxMessagesPerConnection;
+    private final int maxIdleConnectionsPerHost;
+    private final Duration connectionIdleTimeout;
+    private final Optional<Integer> maxConcurrentDeliveriesPerDomain;
+    private final Optional<Integer> maxDeliveriesPerSecondPerDomain;
+    private final int maxDeferredDeliveriesPerDomain;
+    private final Optional<Integer> domainFailureThreshold;
+    private final Duration domainBackoff;
+    private final Duration domainMaxBackoff;
     private final List<Duration> delayTimes;
     private final HeloNameProvider heloNameProvider;
     private final String outGoingQueueName;
@@ -104,6 +130,17 @@ public class RemoteDeliveryConfiguration {
         smtpTimeout = computeSmtpTimeout(mailetConfig);
         connectionTimeout = computeConnectionTimeout(mailetConfig);
         dnsProblemRetry = computeDnsProblemRetry(mailetConfig);
+        maxMessagesPerConnection = computeStrictlyPositiveInteger(mailetConfig, MAX_MESSAGES_PER_CONNECTION, DEFAULT_MAX_MESSAGES_PER_CONNECTION);
+        maxIdleConnectionsPerHost = computeStrictlyPositiveInteger(mailetConfig, MAX_IDLE_CONNECTIONS_PER_HOST, DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST);
+        connectionIdleTimeout = computeStrictlyPositiveDuration(mailetConfig, CONNECTION_IDLE_TIMEOUT, DEFAULT_CONNECTION_IDLE_TIMEOUT);
+        maxConcurrentDeliveriesPerDomain = computeOptionalStrictlyPositiveInteger(mailetConfig, MAX_CONCURRENT_DELIVERIES_PER_DOMAIN);
+        maxDeliveriesPerSecondPerDomain = computeOptionalStrictlyPositiveInteger(mailetConfig, MAX_DELIVERIES_PER_SECOND_PER_DOMAIN);
+        maxDeferredDeliveriesPerDomain = computeStrictlyPositiveInteger(mailetConfig, MAX_DEFERRED_DELIVERIES_PER_DOMAIN, DEFAULT_MAX_DEFERRED_DELIVERIES_PER_DOMAIN);
+        domainFailureThreshold = computeOptionalStrictlyPositiveInteger(mailetConfig, DOMAIN_FAILURE_THRESHOLD);
+        domainBackoff = computeStrictlyPositiveDuration(mailetConfig, DOMAIN_BACKOFF, DEFAULT_DOMAIN_BACKOFF);
+        domainMaxBackoff = computeStrictlyPositiveDuration(mailetConfig, DOMAIN_MAX_BACKOFF, DEFAULT_DOMAIN_MAX_BACKOFF);
+        Preconditions.checkArgument(domainMaxBackoff.compareTo(domainBackoff) >= 0,
+            "'%s' needs to be greater than or equal to '%s'", DOMAIN_MAX_BACKOFF, DOMAIN_BACKOFF);
         heloNameProvider = new HeloNameProvider(mailetConfig.getInitParameter(HELO_NAME), domainList);
 
         String gatewayPort = mailetConfig.getInitParameter(GATEWAY_PORT);
@@ -141,6 +178,28 @@ public class RemoteDeliveryConfiguration {
         }
     }
 
+    private int computeStrictlyPositiveInteger(MailetConfig mailetConfig, String parameterName, int defaultValue) {
+        return computeOptionalStrictlyPositiveInteger(mailetConfig, parameterName).orElse(defaultValue);
+    }
+
+    private Optional<Integer> computeOptionalStrictlyPositiveInteger(MailetConfig mailetConfig, String parameterName) {
+        String value = mailetConfig.getInitParameter(parameterName);
+        if (Strings.isNullOrEmpty(value)) {
+            return Optional.empty();
+        }
+        int result = Integer.parseInt(value);
+        Preconditions.checkArgument(result > 0, "'%s' needs to be strictly positive", parameterName);
+        return Optional.of(result);
+    }
+
+    private Duration computeStrictlyPositiveDuration(MailetConfig mailetConfig, String parameterName, Duration defaultValue) {
+        Duration result = Optional.ofNullable(mailetConfig.getInitParameter(parameterName))
+            .map(DurationParser::parse)
+            .orElse(defaultValue);
+        Preconditions.checkArgument(!result.isNegative() && !result.isZero(), "'%s' needs to be strictly positive", parameterName);
+        return result;
+    }
+
     private int computeConnectionTimeout(MailetConfig mailetConfig) {
         try {
             return Integer.parseInt(
@@ -260,6 +319,42 @@ public class RemoteDeliveryConfiguration {
         return connectionTimeout;
     }
 
+    public int getMaxMessagesPerConnection() {
+        return maxMessagesPerConnection;
+    }
+
+    public int getMaxIdleConnectionsPerHost() {
+        return maxIdleConnectionsPerHost;
+    }
+
+    public Duration getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+
+    public Optional<Integer> getMaxConcurrentDeliveriesPerDomain() {
+        return maxConcurrentDeliveriesPerDomain;
+    }
+
+    public Optional<Integer> getMaxDeliveriesPerSecondPerDomain() {
+        return maxDeliveriesPerSecondPerDomain;
+    }
+
+    public int getMaxDeferredDeliveriesPerDomain() {
+        return maxDeferredDeliveriesPerDomain;
+    }
+
+    public Optional<Integer> getDomainFailureThreshold() {
+        return domainFailureThreshold;
+    }
+
+    public Duration getDomainBackoff() {
+        return domainBackoff;
+    }
+
+    public Duration getDomainMaxBackoff() {
+        return domainMaxBackoff;
+    }
+
     public Collection<String> getGatewayServer() {
         return gatewayServer;
     }
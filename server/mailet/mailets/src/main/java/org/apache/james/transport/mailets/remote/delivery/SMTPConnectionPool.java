@@ -0,0 +1,213 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.transport.mailets.remote.delivery;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import javax.mail.MessagingException;
+
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.mailet.HostAddress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sun.mail.smtp.SMTPTransport;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps connected {@link SMTPTransport}s around once a message had been sent, so that following deliveries to the
+ * same outgoing mail server can skip the TCP, TLS and authentication handshakes.
+ *
+ * Connections are keyed by the resolved outgoing mail server (address and port). A connection is closed once it
+ * sent maxMessagesPerConnection messages, once it stayed idle longer than connectionIdleTimeout, or when the
+ * amount of idle connections for its host exceeds maxIdleConnectionsPerHost.
+ *
+ * With maxMessagesPerConnection set to 1 (the default) no connection is ever kept.
+ */
+public class SMTPConnectionPool implements Disposable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SMTPConnectionPool.class);
+
+    public static final String OPENED_CONNECTIONS_METRIC_NAME = "remoteDelivery.connections.opened";
+    public static final String REUSED_CONNECTIONS_METRIC_NAME = "remoteDelivery.connections.reused";
+    public static final String IDLE_CONNECTIONS_METRIC_NAME = "remoteDelivery.connections.idle";
+
+    public static class PooledTransport {
+        private final SMTPTransport transport;
+        private int sentMessages;
+        private Instant idleSince;
+
+        private PooledTransport(SMTPTransport transport) {
+            this.transport = transport;
+            this.sentMessages = 0;
+        }
+
+        public SMTPTransport getTransport() {
+            return transport;
+        }
+    }
+
+    private final int maxMessagesPerConnection;
+    private final int maxIdleConnectionsPerHost;
+    private final Duration connectionIdleTimeout;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Deque<PooledTransport>> idleTransports;
+    private final Metric openedConnections;
+    private final Metric reusedConnections;
+    private final Metric idleConnections;
+    private final Disposable idleConnectionsEviction;
+    private volatile boolean disposed;
+
+    public SMTPConnectionPool(RemoteDeliveryConfiguration configuration, MetricFactory metricFactory) {
+        this(configuration, metricFactory, Clock.systemUTC());
+    }
+
+    @VisibleForTesting
+    SMTPConnectionPool(RemoteDeliveryConfiguration configuration, MetricFactory metricFactory, Clock clock) {
+        this.maxMessagesPerConnection = configuration.getMaxMessagesPerConnection();
+        this.maxIdleConnectionsPerHost = configuration.getMaxIdleConnectionsPerHost();
+        this.connectionIdleTimeout = configuration.getConnectionIdleTimeout();
+        this.clock = clock;
+        this.idleTransports = new ConcurrentHashMap<>();
+        this.openedConnections = metricFactory.generate(OPENED_CONNECTIONS_METRIC_NAME);
+        this.reusedConnections = metricFactory.generate(REUSED_CONNECTIONS_METRIC_NAME);
+        this.idleConnections = metricFactory.generate(IDLE_CONNECTIONS_METRIC_NAME);
+        this.disposed = false;
+        if (isEnabled()) {
+            this.idleConnectionsEviction = Flux.interval(connectionIdleTimeout, Schedulers.boundedElastic())
+                .subscribe(any -> evictExpiredConnections());
+        } else {
+            this.idleConnectionsEviction = Flux.never().subscribe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxMessagesPerConnection > 1;
+    }
+
+    /**
+     * Wraps a newly opened transport so that it can later be released to this pool.
+     */
+    public PooledTransport newConnection(SMTPTransport transport) {
+        openedConnections.increment();
+        return new PooledTransport(transport);
+    }
+
+    /**
+     * @return a still connected transport to the given outgoing mail server, if one is idle
+     */
+    public Optional<PooledTransport> borrow(HostAddress outgoingMailServer) {
+        Deque<PooledTransport> idle = idleTransports.get(key(outgoingMailServer));
+        if (idle == null) {
+            return Optional.empty();
+        }
+        PooledTransport pooledTransport = idle.pollFirst();
+        while (pooledTransport != null) {
+            idleConnections.decrement();
+            // isConnected issues a NOOP, catching connections the remote server already timed out
+            if (!isExpired(pooledTransport) && pooledTransport.transport.isConnected()) {
+                reusedConnections.increment();
+                return Optional.of(pooledTransport);
+            }
+            close(pooledTransport);
+            pooledTransport = idle.pollFirst();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Hands back a transport that successfully sent a message.
+     *
+     * @return true if the transport was kept for later use, false if the caller is responsible for closing it
+     */
+    public boolean release(HostAddress outgoingMailServer, PooledTransport pooledTransport) {
+        pooledTransport.sentMessages++;
+        if (disposed || pooledTransport.sentMessages >= maxMessagesPerConnection) {
+            return false;
+        }
+        Deque<PooledTransport> idle = idleTransports.computeIfAbsent(key(outgoingMailServer), any -> new ConcurrentLinkedDeque<>());
+        if (idle.size() >= maxIdleConnectionsPerHost) {
+            return false;
+        }
+        pooledTransport.idleSince = clock.instant();
+        idle.addFirst(pooledTransport);
+        idleConnections.increment();
+        return true;
+    }
+
+    @VisibleForTesting
+    void evictExpiredConnections() {
+        idleTransports.values()
+            .forEach(idle -> idle.stream()
+                .filter(this::isExpired)
+                // Only close transports we actually removed: a concurrent borrow may have taken them
+                .filter(idle::removeFirstOccurrence)
+                .forEach(pooledTransport -> {
+                    idleConnections.decrement();
+                    close(pooledTransport);
+                }));
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        idleConnectionsEviction.dispose();
+        idleTransports.values()
+            .forEach(idle -> {
+                PooledTransport pooledTransport = idle.pollFirst();
+                while (pooledTransport != null) {
+                    idleConnections.decrement();
+                    close(pooledTransport);
+                    pooledTransport = idle.pollFirst();
+                }
+            });
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    private boolean isExpired(PooledTransport pooledTransport) {
+        return !pooledTransport.idleSince.plus(connectionIdleTimeout).isAfter(clock.instant());
+    }
+
+    private void close(PooledTransport pooledTransport) {
+        try {
+            pooledTransport.transport.close();
+        } catch (MessagingException e) {
+            LOGGER.debug("Could not close idle SMTP transport to {}", pooledTransport.transport.getURLName(), e);
+        }
+    }
+
+    private String key(HostAddress outgoingMailServer) {
+        // URLName::equals and URLName::hashCode resolve host names, hence keying on the string representation
+        return outgoingMailServer.toString();
+    }
+}
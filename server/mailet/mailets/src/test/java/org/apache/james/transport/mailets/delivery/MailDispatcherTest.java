@@ -20,7 +20,9 @@
 package org.apache.james.transport.mailets.delivery;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -29,6 +31,8 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.mail.MessagingException;
 
@@ -186,30 +190,7 @@ public class MailDispatcherTest {
     }
 
     @Test
-    public void dispatchShouldNotAddSpecificHeaderIfRecipientDoesNotMatch() throws Exception {
-        AccumulatorHeaderMailStore accumulatorTestHeaderMailStore = new AccumulatorHeaderMailStore(TEST_HEADER_NAME);
-        MailDispatcher testee = MailDispatcher.builder()
-            .mailetContext(fakeMailContext)
-            .mailStore(accumulatorTestHeaderMailStore)
-            .consume(false)
-            .build();
-
-        FakeMail mail = FakeMail.builder()
-            .name("name")
-            .sender(MailAddressFixture.OTHER_AT_JAMES)
-            .recipients(MailAddressFixture.ANY_AT_JAMES)
-            .mimeMessage(MimeMessageUtil.defaultMimeMessage())
-            .state("state")
-            .build();
-        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER2, MailAddressFixture.ANY_AT_JAMES2);
-        testee.dispatch(mail);
-
-        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.ANY_AT_JAMES))
-            .isEmpty();
-    }
-
-    @Test
-    public void dispatchShouldAddSpecificHeaderIfRecipientMatches() throws Exception {
+    public void dispatchShouldNotAlterOriginalMessageWhenPerRecipientHeaderDoesNotExist() throws Exception {
         AccumulatorHeaderMailStore accumulatorTestHeaderMailStore = new AccumulatorHeaderMailStore(TEST_HEADER_NAME);
         MailDispatcher testee = MailDispatcher.builder()
             .mailetContext(fakeMailContext)
@@ -220,19 +201,19 @@ public class MailDispatcherTest {
         FakeMail mail = FakeMail.builder()
             .name("name")
             .sender(MailAddressFixture.OTHER_AT_JAMES)
-            .recipients(MailAddressFixture.ANY_AT_JAMES)
+            .recipients(MailAddressFixture.ANY_AT_JAMES, MailAddressFixture.ANY_AT_JAMES2)
             .mimeMessage(MimeMessageUtil.defaultMimeMessage())
             .state("state")
             .build();
         mail.addSpecificHeaderForRecipient(TEST_HEADER_USER1, MailAddressFixture.ANY_AT_JAMES);
+        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER2, MailAddressFixture.ANY_AT_JAMES2);
         testee.dispatch(mail);
 
-        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.ANY_AT_JAMES))
-            .containsOnly(new String[]{VALUE_FOR_USER_1});
+        assertThat(mail.getMessage().getHeader(TEST_HEADER_NAME)).isNull();
     }
 
     @Test
-    public void dispatchShouldNotAddSpecificHeaderToOtherRecipients() throws Exception {
+    public void dispatchShouldNotAlterOriginalMessageWhenPerRecipientHeaderExists() throws Exception {
         AccumulatorHeaderMailStore accumulatorTestHeaderMailStore = new AccumulatorHeaderMailStore(TEST_HEADER_NAME);
         MailDispatcher testee = MailDispatcher.builder()
             .mailetContext(fakeMailContext)
@@ -240,29 +221,30 @@ public class MailDispatcherTest {
             .consume(false)
             .build();
 
+        String headerValue = "arbitraryValue";
         FakeMail mail = FakeMail.builder()
             .name("name")
             .sender(MailAddressFixture.OTHER_AT_JAMES)
             .recipients(MailAddressFixture.ANY_AT_JAMES, MailAddressFixture.ANY_AT_JAMES2)
-            .mimeMessage(MimeMessageUtil.defaultMimeMessage())
+            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder()
+                    .addHeader(TEST_HEADER_NAME, headerValue))
             .state("state")
             .build();
         mail.addSpecificHeaderForRecipient(TEST_HEADER_USER1, MailAddressFixture.ANY_AT_JAMES);
+        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER2, MailAddressFixture.ANY_AT_JAMES2);
         testee.dispatch(mail);
 
-        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.ANY_AT_JAMES))
-            .containsOnly(new String[]{VALUE_FOR_USER_1});
-        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.ANY_AT_JAMES2))
-            .isEmpty();
+        assertThat(mail.getMessage().getHeader(TEST_HEADER_NAME)).containsOnly(headerValue);
     }
 
     @Test
-    public void dispatchShouldAddSpecificHeaderToEachRecipients() throws Exception {
-        AccumulatorHeaderMailStore accumulatorTestHeaderMailStore = new AccumulatorHeaderMailStore(TEST_HEADER_NAME);
+    public void dispatchShouldStoreMailForSeveralRecipientsConcurrently() throws Exception {
+        CountDownLatch allRecipientsBeingStored = new CountDownLatch(2);
         MailDispatcher testee = MailDispatcher.builder()
             .mailetContext(fakeMailContext)
-            .mailStore(accumulatorTestHeaderMailStore)
-            .consume(false)
+            .mailStore((recipient, mail) -> awaitOtherRecipients(allRecipientsBeingStored))
+            .concurrency(2)
+            .consume(true)
             .build();
 
         FakeMail mail = FakeMail.builder()
@@ -272,24 +254,22 @@ public class MailDispatcherTest {
             .mimeMessage(MimeMessageUtil.defaultMimeMessage())
             .state("state")
             .build();
-        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER1, MailAddressFixture.ANY_AT_JAMES);
-        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER2, MailAddressFixture.ANY_AT_JAMES2);
         testee.dispatch(mail);
 
-        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.ANY_AT_JAMES))
-            .containsOnly(new String[]{VALUE_FOR_USER_1});
-        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.ANY_AT_JAMES2))
-            .containsOnly(new String[]{VALUE_FOR_USER_2});
+        assertThat(fakeMailContext.getSentMails()).isEmpty();
     }
 
     @Test
-    public void dispatchShouldNotAlterOriginalMessageWhenPerRecipientHeaderDoesNotExist() throws Exception {
-        AccumulatorHeaderMailStore accumulatorTestHeaderMailStore = new AccumulatorHeaderMailStore(TEST_HEADER_NAME);
+    public void errorsShouldOnlyConcernFailingRecipientsWhenConcurrent() throws Exception {
         MailDispatcher testee = MailDispatcher.builder()
             .mailetContext(fakeMailContext)
-            .mailStore(accumulatorTestHeaderMailStore)
-            .consume(false)
+            .mailStore(mailStore)
+            .concurrency(2)
+            .consume(true)
             .build();
+        doThrow(new MessagingException())
+            .when(mailStore)
+            .storeMail(eq(MailAddressFixture.ANY_AT_JAMES2), any(Mail.class));
 
         FakeMail mail = FakeMail.builder()
             .name("name")
@@ -298,36 +278,28 @@ public class MailDispatcherTest {
             .mimeMessage(MimeMessageUtil.defaultMimeMessage())
             .state("state")
             .build();
-        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER1, MailAddressFixture.ANY_AT_JAMES);
-        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER2, MailAddressFixture.ANY_AT_JAMES2);
         testee.dispatch(mail);
 
-        assertThat(mail.getMessage().getHeader(TEST_HEADER_NAME)).isNull();
+        assertThat(fakeMailContext.getSentMails())
+            .hasSize(1)
+            .allSatisfy(sentMail -> assertThat(sentMail.getRecipients()).containsOnly(MailAddressFixture.ANY_AT_JAMES2));
     }
 
     @Test
-    public void dispatchShouldNotAlterOriginalMessageWhenPerRecipientHeaderExists() throws Exception {
-        AccumulatorHeaderMailStore accumulatorTestHeaderMailStore = new AccumulatorHeaderMailStore(TEST_HEADER_NAME);
-        MailDispatcher testee = MailDispatcher.builder()
-            .mailetContext(fakeMailContext)
-            .mailStore(accumulatorTestHeaderMailStore)
-            .consume(false)
-            .build();
-
-        String headerValue = "arbitraryValue";
-        FakeMail mail = FakeMail.builder()
-            .name("name")
-            .sender(MailAddressFixture.OTHER_AT_JAMES)
-            .recipients(MailAddressFixture.ANY_AT_JAMES, MailAddressFixture.ANY_AT_JAMES2)
-            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder()
-                    .addHeader(TEST_HEADER_NAME, headerValue))
-            .state("state")
-            .build();
-        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER1, MailAddressFixture.ANY_AT_JAMES);
-        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER2, MailAddressFixture.ANY_AT_JAMES2);
-        testee.dispatch(mail);
+    public void concurrencyShouldBeStrictlyPositive() {
+        assertThatThrownBy(() -> MailDispatcher.builder().concurrency(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
 
-        assertThat(mail.getMessage().getHeader(TEST_HEADER_NAME)).containsOnly(headerValue);
+    private void awaitOtherRecipients(CountDownLatch allRecipientsBeingStored) throws MessagingException {
+        allRecipientsBeingStored.countDown();
+        try {
+            if (!allRecipientsBeingStored.await(10, TimeUnit.SECONDS)) {
+                throw new MessagingException("Recipients are not stored concurrently");
+            }
+        } catch (InterruptedException e) {
+            throw new MessagingException("Interrupted while storing", e);
+        }
     }
 
     public static class AccumulatorHeaderMailStore implements MailStore {
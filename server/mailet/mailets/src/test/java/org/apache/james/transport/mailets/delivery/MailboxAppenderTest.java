@@ -22,11 +22,13 @@ package org.apache.james.transport.mailets.delivery;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.james.core.Username;
 import org.apache.james.core.builder.MimeMessageBuilder;
 import org.apache.james.mailbox.MailboxManager;
@@ -37,15 +39,19 @@ import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.mailbox.model.MessageRange;
 import org.apache.james.mailbox.model.MessageResultIterator;
 import org.apache.james.util.concurrency.ConcurrentTestRunner;
+import org.apache.mailet.PerRecipientHeaders.Header;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 
+import com.google.common.collect.ImmutableList;
+
 public class MailboxAppenderTest {
 
     public static final Username USER = Username.of("user");
     public static final String FOLDER = "folder";
     public static final String EMPTY_FOLDER = "";
+    public static final Header HEADER = Header.builder().name("X-HEADER").value("value").build();
 
     private MailboxAppender testee;
     private MailboxManager mailboxManager;
@@ -119,6 +125,25 @@ public class MailboxAppenderTest {
             .hasSize(1);
     }
 
+    @Test
+    void appendShouldPrependAdditionalHeaders() throws Exception {
+        testee.append(mimeMessage, ImmutableList.of(HEADER), USER, FOLDER);
+
+        MessageResultIterator messages = mailboxManager.getMailbox(MailboxPath.forUser(USER, FOLDER), session)
+            .getMessages(MessageRange.all(), FetchGroup.FULL_CONTENT, session);
+
+        assertThat(IOUtils.toString(messages.next().getFullContent().getInputStream(), StandardCharsets.UTF_8))
+            .startsWith("X-HEADER: value\r\n")
+            .contains("toto");
+    }
+
+    @Test
+    void appendShouldNotModifyTheMessageWhenAddingHeaders() throws Exception {
+        testee.append(mimeMessage, ImmutableList.of(HEADER), USER, FOLDER);
+
+        assertThat(mimeMessage.getHeader("X-HEADER")).isNull();
+    }
+
     @RepeatedTest(20)
     void appendShouldNotFailInConcurrentEnvironment() throws Exception {
         ConcurrentTestRunner.builder()
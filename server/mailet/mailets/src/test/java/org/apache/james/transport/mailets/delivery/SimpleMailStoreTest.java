@@ -33,14 +33,19 @@ import org.apache.james.core.builder.MimeMessageBuilder;
 import org.apache.james.metrics.api.Metric;
 import org.apache.james.user.api.UsersRepository;
 import org.apache.james.user.api.UsersRepositoryException;
+import org.apache.mailet.PerRecipientHeaders.Header;
 import org.apache.mailet.base.MailAddressFixture;
 import org.apache.mailet.base.test.FakeMail;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 public class SimpleMailStoreTest {
 
     public static final String FOLDER = "FOLDER";
+    private static final Header HEADER_FOR_RECIPIENT = Header.builder().name("X-HEADER").value("value for recipient").build();
+    private static final Header HEADER_FOR_OTHER_RECIPIENT = Header.builder().name("X-HEADER").value("value for other recipient").build();
     private SimpleMailStore testee;
     private MailboxAppender mailboxAppender;
     private UsersRepository usersRepository;
@@ -74,7 +79,7 @@ public class SimpleMailStoreTest {
             .build();
         testee.storeMail(recipient, mail);
 
-        verify(mailboxAppender).append(any(MimeMessage.class), eq(Username.of(recipient.asString())), eq(FOLDER));
+        verify(mailboxAppender).append(any(MimeMessage.class), any(), eq(Username.of(recipient.asString())), eq(FOLDER));
     }
 
     @Test
@@ -87,7 +92,7 @@ public class SimpleMailStoreTest {
             .build();
         testee.storeMail(recipient, mail);
 
-        verify(mailboxAppender).append(any(MimeMessage.class), eq(Username.of(recipient.getLocalPart())), eq(FOLDER));
+        verify(mailboxAppender).append(any(MimeMessage.class), any(), eq(Username.of(recipient.getLocalPart())), eq(FOLDER));
     }
 
     @Test
@@ -100,6 +105,22 @@ public class SimpleMailStoreTest {
             .build();
         testee.storeMail(recipient, mail);
 
-        verify(mailboxAppender).append(any(MimeMessage.class), eq(Username.of(recipient.toString())), eq(FOLDER));
+        verify(mailboxAppender).append(any(MimeMessage.class), any(), eq(Username.of(recipient.toString())), eq(FOLDER));
+    }
+
+    @Test
+    public void storeMailShouldAppendTheHeadersSpecificToTheRecipient() throws Exception {
+        MailAddress recipient = MailAddressFixture.OTHER_AT_JAMES;
+        when(usersRepository.getUser(recipient)).thenReturn(Username.of(recipient.asString()));
+        FakeMail mail = FakeMail.builder()
+            .name("name")
+            .mimeMessage(mimeMessage)
+            .build();
+        mail.addSpecificHeaderForRecipient(HEADER_FOR_RECIPIENT, recipient);
+        mail.addSpecificHeaderForRecipient(HEADER_FOR_OTHER_RECIPIENT, MailAddressFixture.ANY_AT_JAMES);
+        testee.storeMail(recipient, mail);
+
+        verify(mailboxAppender).append(any(MimeMessage.class), eq(ImmutableList.of(HEADER_FOR_RECIPIENT)),
+            eq(Username.of(recipient.asString())), eq(FOLDER));
     }
 }
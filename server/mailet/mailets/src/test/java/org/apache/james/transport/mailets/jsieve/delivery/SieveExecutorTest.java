@@ -26,6 +26,7 @@ import static org.mockito.Mockito.mock;
 
 import org.apache.commons.logging.Log;
 import org.apache.james.core.builder.MimeMessageBuilder;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.server.core.MailImpl;
 import org.apache.james.transport.mailets.jsieve.ResourceLocator;
 import org.apache.mailet.base.test.FakeMailContext;
@@ -43,6 +44,7 @@ class SieveExecutorTest {
             .mailetContext(mailetContext)
             .sievePoster(mock(SievePoster.class))
             .resourceLocator(mock(ResourceLocator.class))
+            .scriptCache(new SieveScriptCache(new NoopGaugeRegistry()))
             .log(mock(Log.class))
             .build();
     }
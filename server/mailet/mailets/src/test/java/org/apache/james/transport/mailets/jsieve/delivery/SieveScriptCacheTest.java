@@ -0,0 +1,92 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.transport.mailets.jsieve.delivery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.logging.Log;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.jsieve.ConfigurationManager;
+import org.apache.jsieve.SieveFactory;
+import org.apache.jsieve.parser.generated.Node;
+import org.apache.jsieve.parser.generated.ParseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SieveScriptCacheTest {
+    static final String SCRIPT = "require \"fileinto\";\r\nfileinto \"INBOX.any\";";
+    static final String OTHER_SCRIPT = "keep;";
+
+    SieveFactory factory;
+    SieveScriptCache testee;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        configurationManager.setLog(mock(Log.class));
+        factory = configurationManager.build();
+        testee = new SieveScriptCache(new NoopGaugeRegistry(), 2);
+    }
+
+    @Test
+    void parseShouldReturnTheCachedTreeForTheSameContent() throws Exception {
+        Node first = testee.parse(factory, content(SCRIPT));
+
+        assertThat(testee.parse(factory, content(SCRIPT))).isSameAs(first);
+    }
+
+    @Test
+    void parseShouldParseAgainWhenTheContentChanged() throws Exception {
+        Node first = testee.parse(factory, content(SCRIPT));
+
+        assertThat(testee.parse(factory, content(OTHER_SCRIPT))).isNotSameAs(first);
+    }
+
+    @Test
+    void parseShouldBoundTheNumberOfCachedTrees() throws Exception {
+        testee.parse(factory, content(SCRIPT));
+        testee.parse(factory, content(OTHER_SCRIPT));
+        testee.parse(factory, content("discard;"));
+
+        assertThat(testee.size()).isEqualTo(2);
+    }
+
+    @Test
+    void parseShouldThrowOnInvalidScripts() {
+        assertThatThrownBy(() -> testee.parse(factory, content("fileinto \"INBOX\"")))
+            .isInstanceOf(ParseException.class);
+    }
+
+    @Test
+    void parseShouldNotCacheInvalidScripts() {
+        assertThatThrownBy(() -> testee.parse(factory, content("fileinto \"INBOX\"")));
+
+        assertThat(testee.size()).isZero();
+    }
+
+    private InputStream content(String script) {
+        return new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8));
+    }
+}
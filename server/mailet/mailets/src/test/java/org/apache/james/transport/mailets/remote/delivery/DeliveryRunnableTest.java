@@ -24,17 +24,24 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.apache.james.domainlist.api.DomainList;
 import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.apache.james.queue.api.MailQueue;
+import org.apache.james.utils.UpdatableTickingClock;
 import org.apache.mailet.Mail;
 import org.apache.mailet.base.test.FakeMail;
 import org.apache.mailet.base.test.FakeMailetConfig;
@@ -244,4 +251,109 @@ public class DeliveryRunnableTest {
             Duration.ofSeconds(1));
         verifyNoMoreInteractions(mailQueue);
     }
+
+    @Test
+    public void scheduleDeliveryShouldDeliverWhenDomainLaneAdmitsIt() throws Exception {
+        DeliveryRunnable testee = domainAwareTestee();
+        FakeMail fakeMail = FakeMail.builder().name("name").recipient("user@domain.com").build();
+        when(mailDelivrer.deliver(fakeMail)).thenReturn(ExecutionResult.success());
+
+        testee.scheduleDelivery(fakeMail).block();
+
+        assertThat(metricFactory.countFor(OUTGOING_MAILS))
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void scheduleDeliveryShouldDeferMailsToSuspendedDomains() throws Exception {
+        DeliveryRunnable testee = domainAwareTestee();
+        FakeMail failingMail = FakeMail.builder().name("failing").state(Mail.DEFAULT).recipient("user@domain.com").build();
+        FakeMail deferredMail = FakeMail.builder().name("deferred").state(Mail.DEFAULT).recipient("other@domain.com").build();
+        when(mailDelivrer.deliver(failingMail)).thenReturn(ExecutionResult.temporaryFailure(new Exception()));
+
+        testee.scheduleDelivery(failingMail).block();
+        testee.scheduleDelivery(deferredMail).block();
+
+        verify(mailDelivrer, never()).deliver(deferredMail);
+        verify(mailQueue).enQueue(deferredMail, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void deferringShouldNotConsumeRetries() throws Exception {
+        DeliveryRunnable testee = domainAwareTestee();
+        FakeMail failingMail = FakeMail.builder().name("failing").state(Mail.DEFAULT).recipient("user@domain.com").build();
+        FakeMail deferredMail = FakeMail.builder()
+            .name("deferred")
+            .state(Mail.ERROR)
+            .attribute(DeliveryRetriesHelper.makeAttribute(2))
+            .recipient("other@domain.com")
+            .build();
+        when(mailDelivrer.deliver(failingMail)).thenReturn(ExecutionResult.temporaryFailure(new Exception()));
+
+        testee.scheduleDelivery(failingMail).block();
+        testee.scheduleDelivery(deferredMail).block();
+
+        verify(mailQueue).enQueue(FakeMail.builder()
+                .name("deferred")
+                .state(Mail.ERROR)
+                .attribute(DeliveryRetriesHelper.makeAttribute(2))
+                .recipient("other@domain.com")
+                .build(),
+            Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void scheduleDeliveryShouldNotDeferMailsToOtherDomains() throws Exception {
+        DeliveryRunnable testee = domainAwareTestee();
+        FakeMail failingMail = FakeMail.builder().name("failing").state(Mail.DEFAULT).recipient("user@domain.com").build();
+        FakeMail otherMail = FakeMail.builder().name("other").recipient("user@other.com").build();
+        when(mailDelivrer.deliver(failingMail)).thenReturn(ExecutionResult.temporaryFailure(new Exception()));
+        when(mailDelivrer.deliver(otherMail)).thenReturn(ExecutionResult.success());
+
+        testee.scheduleDelivery(failingMail).block();
+        testee.scheduleDelivery(otherMail).block();
+
+        assertThat(metricFactory.countFor(OUTGOING_MAILS))
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void scheduleDeliveryShouldDeliverMailsAboveTheDomainLimitOnceASlotIsFreed() throws Exception {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "1")
+            .build();
+        RemoteDeliveryConfiguration configuration = new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+        DeliveryRunnable testee = new DeliveryRunnable(mailQueue, configuration, metricFactory, bouncer, mailDelivrer, FIXED_DATE_SUPPLIER);
+        FakeMail slowMail = FakeMail.builder().name("slow").recipient("user@domain.com").build();
+        FakeMail deferredMail = FakeMail.builder().name("deferred").recipient("other@domain.com").build();
+        CountDownLatch slowDeliveryLatch = new CountDownLatch(1);
+        when(mailDelivrer.deliver(slowMail)).then(invocation -> {
+            slowDeliveryLatch.await();
+            return ExecutionResult.success();
+        });
+        when(mailDelivrer.deliver(deferredMail)).thenReturn(ExecutionResult.success());
+
+        CompletableFuture<Void> slowDelivery = testee.scheduleDelivery(slowMail).toFuture();
+        CompletableFuture<Void> deferredDelivery = testee.scheduleDelivery(deferredMail).toFuture();
+        assertThat(deferredDelivery).isNotDone();
+        slowDeliveryLatch.countDown();
+        slowDelivery.get(5, TimeUnit.SECONDS);
+        deferredDelivery.get(5, TimeUnit.SECONDS);
+
+        assertThat(metricFactory.countFor(OUTGOING_MAILS))
+            .isEqualTo(2);
+        verifyZeroInteractions(mailQueue);
+    }
+
+    private DeliveryRunnable domainAwareTestee() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.DELAY_TIME, "1000,2000,3000,4000,5000")
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_FAILURE_THRESHOLD, "1")
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_BACKOFF, "1 minute")
+            .build();
+        RemoteDeliveryConfiguration configuration = new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+        DomainDeliveryScheduler domainDeliveryScheduler = new DomainDeliveryScheduler(configuration, metricFactory,
+            new UpdatableTickingClock(Instant.parse("2020-01-01T10:00:00Z")));
+        return new DeliveryRunnable(mailQueue, configuration, metricFactory, bouncer, mailDelivrer, domainDeliveryScheduler, FIXED_DATE_SUPPLIER);
+    }
 }
@@ -0,0 +1,326 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.transport.mailets.remote.delivery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.core.Domain;
+import org.apache.james.domainlist.api.DomainList;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.apache.mailet.base.test.FakeMailetConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DomainDeliveryLaneTest {
+    private static final Instant NOW = Instant.parse("2020-01-01T10:00:00Z");
+    private static final Domain DOMAIN = Domain.of("domain.com");
+    private static final Optional<ExecutionResult.ExecutionState> SUCCESS = Optional.of(ExecutionResult.ExecutionState.SUCCESS);
+    private static final Optional<ExecutionResult.ExecutionState> PERMANENT_FAILURE = Optional.of(ExecutionResult.ExecutionState.PERMANENT_FAILURE);
+    private static final Optional<ExecutionResult.ExecutionState> TEMPORARY_FAILURE = Optional.of(ExecutionResult.ExecutionState.TEMPORARY_FAILURE);
+    private static final long RESUMPTION_TIMEOUT_SECONDS = 5;
+
+    private UpdatableTickingClock clock;
+    private RecordingMetricFactory metricFactory;
+
+    @Before
+    public void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        metricFactory = new RecordingMetricFactory();
+    }
+
+    private DomainDeliveryLane lane(FakeMailetConfig.Builder mailetConfig) {
+        return new DomainDeliveryLane(DOMAIN, DOMAIN.asString(), new RemoteDeliveryConfiguration(mailetConfig.build(), mock(DomainList.class)), metricFactory, clock);
+    }
+
+    private DomainDeliveryLane breakingLane() {
+        return lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_FAILURE_THRESHOLD, "2")
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_BACKOFF, "1 minute")
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_MAX_BACKOFF, "3 minutes"));
+    }
+
+    private Optional<Duration> acquireNow(DomainDeliveryLane lane) {
+        CompletableFuture<Optional<Duration>> admission = lane.acquire().toFuture();
+        assertThat(admission).isDone();
+        return admission.join();
+    }
+
+    private Optional<Duration> awaitResumption(CompletableFuture<Optional<Duration>> deferredDelivery) throws Exception {
+        return deferredDelivery.get(RESUMPTION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void failTemporarily(DomainDeliveryLane lane) {
+        assertThat(acquireNow(lane)).isEmpty();
+        lane.release(TEMPORARY_FAILURE);
+    }
+
+    private void suspendThenElapseBackoff(DomainDeliveryLane lane) {
+        failTemporarily(lane);
+        failTemporarily(lane);
+        clock.setInstant(NOW.plus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void acquireShouldAdmitDeliveriesWhenUnlimited() {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder());
+
+        assertThat(acquireNow(testee)).isEmpty();
+        assertThat(acquireNow(testee)).isEmpty();
+        assertThat(acquireNow(testee)).isEmpty();
+    }
+
+    @Test
+    public void acquireShouldDeferDeliveriesAboveConcurrencyLimit() {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "2"));
+
+        acquireNow(testee);
+        acquireNow(testee);
+
+        assertThat(testee.acquire().toFuture()).isNotDone();
+    }
+
+    @Test
+    public void releaseShouldStartDeferredDeliveries() throws Exception {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "1"));
+        acquireNow(testee);
+        CompletableFuture<Optional<Duration>> deferredDelivery = testee.acquire().toFuture();
+
+        testee.release(SUCCESS);
+
+        assertThat(awaitResumption(deferredDelivery)).isEmpty();
+    }
+
+    @Test
+    public void releaseShouldStartDeferredDeliveriesInOrder() throws Exception {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "1"));
+        acquireNow(testee);
+        CompletableFuture<Optional<Duration>> firstDeferredDelivery = testee.acquire().toFuture();
+        CompletableFuture<Optional<Duration>> secondDeferredDelivery = testee.acquire().toFuture();
+
+        testee.release(SUCCESS);
+
+        assertThat(awaitResumption(firstDeferredDelivery)).isEmpty();
+        assertThat(secondDeferredDelivery).isNotDone();
+    }
+
+    @Test
+    public void acquireShouldHandBackDeliveriesWhenTooManyAreDeferred() {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "1")
+            .setProperty(RemoteDeliveryConfiguration.MAX_DEFERRED_DELIVERIES_PER_DOMAIN, "1"));
+        acquireNow(testee);
+        testee.acquire().toFuture();
+
+        assertThat(acquireNow(testee)).contains(DomainDeliveryLane.FULL_LANE_DEFERRAL);
+    }
+
+    @Test
+    public void releaseShouldAllowNewDeliveries() {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "1"));
+
+        acquireNow(testee);
+        testee.release(SUCCESS);
+
+        assertThat(acquireNow(testee)).isEmpty();
+    }
+
+    @Test
+    public void acquireShouldDeferDeliveriesAboveRateLimit() {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_DELIVERIES_PER_SECOND_PER_DOMAIN, "2"));
+
+        acquireNow(testee);
+        clock.setInstant(NOW.plusMillis(300));
+        acquireNow(testee);
+
+        assertThat(testee.acquire().toFuture()).isNotDone();
+    }
+
+    @Test
+    public void deferredDeliveriesShouldStartOnceTheRateWindowElapsed() throws Exception {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_DELIVERIES_PER_SECOND_PER_DOMAIN, "1"));
+        acquireNow(testee);
+        CompletableFuture<Optional<Duration>> deferredDelivery = testee.acquire().toFuture();
+
+        clock.setInstant(NOW.plusSeconds(1));
+
+        assertThat(awaitResumption(deferredDelivery)).isEmpty();
+    }
+
+    @Test
+    public void rateLimitShouldResetEachSecond() {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_DELIVERIES_PER_SECOND_PER_DOMAIN, "1"));
+
+        acquireNow(testee);
+        clock.setInstant(NOW.plusSeconds(1));
+
+        assertThat(acquireNow(testee)).isEmpty();
+    }
+
+    @Test
+    public void acquireShouldAdmitDeliveriesBelowFailureThreshold() {
+        DomainDeliveryLane testee = breakingLane();
+
+        failTemporarily(testee);
+
+        assertThat(acquireNow(testee)).isEmpty();
+    }
+
+    @Test
+    public void acquireShouldHandBackDeliveriesForBackoffWhenFailureThresholdReached() {
+        DomainDeliveryLane testee = breakingLane();
+
+        failTemporarily(testee);
+        failTemporarily(testee);
+
+        assertThat(acquireNow(testee)).contains(Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void successShouldResetConsecutiveFailures() {
+        DomainDeliveryLane testee = breakingLane();
+
+        failTemporarily(testee);
+        acquireNow(testee);
+        testee.release(SUCCESS);
+        failTemporarily(testee);
+
+        assertThat(acquireNow(testee)).isEmpty();
+    }
+
+    @Test
+    public void permanentFailureShouldResetConsecutiveFailures() {
+        DomainDeliveryLane testee = breakingLane();
+
+        failTemporarily(testee);
+        acquireNow(testee);
+        testee.release(PERMANENT_FAILURE);
+        failTemporarily(testee);
+
+        assertThat(acquireNow(testee)).isEmpty();
+    }
+
+    @Test
+    public void releaseWithoutOutcomeShouldNotCountAsFailure() {
+        DomainDeliveryLane testee = breakingLane();
+
+        failTemporarily(testee);
+        acquireNow(testee);
+        testee.release(Optional.empty());
+
+        assertThat(acquireNow(testee)).isEmpty();
+    }
+
+    @Test
+    public void acquireShouldAdmitASingleTrialOnceBackoffElapsed() {
+        DomainDeliveryLane testee = breakingLane();
+        suspendThenElapseBackoff(testee);
+
+        assertThat(acquireNow(testee)).isEmpty();
+        assertThat(testee.acquire().toFuture()).isNotDone();
+    }
+
+    @Test
+    public void trialSuccessShouldResumeDeliveries() {
+        DomainDeliveryLane testee = breakingLane();
+        suspendThenElapseBackoff(testee);
+
+        acquireNow(testee);
+        testee.release(SUCCESS);
+
+        assertThat(acquireNow(testee)).isEmpty();
+        assertThat(acquireNow(testee)).isEmpty();
+    }
+
+    @Test
+    public void trialSuccessShouldStartDeferredDeliveries() throws Exception {
+        DomainDeliveryLane testee = breakingLane();
+        suspendThenElapseBackoff(testee);
+        acquireNow(testee);
+        CompletableFuture<Optional<Duration>> deferredDelivery = testee.acquire().toFuture();
+
+        testee.release(SUCCESS);
+
+        assertThat(awaitResumption(deferredDelivery)).isEmpty();
+    }
+
+    @Test
+    public void trialFailureShouldHandBackDeferredDeliveriesForTheNewBackoff() throws Exception {
+        DomainDeliveryLane testee = breakingLane();
+        suspendThenElapseBackoff(testee);
+        acquireNow(testee);
+        CompletableFuture<Optional<Duration>> deferredDelivery = testee.acquire().toFuture();
+
+        testee.release(TEMPORARY_FAILURE);
+
+        assertThat(awaitResumption(deferredDelivery)).contains(Duration.ofMinutes(2));
+    }
+
+    @Test
+    public void trialFailureShouldDoubleBackoff() {
+        DomainDeliveryLane testee = breakingLane();
+        suspendThenElapseBackoff(testee);
+
+        failTemporarily(testee);
+
+        assertThat(acquireNow(testee)).contains(Duration.ofMinutes(2));
+    }
+
+    @Test
+    public void backoffShouldNotExceedMaxBackoff() {
+        DomainDeliveryLane testee = breakingLane();
+        suspendThenElapseBackoff(testee);
+        failTemporarily(testee);
+        clock.setInstant(NOW.plus(Duration.ofMinutes(3)));
+
+        failTemporarily(testee);
+
+        assertThat(acquireNow(testee)).contains(Duration.ofMinutes(3));
+    }
+
+    @Test
+    public void metricsShouldTrackInFlightAndCurrentlyDeferredDeliveries() throws Exception {
+        DomainDeliveryLane testee = lane(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "2"));
+
+        acquireNow(testee);
+        acquireNow(testee);
+        CompletableFuture<Optional<Duration>> deferredDelivery = testee.acquire().toFuture();
+        testee.acquire().toFuture();
+        testee.release(SUCCESS);
+        awaitResumption(deferredDelivery);
+
+        assertThat(metricFactory.countFor(DomainDeliveryLane.IN_FLIGHT_METRIC_PREFIX + "domain.com")).isEqualTo(2);
+        assertThat(metricFactory.countFor(DomainDeliveryLane.DEFERRED_METRIC_PREFIX + "domain.com")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,125 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.transport.mailets.remote.delivery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.domainlist.api.DomainList;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.mailet.base.test.FakeMail;
+import org.apache.mailet.base.test.FakeMailetConfig;
+import org.junit.Test;
+
+public class DomainDeliverySchedulerTest {
+
+    private DomainDeliveryScheduler scheduler(FakeMailetConfig.Builder mailetConfig) {
+        return new DomainDeliveryScheduler(new RemoteDeliveryConfiguration(mailetConfig.build(), mock(DomainList.class)),
+            new RecordingMetricFactory());
+    }
+
+    private DomainDeliveryScheduler enabledScheduler() {
+        return scheduler(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "2"));
+    }
+
+    @Test
+    public void schedulerShouldBeDisabledByDefault() {
+        assertThat(scheduler(FakeMailetConfig.builder()).isEnabled()).isFalse();
+    }
+
+    @Test
+    public void schedulerShouldBeEnabledWhenARateLimitIsConfigured() {
+        assertThat(scheduler(FakeMailetConfig.builder()
+                .setProperty(RemoteDeliveryConfiguration.MAX_DELIVERIES_PER_SECOND_PER_DOMAIN, "10"))
+            .isEnabled())
+            .isTrue();
+    }
+
+    @Test
+    public void schedulerShouldBeEnabledWhenAFailureThresholdIsConfigured() {
+        assertThat(scheduler(FakeMailetConfig.builder()
+                .setProperty(RemoteDeliveryConfiguration.DOMAIN_FAILURE_THRESHOLD, "5"))
+            .isEnabled())
+            .isTrue();
+    }
+
+    @Test
+    public void laneForShouldReturnEmptyWhenDisabled() throws Exception {
+        FakeMail mail = FakeMail.builder().name("name").recipient("user@domain.com").build();
+
+        assertThat(scheduler(FakeMailetConfig.builder()).laneFor(mail)).isEmpty();
+    }
+
+    @Test
+    public void laneForShouldReturnEmptyWhenNoRecipients() throws Exception {
+        FakeMail mail = FakeMail.builder().name("name").build();
+
+        assertThat(enabledScheduler().laneFor(mail)).isEmpty();
+    }
+
+    @Test
+    public void laneForShouldReturnTheSameLaneForMailsToTheSameDomain() throws Exception {
+        DomainDeliveryScheduler testee = enabledScheduler();
+        FakeMail mail1 = FakeMail.builder().name("name1").recipient("user1@domain.com").build();
+        FakeMail mail2 = FakeMail.builder().name("name2").recipient("user2@domain.com").build();
+
+        assertThat(testee.laneFor(mail1)).containsSame(testee.laneFor(mail2).get());
+    }
+
+    @Test
+    public void laneForShouldReturnDistinctLanesForDistinctDomains() throws Exception {
+        DomainDeliveryScheduler testee = enabledScheduler();
+        FakeMail mail1 = FakeMail.builder().name("name1").recipient("user@domain.com").build();
+        FakeMail mail2 = FakeMail.builder().name("name2").recipient("user@other.com").build();
+
+        assertThat(testee.laneFor(mail1).get()).isNotSameAs(testee.laneFor(mail2).get());
+    }
+
+    @Test
+    public void laneForShouldUseTheDomainOfTheFirstRecipient() throws Exception {
+        DomainDeliveryScheduler testee = enabledScheduler();
+        FakeMail mail1 = FakeMail.builder().name("name1")
+            .recipients(new MailAddress("user@domain.com"), new MailAddress("user@other.com"))
+            .build();
+        FakeMail mail2 = FakeMail.builder().name("name2").recipient("user2@domain.com").build();
+
+        assertThat(testee.laneFor(mail1)).containsSame(testee.laneFor(mail2).get());
+    }
+
+    @Test
+    public void lanesBeyondTheMetricsLimitShouldShareMetrics() throws Exception {
+        RecordingMetricFactory metricFactory = new RecordingMetricFactory();
+        DomainDeliveryScheduler testee = new DomainDeliveryScheduler(new RemoteDeliveryConfiguration(FakeMailetConfig.builder()
+                .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "2")
+                .build(), mock(DomainList.class)),
+            metricFactory);
+        for (int i = 0; i < DomainDeliveryScheduler.MAX_DOMAINS_WITH_METRICS; i++) {
+            testee.laneFor(FakeMail.builder().name("name" + i).recipient("user@domain" + i + ".com").build());
+        }
+
+        testee.laneFor(FakeMail.builder().name("other").recipient("user@other.com").build()).get().acquire().block();
+
+        assertThat(metricFactory.countFor(DomainDeliveryLane.IN_FLIGHT_METRIC_PREFIX + DomainDeliveryScheduler.OTHER_DOMAINS_METRIC_SCOPE))
+            .isEqualTo(1);
+        assertThat(metricFactory.countFor(DomainDeliveryLane.IN_FLIGHT_METRIC_PREFIX + "other.com"))
+            .isEqualTo(0);
+    }
+}
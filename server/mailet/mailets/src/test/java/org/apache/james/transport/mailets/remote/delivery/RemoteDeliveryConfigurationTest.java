@@ -194,6 +194,192 @@ public class RemoteDeliveryConfigurationTest {
             .isEqualTo(-1);
     }
 
+    @Test
+    public void getMaxMessagesPerConnectionShouldReturnDefault() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getMaxMessagesPerConnection())
+            .isEqualTo(RemoteDeliveryConfiguration.DEFAULT_MAX_MESSAGES_PER_CONNECTION);
+    }
+
+    @Test
+    public void getMaxMessagesPerConnectionShouldReturnProvidedValue() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_MESSAGES_PER_CONNECTION, "100")
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getMaxMessagesPerConnection())
+            .isEqualTo(100);
+    }
+
+    @Test
+    public void constructorShouldThrowOnZeroMaxMessagesPerConnection() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_MESSAGES_PER_CONNECTION, "0")
+            .build();
+
+        expectedException.expect(IllegalArgumentException.class);
+
+        new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+    }
+
+    @Test
+    public void getMaxIdleConnectionsPerHostShouldReturnDefault() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getMaxIdleConnectionsPerHost())
+            .isEqualTo(RemoteDeliveryConfiguration.DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST);
+    }
+
+    @Test
+    public void getMaxIdleConnectionsPerHostShouldReturnProvidedValue() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_IDLE_CONNECTIONS_PER_HOST, "8")
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getMaxIdleConnectionsPerHost())
+            .isEqualTo(8);
+    }
+
+    @Test
+    public void constructorShouldThrowOnNegativeMaxIdleConnectionsPerHost() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_IDLE_CONNECTIONS_PER_HOST, "-1")
+            .build();
+
+        expectedException.expect(IllegalArgumentException.class);
+
+        new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+    }
+
+    @Test
+    public void getConnectionIdleTimeoutShouldReturnDefault() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getConnectionIdleTimeout())
+            .isEqualTo(RemoteDeliveryConfiguration.DEFAULT_CONNECTION_IDLE_TIMEOUT);
+    }
+
+    @Test
+    public void getConnectionIdleTimeoutShouldReturnProvidedValue() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.CONNECTION_IDLE_TIMEOUT, "2 minutes")
+            .build();
+
+        assertThat(new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class)).getConnectionIdleTimeout())
+            .isEqualTo(Duration.ofMinutes(2));
+    }
+
+    @Test
+    public void constructorShouldThrowOnZeroConnectionIdleTimeout() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.CONNECTION_IDLE_TIMEOUT, "0")
+            .build();
+
+        expectedException.expect(IllegalArgumentException.class);
+
+        new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+    }
+
+    @Test
+    public void domainSchedulingLimitsShouldBeAbsentByDefault() {
+        RemoteDeliveryConfiguration configuration = new RemoteDeliveryConfiguration(FakeMailetConfig.builder().build(), mock(DomainList.class));
+
+        assertThat(configuration.getMaxConcurrentDeliveriesPerDomain()).isEmpty();
+        assertThat(configuration.getMaxDeliveriesPerSecondPerDomain()).isEmpty();
+        assertThat(configuration.getDomainFailureThreshold()).isEmpty();
+    }
+
+    @Test
+    public void domainSchedulingLimitsShouldReturnProvidedValues() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "5")
+            .setProperty(RemoteDeliveryConfiguration.MAX_DELIVERIES_PER_SECOND_PER_DOMAIN, "10")
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_FAILURE_THRESHOLD, "3")
+            .build();
+
+        RemoteDeliveryConfiguration configuration = new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+
+        assertThat(configuration.getMaxConcurrentDeliveriesPerDomain()).contains(5);
+        assertThat(configuration.getMaxDeliveriesPerSecondPerDomain()).contains(10);
+        assertThat(configuration.getDomainFailureThreshold()).contains(3);
+    }
+
+    @Test
+    public void constructorShouldThrowOnZeroMaxConcurrentDeliveriesPerDomain() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_CONCURRENT_DELIVERIES_PER_DOMAIN, "0")
+            .build();
+
+        expectedException.expect(IllegalArgumentException.class);
+
+        new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+    }
+
+    @Test
+    public void maxDeferredDeliveriesPerDomainShouldReturnDefault() {
+        RemoteDeliveryConfiguration configuration = new RemoteDeliveryConfiguration(FakeMailetConfig.builder().build(), mock(DomainList.class));
+
+        assertThat(configuration.getMaxDeferredDeliveriesPerDomain()).isEqualTo(RemoteDeliveryConfiguration.DEFAULT_MAX_DEFERRED_DELIVERIES_PER_DOMAIN);
+    }
+
+    @Test
+    public void maxDeferredDeliveriesPerDomainShouldReturnProvidedValue() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_DEFERRED_DELIVERIES_PER_DOMAIN, "4")
+            .build();
+
+        RemoteDeliveryConfiguration configuration = new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+
+        assertThat(configuration.getMaxDeferredDeliveriesPerDomain()).isEqualTo(4);
+    }
+
+    @Test
+    public void constructorShouldThrowOnZeroMaxDeferredDeliveriesPerDomain() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_DEFERRED_DELIVERIES_PER_DOMAIN, "0")
+            .build();
+
+        expectedException.expect(IllegalArgumentException.class);
+
+        new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+    }
+
+    @Test
+    public void domainBackoffsShouldReturnDefaults() {
+        RemoteDeliveryConfiguration configuration = new RemoteDeliveryConfiguration(FakeMailetConfig.builder().build(), mock(DomainList.class));
+
+        assertThat(configuration.getDomainBackoff()).isEqualTo(RemoteDeliveryConfiguration.DEFAULT_DOMAIN_BACKOFF);
+        assertThat(configuration.getDomainMaxBackoff()).isEqualTo(RemoteDeliveryConfiguration.DEFAULT_DOMAIN_MAX_BACKOFF);
+    }
+
+    @Test
+    public void domainBackoffsShouldReturnProvidedValues() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_BACKOFF, "5 minutes")
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_MAX_BACKOFF, "2 hours")
+            .build();
+
+        RemoteDeliveryConfiguration configuration = new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+
+        assertThat(configuration.getDomainBackoff()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(configuration.getDomainMaxBackoff()).isEqualTo(Duration.ofHours(2));
+    }
+
+    @Test
+    public void constructorShouldThrowWhenDomainMaxBackoffIsLowerThanDomainBackoff() {
+        FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.DOMAIN_BACKOFF, "2 hours")
+            .build();
+
+        expectedException.expect(IllegalArgumentException.class);
+
+        new RemoteDeliveryConfiguration(mailetConfig, mock(DomainList.class));
+    }
+
     @Test
     public void isSendPartialShouldBeFalseByDefault() {
         FakeMailetConfig mailetConfig = FakeMailetConfig.builder()
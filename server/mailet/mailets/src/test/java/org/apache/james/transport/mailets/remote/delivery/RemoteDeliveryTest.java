@@ -22,7 +22,11 @@ package org.apache.james.transport.mailets.remote.delivery;
 import static org.apache.mailet.base.MailAddressFixture.JAMES_APACHE_ORG;
 import static org.apache.mailet.base.MailAddressFixture.JAMES_APACHE_ORG_DOMAIN;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
 
 import java.util.Collection;
 import java.util.List;
@@ -36,6 +40,7 @@ import org.apache.james.domainlist.lib.DomainListConfiguration;
 import org.apache.james.domainlist.memory.MemoryDomainList;
 import org.apache.james.metrics.api.NoopMetricFactory;
 import org.apache.james.queue.api.MailPrioritySupport;
+import org.apache.james.queue.api.MailQueue;
 import org.apache.james.queue.api.MailQueueFactory;
 import org.apache.james.queue.api.ManageableMailQueue;
 import org.apache.james.queue.api.RawMailQueueItemDecoratorFactory;
@@ -153,6 +158,47 @@ public class RemoteDeliveryTest {
                     .build()));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void remoteDeliveryShouldEnqueueAgainTheMailsABatchFailedToEnqueue() throws Exception {
+        ManageableMailQueue partiallyFailingQueue = spy(mailQueue);
+        doAnswer(invocation -> {
+            List<Mail> mails = ImmutableList.copyOf(invocation.<Collection<Mail>>getArgument(0));
+            for (Mail mail : mails.subList(1, mails.size())) {
+                mailQueue.enQueue(mail);
+            }
+            throw new MailQueue.PartialEnqueueException(mails.subList(0, 1), new RuntimeException());
+        }).when(partiallyFailingQueue).enQueue(anyCollection());
+        MailQueueFactory<ManageableMailQueue> queueFactory = mock(MailQueueFactory.class);
+        when(queueFactory.createQueue(RemoteDeliveryConfiguration.OUTGOING)).thenReturn(partiallyFailingQueue);
+        DNSService dnsService = mock(DNSService.class);
+        MemoryDomainList domainList = new MemoryDomainList(dnsService);
+        domainList.configure(DomainListConfiguration.builder().defaultDomain(JAMES_APACHE_ORG_DOMAIN));
+        remoteDelivery = new RemoteDelivery(dnsService, domainList,
+            queueFactory, new NoopMetricFactory(), RemoteDelivery.ThreadState.DO_NOT_START_THREADS);
+        remoteDelivery.init(FakeMailetConfig.builder()
+            .build());
+
+        Mail mail = FakeMail.builder()
+            .name(MAIL_NAME)
+            .recipients(MailAddressFixture.ANY_AT_JAMES, MailAddressFixture.ANY_AT_JAMES2)
+            .build();
+        remoteDelivery.service(mail);
+
+        assertThat(mailQueue.browse())
+            .toIterable()
+            .extracting(MailProjection::from)
+            .containsOnly(
+                MailProjection.from(FakeMail.builder()
+                    .name(MAIL_NAME + RemoteDelivery.NAME_JUNCTION + JAMES_APACHE_ORG)
+                    .recipients(MailAddressFixture.ANY_AT_JAMES)
+                    .build()),
+                MailProjection.from(FakeMail.builder()
+                    .name(MAIL_NAME + RemoteDelivery.NAME_JUNCTION + MailAddressFixture.JAMES2_APACHE_ORG)
+                    .recipients(MailAddressFixture.ANY_AT_JAMES2)
+                    .build()));
+    }
+
     @Test
     public void remoteDeliveryShouldNotSplitMailsByServerWhenGateway() throws Exception {
         remoteDelivery.init(FakeMailetConfig.builder()
@@ -0,0 +1,197 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.transport.mailets.remote.delivery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.james.domainlist.api.DomainList;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.apache.mailet.HostAddress;
+import org.apache.mailet.base.test.FakeMailetConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.mail.smtp.SMTPTransport;
+
+@SuppressWarnings("deprecation")
+public class SMTPConnectionPoolTest {
+    private static final Instant NOW = Instant.parse("2020-01-01T10:00:00Z");
+    private static final HostAddress SERVER = new HostAddress("mx.domain.com", "smtp://192.0.2.1:25");
+    private static final HostAddress OTHER_SERVER = new HostAddress("mx.other.com", "smtp://192.0.2.2:25");
+
+    private UpdatableTickingClock clock;
+    private RecordingMetricFactory metricFactory;
+    private SMTPConnectionPool testee;
+
+    @Before
+    public void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        metricFactory = new RecordingMetricFactory();
+        testee = new SMTPConnectionPool(configuration(3, 2), metricFactory, clock);
+    }
+
+    @After
+    public void tearDown() {
+        testee.dispose();
+    }
+
+    private RemoteDeliveryConfiguration configuration(int maxMessagesPerConnection, int maxIdleConnectionsPerHost) {
+        return new RemoteDeliveryConfiguration(FakeMailetConfig.builder()
+            .setProperty(RemoteDeliveryConfiguration.MAX_MESSAGES_PER_CONNECTION, String.valueOf(maxMessagesPerConnection))
+            .setProperty(RemoteDeliveryConfiguration.MAX_IDLE_CONNECTIONS_PER_HOST, String.valueOf(maxIdleConnectionsPerHost))
+            .setProperty(RemoteDeliveryConfiguration.CONNECTION_IDLE_TIMEOUT, "30s")
+            .build(), mock(DomainList.class));
+    }
+
+    private SMTPTransport connectedTransport() {
+        SMTPTransport transport = mock(SMTPTransport.class);
+        when(transport.isConnected()).thenReturn(true);
+        return transport;
+    }
+
+    @Test
+    public void borrowShouldReturnEmptyWhenNoIdleConnection() {
+        assertThat(testee.borrow(SERVER)).isEmpty();
+    }
+
+    @Test
+    public void borrowShouldReturnReleasedConnection() {
+        SMTPConnectionPool.PooledTransport pooledTransport = testee.newConnection(connectedTransport());
+
+        assertThat(testee.release(SERVER, pooledTransport)).isTrue();
+
+        assertThat(testee.borrow(SERVER)).contains(pooledTransport);
+    }
+
+    @Test
+    public void borrowShouldNotReturnConnectionsOfOtherServers() {
+        testee.release(SERVER, testee.newConnection(connectedTransport()));
+
+        assertThat(testee.borrow(OTHER_SERVER)).isEmpty();
+    }
+
+    @Test
+    public void borrowShouldNotReturnTwiceTheSameConnection() {
+        testee.release(SERVER, testee.newConnection(connectedTransport()));
+        testee.borrow(SERVER);
+
+        assertThat(testee.borrow(SERVER)).isEmpty();
+    }
+
+    @Test
+    public void borrowShouldCloseAndSkipDisconnectedConnections() throws Exception {
+        SMTPTransport transport = connectedTransport();
+        testee.release(SERVER, testee.newConnection(transport));
+        when(transport.isConnected()).thenReturn(false);
+
+        assertThat(testee.borrow(SERVER)).isEmpty();
+        verify(transport).close();
+    }
+
+    @Test
+    public void borrowShouldCloseAndSkipExpiredConnections() throws Exception {
+        SMTPTransport transport = connectedTransport();
+        testee.release(SERVER, testee.newConnection(transport));
+        clock.setInstant(NOW.plus(Duration.ofSeconds(30)));
+
+        assertThat(testee.borrow(SERVER)).isEmpty();
+        verify(transport).close();
+    }
+
+    @Test
+    public void releaseShouldRefuseConnectionsThatSentMaxMessages() {
+        SMTPConnectionPool.PooledTransport pooledTransport = testee.newConnection(connectedTransport());
+        testee.release(SERVER, pooledTransport);
+        testee.borrow(SERVER);
+        testee.release(SERVER, pooledTransport);
+        testee.borrow(SERVER);
+
+        assertThat(testee.release(SERVER, pooledTransport)).isFalse();
+    }
+
+    @Test
+    public void releaseShouldRefuseConnectionsAboveMaxIdleConnectionsPerHost() {
+        testee.release(SERVER, testee.newConnection(connectedTransport()));
+        testee.release(SERVER, testee.newConnection(connectedTransport()));
+
+        assertThat(testee.release(SERVER, testee.newConnection(connectedTransport()))).isFalse();
+    }
+
+    @Test
+    public void releaseShouldRefuseConnectionsWhenDisabled() {
+        SMTPConnectionPool disabledPool = new SMTPConnectionPool(configuration(1, 2), metricFactory, clock);
+
+        assertThat(disabledPool.release(SERVER, disabledPool.newConnection(connectedTransport()))).isFalse();
+    }
+
+    @Test
+    public void releaseShouldRefuseConnectionsOnceDisposed() {
+        testee.dispose();
+
+        assertThat(testee.release(SERVER, testee.newConnection(connectedTransport()))).isFalse();
+    }
+
+    @Test
+    public void evictExpiredConnectionsShouldCloseExpiredConnections() throws Exception {
+        SMTPTransport expiredTransport = connectedTransport();
+        testee.release(SERVER, testee.newConnection(expiredTransport));
+        clock.setInstant(NOW.plus(Duration.ofSeconds(20)));
+        SMTPTransport recentTransport = connectedTransport();
+        SMTPConnectionPool.PooledTransport recentConnection = testee.newConnection(recentTransport);
+        testee.release(SERVER, recentConnection);
+        clock.setInstant(NOW.plus(Duration.ofSeconds(40)));
+
+        testee.evictExpiredConnections();
+
+        verify(expiredTransport).close();
+        verify(recentTransport, never()).close();
+        assertThat(testee.borrow(SERVER)).contains(recentConnection);
+    }
+
+    @Test
+    public void disposeShouldCloseIdleConnections() throws Exception {
+        SMTPTransport transport = connectedTransport();
+        testee.release(SERVER, testee.newConnection(transport));
+
+        testee.dispose();
+
+        verify(transport).close();
+    }
+
+    @Test
+    public void metricsShouldRecordOpenedReusedAndIdleConnections() {
+        SMTPConnectionPool.PooledTransport pooledTransport = testee.newConnection(connectedTransport());
+        testee.release(SERVER, pooledTransport);
+        testee.borrow(SERVER);
+        testee.release(SERVER, pooledTransport);
+
+        assertThat(metricFactory.countFor(SMTPConnectionPool.OPENED_CONNECTIONS_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(SMTPConnectionPool.REUSED_CONNECTIONS_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(SMTPConnectionPool.IDLE_CONNECTIONS_METRIC_NAME)).isEqualTo(1);
+    }
+}
@@ -23,15 +23,18 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.james.imap.encode.ImapResponseWriter;
 import org.apache.james.imap.message.response.Literal;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.DefaultFileRegion;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 import org.jboss.netty.handler.codec.compression.ZlibEncoder;
+import org.jboss.netty.handler.execution.ExecutionHandler;
 import org.jboss.netty.handler.ssl.SslHandler;
 import org.jboss.netty.handler.stream.ChunkedNioFile;
 import org.jboss.netty.handler.stream.ChunkedStream;
@@ -39,19 +42,31 @@ import org.jboss.netty.handler.stream.ChunkedStream;
 /**
  * {@link ImapResponseWriter} implementation which writes the data to a
  * {@link Channel}
+ *
+ * Literals are streamed to the channel. When the literals waiting to be written exceed maxPendingLiteralBytes, the
+ * caller waits for them to be flushed, so that slow clients do not make the server buffer whole FETCH responses.
  */
 public class ChannelImapResponseWriter implements ImapResponseWriter {
+    public static final long DEFAULT_MAX_PENDING_LITERAL_BYTES = 4 * 1024 * 1024;
 
     private final Channel channel;
     private final boolean zeroCopy;
+    private final long maxPendingLiteralBytes;
+    private final AtomicLong pendingLiteralBytes;
 
     public ChannelImapResponseWriter(Channel channel) {
         this(channel, true);
     }
 
     public ChannelImapResponseWriter(Channel channel, boolean zeroCopy) {
+        this(channel, zeroCopy, DEFAULT_MAX_PENDING_LITERAL_BYTES);
+    }
+
+    public ChannelImapResponseWriter(Channel channel, boolean zeroCopy, long maxPendingLiteralBytes) {
         this.channel = channel;
         this.zeroCopy = zeroCopy;
+        this.maxPendingLiteralBytes = maxPendingLiteralBytes;
+        this.pendingLiteralBytes = new AtomicLong(0);
     }
 
     @Override
@@ -64,24 +79,38 @@ public class ChannelImapResponseWriter implements ImapResponseWriter {
     @Override
     public void write(Literal literal) throws IOException {
         if (channel.isConnected()) {
-            InputStream in = literal.getInputStream();
-            if (in instanceof FileInputStream && channel.getFactory() instanceof NioServerSocketChannelFactory) {
-                FileChannel fc = ((FileInputStream) in).getChannel();
-                // Zero-copy is only possible if no SSL/TLS  and no COMPRESS is in place
-                //
-                // See JAMES-1305 and JAMES-1306
-                ChannelPipeline cp = channel.getPipeline();
-                if (zeroCopy && cp.get(SslHandler.class) == null && cp.get(ZlibEncoder.class) == null) {
-                    channel.write(new DefaultFileRegion(fc, fc.position(), literal.size()));
-                } else {
-                    channel.write(new ChunkedNioFile(fc, 8192));
-                }
+            long size = literal.size();
+            ChannelFuture future = writeLiteral(literal, size);
+            pendingLiteralBytes.addAndGet(size);
+            future.addListener(any -> pendingLiteralBytes.addAndGet(-size));
+            awaitWritesIfNeeded(future);
+        }
+    }
+
+    private ChannelFuture writeLiteral(Literal literal, long size) throws IOException {
+        InputStream in = literal.getInputStream();
+        if (in instanceof FileInputStream && channel.getFactory() instanceof NioServerSocketChannelFactory) {
+            FileChannel fc = ((FileInputStream) in).getChannel();
+            // Zero-copy is only possible if no SSL/TLS  and no COMPRESS is in place
+            //
+            // See JAMES-1305 and JAMES-1306
+            ChannelPipeline cp = channel.getPipeline();
+            if (zeroCopy && cp.get(SslHandler.class) == null && cp.get(ZlibEncoder.class) == null) {
+                return channel.write(new DefaultFileRegion(fc, fc.position(), size));
             } else {
-                channel.write(new ChunkedStream(literal.getInputStream()));
+                return channel.write(new ChunkedNioFile(fc, 8192));
             }
+        } else {
+            return channel.write(new ChunkedStream(in));
         }
     }
-    
-    
 
+    private void awaitWritesIfNeeded(ChannelFuture lastWrite) {
+        // Waiting is only possible when requests are not processed by the IO threads, as they are the ones flushing
+        // the writes
+        boolean processedOutsideOfIOThreads = channel.getPipeline().get(ExecutionHandler.class) != null;
+        if (processedOutsideOfIOThreads && pendingLiteralBytes.get() > maxPendingLiteralBytes) {
+            lastWrite.awaitUninterruptibly();
+        }
+    }
 }
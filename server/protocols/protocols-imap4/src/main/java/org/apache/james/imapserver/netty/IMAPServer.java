@@ -32,6 +32,8 @@ import org.apache.james.imap.api.ImapConstants;
 import org.apache.james.imap.api.process.ImapProcessor;
 import org.apache.james.imap.decode.ImapDecoder;
 import org.apache.james.imap.encode.ImapEncoder;
+import org.apache.james.imapserver.netty4.ImapChannelInboundHandler;
+import org.apache.james.imapserver.netty4.ImapChannelInitializer;
 import org.apache.james.protocols.api.Encryption;
 import org.apache.james.protocols.lib.netty.AbstractConfigurableAsyncServer;
 import org.apache.james.protocols.netty.ChannelGroupHandler;
@@ -54,6 +56,10 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSet;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.util.concurrent.EventExecutorGroup;
+
 /**
  * NIO IMAP Server which use Netty.
  */
@@ -121,6 +127,7 @@ public class IMAPServer extends AbstractConfigurableAsyncServer implements ImapC
                 .idleTimeInterval(configuration.getLong("idleTimeInterval", ImapConfiguration.DEFAULT_HEARTBEAT_INTERVAL_IN_SECONDS))
                 .idleTimeIntervalUnit(getTimeIntervalUnit(configuration.getString("idleTimeIntervalUnit", DEFAULT_TIME_UNIT)))
                 .disabledCaps(disabledCaps)
+                .fetchPrefetchSize(configuration.getInt("fetchPrefetchSize", ImapConfiguration.DEFAULT_FETCH_PREFETCH_SIZE))
                 .build();
     }
 
@@ -217,4 +224,19 @@ public class IMAPServer extends AbstractConfigurableAsyncServer implements ImapC
         return new SwitchableLineBasedFrameDecoderFactory(maxLineLength);
     }
 
+    @Override
+    protected boolean isNetty4Supported() {
+        return true;
+    }
+
+    @Override
+    protected ChannelInitializer<Channel> createNetty4ChannelInitializer(io.netty.channel.group.ChannelGroup group, EventExecutorGroup executorGroup) {
+        ImapChannelInboundHandler coreHandler = new ImapChannelInboundHandler(hello, processor, encoder, compress,
+            plainAuthDisallowed, getStartTlsSslContext(), imapMetrics);
+
+        return new ImapChannelInitializer(timeout, connectionLimit, connPerIP, group, executorGroup,
+            getSocketSslContext(), getNetty4ConnectionCountHandler(), coreHandler,
+            decoder, maxLineLength, inMemorySizeLimit, literalSizeLimit);
+    }
+
 }
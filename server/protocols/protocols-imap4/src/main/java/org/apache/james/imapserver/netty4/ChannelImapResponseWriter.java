@@ -0,0 +1,112 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty4;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.james.imap.encode.ImapResponseWriter;
+import org.apache.james.imap.message.response.Literal;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedStream;
+
+/**
+ * {@link ImapResponseWriter} implementation which writes the data to a
+ * {@link Channel}
+ *
+ * Literals are streamed to the channel. When the literals waiting to be written exceed maxPendingLiteralBytes, the
+ * caller waits for them to be flushed, so that slow clients do not make the server buffer whole FETCH responses.
+ */
+public class ChannelImapResponseWriter implements ImapResponseWriter {
+    public static final long DEFAULT_MAX_PENDING_LITERAL_BYTES = 4 * 1024 * 1024;
+
+    private final Channel channel;
+    private final boolean zeroCopy;
+    private final long maxPendingLiteralBytes;
+    private final AtomicLong pendingLiteralBytes;
+
+    public ChannelImapResponseWriter(Channel channel) {
+        this(channel, true);
+    }
+
+    public ChannelImapResponseWriter(Channel channel, boolean zeroCopy) {
+        this(channel, zeroCopy, DEFAULT_MAX_PENDING_LITERAL_BYTES);
+    }
+
+    public ChannelImapResponseWriter(Channel channel, boolean zeroCopy, long maxPendingLiteralBytes) {
+        this.channel = channel;
+        this.zeroCopy = zeroCopy;
+        this.maxPendingLiteralBytes = maxPendingLiteralBytes;
+        this.pendingLiteralBytes = new AtomicLong(0);
+    }
+
+    @Override
+    public void write(byte[] buffer) throws IOException {
+        if (channel.isActive()) {
+            channel.writeAndFlush(Unpooled.wrappedBuffer(buffer));
+        }
+    }
+
+    @Override
+    public void write(Literal literal) throws IOException {
+        if (channel.isActive()) {
+            long size = literal.size();
+            ChannelFuture future = writeLiteral(literal, size);
+            pendingLiteralBytes.addAndGet(size);
+            future.addListener(any -> pendingLiteralBytes.addAndGet(-size));
+            awaitWritesIfNeeded(future);
+        }
+    }
+
+    private ChannelFuture writeLiteral(Literal literal, long size) throws IOException {
+        InputStream in = literal.getInputStream();
+        if (in instanceof FileInputStream) {
+            FileChannel fc = ((FileInputStream) in).getChannel();
+            // Zero-copy is only possible if no SSL/TLS  and no COMPRESS is in place
+            //
+            // See JAMES-1305 and JAMES-1306
+            ChannelPipeline cp = channel.pipeline();
+            if (zeroCopy && cp.get(NettyConstants.SSL_HANDLER) == null && cp.get(NettyConstants.ZLIB_ENCODER) == null) {
+                return channel.writeAndFlush(new DefaultFileRegion(fc, fc.position(), size));
+            } else {
+                return channel.writeAndFlush(new ChunkedNioFile(fc, 8192));
+            }
+        } else {
+            return channel.writeAndFlush(new ChunkedStream(in));
+        }
+    }
+
+    private void awaitWritesIfNeeded(ChannelFuture lastWrite) {
+        // Waiting is only possible when requests are not processed by the event loop, as it is the one flushing the
+        // writes
+        boolean processedOutsideOfEventLoop = !channel.eventLoop().inEventLoop();
+        if (processedOutsideOfEventLoop && pendingLiteralBytes.get() > maxPendingLiteralBytes) {
+            lastWrite.awaitUninterruptibly();
+        }
+    }
+}
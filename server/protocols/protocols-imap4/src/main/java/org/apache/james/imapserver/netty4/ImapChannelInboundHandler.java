@@ -0,0 +1,202 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty4;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import org.apache.james.imap.api.ImapConstants;
+import org.apache.james.imap.api.ImapMessage;
+import org.apache.james.imap.api.ImapSessionState;
+import org.apache.james.imap.api.process.ImapProcessor;
+import org.apache.james.imap.api.process.ImapSession;
+import org.apache.james.imap.encode.ImapEncoder;
+import org.apache.james.imap.encode.ImapResponseComposer;
+import org.apache.james.imap.encode.base.ImapResponseComposerImpl;
+import org.apache.james.imap.main.ResponseEncoder;
+import org.apache.james.imap.message.request.CompressRequest;
+import org.apache.james.imap.message.request.StartTLSRequest;
+import org.apache.james.imapserver.netty.ImapMetrics;
+import org.apache.james.metrics.api.Metric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.ssl.SslContext;
+
+/**
+ * {@link ChannelInboundHandlerAdapter} which handles IMAP
+ */
+@Sharable
+public class ImapChannelInboundHandler extends ChannelInboundHandlerAdapter implements NettyConstants {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImapChannelInboundHandler.class);
+
+    private final String hello;
+
+    private final SslContext sslContext;
+
+    private final boolean compress;
+
+    private final ImapProcessor processor;
+
+    private final ImapEncoder encoder;
+
+    private final boolean plainAuthDisallowed;
+
+    private final Metric imapConnectionsMetric;
+    private final Metric imapCommandsMetric;
+
+    /**
+     * @param sslContext context used upon STARTTLS, null if STARTTLS is not supported
+     */
+    public ImapChannelInboundHandler(String hello, ImapProcessor processor, ImapEncoder encoder, boolean compress,
+                                     boolean plainAuthDisallowed, SslContext sslContext, ImapMetrics imapMetrics) {
+        this.hello = hello;
+        this.processor = processor;
+        this.encoder = encoder;
+        this.sslContext = sslContext;
+        this.compress = compress;
+        this.plainAuthDisallowed = plainAuthDisallowed;
+        this.imapConnectionsMetric = imapMetrics.getConnectionsMetric();
+        this.imapCommandsMetric = imapMetrics.getCommandsMetric();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        Channel channel = ctx.channel();
+        channel.attr(IMAP_SESSION).set(new NettyImapSession(channel, sslContext, compress, plainAuthDisallowed));
+        try (Closeable closeable = IMAPMDCContext.from(ctx)) {
+            InetSocketAddress address = (InetSocketAddress) channel.remoteAddress();
+            LOGGER.info("Connection established from {}", address.getAddress().getHostAddress());
+            imapConnectionsMetric.increment();
+
+            ImapResponseComposer response = new ImapResponseComposerImpl(new ChannelImapResponseWriter(channel));
+            channel.attr(RESPONSE_COMPOSER).set(response);
+
+            // write hello to client
+            response.untagged().message("OK").message(hello).end();
+            super.channelActive(ctx);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        try (Closeable closeable = IMAPMDCContext.from(ctx)) {
+            InetSocketAddress address = (InetSocketAddress) ctx.channel().remoteAddress();
+            LOGGER.info("Connection closed for {}", address.getAddress().getHostAddress());
+
+            // remove the stored attribute for the channel to free up resources
+            // See JAMES-1195
+            ImapSession imapSession = ctx.channel().attr(IMAP_SESSION).getAndSet(null);
+            if (imapSession != null) {
+                imapSession.logout();
+            }
+            ctx.channel().attr(RESPONSE_COMPOSER).set(null);
+            imapConnectionsMetric.decrement();
+
+            super.channelInactive(ctx);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        try (Closeable closeable = IMAPMDCContext.from(ctx)) {
+            LOGGER.warn("Error while processing imap request", cause);
+
+            ImapResponseComposer composer = ctx.channel().attr(RESPONSE_COMPOSER).get();
+            if (cause instanceof TooLongFrameException && composer != null) {
+
+                // Max line length exceeded
+                // See RFC 2683 section 3.2.1 and JAMES-1190
+                composer.untaggedResponse(ImapConstants.BAD + " failed. Maximum command line length exceeded");
+
+            } else {
+
+                // logout on error not sure if that is the best way to handle it
+                ImapSession imapSession = ctx.channel().attr(IMAP_SESSION).get();
+                if (imapSession != null) {
+                    imapSession.logout();
+                }
+
+                closeAfterFlush(ctx.channel());
+            }
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        try (Closeable closeable = IMAPMDCContext.from(ctx)) {
+            imapCommandsMetric.increment();
+            ImapSession session = ctx.channel().attr(IMAP_SESSION).get();
+            ImapResponseComposer response = ctx.channel().attr(RESPONSE_COMPOSER).get();
+            ImapMessage message = (ImapMessage) msg;
+            boolean changesEncoding = message instanceof StartTLSRequest || message instanceof CompressRequest;
+            if (changesEncoding) {
+                // The client sends encrypted or compressed bytes as soon as it gets the response, stop decoding
+                // until the session installed the matching handlers
+                framer(ctx).pauseDecoding();
+            }
+
+            ResponseEncoder responseEncoder = new ResponseEncoder(encoder, response, session);
+            try {
+                processor.process(message, responseEncoder, session);
+            } finally {
+                if (changesEncoding) {
+                    resumeDecodingAfterPendingWrites(ctx);
+                }
+            }
+
+            if (session.getState() == ImapSessionState.LOGOUT) {
+                closeAfterFlush(ctx.channel());
+            }
+            IOException failure = responseEncoder.getFailure();
+
+            if (failure != null) {
+                LOGGER.info(failure.getMessage());
+                LOGGER.debug("Failed to write {}", message, failure);
+                throw failure;
+            }
+        }
+    }
+
+    private void resumeDecodingAfterPendingWrites(ChannelHandlerContext ctx) {
+        Channel channel = ctx.channel();
+        channel.eventLoop().execute(() -> channel.writeAndFlush(Unpooled.EMPTY_BUFFER)
+            .addListener(any -> framer(ctx).resumeDecoding(channel.pipeline().context(FRAMER))));
+    }
+
+    private SwitchableLineBasedFrameDecoder framer(ChannelHandlerContext ctx) {
+        return (SwitchableLineBasedFrameDecoder) ctx.pipeline().get(FRAMER);
+    }
+
+    private void closeAfterFlush(Channel channel) {
+        // Make sure we close the channel after all the buffers were flushed out
+        if (channel.isActive()) {
+            channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty4;
+
+import org.apache.james.imap.decode.ImapDecoder;
+import org.apache.james.protocols.netty4.AbstractChannelInitializer;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * {@link AbstractChannelInitializer} of the IMAP connections: requests are decoded by the executor, ahead of the
+ * {@link ImapChannelInboundHandler}, and idle clients are logged out.
+ */
+public class ImapChannelInitializer extends AbstractChannelInitializer implements NettyConstants {
+
+    private final int timeout;
+    private final SslContext socketSslContext;
+    private final ChannelHandler countHandler;
+    private final ChannelHandler coreHandler;
+    private final EventExecutorGroup executorGroup;
+    private final ImapDecoder decoder;
+    private final int inMemorySizeLimit;
+    private final int literalSizeLimit;
+
+    /**
+     * @param socketSslContext context of the TLS socket, null for plain sockets, including the STARTTLS ones
+     */
+    public ImapChannelInitializer(int timeout, int maxConnections, int maxConnectsPerIp, ChannelGroup channels,
+                                  EventExecutorGroup executorGroup, SslContext socketSslContext, ChannelHandler countHandler,
+                                  ChannelHandler coreHandler, ImapDecoder decoder, int maxLineLength,
+                                  int inMemorySizeLimit, int literalSizeLimit) {
+        // Use a SwitchableLineBasedFrameDecoder, see JAMES-1436
+        super(timeout, maxConnections, maxConnectsPerIp, channels, executorGroup,
+            new SwitchableLineBasedFrameDecoderFactory(maxLineLength));
+        this.timeout = timeout;
+        this.socketSslContext = socketSslContext;
+        this.countHandler = countHandler;
+        this.coreHandler = coreHandler;
+        this.executorGroup = executorGroup;
+        this.decoder = decoder;
+        this.inMemorySizeLimit = inMemorySizeLimit;
+        this.literalSizeLimit = literalSizeLimit;
+    }
+
+    @Override
+    protected void initChannel(Channel channel) throws Exception {
+        super.initChannel(channel);
+
+        ChannelPipeline pipeline = channel.pipeline();
+        pipeline.addBefore(FRAMER, CONNECTION_COUNT_HANDLER, countHandler);
+        pipeline.replace(TIMEOUT_HANDLER, TIMEOUT_HANDLER, new ImapIdleStateHandler(timeout));
+        pipeline.addBefore(executorGroup, CORE_HANDLER, REQUEST_DECODER, new ImapRequestFrameDecoder(decoder, inMemorySizeLimit, literalSizeLimit));
+    }
+
+    @Override
+    protected ChannelHandler createHandler() {
+        return coreHandler;
+    }
+
+    @Override
+    protected boolean isSSLSocket() {
+        return socketSslContext != null;
+    }
+
+    @Override
+    protected SslContext getSslContext() {
+        return socketSslContext;
+    }
+}
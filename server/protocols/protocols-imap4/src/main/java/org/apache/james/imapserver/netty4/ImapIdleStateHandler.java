@@ -0,0 +1,68 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty4;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.imap.api.process.ImapSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+
+/**
+ * {@link IdleStateHandler} which will call {@link ImapSession#logout()} if the
+ * connected client did not receive or send any traffic in a given timeframe.
+ */
+public class ImapIdleStateHandler extends IdleStateHandler implements NettyConstants {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImapIdleStateHandler.class);
+
+    public ImapIdleStateHandler(int allIdleTimeSeconds) {
+        super(0, 0, allIdleTimeSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
+
+        // check if the client did nothing for too long
+        if (evt.state().equals(IdleState.ALL_IDLE)) {
+            InetSocketAddress address = (InetSocketAddress) ctx.channel().remoteAddress();
+
+            LOGGER.info("Logout client {} ({}) because it idled for too long...",
+                address.getHostName(),
+                address.getAddress().getHostAddress());
+
+            // logout the client
+            ImapSession session = ctx.channel().attr(IMAP_SESSION).get();
+            if (session != null) {
+                session.logout();
+            }
+
+            // close the channel
+            ctx.channel().close();
+        }
+
+        super.channelIdle(ctx, evt);
+    }
+
+}
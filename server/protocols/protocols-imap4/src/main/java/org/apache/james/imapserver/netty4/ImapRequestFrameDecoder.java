@@ -0,0 +1,200 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty4;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.james.imap.api.ImapMessage;
+import org.apache.james.imap.api.ImapSessionState;
+import org.apache.james.imap.api.process.ImapSession;
+import org.apache.james.imap.decode.ImapDecoder;
+import org.apache.james.imap.decode.ImapRequestLineReader;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+/**
+ * {@link ByteToMessageDecoder} which will decode via and {@link ImapDecoder} instance.
+ *
+ * Literals greater than the in memory size limit are written to a temporary file as they are received.
+ */
+public class ImapRequestFrameDecoder extends ByteToMessageDecoder implements NettyConstants {
+    private static final int NO_NEEDED_DATA = -2;
+
+    private final ImapDecoder decoder;
+    private final int inMemorySizeLimit;
+    private final int literalSizeLimit;
+
+    private int neededData = NO_NEEDED_DATA;
+    private File storedData;
+    private int writtenData;
+    private OutputStream outputStream;
+
+    public ImapRequestFrameDecoder(ImapDecoder decoder, int inMemorySizeLimit, int literalSizeLimit) {
+        this.decoder = decoder;
+        this.inMemorySizeLimit = inMemorySizeLimit;
+        this.literalSizeLimit = literalSizeLimit;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> out) throws Exception {
+        if (!buffer.isReadable()) {
+            // The previous message consumed the remaining bytes
+            return;
+        }
+        buffer.markReaderIndex();
+        Channel channel = ctx.channel();
+        boolean retry = false;
+
+        ImapRequestLineReader reader;
+        // check if we failed before and if we already know how much data we
+        // need to sucess next run
+        int size = -1;
+        if (neededData != NO_NEEDED_DATA) {
+            retry = true;
+            size = neededData;
+            // now see if the buffer hold enough data to process.
+            if (size != NettyImapRequestLineReader.NotEnoughDataException.UNKNOWN_SIZE && size > buffer.readableBytes()) {
+
+                // check if we have a inMemorySize limit and if so if the
+                // expected size will fit into it
+                if (inMemorySizeLimit > 0 && inMemorySizeLimit < size) {
+
+                    // ok seems like it will not fit in the memory limit so we
+                    // need to store it in a temporary file
+                    if (storedData == null) {
+                        storedData = File.createTempFile("imap-literal", ".tmp");
+                        writtenData = 0;
+                        outputStream = new FileOutputStream(storedData, true);
+                    }
+
+                    try {
+                        int amount = Math.min(buffer.readableBytes(), size - writtenData);
+                        buffer.readBytes(outputStream, amount);
+                        writtenData += amount;
+                    } catch (Exception e) {
+                        closeOutputStream();
+                        throw e;
+                    }
+                    // Check if all needed data was streamed to the file.
+                    if (writtenData == size) {
+                        closeOutputStream();
+
+                        File file = storedData;
+                        reader = new NettyStreamImapRequestLineReader(channel, new FileInputStream(file) {
+                            /**
+                             * Delete the File on close too
+                             */
+                            @Override
+                            public void close() throws IOException {
+                                super.close();
+                                FileUtils.forceDelete(file);
+                            }
+
+                        }, retry);
+                    } else {
+                        return;
+                    }
+
+                } else {
+                    buffer.resetReaderIndex();
+                    return;
+                }
+
+            } else {
+                reader = new NettyImapRequestLineReader(channel, buffer, retry, literalSizeLimit);
+            }
+        } else {
+            reader = new NettyImapRequestLineReader(channel, buffer, retry, literalSizeLimit);
+        }
+
+        ImapSession session = channel.attr(IMAP_SESSION).get();
+
+        // check if the session was removed before to prevent a harmless NPE. See JAMES-1312
+        // Also check if the session was logged out if so there is not need to try to decode it. See JAMES-1341
+        if (session != null && session.getState() != ImapSessionState.LOGOUT) {
+            try {
+
+                ImapMessage message = decoder.decode(reader, session);
+
+                // if size is != -1 the case was a literal. if thats the case we
+                // should not consume the line
+                // See JAMES-1199
+                if (size == -1) {
+                    reader.consumeLine();
+                }
+
+                ((SwitchableLineBasedFrameDecoder) ctx.pipeline().get(FRAMER)).enableFraming();
+
+                clearNeededData();
+                out.add(message);
+            } catch (NettyImapRequestLineReader.NotEnoughDataException e) {
+                // this exception was thrown because we don't have enough data
+                // yet, store the needed data size for later usage
+                neededData = e.getNeededSize();
+
+                SwitchableLineBasedFrameDecoder framer = (SwitchableLineBasedFrameDecoder) ctx.pipeline().get(FRAMER);
+                framer.disableFraming(ctx.pipeline().context(FRAMER));
+
+                buffer.resetReaderIndex();
+            }
+        } else {
+            // The session was null so may be the case because the channel was already closed but there were still bytes in the buffer.
+            // We now try to disconnect the client if still connected
+            buffer.skipBytes(buffer.readableBytes());
+            if (channel.isActive()) {
+                channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+    }
+
+    private void closeOutputStream() {
+        try {
+            outputStream.close();
+        } catch (IOException ignored) {
+            //ignore exception during close
+        }
+    }
+
+    private void clearNeededData() {
+        neededData = NO_NEEDED_DATA;
+        storedData = null;
+        writtenData = 0;
+        outputStream = null;
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        if (outputStream != null) {
+            closeOutputStream();
+            FileUtils.deleteQuietly(storedData);
+        }
+        super.handlerRemoved0(ctx);
+    }
+}
@@ -0,0 +1,215 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.james.imap.api.ImapSessionState;
+import org.apache.james.imap.api.process.ImapLineHandler;
+import org.apache.james.imap.api.process.ImapSession;
+import org.apache.james.imap.api.process.SelectedMailbox;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.ssl.SslContext;
+
+public class NettyImapSession implements ImapSession, NettyConstants {
+    private static final int COMPRESSION_LEVEL = 5;
+
+    private ImapSessionState state = ImapSessionState.NON_AUTHENTICATED;
+    private SelectedMailbox selectedMailbox;
+    private final Map<String, Object> attributesByKey = new HashMap<>();
+    private final SslContext sslContext;
+    private final boolean compress;
+    private final Channel channel;
+    private int handlerCount;
+    private final boolean plainAuthDisallowed;
+
+    public NettyImapSession(Channel channel, SslContext sslContext, boolean compress, boolean plainAuthDisallowed) {
+        this.channel = channel;
+        this.sslContext = sslContext;
+        this.compress = compress;
+        this.plainAuthDisallowed = plainAuthDisallowed;
+    }
+
+    @Override
+    public void logout() {
+        closeMailbox();
+        state = ImapSessionState.LOGOUT;
+    }
+
+    @Override
+    public void authenticated() {
+        this.state = ImapSessionState.AUTHENTICATED;
+    }
+
+    @Override
+    public void deselect() {
+        this.state = ImapSessionState.AUTHENTICATED;
+        closeMailbox();
+    }
+
+    @Override
+    public void selected(SelectedMailbox mailbox) {
+        this.state = ImapSessionState.SELECTED;
+        closeMailbox();
+        this.selectedMailbox = mailbox;
+    }
+
+    @Override
+    public SelectedMailbox getSelected() {
+        return this.selectedMailbox;
+    }
+
+    @Override
+    public ImapSessionState getState() {
+        return this.state;
+    }
+
+    private void closeMailbox() {
+        if (selectedMailbox != null) {
+            selectedMailbox.deselect();
+            selectedMailbox = null;
+        }
+    }
+
+    @Override
+    public Object getAttribute(String key) {
+        return attributesByKey.get(key);
+    }
+
+    @Override
+    public void setAttribute(String key, Object value) {
+        if (value == null) {
+            attributesByKey.remove(key);
+        } else {
+            attributesByKey.put(key, value);
+        }
+    }
+
+    @Override
+    public boolean startTLS() {
+        if (!supportStartTLS()) {
+            return false;
+        }
+
+        // The tagged OK response was already handed to the channel, wait for it to be flushed in plain text
+        // before encrypting the traffic
+        afterPendingWrites(pipeline -> {
+            pipeline.addFirst(SSL_HANDLER, sslContext.newHandler(channel.alloc()));
+            pipeline.fireChannelRead(takeBufferedBytes(pipeline))
+                .fireChannelReadComplete();
+        });
+
+        return true;
+    }
+
+    @Override
+    public boolean supportStartTLS() {
+        return sslContext != null;
+    }
+
+    @Override
+    public boolean isCompressionSupported() {
+        return compress;
+    }
+
+    @Override
+    public boolean startCompression() {
+        if (!isCompressionSupported()) {
+            return false;
+        }
+
+        afterPendingWrites(pipeline -> {
+            ChannelHandler decoder = ZlibCodecFactory.newZlibDecoder(ZlibWrapper.NONE);
+            ChannelHandler encoder = ZlibCodecFactory.newZlibEncoder(ZlibWrapper.NONE, COMPRESSION_LEVEL);
+
+            // Check if we have the SslHandler in the pipeline already
+            // if so we need to move the compress encoder and decoder
+            // behind it in the chain
+            // See JAMES-1186
+            if (pipeline.get(SSL_HANDLER) == null) {
+                pipeline.addFirst(ZLIB_DECODER, decoder);
+                pipeline.addFirst(ZLIB_ENCODER, encoder);
+                pipeline.fireChannelRead(takeBufferedBytes(pipeline))
+                    .fireChannelReadComplete();
+            } else {
+                pipeline.addAfter(SSL_HANDLER, ZLIB_DECODER, decoder);
+                pipeline.addAfter(SSL_HANDLER, ZLIB_ENCODER, encoder);
+                pipeline.context(SSL_HANDLER).fireChannelRead(takeBufferedBytes(pipeline))
+                    .fireChannelReadComplete();
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Decoding is paused by the {@link ImapChannelInboundHandler} while processing the request, the bytes received
+     * since the response are hence still waiting in the framer, and need to go through the new handlers
+     */
+    private ByteBuf takeBufferedBytes(ChannelPipeline pipeline) {
+        return ((SwitchableLineBasedFrameDecoder) pipeline.get(FRAMER)).takeBufferedBytes();
+    }
+
+    private void afterPendingWrites(Consumer<ChannelPipeline> pipelineChange) {
+        channel.eventLoop().execute(() -> channel.writeAndFlush(Unpooled.EMPTY_BUFFER)
+            .addListener(any -> pipelineChange.accept(channel.pipeline())));
+    }
+
+    @Override
+    public void pushLineHandler(ImapLineHandler lineHandler) {
+        ChannelPipeline pipeline = channel.pipeline();
+        pipeline.addBefore(pipeline.context(REQUEST_DECODER).executor(), REQUEST_DECODER, "lineHandler" + handlerCount++,
+            new ImapLineHandlerAdapter(this, lineHandler));
+    }
+
+    @Override
+    public void popLineHandler() {
+        channel.pipeline().remove("lineHandler" + --handlerCount);
+    }
+
+    @Override
+    public boolean isPlainAuthDisallowed() {
+        return plainAuthDisallowed;
+    }
+
+    @Override
+    public boolean isTLSActive() {
+        return channel.pipeline().get(SSL_HANDLER) != null;
+    }
+
+    @Override
+    public boolean supportMultipleNamespaces() {
+        return false;
+    }
+
+    @Override
+    public boolean isCompressionActive() {
+        return channel.pipeline().get(ZLIB_DECODER) != null;
+    }
+
+}
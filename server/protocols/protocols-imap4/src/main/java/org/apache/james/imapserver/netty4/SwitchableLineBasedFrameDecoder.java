@@ -0,0 +1,126 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty4;
+
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+
+/**
+ * {@link ByteToMessageDecoder} splitting the received bytes into lines, which can pass them through unframed while the
+ * {@link ImapRequestFrameDecoder} waits for a literal. See JAMES-1436
+ *
+ * Decoding can also be paused while the session switches to TLS or compression, so that the bytes the client sends
+ * right after the response can be handed over to the newly installed handlers.
+ */
+public class SwitchableLineBasedFrameDecoder extends ByteToMessageDecoder {
+
+    private static final boolean FAIL_FAST = true;
+
+    private static class LineFramer extends LineBasedFrameDecoder {
+        LineFramer(int maxFrameLength, boolean stripDelimiter) {
+            super(maxFrameLength, stripDelimiter, !FAIL_FAST);
+        }
+
+        Object frame(ChannelHandlerContext ctx, ByteBuf buffer) throws Exception {
+            return decode(ctx, buffer);
+        }
+    }
+
+    private final int maxFrameLength;
+    private final boolean stripDelimiter;
+    private volatile boolean framingEnabled = true;
+    private volatile boolean paused = false;
+    private LineFramer framer;
+
+    public SwitchableLineBasedFrameDecoder(int maxFrameLength, boolean stripDelimiter) {
+        this.maxFrameLength = maxFrameLength;
+        this.stripDelimiter = stripDelimiter;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> out) throws Exception {
+        if (paused) {
+            return;
+        }
+        if (framingEnabled) {
+            if (framer == null) {
+                // The framer remembers how far it searched for the end of line, start afresh once bytes were passed
+                // through
+                framer = new LineFramer(maxFrameLength, stripDelimiter);
+            }
+            Object frame = framer.frame(ctx, buffer);
+            if (frame != null) {
+                out.add(frame);
+            }
+        } else {
+            framer = null;
+            out.add(buffer.readRetainedSlice(buffer.readableBytes()));
+        }
+    }
+
+    public void pauseDecoding() {
+        this.paused = true;
+    }
+
+    /**
+     * Decode the bytes received while paused. Needs to be called by the event loop of the channel
+     *
+     * @param ctx the context of this decoder
+     */
+    public void resumeDecoding(ChannelHandlerContext ctx) throws Exception {
+        this.paused = false;
+        channelRead(ctx, Unpooled.EMPTY_BUFFER);
+        channelReadComplete(ctx);
+    }
+
+    /**
+     * Remove the bytes received while paused. Needs to be called by the event loop of the channel
+     */
+    public ByteBuf takeBufferedBytes() {
+        ByteBuf bufferedBytes = internalBuffer();
+        framer = null;
+        return bufferedBytes.readRetainedSlice(bufferedBytes.readableBytes());
+    }
+
+    public void enableFraming() {
+        this.framingEnabled = true;
+    }
+
+    /**
+     * Stop framing, the bytes of a partial line already received are passed through by the event loop of the channel
+     *
+     * @param ctx the context of this decoder
+     */
+    public void disableFraming(ChannelHandlerContext ctx) {
+        this.framingEnabled = false;
+        ctx.executor().execute(() -> {
+            ByteBuf spareBytes = internalBuffer();
+            if (!framingEnabled && spareBytes.isReadable()) {
+                framer = null;
+                ctx.fireChannelRead(spareBytes.readRetainedSlice(spareBytes.readableBytes()));
+            }
+        });
+    }
+
+}
@@ -58,6 +58,7 @@ public class IMAPServerTest {
         configurationBuilder.addProperty("idleTimeInterval", "1");
         configurationBuilder.addProperty("idleTimeIntervalUnit", "MINUTES");
         configurationBuilder.addProperty("disabledCaps", "ACL | MOVE");
+        configurationBuilder.addProperty("fetchPrefetchSize", "100");
         ImapConfiguration imapConfiguration = IMAPServer.getImapConfiguration(configurationBuilder);
 
         ImapConfiguration expectImapConfiguration = ImapConfiguration.builder()
@@ -65,6 +66,7 @@ public class IMAPServerTest {
                 .idleTimeInterval(1)
                 .idleTimeIntervalUnit(TimeUnit.MINUTES)
                 .disabledCaps(ImmutableSet.of("ACL", "MOVE"))
+                .fetchPrefetchSize(100)
                 .build();
 
         assertThat(imapConfiguration).isEqualTo(expectImapConfiguration);
@@ -0,0 +1,218 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.imapserver.netty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
+import org.apache.commons.net.imap.IMAPClient;
+import org.apache.james.filesystem.api.mock.MockFileSystem;
+import org.apache.james.imap.encode.main.DefaultImapEncoderFactory;
+import org.apache.james.imap.main.DefaultImapDecoderFactory;
+import org.apache.james.imap.processor.main.DefaultImapProcessorFactory;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources;
+import org.apache.james.mailbox.manager.ManagerTestProvisionner;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.store.StoreMailboxManager;
+import org.apache.james.mailbox.store.StoreSubscriptionManager;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+public class Netty4IMAPServerTest {
+    private static final String USER = ManagerTestProvisionner.USER.asString();
+    private static final String PASSWORD = ManagerTestProvisionner.USER_PASS;
+    private static final int IN_MEMORY_SIZE_LIMIT = 1024;
+    private static final int MAX_LINE_LENGTH = 1024;
+    private static final boolean NO_WRAP = true;
+
+    private StoreMailboxManager mailboxManager;
+    private IMAPServer imapServer;
+    private IMAPClient imapClient;
+
+    @Before
+    public void setUp() throws Exception {
+        mailboxManager = InMemoryIntegrationResources.defaultResources().getMailboxManager();
+        MailboxSession session = mailboxManager.createSystemSession(ManagerTestProvisionner.USER);
+        mailboxManager.createMailbox(MailboxPath.inbox(session), session);
+
+        imapServer = new IMAPServer(
+            new DefaultImapDecoderFactory().buildImapDecoder(),
+            new DefaultImapEncoderFactory().buildImapEncoder(),
+            DefaultImapProcessorFactory.createDefaultProcessor(mailboxManager, mailboxManager.getEventBus(),
+                new StoreSubscriptionManager(mailboxManager.getMapperFactory()),
+                mailboxManager.getQuotaComponents().getQuotaManager(),
+                mailboxManager.getQuotaComponents().getQuotaRootResolver(),
+                new NoopMetricFactory()),
+            new ImapMetrics(new NoopMetricFactory()));
+        imapServer.setFileSystem(new MockFileSystem());
+
+        BaseHierarchicalConfiguration configuration = new BaseHierarchicalConfiguration();
+        configuration.addProperty("[@enabled]", true);
+        configuration.addProperty("bind", "127.0.0.1:0");
+        configuration.addProperty("transport", "netty4");
+        configuration.addProperty("inMemorySizeLimit", IN_MEMORY_SIZE_LIMIT);
+        configuration.addProperty("maxLineLength", MAX_LINE_LENGTH);
+        configuration.addProperty("compress", true);
+        imapServer.configure(configuration);
+        imapServer.init();
+
+        InetSocketAddress bindedAddress = imapServer.getListenAddresses().get(0);
+        imapClient = new IMAPClient();
+        imapClient.connect(bindedAddress.getAddress().getHostAddress(), bindedAddress.getPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (imapClient.isConnected()) {
+            imapClient.disconnect();
+        }
+        imapServer.destroy();
+    }
+
+    @Test
+    public void serverShouldGreetClients() {
+        assertThat(imapClient.getReplyString()).startsWith("* OK");
+    }
+
+    @Test
+    public void loginShouldSucceedWithValidCredentials() throws Exception {
+        assertThat(imapClient.login(USER, PASSWORD)).isTrue();
+    }
+
+    @Test
+    public void selectShouldSucceed() throws Exception {
+        imapClient.login(USER, PASSWORD);
+
+        assertThat(imapClient.select("INBOX")).isTrue();
+    }
+
+    @Test
+    public void appendShouldStoreLiteralsKeptInMemory() throws Exception {
+        imapClient.login(USER, PASSWORD);
+
+        assertThat(imapClient.append("INBOX", null, null, message("small body"))).isTrue();
+        assertThat(inboxMessageCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void appendShouldStoreLiteralsExceedingTheInMemorySizeLimit() throws Exception {
+        imapClient.login(USER, PASSWORD);
+        String body = Strings.repeat("0123456789\r\n", 10 * IN_MEMORY_SIZE_LIMIT);
+
+        assertThat(imapClient.append("INBOX", null, null, message(body))).isTrue();
+
+        imapClient.select("INBOX");
+        assertThat(imapClient.fetch("1", "(BODY[TEXT])")).isTrue();
+        assertThat(imapClient.getReplyString()).contains(body);
+    }
+
+    @Test
+    public void commandsShouldBeProcessedAfterAppend() throws Exception {
+        imapClient.login(USER, PASSWORD);
+        imapClient.append("INBOX", null, null, message(Strings.repeat("body\r\n", IN_MEMORY_SIZE_LIMIT)));
+
+        assertThat(imapClient.select("INBOX")).isTrue();
+    }
+
+    @Test
+    public void tooLongLinesShouldBeRejected() throws Exception {
+        InetSocketAddress bindedAddress = imapServer.getListenAddresses().get(0);
+        try (Socket socket = new Socket(bindedAddress.getAddress(), bindedAddress.getPort())) {
+            socket.setSoTimeout(10000);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            reader.readLine();
+
+            socket.getOutputStream().write(("A1 NOOP " + Strings.repeat("a", 2 * MAX_LINE_LENGTH) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+
+            assertThat(reader.readLine()).isEqualTo("* BAD failed. Maximum command line length exceeded");
+        }
+    }
+
+    @Test
+    public void compressionShouldApplyToTheFollowingCommands() throws Exception {
+        InetSocketAddress bindedAddress = imapServer.getListenAddresses().get(0);
+        try (Socket socket = new Socket(bindedAddress.getAddress(), bindedAddress.getPort())) {
+            socket.setSoTimeout(10000);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            reader.readLine();
+            socket.getOutputStream().write(("A1 LOGIN " + USER + " " + PASSWORD + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            assertThat(readUntilTagged(reader, "A1")).startsWith("A1 OK");
+            socket.getOutputStream().write("A2 COMPRESS DEFLATE\r\n".getBytes(StandardCharsets.US_ASCII));
+            assertThat(readUntilTagged(reader, "A2")).startsWith("A2 OK");
+
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, NO_WRAP);
+            deflater.setInput("A3 NOOP\r\n".getBytes(StandardCharsets.US_ASCII));
+            byte[] compressed = new byte[1024];
+            int compressedLength = deflater.deflate(compressed, 0, compressed.length, Deflater.SYNC_FLUSH);
+            socket.getOutputStream().write(compressed, 0, compressedLength);
+
+            Inflater inflater = new Inflater(NO_WRAP);
+            byte[] received = new byte[1024];
+            byte[] inflated = new byte[1024];
+            StringBuilder response = new StringBuilder();
+            while (!response.toString().contains("A3 OK")) {
+                int read = socket.getInputStream().read(received);
+                inflater.setInput(received, 0, read);
+                int inflatedLength = inflater.inflate(inflated);
+                response.append(new String(inflated, 0, inflatedLength, StandardCharsets.US_ASCII));
+            }
+
+            assertThat(response.toString()).contains("A3 OK NOOP completed.");
+        }
+    }
+
+    @Test
+    public void logoutShouldCloseTheConnection() throws Exception {
+        imapClient.login(USER, PASSWORD);
+
+        assertThat(imapClient.logout()).isTrue();
+        assertThat(imapClient.getReplyString()).contains("BYE");
+    }
+
+    private String readUntilTagged(BufferedReader reader, String tag) throws Exception {
+        String line = reader.readLine();
+        while (!line.startsWith(tag)) {
+            line = reader.readLine();
+        }
+        return line;
+    }
+
+    private String message(String body) {
+        return "Subject: test\r\n\r\n" + body;
+    }
+
+    private long inboxMessageCount() throws Exception {
+        MailboxSession session = mailboxManager.createSystemSession(ManagerTestProvisionner.USER);
+        return mailboxManager.getMailbox(MailboxPath.inbox(session), session)
+            .getMessageCount(session);
+    }
+}
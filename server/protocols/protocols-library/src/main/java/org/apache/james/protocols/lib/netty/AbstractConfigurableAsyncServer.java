@@ -25,7 +25,9 @@ import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.security.KeyStore;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.Executor;
 
 import javax.annotation.PostConstruct;
@@ -46,6 +48,11 @@ import org.apache.james.protocols.api.Encryption;
 import org.apache.james.protocols.lib.jmx.ServerMBean;
 import org.apache.james.protocols.netty.AbstractAsyncServer;
 import org.apache.james.protocols.netty.ChannelHandlerFactory;
+import org.apache.james.protocols.netty4.AbstractChannelInitializer;
+import org.apache.james.protocols.netty4.FrameDecoderFactory;
+import org.apache.james.protocols.netty4.HandlerConstants;
+import org.apache.james.protocols.netty4.LineBasedFrameDecoderFactory;
+import org.apache.james.protocols.netty4.SslContexts;
 import org.apache.james.util.concurrent.JMXEnabledThreadPoolExecutor;
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.channel.ChannelPipelineFactory;
@@ -56,6 +63,15 @@ import org.jboss.netty.util.HashedWheelTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.util.concurrent.EventExecutorGroup;
+
 /**
  * Abstract base class for Servers for all James Servers
  */
@@ -78,7 +94,18 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
     public static final String HELLO_NAME = "helloName";
 
     public static final int DEFAULT_MAX_EXECUTOR_COUNT = 16;
-    
+
+    /** The name of the parameter defining the network stack serving the connections: netty3 or netty4. */
+    private static final String TRANSPORT_NAME = "transport";
+
+    /** The name of the parameter enabling the epoll native transport, only used by the netty4 transport. */
+    private static final String NATIVE_TRANSPORT_NAME = "nativeTransport";
+
+    private static final String NETTY3_TRANSPORT = "netty3";
+    private static final String NETTY4_TRANSPORT = "netty4";
+    private static final String JDK_SSL_PROVIDER = "jdk";
+    private static final String OPENSSL_SSL_PROVIDER = "openssl";
+
     // By default, use the Sun X509 algorithm that comes with the Sun JCE
     // provider for SSL
     // certificates
@@ -112,10 +139,20 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
     private String[] enabledCipherSuites;
 
     private final ConnectionCountHandler countHandler = new ConnectionCountHandler();
+    private final ConnectionCountInboundHandler netty4CountHandler = new ConnectionCountInboundHandler();
+
+    private boolean useNetty4;
+    private boolean useNativeTransport;
+    private boolean useOpenSsl;
+    private List<InetSocketAddress> bindAddresses;
+    private SslContext sslContext;
+    private ConfigurableNetty4Server netty4Server;
 
     private ExecutionHandler executionHandler = null;
     private ChannelHandlerFactory frameHandlerFactory;
 
+    private int ioWorker;
+
     private int maxExecutorThreads;
 
     private MBeanServer mbeanServer;
@@ -165,8 +202,10 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
             return;
         }
 
+        configureTransport(config);
+
         String[] listen = config.getString("bind", "0.0.0.0:" + getDefaultPort()).split(",");
-        List<InetSocketAddress> bindAddresses = new ArrayList<>();
+        bindAddresses = new ArrayList<>();
         for (String aListen : listen) {
             String[] bind = aListen.split(":");
 
@@ -189,7 +228,7 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
         setListenAddresses(bindAddresses.toArray(new InetSocketAddress[bindAddresses.size()]));
 
         jmxName = config.getString("jmxName", getDefaultJMXName());
-        int ioWorker = config.getInt("ioWorkerCount", DEFAULT_IO_WORKER_COUNT);
+        ioWorker = config.getInt("ioWorkerCount", DEFAULT_IO_WORKER_COUNT);
         setIoWorkerCount(ioWorker);
 
         maxExecutorThreads = config.getInt("maxExecutorCount", DEFAULT_MAX_EXECUTOR_COUNT);
@@ -250,12 +289,43 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
             }
             secret = config.getString("tls.secret", "");
             x509Algorithm = config.getString("tls.algorithm", defaultX509algorithm);
+            configureSslProvider(config);
         }
 
         doConfigure(config);
 
     }
 
+    private void configureTransport(HierarchicalConfiguration<ImmutableNode> config) throws ConfigurationException {
+        String transport = config.getString(TRANSPORT_NAME, NETTY3_TRANSPORT).trim().toLowerCase(Locale.US);
+        if (transport.equals(NETTY4_TRANSPORT)) {
+            if (!isNetty4Supported()) {
+                throw new ConfigurationException(getServiceType() + " can not run on the " + NETTY4_TRANSPORT + " transport");
+            }
+            useNetty4 = true;
+        } else if (!transport.equals(NETTY3_TRANSPORT)) {
+            throw new ConfigurationException("Unknown transport " + transport + ", expecting " + NETTY3_TRANSPORT + " or " + NETTY4_TRANSPORT);
+        }
+        useNativeTransport = config.getBoolean(NATIVE_TRANSPORT_NAME, true);
+
+        LOGGER.info("{} is using the {} transport", getServiceType(), transport);
+    }
+
+    private void configureSslProvider(HierarchicalConfiguration<ImmutableNode> config) throws ConfigurationException {
+        String provider = config.getString("tls.provider", JDK_SSL_PROVIDER).trim().toLowerCase(Locale.US);
+        if (provider.equals(OPENSSL_SSL_PROVIDER)) {
+            if (!useNetty4) {
+                throw new ConfigurationException("The " + OPENSSL_SSL_PROVIDER + " TLS provider requires the " + NETTY4_TRANSPORT + " transport");
+            }
+            if (!OpenSsl.isAvailable()) {
+                throw new ConfigurationException("The " + OPENSSL_SSL_PROVIDER + " TLS provider requires netty-tcnative on the classpath", OpenSsl.unavailabilityCause());
+            }
+            useOpenSsl = true;
+        } else if (!provider.equals(JDK_SSL_PROVIDER)) {
+            throw new ConfigurationException("Unknown TLS provider " + provider + ", expecting " + JDK_SSL_PROVIDER + " or " + OPENSSL_SSL_PROVIDER);
+        }
+    }
+
     @PostConstruct
     public final void init() throws Exception {
 
@@ -263,8 +333,12 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
 
             buildSSLContext();
             preInit();
-            executionHandler = createExecutionHander();
-            frameHandlerFactory = createFrameHandlerFactory();
+            if (useNetty4) {
+                netty4Server = createNetty4Server();
+            } else {
+                executionHandler = createExecutionHander();
+                frameHandlerFactory = createFrameHandlerFactory();
+            }
             bind();
             port = retrieveFirstBindedPort();
 
@@ -287,6 +361,17 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
         return port;
     }
 
+    private ConfigurableNetty4Server createNetty4Server() {
+        ConfigurableNetty4Server server = new ConfigurableNetty4Server(getDefaultJMXName(), this::createNetty4ChannelInitializer);
+        server.setListenAddresses(bindAddresses.toArray(new InetSocketAddress[bindAddresses.size()]));
+        server.setIoWorkerCount(ioWorker);
+        server.setMaxExecutorThreads(maxExecutorThreads);
+        server.setTimeout(getTimeout());
+        server.setBacklog(getBacklog());
+        server.setUseNativeTransport(useNativeTransport);
+        return server;
+    }
+
     public boolean useSSL() {
         return useSSL;
     }
@@ -381,6 +466,26 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
         return encryption;
     }
 
+    /**
+     * Return the {@link SslContext} used upon STARTTLS by the netty4 transport, null if STARTTLS is not enabled
+     */
+    protected SslContext getStartTlsSslContext() {
+        if (useStartTLS) {
+            return sslContext;
+        }
+        return null;
+    }
+
+    /**
+     * Return the {@link SslContext} of the TLS sockets used by the netty4 transport, null for plain sockets
+     */
+    protected SslContext getSocketSslContext() {
+        if (useSSL) {
+            return sslContext;
+        }
+        return null;
+    }
+
     /**
      * Build the SSLEngine
      * 
@@ -407,6 +512,14 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
                 } else {
                     encryption = Encryption.createTls(context, enabledCipherSuites);
                 }
+                if (useOpenSsl) {
+                    sslContext = SslContextBuilder.forServer(kmf)
+                        .sslProvider(SslProvider.OPENSSL)
+                        .ciphers(enabledCipherSuites.length > 0 ? Arrays.asList(enabledCipherSuites) : null)
+                        .build();
+                } else if (useNetty4) {
+                    sslContext = SslContexts.from(encryption);
+                }
             } finally {
                 if (fis != null) {
                     fis.close();
@@ -497,11 +610,17 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
 
     @Override
     public long getHandledConnections() {
+        if (netty4Server != null) {
+            return netty4CountHandler.getConnectionsTillStartup();
+        }
         return countHandler.getConnectionsTillStartup();
     }
 
     @Override
     public int getCurrentConnections() {
+        if (netty4Server != null) {
+            return netty4CountHandler.getCurrentConnectionCount();
+        }
         return countHandler.getCurrentConnectionCount();
     }
 
@@ -509,6 +628,10 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
         return countHandler;
     }
 
+    protected ConnectionCountInboundHandler getNetty4ConnectionCountHandler() {
+        return netty4CountHandler;
+    }
+
     @Override
     public String[] getBoundAddresses() {
 
@@ -522,6 +645,40 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
         return addrs;
     }
 
+    @Override
+    public synchronized void bind() throws Exception {
+        if (netty4Server != null) {
+            netty4Server.bind();
+        } else {
+            super.bind();
+        }
+    }
+
+    @Override
+    public synchronized void unbind() {
+        if (netty4Server != null) {
+            netty4Server.unbind();
+        } else {
+            super.unbind();
+        }
+    }
+
+    @Override
+    public synchronized List<InetSocketAddress> getListenAddresses() {
+        if (netty4Server != null) {
+            return netty4Server.getListenAddresses();
+        }
+        return super.getListenAddresses();
+    }
+
+    @Override
+    public boolean isBound() {
+        if (netty4Server != null) {
+            return netty4Server.isBound();
+        }
+        return super.isBound();
+    }
+
     @Override
     protected void configureBootstrap(ServerBootstrap bootstrap) {
         super.configureBootstrap(bootstrap);
@@ -555,6 +712,62 @@ public abstract class AbstractConfigurableAsyncServer extends AbstractAsyncServe
     }
 
     protected abstract ChannelUpstreamHandler createCoreHandler();
+
+    /**
+     * Return if the server can run on the netty4 transport, in which case {@link #createNetty4CoreHandler()} needs to be
+     * implemented, unless {@link #createNetty4ChannelInitializer(io.netty.channel.group.ChannelGroup, EventExecutorGroup)}
+     * is overridden
+     */
+    protected boolean isNetty4Supported() {
+        return false;
+    }
+
+    /**
+     * Create the core handler used by the netty4 transport
+     */
+    protected ChannelHandler createNetty4CoreHandler() {
+        throw new UnsupportedOperationException(getServiceType() + " can not run on the " + NETTY4_TRANSPORT + " transport");
+    }
+
+    /**
+     * Create the {@link FrameDecoderFactory} used by the netty4 transport
+     */
+    protected FrameDecoderFactory createNetty4FrameDecoderFactory() {
+        return new LineBasedFrameDecoderFactory(AbstractChannelInitializer.MAX_LINE_LENGTH);
+    }
+
+    /**
+     * Create the {@link ChannelInitializer} setting up the pipeline of the connections served by the netty4 transport
+     */
+    protected ChannelInitializer<Channel> createNetty4ChannelInitializer(io.netty.channel.group.ChannelGroup group, EventExecutorGroup executorGroup) {
+        ChannelHandler coreHandler = createNetty4CoreHandler();
+        SslContext socketSslContext = getSocketSslContext();
+
+        return new AbstractChannelInitializer(getTimeout(), connectionLimit, connPerIP, group, executorGroup,
+            createNetty4FrameDecoderFactory()) {
+
+            @Override
+            protected void initChannel(Channel channel) throws Exception {
+                super.initChannel(channel);
+                channel.pipeline().addBefore(HandlerConstants.FRAMER, HandlerConstants.CONNECTION_COUNT_HANDLER, netty4CountHandler);
+            }
+
+            @Override
+            protected ChannelHandler createHandler() {
+                return coreHandler;
+            }
+
+            @Override
+            protected boolean isSSLSocket() {
+                return socketSslContext != null;
+            }
+
+            @Override
+            protected SslContext getSslContext() {
+                return socketSslContext;
+            }
+        };
+    }
     
     @Override
     protected ChannelPipelineFactory createPipelineFactory(ChannelGroup group) {
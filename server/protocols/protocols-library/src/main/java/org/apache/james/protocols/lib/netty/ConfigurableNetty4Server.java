@@ -0,0 +1,65 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.lib.netty;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiFunction;
+
+import org.apache.james.protocols.netty4.AbstractNetty4Server;
+import org.apache.james.util.concurrent.NamedThreadFactory;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * Netty 4 server the {@link AbstractConfigurableAsyncServer} delegates to when configured with the netty4 transport
+ */
+public class ConfigurableNetty4Server extends AbstractNetty4Server {
+
+    private final String threadNamePrefix;
+    private final BiFunction<ChannelGroup, EventExecutorGroup, ChannelInitializer<Channel>> channelInitializerFactory;
+
+    public ConfigurableNetty4Server(String threadNamePrefix,
+                                    BiFunction<ChannelGroup, EventExecutorGroup, ChannelInitializer<Channel>> channelInitializerFactory) {
+        this.threadNamePrefix = threadNamePrefix;
+        this.channelInitializerFactory = channelInitializerFactory;
+    }
+
+    @Override
+    protected ThreadFactory createThreadFactory() {
+        return NamedThreadFactory.withName(threadNamePrefix);
+    }
+
+    @Override
+    protected void configureBootstrap(ServerBootstrap bootstrap) {
+        super.configureBootstrap(bootstrap);
+
+        // enable tcp keep-alives
+        bootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
+    }
+
+    @Override
+    protected ChannelInitializer<Channel> createChannelInitializer(ChannelGroup group, EventExecutorGroup executorGroup) {
+        return channelInitializerFactory.apply(group, executorGroup);
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.james.protocols.netty.AbstractChannelPipelineFactory;
 import org.apache.james.protocols.netty.ChannelHandlerFactory;
 import org.apache.james.protocols.netty.LineDelimiterBasedChannelHandlerFactory;
 import org.apache.james.protocols.smtp.SMTPProtocol;
+import org.apache.james.smtpserver.netty.SMTPChannelInboundHandler;
 import org.apache.james.smtpserver.netty.SMTPChannelUpstreamHandler;
 import org.jboss.netty.channel.ChannelUpstreamHandler;
 import org.slf4j.Logger;
@@ -128,6 +129,17 @@ public class LMTPServer extends AbstractProtocolAsyncServer implements LMTPServe
         return new SMTPChannelUpstreamHandler(protocol, lmtpMetrics);
     }
 
+    @Override
+    protected boolean isNetty4Supported() {
+        return true;
+    }
+
+    @Override
+    protected io.netty.channel.ChannelHandler createNetty4CoreHandler() {
+        SMTPProtocol protocol = new SMTPProtocol(getProtocolHandlerChain(), lmtpConfig);
+        return new SMTPChannelInboundHandler(protocol, lmtpMetrics);
+    }
+
     @Override
     protected Class<? extends HandlersPackage> getCoreHandlersPackage() {
         return CoreCmdHandlerLoader.class;
@@ -24,6 +24,7 @@ import static org.jboss.netty.channel.Channels.pipeline;
 import javax.net.ssl.SSLEngine;
 
 import org.apache.james.managesieve.transcode.ManageSieveProcessor;
+import org.apache.james.managesieveserver.netty4.ManageSieveChannelInboundHandler;
 import org.apache.james.protocols.api.Encryption;
 import org.apache.james.protocols.lib.netty.AbstractConfigurableAsyncServer;
 import org.apache.james.protocols.netty.ChannelGroupHandler;
@@ -31,6 +32,8 @@ import org.apache.james.protocols.netty.ChannelHandlerFactory;
 import org.apache.james.protocols.netty.ConnectionLimitUpstreamHandler;
 import org.apache.james.protocols.netty.ConnectionPerIpLimitUpstreamHandler;
 import org.apache.james.protocols.netty.LineDelimiterBasedChannelHandlerFactory;
+import org.apache.james.protocols.netty4.FrameDecoderFactory;
+import org.apache.james.protocols.netty4.LineBasedFrameDecoderFactory;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.ChannelUpstreamHandler;
@@ -44,6 +47,8 @@ import org.jboss.netty.util.CharsetUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.channel.ChannelHandler;
+
 public class ManageSieveServer extends AbstractConfigurableAsyncServer implements ManageSieveServerMBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ManageSieveServer.class);
@@ -142,4 +147,19 @@ public class ManageSieveServer extends AbstractConfigurableAsyncServer implement
     protected ChannelHandlerFactory createFrameHandlerFactory() {
         return new LineDelimiterBasedChannelHandlerFactory(maxLineLength);
     }
+
+    @Override
+    protected boolean isNetty4Supported() {
+        return true;
+    }
+
+    @Override
+    protected ChannelHandler createNetty4CoreHandler() {
+        return new ManageSieveChannelInboundHandler(manageSieveProcessor, getStartTlsSslContext(), isSSL());
+    }
+
+    @Override
+    protected FrameDecoderFactory createNetty4FrameDecoderFactory() {
+        return new LineBasedFrameDecoderFactory(maxLineLength);
+    }
 }
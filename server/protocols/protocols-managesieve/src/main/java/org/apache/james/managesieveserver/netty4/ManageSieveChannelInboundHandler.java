@@ -0,0 +1,157 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.managesieveserver.netty4;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.james.managesieve.api.Session;
+import org.apache.james.managesieve.api.SessionTerminatedException;
+import org.apache.james.managesieve.transcode.ManageSieveProcessor;
+import org.apache.james.managesieve.util.SettableSession;
+import org.apache.james.protocols.netty4.HandlerConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AttributeKey;
+
+/**
+ * Netty 4 counterpart of the ManageSieveChannelUpstreamHandler.
+ *
+ * The ManageSieve {@link Session} of each connection is stored as the {@link #SESSION} channel attribute.
+ */
+@Sharable
+public class ManageSieveChannelInboundHandler extends SimpleChannelInboundHandler<ByteBuf> {
+    static final AttributeKey<Session> SESSION = AttributeKey.valueOf("manageSieveSession");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ManageSieveChannelInboundHandler.class);
+    private static final boolean START_TLS = true;
+
+    private final ManageSieveProcessor manageSieveProcessor;
+    private final SslContext startTlsContext;
+    private final boolean sslServer;
+
+    /**
+     * @param startTlsContext context used upon STARTTLS, null if STARTTLS is not supported
+     * @param sslServer true when the connections are established over TLS
+     */
+    public ManageSieveChannelInboundHandler(ManageSieveProcessor manageSieveProcessor, SslContext startTlsContext, boolean sslServer) {
+        this.manageSieveProcessor = manageSieveProcessor;
+        this.startTlsContext = startTlsContext;
+        this.sslServer = sslServer;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf buf) throws Exception {
+        try (Closeable closeable = ManageSieveMDCContext.from(ctx)) {
+            String request = buf.toString(StandardCharsets.UTF_8);
+            Session manageSieveSession = ctx.channel().attr(SESSION).get();
+            String responseString = manageSieveProcessor.handleRequest(manageSieveSession, request);
+            if (manageSieveSession.getState() == Session.State.SSL_NEGOCIATION) {
+                writeThenTurnSSLOn(ctx.channel(), responseString);
+                manageSieveSession.setSslEnabled(true);
+                manageSieveSession.setState(Session.State.UNAUTHENTICATED);
+            } else {
+                write(ctx.channel(), responseString);
+            }
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        try (Closeable closeable = ManageSieveMDCContext.from(ctx)) {
+            LOGGER.warn("Error while processing ManageSieve request", cause);
+
+            if (cause instanceof TooLongFrameException) {
+                // Max line length exceeded
+                // See also JAMES-1190
+                write(ctx.channel(), "NO Maximum command line length exceeded\r\n");
+            } else if (cause instanceof SessionTerminatedException) {
+                write(ctx.channel(), "OK channel is closing\r\n");
+                logout(ctx);
+            }
+        }
+    }
+
+    private void logout(ChannelHandlerContext ctx) {
+        ctx.channel().attr(SESSION).set(null);
+        // Make sure we close the channel after all the buffers were flushed out
+        Channel channel = ctx.channel();
+        if (channel.isActive()) {
+            channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        try (Closeable closeable = ManageSieveMDCContext.from(ctx)) {
+            InetSocketAddress address = (InetSocketAddress) ctx.channel().remoteAddress();
+            LOGGER.info("Connection established from {}", address.getAddress().getHostAddress());
+
+            Session session = new SettableSession();
+            if (sslServer) {
+                session.setSslEnabled(true);
+            }
+            ctx.channel().attr(SESSION).set(session);
+            super.channelActive(ctx);
+            write(ctx.channel(), manageSieveProcessor.getAdvertisedCapabilities());
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        try (Closeable closeable = ManageSieveMDCContext.from(ctx)) {
+            InetSocketAddress address = (InetSocketAddress) ctx.channel().remoteAddress();
+            LOGGER.info("Connection closed for {}", address.getAddress().getHostAddress());
+            ctx.channel().attr(SESSION).set(null);
+            super.channelInactive(ctx);
+        }
+    }
+
+    private void write(Channel channel, String response) {
+        if (channel.isActive()) {
+            channel.writeAndFlush(Unpooled.copiedBuffer(response, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The {@link SslHandler} is added from the event loop once the response was sent in clear, hence before the client
+     * handshake can be read.
+     */
+    private void writeThenTurnSSLOn(Channel channel, String response) {
+        if (startTlsContext == null) {
+            write(channel, response);
+            return;
+        }
+        channel.eventLoop().execute(() -> channel.writeAndFlush(Unpooled.copiedBuffer(response, StandardCharsets.UTF_8))
+            .addListener(future -> channel.pipeline()
+                .addFirst(HandlerConstants.SSL_HANDLER, new SslHandler(startTlsContext.newEngine(channel.alloc()), !START_TLS))));
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.james.protocols.netty.AbstractChannelPipelineFactory;
 import org.apache.james.protocols.netty.BasicChannelUpstreamHandler;
 import org.apache.james.protocols.netty.ChannelHandlerFactory;
 import org.apache.james.protocols.netty.LineDelimiterBasedChannelHandlerFactory;
+import org.apache.james.protocols.netty4.BasicChannelInboundHandler;
 import org.apache.james.protocols.pop3.POP3Protocol;
 import org.jboss.netty.channel.ChannelUpstreamHandler;
 
@@ -40,6 +41,7 @@ public class POP3Server extends AbstractProtocolAsyncServer implements POP3Serve
      */
     private final ProtocolConfiguration theConfigData = new POP3Configuration();
     private BasicChannelUpstreamHandler coreHandler;
+    private BasicChannelInboundHandler netty4CoreHandler;
     
     @Override
     protected int getDefaultPort() {
@@ -76,6 +78,7 @@ public class POP3Server extends AbstractProtocolAsyncServer implements POP3Serve
         super.preInit();
         POP3Protocol protocol = new POP3Protocol(getProtocolHandlerChain(), theConfigData);
         coreHandler = new BasicChannelUpstreamHandler(protocol, getEncryption());
+        netty4CoreHandler = new BasicChannelInboundHandler(protocol, getStartTlsSslContext());
     }
 
     @Override
@@ -88,6 +91,16 @@ public class POP3Server extends AbstractProtocolAsyncServer implements POP3Serve
         return coreHandler; 
     }
 
+    @Override
+    protected boolean isNetty4Supported() {
+        return true;
+    }
+
+    @Override
+    protected io.netty.channel.ChannelHandler createNetty4CoreHandler() {
+        return netty4CoreHandler;
+    }
+
     @Override
     protected Class<? extends HandlersPackage> getCoreHandlersPackage() {
         return CoreCmdHandlerLoader.class;
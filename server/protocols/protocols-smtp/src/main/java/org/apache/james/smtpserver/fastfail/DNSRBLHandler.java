@@ -18,10 +18,12 @@
  ****************************************************************/
 package org.apache.james.smtpserver.fastfail;
 
+import java.net.Inet4Address;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import javax.inject.Inject;
 
@@ -31,6 +33,12 @@ import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.james.dnsservice.api.DNSService;
 import org.apache.james.protocols.api.handler.ProtocolHandler;
+import org.apache.james.protocols.smtp.SMTPSession;
+
+import com.google.common.net.InetAddresses;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public class DNSRBLHandler extends org.apache.james.protocols.smtp.core.fastfail.DNSRBLHandler implements ProtocolHandler {
     private final DNSService dns;
@@ -67,6 +75,37 @@ public class DNSRBLHandler extends org.apache.james.protocols.smtp.core.fastfail
         setGetDetail(handlerConfiguration.getBoolean("getDetail", false));
     }
 
+    /**
+     * Queries the RBL servers concurrently before running the sequential checks, which are then answered by the DNS
+     * cache. This bounds the time spent on a slow resolver to the slowest RBL server instead of the sum of all of them.
+     * Blacklists are only queried when the address is not whitelisted.
+     */
+    @Override
+    public void checkDNSRBL(SMTPSession session, String ipAddress) {
+        if (!session.isRelayingAllowed() && isIPv4(ipAddress)) {
+            String reversedOctets = reversedOctets(ipAddress);
+            if (!isListedOnAny(reversedOctets, getWhitelist())) {
+                isListedOnAny(reversedOctets, getBlacklist());
+            }
+        }
+        super.checkDNSRBL(session, ipAddress);
+    }
+
+    private boolean isIPv4(String ipAddress) {
+        return InetAddresses.isInetAddress(ipAddress)
+            && InetAddresses.forString(ipAddress) instanceof Inet4Address;
+    }
+
+    private boolean isListedOnAny(String reversedOctets, List<String> rblServers) {
+        // Every lookup is awaited, so that all the names the sequential checks ask for are cached
+        return Flux.fromIterable(rblServers)
+            .flatMap(rbl -> dns.getByNameReactive(reversedOctets + rbl)
+                .map(any -> true)
+                .onErrorResume(e -> Mono.just(false)))
+            .reduce(false, Boolean::logicalOr)
+            .block();
+    }
+
     @Override
     protected boolean resolve(String ip) {
         try {
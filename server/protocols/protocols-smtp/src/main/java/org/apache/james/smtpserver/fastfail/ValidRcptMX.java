@@ -21,7 +21,6 @@ package org.apache.james.smtpserver.fastfail;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
 
 import javax.inject.Inject;
 
@@ -45,6 +44,9 @@ import org.slf4j.LoggerFactory;
 
 import com.github.steveash.guavate.Guavate;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /**
  * This class can be used to reject email with bogus MX which is send from a
  * authorized user or an authorized network.
@@ -76,38 +78,29 @@ public class ValidRcptMX implements RcptHook, ProtocolHandler {
         Domain domain = rcpt.getDomain();
 
         // Email should be deliver local
-        if (!domain.equals(Domain.LOCALHOST)) {
-
-            Iterator<String> mx;
-            try {
-                mx = dnsService.findMXRecords(domain.name()).iterator();
-            } catch (TemporaryResolutionException e1) {
-                return HookResult.DENYSOFT;
-            }
-
-            if (mx != null && mx.hasNext()) {
-                while (mx.hasNext()) {
-                    String mxRec = mx.next();
-
-                    try {
-                        String ip = dnsService.getByName(mxRec).getHostAddress();
-
-                        // Check for invalid MX
-                        if (bNetwork.matchInetNetwork(ip)) {
-                            return HookResult.builder()
-                                .hookReturnCode(HookReturnCode.deny())
-                                .smtpReturnCode(SMTPRetCode.AUTH_REQUIRED)
-                                .smtpDescription(DSNStatus.getStatus(DSNStatus.PERMANENT, DSNStatus.SECURITY_AUTH)
-                                    + " Invalid MX " + session.getRemoteAddress().getAddress().toString() + " for domain " + domain.asString() + ". Reject email")
-                                .build();
-                        }
-                    } catch (UnknownHostException e) {
-                        // Ignore this
-                    }
-                }
-            }
+        if (domain.equals(Domain.LOCALHOST)) {
+            return HookResult.DECLINED;
         }
-        return HookResult.DECLINED;
+
+        // Resolve all the MX hosts concurrently
+        return dnsService.findMXRecordsReactive(domain.name())
+            .flatMapMany(Flux::fromIterable)
+            .flatMap(mxRec -> dnsService.getByNameReactive(mxRec)
+                .onErrorResume(UnknownHostException.class, e -> Mono.empty()))
+            .any(address -> bNetwork.matchInetNetwork(address.getHostAddress()))
+            .map(hasInvalidMX -> {
+                if (hasInvalidMX) {
+                    return HookResult.builder()
+                        .hookReturnCode(HookReturnCode.deny())
+                        .smtpReturnCode(SMTPRetCode.AUTH_REQUIRED)
+                        .smtpDescription(DSNStatus.getStatus(DSNStatus.PERMANENT, DSNStatus.SECURITY_AUTH)
+                            + " Invalid MX " + session.getRemoteAddress().getAddress().toString() + " for domain " + domain.asString() + ". Reject email")
+                        .build();
+                }
+                return HookResult.DECLINED;
+            })
+            .onErrorReturn(TemporaryResolutionException.class, HookResult.DENYSOFT)
+            .block();
     }
 
     @Override
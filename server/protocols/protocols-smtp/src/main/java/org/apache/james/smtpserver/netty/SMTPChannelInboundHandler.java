@@ -0,0 +1,84 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.smtpserver.netty;
+
+import org.apache.james.lifecycle.api.LifecycleUtil;
+import org.apache.james.protocols.api.Protocol;
+import org.apache.james.protocols.api.ProtocolSession.State;
+import org.apache.james.protocols.netty4.BasicChannelInboundHandler;
+import org.apache.james.protocols.smtp.SMTPSession;
+import org.apache.james.smtpserver.SMTPConstants;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.ssl.SslContext;
+
+/**
+ * Netty 4 counterpart of the {@link SMTPChannelUpstreamHandler}
+ */
+@Sharable
+public class SMTPChannelInboundHandler extends BasicChannelInboundHandler {
+
+    private final SmtpMetrics smtpMetrics;
+
+    public SMTPChannelInboundHandler(Protocol protocol, SslContext startTlsContext, SmtpMetrics smtpMetrics) {
+        super(protocol, startTlsContext);
+        this.smtpMetrics = smtpMetrics;
+    }
+
+    public SMTPChannelInboundHandler(Protocol protocol, SmtpMetrics smtpMetrics) {
+        super(protocol);
+        this.smtpMetrics = smtpMetrics;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        super.channelActive(ctx);
+        smtpMetrics.getConnectionMetric().increment();
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf buf) throws Exception {
+        super.channelRead0(ctx, buf);
+        smtpMetrics.getCommandsMetric().increment();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        super.channelInactive(ctx);
+        smtpMetrics.getConnectionMetric().decrement();
+    }
+
+    /**
+     * Cleanup temporary files
+     */
+    @Override
+    protected void cleanup(ChannelHandlerContext ctx) {
+        // Make sure we dispose everything on exit on session close
+        SMTPSession smtpSession = (SMTPSession) session(ctx);
+
+        if (smtpSession != null) {
+            LifecycleUtil.dispose(smtpSession.getAttachment(SMTPConstants.MAIL, State.Transaction));
+            LifecycleUtil.dispose(smtpSession.getAttachment(SMTPConstants.DATA_MIMEMESSAGE_STREAMSOURCE, State.Transaction));
+        }
+
+        super.cleanup(ctx);
+    }
+}
@@ -33,7 +33,10 @@ import org.apache.james.protocols.lib.handler.HandlersPackage;
 import org.apache.james.protocols.lib.netty.AbstractProtocolAsyncServer;
 import org.apache.james.protocols.netty.AbstractChannelPipelineFactory;
 import org.apache.james.protocols.netty.ChannelHandlerFactory;
+import org.apache.james.protocols.netty4.AbstractChannelInitializer;
+import org.apache.james.protocols.netty4.FrameDecoderFactory;
 import org.apache.james.protocols.smtp.AllButStartTlsLineChannelHandlerFactory;
+import org.apache.james.protocols.smtp.AllButStartTlsLineFrameDecoderFactory;
 import org.apache.james.protocols.smtp.SMTPConfiguration;
 import org.apache.james.protocols.smtp.SMTPProtocol;
 import org.apache.james.smtpserver.CoreCmdHandlerLoader;
@@ -94,6 +97,8 @@ public class SMTPServer extends AbstractProtocolAsyncServer implements SMTPServe
     
     private SMTPChannelUpstreamHandler coreHandler;
 
+    private SMTPChannelInboundHandler netty4CoreHandler;
+
     public SMTPServer(SmtpMetrics smtpMetrics) {
         this.smtpMetrics = smtpMetrics;
     }
@@ -124,6 +129,7 @@ public class SMTPServer extends AbstractProtocolAsyncServer implements SMTPServe
             
         };
         coreHandler = new SMTPChannelUpstreamHandler(transport, getEncryption(), smtpMetrics);
+        netty4CoreHandler = new SMTPChannelInboundHandler(transport, getStartTlsSslContext(), smtpMetrics);
     }
 
     @Override
@@ -336,6 +342,21 @@ public class SMTPServer extends AbstractProtocolAsyncServer implements SMTPServe
         return new AllButStartTlsLineChannelHandlerFactory(AbstractChannelPipelineFactory.MAX_LINE_LENGTH);
     }
 
+    @Override
+    protected boolean isNetty4Supported() {
+        return true;
+    }
+
+    @Override
+    protected io.netty.channel.ChannelHandler createNetty4CoreHandler() {
+        return netty4CoreHandler;
+    }
+
+    @Override
+    protected FrameDecoderFactory createNetty4FrameDecoderFactory() {
+        return new AllButStartTlsLineFrameDecoderFactory(AbstractChannelInitializer.MAX_LINE_LENGTH);
+    }
+
     public int getAuthRequired() {
         return authRequired;
     }
@@ -0,0 +1,106 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.smtpserver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.james.dnsservice.api.InMemoryDNSService;
+import org.apache.james.protocols.smtp.SMTPSession;
+import org.apache.james.protocols.smtp.utils.BaseFakeSMTPSession;
+import org.apache.james.smtpserver.fastfail.DNSRBLHandler;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Mono;
+
+public class DNSRBLHandlerTest {
+
+    private static final ImmutableList<String> NO_RECORD = ImmutableList.of();
+
+    private List<String> prefetchedNames;
+    private DNSRBLHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        prefetchedNames = new CopyOnWriteArrayList<>();
+        InMemoryDNSService dns = new InMemoryDNSService() {
+            @Override
+            public Mono<InetAddress> getByNameReactive(String host) {
+                prefetchedNames.add(host);
+                return super.getByNameReactive(host);
+            }
+        };
+        dns.registerRecord("2.0.0.127.white.example.", ImmutableList.of(InetAddress.getByName("127.0.0.2")), NO_RECORD, NO_RECORD);
+
+        handler = new DNSRBLHandler(dns);
+        handler.setWhitelist(new String[] {"white.example."});
+        handler.setBlacklist(new String[] {"black1.example.", "black2.example."});
+    }
+
+    @Test
+    public void checkDNSRBLShouldQueryBlacklistsWhenNotWhitelisted() {
+        handler.checkDNSRBL(session("127.0.0.3", false), "127.0.0.3");
+
+        assertThat(prefetchedNames)
+            .containsExactlyInAnyOrder("3.0.0.127.white.example.", "3.0.0.127.black1.example.", "3.0.0.127.black2.example.");
+    }
+
+    @Test
+    public void checkDNSRBLShouldNotQueryBlacklistsWhenWhitelisted() {
+        handler.checkDNSRBL(session("127.0.0.2", false), "127.0.0.2");
+
+        assertThat(prefetchedNames)
+            .containsExactly("2.0.0.127.white.example.");
+    }
+
+    @Test
+    public void checkDNSRBLShouldNotPrefetchWhenRelayingIsAllowed() {
+        handler.checkDNSRBL(session("127.0.0.3", true), "127.0.0.3");
+
+        assertThat(prefetchedNames).isEmpty();
+    }
+
+    @Test
+    public void checkDNSRBLShouldNotPrefetchIPv6Addresses() {
+        handler.checkDNSRBL(session("::1", false), "0:0:0:0:0:0:0:1");
+
+        assertThat(prefetchedNames).isEmpty();
+    }
+
+    private SMTPSession session(String remoteIp, boolean relayingAllowed) {
+        return new BaseFakeSMTPSession() {
+            @Override
+            public InetSocketAddress getRemoteAddress() {
+                return new InetSocketAddress(remoteIp, 10000);
+            }
+
+            @Override
+            public boolean isRelayingAllowed() {
+                return relayingAllowed;
+            }
+        };
+    }
+}
@@ -87,4 +87,20 @@ public class ValidRcptMXTest {
 
         assertThat(HookReturnCode.deny()).describedAs("Reject").isEqualTo(rCode);
     }
+
+    @Test
+    public void doRcptShouldDeclineWhenNoMXIsBanned() throws Exception {
+        String bannedAddress = "172.53.64.2";
+
+        DNSService dns = new InMemoryDNSService()
+            .registerMxRecord(INVALID_HOST, "172.53.64.3");
+        MailAddress mailAddress = new MailAddress("test@" + INVALID_HOST);
+        SMTPSession session = setupMockedSMTPSession(mailAddress);
+
+        ValidRcptMX handler = new ValidRcptMX(dns);
+        handler.setBannedNetworks(ImmutableList.of(bannedAddress), dns);
+        HookReturnCode rCode = handler.doRcpt(session, MaybeSender.nullSender(), mailAddress).getResult();
+
+        assertThat(rCode).isEqualTo(HookReturnCode.declined());
+    }
 }
@@ -0,0 +1,137 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.webadmin.routes;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.apache.james.blob.deduplication.BlobGarbageCollectionTask;
+import org.apache.james.blob.deduplication.BlobGarbageCollector;
+import org.apache.james.task.TaskId;
+import org.apache.james.task.TaskManager;
+import org.apache.james.util.DurationParser;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.dto.TaskIdDto;
+import org.apache.james.webadmin.utils.ErrorResponder;
+import org.apache.james.webadmin.utils.JsonTransformer;
+import org.eclipse.jetty.http.HttpStatus;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import spark.Request;
+import spark.Response;
+import spark.Service;
+
+@Api(tags = "Blobs")
+@Path(BlobRoutes.BASE_PATH)
+@Produces("application/json")
+public class BlobRoutes implements Routes {
+    public static final String BASE_PATH = "/blobs";
+    private static final String SCOPE_QUERY_PARAM = "scope";
+    private static final String UNREFERENCED_SCOPE = "unreferenced";
+    private static final String GRACE_PERIOD_QUERY_PARAM = "gracePeriod";
+
+    private final BlobGarbageCollectionTask.Factory garbageCollectionTaskFactory;
+    private final TaskManager taskManager;
+    private final JsonTransformer jsonTransformer;
+
+    @Inject
+    BlobRoutes(BlobGarbageCollectionTask.Factory garbageCollectionTaskFactory, TaskManager taskManager, JsonTransformer jsonTransformer) {
+        this.garbageCollectionTaskFactory = garbageCollectionTaskFactory;
+        this.taskManager = taskManager;
+        this.jsonTransformer = jsonTransformer;
+    }
+
+    @Override
+    public String getBasePath() {
+        return BASE_PATH;
+    }
+
+    @Override
+    public void define(Service service) {
+        service.delete(BASE_PATH, this::deleteUnreferencedBlobs, jsonTransformer);
+    }
+
+    @DELETE
+    @ApiOperation(value = "Garbage collect blobs no longer referenced by any owner")
+    @ApiImplicitParams({
+        @ApiImplicitParam(
+            required = true,
+            name = "scope",
+            dataType = "String",
+            paramType = "query",
+            example = "?scope=unreferenced",
+            value = "Compulsory. Only 'unreferenced' is supported."),
+        @ApiImplicitParam(
+            name = "gracePeriod",
+            dataType = "String",
+            paramType = "query",
+            example = "?gracePeriod=2d",
+            value = "Optional. Blobs referenced during this period are kept. Defaults to one day, the unit defaults to days.")
+    })
+    @ApiResponses(value = {
+        @ApiResponse(code = HttpStatus.CREATED_201, message = "Task is created", response = TaskIdDto.class),
+        @ApiResponse(code = HttpStatus.BAD_REQUEST_400, message = "Bad request - scope or gracePeriod is invalid"),
+        @ApiResponse(code = HttpStatus.INTERNAL_SERVER_ERROR_500, message = "Internal server error - Something went bad on the server side.")
+    })
+    private TaskIdDto deleteUnreferencedBlobs(Request request, Response response) {
+        validateScope(request);
+        Duration gracePeriod = extractGracePeriod(request);
+
+        TaskId taskId = taskManager.submit(garbageCollectionTaskFactory.create(gracePeriod));
+        return TaskIdDto.respond(response, taskId);
+    }
+
+    private void validateScope(Request request) {
+        String scope = request.queryParams(SCOPE_QUERY_PARAM);
+        if (!UNREFERENCED_SCOPE.equals(scope)) {
+            throw ErrorResponder.builder()
+                .statusCode(HttpStatus.BAD_REQUEST_400)
+                .type(ErrorResponder.ErrorType.INVALID_ARGUMENT)
+                .message(String.format("'%s' is not a valid scope. Supported values are: [%s]", scope, UNREFERENCED_SCOPE))
+                .haltError();
+        }
+    }
+
+    private Duration extractGracePeriod(Request request) {
+        try {
+            return Optional.ofNullable(request.queryParams(GRACE_PERIOD_QUERY_PARAM))
+                .map(rawGracePeriod -> DurationParser.parse(rawGracePeriod, ChronoUnit.DAYS))
+                .orElse(BlobGarbageCollector.DEFAULT_GRACE_PERIOD);
+        } catch (IllegalArgumentException e) {
+            throw ErrorResponder.builder()
+                .statusCode(HttpStatus.BAD_REQUEST_400)
+                .type(ErrorResponder.ErrorType.INVALID_ARGUMENT)
+                .message("Invalid grace period")
+                .cause(e)
+                .haltError();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.webadmin.routes;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.with;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.api.ObjectStoreException;
+import org.apache.james.blob.deduplication.BlobGarbageCollectionTask;
+import org.apache.james.blob.deduplication.BlobGarbageCollector;
+import org.apache.james.blob.deduplication.DeDuplicationBlobStore;
+import org.apache.james.blob.memory.MemoryBlobReferenceStore;
+import org.apache.james.blob.memory.MemoryBlobStore;
+import org.apache.james.task.Hostname;
+import org.apache.james.task.MemoryTaskManager;
+import org.apache.james.utils.UpdatableTickingClock;
+import org.apache.james.webadmin.WebAdminServer;
+import org.apache.james.webadmin.WebAdminUtils;
+import org.apache.james.webadmin.utils.ErrorResponder;
+import org.apache.james.webadmin.utils.JsonTransformer;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.restassured.RestAssured;
+
+class BlobRoutesTest {
+    private static final Instant NOW = Instant.parse("2019-11-06T10:15:30.00Z");
+    private static final byte[] DATA = "content".getBytes(StandardCharsets.UTF_8);
+
+    private WebAdminServer webAdminServer;
+    private MemoryTaskManager taskManager;
+    private UpdatableTickingClock clock;
+    private MemoryBlobStore blobStore;
+    private DeDuplicationBlobStore deDuplicationBlobStore;
+
+    @BeforeEach
+    void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        blobStore = new MemoryBlobStore(new HashBlobId.Factory());
+        MemoryBlobReferenceStore referenceStore = new MemoryBlobReferenceStore(clock);
+        deDuplicationBlobStore = new DeDuplicationBlobStore(blobStore, referenceStore, new HashBlobId.Factory());
+        BlobGarbageCollector garbageCollector = new BlobGarbageCollector(blobStore, referenceStore, clock);
+
+        taskManager = new MemoryTaskManager(new Hostname("foo"));
+        JsonTransformer jsonTransformer = new JsonTransformer();
+        webAdminServer = WebAdminUtils.createWebAdminServer(
+                new BlobRoutes(new BlobGarbageCollectionTask.Factory(garbageCollector), taskManager, jsonTransformer),
+                new TasksRoutes(taskManager, jsonTransformer))
+            .start();
+
+        RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer)
+            .setBasePath(BlobRoutes.BASE_PATH)
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        webAdminServer.destroy();
+        taskManager.stop();
+    }
+
+    @Test
+    void deleteShouldReturnTaskId() {
+        given()
+            .queryParam("scope", "unreferenced")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.CREATED_201)
+            .header("Location", is(notNullValue()))
+            .body("taskId", is(notNullValue()));
+    }
+
+    @Test
+    void deleteShouldReturnBadRequestWhenMissingScope() {
+        given()
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()))
+            .body("message", is("'null' is not a valid scope. Supported values are: [unreferenced]"));
+    }
+
+    @Test
+    void deleteShouldReturnBadRequestWhenInvalidScope() {
+        given()
+            .queryParam("scope", "invalid")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()))
+            .body("message", is("'invalid' is not a valid scope. Supported values are: [unreferenced]"));
+    }
+
+    @Test
+    void deleteShouldReturnBadRequestWhenInvalidGracePeriod() {
+        given()
+            .queryParam("scope", "unreferenced")
+            .queryParam("gracePeriod", "invalid")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("statusCode", is(400))
+            .body("type", is(ErrorResponder.ErrorType.INVALID_ARGUMENT.getType()))
+            .body("message", is("Invalid grace period"));
+    }
+
+    @Test
+    void deleteShouldReturnBadRequestWhenNegativeGracePeriod() {
+        given()
+            .queryParam("scope", "unreferenced")
+            .queryParam("gracePeriod", "-1")
+        .when()
+            .delete()
+        .then()
+            .statusCode(HttpStatus.BAD_REQUEST_400)
+            .body("message", is("Invalid grace period"));
+    }
+
+    @Test
+    void garbageCollectionTaskShouldDeleteUnreferencedBlobs() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+        clock.setInstant(NOW.plus(Duration.ofDays(2)));
+
+        String taskId = with()
+            .queryParam("scope", "unreferenced")
+            .delete()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+        .when()
+            .get(taskId + "/await")
+        .then()
+            .body("status", is("completed"))
+            .body("taskId", is(taskId))
+            .body("type", is("blob-garbage-collection"))
+            .body("additionalInformation.gracePeriod", is("PT24H"))
+            .body("additionalInformation.collectedBlobCount", is(1))
+            .body("additionalInformation.concurrentlyReferencedBlobCount", is(0))
+            .body("additionalInformation.failedBlobCount", is(0));
+
+        assertThatThrownBy(() -> blobStore.read(BucketName.DEFAULT, blobId))
+            .isInstanceOf(ObjectStoreException.class);
+    }
+
+    @Test
+    void garbageCollectionTaskShouldHonorGracePeriod() {
+        BlobId blobId = deDuplicationBlobStore.save(BucketName.DEFAULT, DATA).block();
+        deDuplicationBlobStore.delete(BucketName.DEFAULT, blobId).block();
+        clock.setInstant(NOW.plus(Duration.ofDays(2)));
+
+        String taskId = with()
+            .queryParam("scope", "unreferenced")
+            .queryParam("gracePeriod", "3d")
+            .delete()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+        .when()
+            .get(taskId + "/await")
+        .then()
+            .body("status", is("completed"))
+            .body("additionalInformation.gracePeriod", is("PT72H"))
+            .body("additionalInformation.collectedBlobCount", is(0));
+
+        assertThat(blobStore.readBytes(BucketName.DEFAULT, blobId).block())
+            .isEqualTo(DATA);
+    }
+}
@@ -20,6 +20,7 @@
 package org.apache.james.queue.api;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 import javax.mail.MessagingException;
@@ -28,6 +29,8 @@ import org.apache.mailet.Mail;
 import org.reactivestreams.Publisher;
 import org.threeten.extra.Temporals;
 
+import com.google.common.collect.ImmutableList;
+
 /**
  * <p>
  * A Queue/Spool for Mails. How the Queue handles the ordering of the dequeuing
@@ -104,6 +107,34 @@ public interface MailQueue {
      */
     void enQueue(Mail mail) throws MailQueueException;
 
+    /**
+     * Enqueue the Mails to the queue
+     *
+     * Implementations can amortize the cost of storing and publishing several mails at once. Mails sharing the same
+     * MimeMessage instance, for instance split per recipient domain, are good candidates for it.
+     *
+     * @param mails
+     * @throws PartialEnqueueException when only some of the mails could be enqueued
+     * @throws MailQueueException when none of the mails could be enqueued
+     */
+    default void enQueue(Collection<Mail> mails) throws MailQueueException {
+        ImmutableList.Builder<Mail> failedMails = ImmutableList.builder();
+        MailQueueException firstFailure = null;
+        for (Mail mail : mails) {
+            try {
+                enQueue(mail);
+            } catch (MailQueueException e) {
+                failedMails.add(mail);
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+            }
+        }
+        if (firstFailure != null) {
+            throw new PartialEnqueueException(failedMails.build(), firstFailure);
+        }
+    }
+
     /**
      * Dequeue the next ready-to-process Mail of the queue. This method will
      * block until a Mail is ready and then process the operation.
@@ -126,6 +157,23 @@ public interface MailQueue {
         }
     }
 
+    /**
+     * Reports the mails of a batch that were not enqueued, the other ones being enqueued. Only the failed mails should
+     * thus be enqueued again.
+     */
+    class PartialEnqueueException extends MailQueueException {
+        private final ImmutableList<Mail> failedMails;
+
+        public PartialEnqueueException(Collection<Mail> failedMails, Exception e) {
+            super(failedMails.size() + " mails could not be enqueued", e);
+            this.failedMails = ImmutableList.copyOf(failedMails);
+        }
+
+        public ImmutableList<Mail> getFailedMails() {
+            return failedMails;
+        }
+    }
+
     /**
      *
      */
@@ -21,6 +21,7 @@ package org.apache.james.queue.api;
 
 import static org.apache.james.queue.api.Mails.createMimeMessage;
 import static org.apache.james.queue.api.Mails.defaultMail;
+import static org.apache.james.queue.api.Mails.defaultMailNoRecipient;
 import static org.apache.james.util.MimeMessageUtil.asString;
 import static org.apache.mailet.base.MailAddressFixture.RECIPIENT1;
 import static org.apache.mailet.base.MailAddressFixture.RECIPIENT2;
@@ -32,6 +33,7 @@ import java.io.Serializable;
 import java.time.Duration;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -56,6 +58,7 @@ import org.junit.jupiter.api.Test;
 import com.github.fge.lambdas.Throwing;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -135,6 +138,53 @@ public interface MailQueueContract {
         assertThat(dequeuedItemNames).hasSize(2).containsOnly(name);
     }
 
+    @Test
+    default void enQueueSeveralMailsShouldEnqueueAllOfThem() throws Exception {
+        getMailQueue().enQueue(ImmutableList.of(
+            defaultMail().name("name1").build(),
+            defaultMail().name("name2").build(),
+            defaultMail().name("name3").build()));
+
+        Stream<String> dequeuedItemNames = Flux.from(getMailQueue().deQueue())
+            .take(3)
+            .map(MailQueue.MailQueueItem::getMail)
+            .map(Mail::getName)
+            .toStream();
+
+        assertThat(dequeuedItemNames).containsOnly("name1", "name2", "name3");
+    }
+
+    @Test
+    default void enQueueSeveralMailsShouldAcceptEmptyCollection() throws Exception {
+        getMailQueue().enQueue(ImmutableList.of());
+
+        enQueue(defaultMail().name("name").build());
+
+        MailQueue.MailQueueItem mailQueueItem = Flux.from(getMailQueue().deQueue()).blockFirst();
+        assertThat(mailQueueItem.getMail().getName()).isEqualTo("name");
+    }
+
+    @Test
+    default void enQueueSeveralMailsShouldSupportMailsSharingTheirMimeMessage() throws Exception {
+        MimeMessage mimeMessage = createMimeMessage();
+        getMailQueue().enQueue(ImmutableList.of(
+            defaultMailNoRecipient().name("name1").mimeMessage(mimeMessage).recipient(RECIPIENT1).build(),
+            defaultMailNoRecipient().name("name2").mimeMessage(mimeMessage).recipient(RECIPIENT2).build()));
+
+        List<Mail> dequeuedMails = Flux.from(getMailQueue().deQueue())
+            .take(2)
+            .map(MailQueue.MailQueueItem::getMail)
+            .collectList()
+            .block();
+
+        assertThat(dequeuedMails)
+            .extracting(Mail::getRecipients)
+            .containsOnly(ImmutableList.of(RECIPIENT1), ImmutableList.of(RECIPIENT2));
+        assertThat(dequeuedMails)
+            .extracting(Throwing.function(mail -> asString(mail.getMessage())))
+            .containsOnly(asString(mimeMessage));
+    }
+
     @Test
     default void queueShouldHandleNoSender() throws Exception {
         enQueue(FakeMail.builder()
@@ -0,0 +1,155 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.rabbitmq;
+
+import static org.apache.james.backends.rabbitmq.Constants.AUTO_DELETE;
+import static org.apache.james.backends.rabbitmq.Constants.DURABLE;
+import static org.apache.james.backends.rabbitmq.Constants.EMPTY_ROUTING_KEY;
+import static org.apache.james.backends.rabbitmq.Constants.EXCLUSIVE;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.MessageProperties;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.QueueSpecification;
+import reactor.rabbitmq.Sender;
+
+/**
+ * Delays mail references without polling, relying on RabbitMQ message expiration.
+ *
+ * Each mail queue owns a set of delay queues, each of them having a fixed message TTL. Expired messages are
+ * dead-lettered to the mail queue exchange, and thus routed to its work queue. As all messages of a given delay
+ * queue share the same TTL they expire in order.
+ *
+ * A delay is split among delay queues: the message is published to the longest delay queue not exceeding the
+ * delay, and carries the remaining delay in a header. Upon dequeue, messages with a remaining delay are sent back to
+ * a delay queue. Delays are rounded up to the shortest delay queue TTL.
+ */
+class DelayQueues {
+    @VisibleForTesting static final String REMAINING_DELAY_HEADER = "james-remaining-delay-ms";
+    @VisibleForTesting static final ImmutableList<Duration> DELAYS = ImmutableList.of(
+        Duration.ofHours(10),
+        Duration.ofHours(1),
+        Duration.ofMinutes(10),
+        Duration.ofMinutes(1),
+        Duration.ofSeconds(10),
+        Duration.ofSeconds(1));
+    private static final Duration SHORTEST_DELAY = DELAYS.get(DELAYS.size() - 1);
+    private static final Duration MAX_DELAY = Duration.ofMillis(Long.MAX_VALUE);
+    private static final String DEFAULT_EXCHANGE = "";
+    private static final String MESSAGE_TTL_ARGUMENT = "x-message-ttl";
+    private static final String DEAD_LETTER_EXCHANGE_ARGUMENT = "x-dead-letter-exchange";
+    private static final String DEAD_LETTER_ROUTING_KEY_ARGUMENT = "x-dead-letter-routing-key";
+
+    static class Hop {
+        private final Duration delay;
+        private final Duration remainingDelay;
+
+        private Hop(Duration delay, Duration remainingDelay) {
+            this.delay = delay;
+            this.remainingDelay = remainingDelay;
+        }
+
+        Duration getDelay() {
+            return delay;
+        }
+
+        Duration getRemainingDelay() {
+            return remainingDelay;
+        }
+    }
+
+    @VisibleForTesting
+    static Hop nextHop(Duration delay) {
+        Duration cappedDelay = delay.compareTo(MAX_DELAY) > 0 ? MAX_DELAY : delay;
+        Duration hopDelay = DELAYS.stream()
+            .filter(candidate -> candidate.compareTo(cappedDelay) <= 0)
+            .findFirst()
+            .orElse(SHORTEST_DELAY);
+        Duration remainingDelay = cappedDelay.minus(hopDelay);
+
+        if (remainingDelay.isNegative()) {
+            return new Hop(hopDelay, Duration.ZERO);
+        }
+        return new Hop(hopDelay, remainingDelay);
+    }
+
+    private final MailQueueName name;
+    private final Sender sender;
+
+    DelayQueues(MailQueueName name, Sender sender) {
+        this.name = name;
+        this.sender = sender;
+    }
+
+    Mono<Void> declare() {
+        return Flux.fromIterable(DELAYS)
+            .concatMap(delay -> sender.declareQueue(QueueSpecification.queue(name.toDelayQueueName(delay).asString())
+                .durable(DURABLE)
+                .exclusive(!EXCLUSIVE)
+                .autoDelete(!AUTO_DELETE)
+                .arguments(ImmutableMap.of(
+                    MESSAGE_TTL_ARGUMENT, delay.toMillis(),
+                    DEAD_LETTER_EXCHANGE_ARGUMENT, name.toRabbitExchangeName().asString(),
+                    DEAD_LETTER_ROUTING_KEY_ARGUMENT, EMPTY_ROUTING_KEY))))
+            .then();
+    }
+
+    Mono<Void> publish(byte[] mailReference, Duration delay) {
+        Hop hop = nextHop(delay);
+        OutboundMessage message = new OutboundMessage(
+            DEFAULT_EXCHANGE,
+            name.toDelayQueueName(hop.getDelay()).asString(),
+            properties(hop.getRemainingDelay()),
+            mailReference);
+
+        return sender.send(Mono.just(message));
+    }
+
+    Optional<Duration> remainingDelay(Delivery delivery) {
+        return Optional.ofNullable(delivery.getProperties())
+            .flatMap(properties -> Optional.ofNullable(properties.getHeaders()))
+            .flatMap(headers -> Optional.ofNullable(headers.get(REMAINING_DELAY_HEADER)))
+            .filter(Number.class::isInstance)
+            .map(Number.class::cast)
+            .map(remainingDelay -> Duration.ofMillis(remainingDelay.longValue()))
+            .filter(remainingDelay -> !remainingDelay.isZero() && !remainingDelay.isNegative());
+    }
+
+    private AMQP.BasicProperties properties(Duration remainingDelay) {
+        if (remainingDelay.isZero()) {
+            return MessageProperties.PERSISTENT_BASIC;
+        }
+        Map<String, Object> headers = ImmutableMap.of(REMAINING_DELAY_HEADER, remainingDelay.toMillis());
+        return MessageProperties.PERSISTENT_BASIC.builder()
+            .headers(headers)
+            .build();
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.james.queue.rabbitmq;
 import static org.apache.james.queue.api.MailQueue.DEQUEUED_METRIC_NAME_PREFIX;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -29,6 +30,7 @@ import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
 import org.apache.james.metrics.api.Metric;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.queue.api.MailQueue;
+import org.apache.james.queue.rabbitmq.view.RabbitMQMailQueueConfiguration.DequeueConfiguration;
 import org.apache.james.queue.rabbitmq.view.api.DeleteCondition;
 import org.apache.james.queue.rabbitmq.view.api.MailQueueView;
 import org.apache.mailet.Mail;
@@ -43,7 +45,6 @@ import reactor.rabbitmq.ConsumeOptions;
 
 class Dequeuer {
     private static final boolean REQUEUE = true;
-    private static final int EXECUTION_RATE = 5;
     private final Flux<AcknowledgableDelivery> flux;
 
     private static class RabbitMQMailQueueItem implements MailQueue.MailQueueItem {
@@ -72,26 +73,41 @@ class Dequeuer {
         }
     }
 
-    private final Function<MailReferenceDTO, MailWithEnqueueId> mailLoader;
+    private final Function<MailReferenceDTO, Mono<MailWithEnqueueId>> mailLoader;
     private final Metric dequeueMetric;
     private final MailReferenceSerializer mailReferenceSerializer;
     private final MailQueueView mailQueueView;
+    private final DelayQueues delayQueues;
+    private final int concurrency;
 
-    Dequeuer(MailQueueName name, ReactorRabbitMQChannelPool reactorRabbitMQChannelPool, Function<MailReferenceDTO, MailWithEnqueueId> mailLoader,
+    Dequeuer(MailQueueName name, ReactorRabbitMQChannelPool reactorRabbitMQChannelPool, Function<MailReferenceDTO, Mono<MailWithEnqueueId>> mailLoader,
              MailReferenceSerializer serializer, MetricFactory metricFactory,
-             MailQueueView mailQueueView) {
+             MailQueueView mailQueueView, DequeueConfiguration dequeueConfiguration, DelayQueues delayQueues) {
         this.mailLoader = mailLoader;
+        this.delayQueues = delayQueues;
         this.mailReferenceSerializer = serializer;
         this.mailQueueView = mailQueueView;
+        this.concurrency = dequeueConfiguration.getConcurrency();
         this.dequeueMetric = metricFactory.generate(DEQUEUED_METRIC_NAME_PREFIX + name.asString());
         this.flux = reactorRabbitMQChannelPool.createReceiver()
-            .consumeManualAck(name.toWorkQueueName().asString(), new ConsumeOptions().qos(EXECUTION_RATE))
+            .consumeManualAck(name.toWorkQueueName().asString(), new ConsumeOptions().qos(dequeueConfiguration.getPrefetch()))
             .filter(getResponse -> getResponse.getBody() != null);
     }
 
     Flux<? extends MailQueue.MailQueueItem> deQueue() {
-        return flux.concatMap(this::loadItem)
-            .concatMap(this::filterIfDeleted);
+        return flux.flatMap(this::handleDelivery, concurrency);
+    }
+
+    private Mono<RabbitMQMailQueueItem> handleDelivery(AcknowledgableDelivery response) {
+        return delayQueues.remainingDelay(response)
+            .map(remainingDelay -> delayAgain(response, remainingDelay))
+            .orElseGet(() -> loadItem(response)
+                .flatMap(this::filterIfDeleted));
+    }
+
+    private Mono<RabbitMQMailQueueItem> delayAgain(AcknowledgableDelivery response, Duration remainingDelay) {
+        return delayQueues.publish(response.getBody(), remainingDelay)
+            .then(Mono.fromRunnable(response::ack));
     }
 
     private Mono<RabbitMQMailQueueItem> filterIfDeleted(RabbitMQMailQueueItem item) {
@@ -108,13 +124,8 @@ class Dequeuer {
     }
 
     private Mono<RabbitMQMailQueueItem> loadItem(AcknowledgableDelivery response) {
-        try {
-            MailWithEnqueueId mailWithEnqueueId = loadMail(response);
-            ThrowingConsumer<Boolean> ack = ack(response, mailWithEnqueueId);
-            return Mono.just(new RabbitMQMailQueueItem(ack, mailWithEnqueueId));
-        } catch (MailQueue.MailQueueException e) {
-            return Mono.error(e);
-        }
+        return loadMail(response)
+            .map(mailWithEnqueueId -> new RabbitMQMailQueueItem(ack(response, mailWithEnqueueId), mailWithEnqueueId));
     }
 
     private ThrowingConsumer<Boolean> ack(AcknowledgableDelivery response, MailWithEnqueueId mailWithEnqueueId) {
@@ -129,9 +140,9 @@ class Dequeuer {
         };
     }
 
-    private MailWithEnqueueId loadMail(Delivery response) throws MailQueue.MailQueueException {
-        MailReferenceDTO mailDTO = toMailReference(response);
-        return mailLoader.apply(mailDTO);
+    private Mono<MailWithEnqueueId> loadMail(Delivery response) {
+        return Mono.fromCallable(() -> toMailReference(response))
+            .flatMap(mailLoader);
     }
 
     private MailReferenceDTO toMailReference(Delivery getResponse) throws MailQueue.MailQueueException {
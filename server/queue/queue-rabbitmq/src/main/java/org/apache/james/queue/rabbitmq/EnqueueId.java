@@ -22,12 +22,17 @@ package org.apache.james.queue.rabbitmq;
 import java.util.Objects;
 import java.util.UUID;
 
+import com.datastax.driver.core.utils.UUIDs;
 import com.google.common.base.Preconditions;
 
 public class EnqueueId {
 
+    /**
+     * Enqueue ids are time based since mail queue sizes are counted: mails with a random enqueue id were enqueued
+     * before, and were not counted.
+     */
     public static EnqueueId generate() {
-        return of(UUID.randomUUID());
+        return of(UUIDs.timeBased());
     }
 
     public static EnqueueId of(UUID uuid) {
@@ -50,6 +55,10 @@ public class EnqueueId {
         return id;
     }
 
+    public boolean isTimeBased() {
+        return id.version() == 1;
+    }
+
     public String serialize() {
         return id.toString();
     }
@@ -23,6 +23,17 @@ import static org.apache.james.backends.rabbitmq.Constants.EMPTY_ROUTING_KEY;
 import static org.apache.james.queue.api.MailQueue.ENQUEUED_METRIC_NAME_PREFIX;
 
 import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
@@ -35,15 +46,25 @@ import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.queue.api.MailQueue;
 import org.apache.james.queue.rabbitmq.view.api.MailQueueView;
 import org.apache.mailet.Mail;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.github.fge.lambdas.Throwing;
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
 
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.OutboundMessageResult;
 import reactor.rabbitmq.Sender;
+import reactor.util.concurrent.Queues;
 
 class Enqueuer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Enqueuer.class);
+    private static final int SAVE_CONCURRENCY = 8;
+
     private final MailQueueName name;
     private final Sender sender;
     private final Store<MimeMessage, MimeMessagePartsId> mimeMessageStore;
@@ -51,12 +72,14 @@ class Enqueuer {
     private final Metric enqueueMetric;
     private final MailQueueView mailQueueView;
     private final Clock clock;
+    private final DelayQueues delayQueues;
 
     Enqueuer(MailQueueName name, ReactorRabbitMQChannelPool reactorRabbitMQChannelPool, Store<MimeMessage, MimeMessagePartsId> mimeMessageStore,
              MailReferenceSerializer serializer, MetricFactory metricFactory,
-             MailQueueView mailQueueView, Clock clock) {
+             MailQueueView mailQueueView, Clock clock, DelayQueues delayQueues) {
         this.name = name;
         this.sender = reactorRabbitMQChannelPool.getSender();
+        this.delayQueues = delayQueues;
         this.mimeMessageStore = mimeMessageStore;
         this.mailReferenceSerializer = serializer;
         this.mailQueueView = mailQueueView;
@@ -65,37 +88,156 @@ class Enqueuer {
     }
 
     void enQueue(Mail mail) throws MailQueue.MailQueueException {
+        enQueue(mail, Duration.ZERO);
+    }
+
+    void enQueue(Mail mail, Duration delay) throws MailQueue.MailQueueException {
         EnqueueId enqueueId = EnqueueId.generate();
-        saveMail(mail)
+        block(saveMail(mail)
             .map(partIds -> new MailReference(enqueueId, mail, partIds))
-            .flatMap(Throwing.function(this::publishReferenceToRabbit).sneakyThrow())
+            .flatMap(mailReference -> publishReferenceToRabbit(mailReference, delay))
             .flatMap(mailQueueView::storeMail)
-            .thenEmpty(Mono.fromRunnable(enqueueMetric::increment))
-            .block();
+            .thenEmpty(Mono.fromRunnable(enqueueMetric::increment)));
     }
 
-    private Mono<MimeMessagePartsId> saveMail(Mail mail) throws MailQueue.MailQueueException {
+    /**
+     * MimeMessages shared by several mails are saved once. Mail references are published in a single batch, relying
+     * on publisher confirms.
+     *
+     * Mail references confirmed by RabbitMQ are stored in the view even when others are not: the mails left
+     * unconfirmed are reported by a {@link MailQueue.PartialEnqueueException}, so that only them are enqueued again.
+     * A confirmed mail is delivered even if the view could not store it, hence such failures are only logged: reporting
+     * them would get the mail enqueued, and delivered, twice.
+     */
+    void enQueue(Collection<Mail> mails) throws MailQueue.MailQueueException {
+        IdentityHashMap<MimeMessage, Mono<MimeMessagePartsId>> savedMimeMessages = new IdentityHashMap<>();
+        ImmutableList.Builder<Mono<MailReference>> mailReferences = ImmutableList.builder();
+        for (Mail mail : mails) {
+            EnqueueId enqueueId = EnqueueId.generate();
+            Mono<MimeMessagePartsId> savedMimeMessage = savedMimeMessages.computeIfAbsent(getMessage(mail),
+                mimeMessage -> mimeMessageStore.save(mimeMessage).cache());
+            mailReferences.add(savedMimeMessage.map(partIds -> new MailReference(enqueueId, mail, partIds)));
+        }
+
+        block(Flux.fromIterable(mailReferences.build())
+            .flatMapSequential(Function.identity(), SAVE_CONCURRENCY)
+            .collectList()
+            .onErrorMap(Exception.class, e -> new MailQueue.MailQueueException("Unable to save the mails to enqueue in " + name.asString(), e))
+            .flatMapMany(this::publishReferencesToRabbit)
+            .flatMap(this::storeConfirmedMail, Queues.SMALL_BUFFER_SIZE)
+            .then());
+    }
+
+    private Mono<Void> storeConfirmedMail(EnqueuedItem enqueuedItem) {
+        return mailQueueView.storeMail(enqueuedItem)
+            .onErrorResume(e -> {
+                LOGGER.error("Mail {} was published in {} but could not be stored in its view",
+                    enqueuedItem.getMail().getName(), name.asString(), e);
+                return Mono.empty();
+            })
+            .thenEmpty(Mono.fromRunnable(enqueueMetric::increment));
+    }
+
+    /**
+     * Blocking wraps checked exceptions into runtime ones, hiding the {@link MailQueue.MailQueueException} callers rely
+     * on to know which mails need to be enqueued again.
+     */
+    private void block(Mono<Void> enqueue) throws MailQueue.MailQueueException {
         try {
-            return mimeMessageStore.save(mail.getMessage());
+            enqueue.block();
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof MailQueue.MailQueueException) {
+                throw (MailQueue.MailQueueException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private MimeMessage getMessage(Mail mail) throws MailQueue.MailQueueException {
+        try {
+            return mail.getMessage();
         } catch (MessagingException e) {
             throw new MailQueue.MailQueueException("Error while saving blob", e);
         }
     }
 
-    private Mono<EnqueuedItem> publishReferenceToRabbit(MailReference mailReference) throws MailQueue.MailQueueException {
-        OutboundMessage data = new OutboundMessage(
+    private Flux<EnqueuedItem> publishReferencesToRabbit(List<MailReference> mailReferences) {
+        Map<OutboundMessage, MailReference> publishedReferences = Collections.synchronizedMap(new IdentityHashMap<>());
+        Set<MailReference> confirmedReferences = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        AtomicReference<Throwable> publishingFailure = new AtomicReference<>();
+
+        return sender.sendWithPublishConfirms(Flux.fromIterable(mailReferences)
+                .concatMap(mailReference -> Mono.fromCallable(() -> toOutboundMessage(mailReference, publishedReferences))))
+            .filter(OutboundMessageResult::isAck)
+            .doOnNext(result -> confirmedReferences.add(publishedReferences.get(result.getOutboundMessage())))
+            .onErrorResume(e -> {
+                publishingFailure.set(e);
+                return Mono.empty();
+            })
+            .thenMany(Flux.fromIterable(mailReferences))
+            .filter(confirmedReferences::contains)
+            .map(this::toEnqueuedItem)
+            .concatWith(Mono.defer(() -> failUnconfirmed(mailReferences, confirmedReferences, publishingFailure.get())));
+    }
+
+    private OutboundMessage toOutboundMessage(MailReference mailReference, Map<OutboundMessage, MailReference> publishedReferences) throws MailQueue.MailQueueException {
+        OutboundMessage message = new OutboundMessage(
             name.toRabbitExchangeName().asString(),
             EMPTY_ROUTING_KEY,
             getMailReferenceBytes(mailReference));
-        return sender.send(Mono.just(data))
-            .then(Mono.just(
-                EnqueuedItem.builder()
-                    .enqueueId(mailReference.getEnqueueId())
-                    .mailQueueName(name)
-                    .mail(mailReference.getMail())
-                    .enqueuedTime(clock.instant())
-                    .mimeMessagePartsId(mailReference.getPartsId())
-                    .build()));
+        publishedReferences.put(message, mailReference);
+        return message;
+    }
+
+    private Mono<EnqueuedItem> failUnconfirmed(List<MailReference> mailReferences, Set<MailReference> confirmedReferences, Throwable publishingFailure) {
+        ImmutableList<Mail> unconfirmedMails = mailReferences.stream()
+            .filter(mailReference -> !confirmedReferences.contains(mailReference))
+            .map(MailReference::getMail)
+            .collect(Guavate.toImmutableList());
+        if (unconfirmedMails.isEmpty()) {
+            return Mono.empty();
+        }
+        MailQueue.MailQueueException cause = new MailQueue.MailQueueException("Mail references of "
+            + unconfirmedMails.stream().map(Mail::getName).collect(Collectors.joining(", "))
+            + " were not confirmed by RabbitMQ");
+        Optional.ofNullable(publishingFailure).ifPresent(cause::addSuppressed);
+        return Mono.error(new MailQueue.PartialEnqueueException(unconfirmedMails, cause));
+    }
+
+    private Mono<MimeMessagePartsId> saveMail(Mail mail) throws MailQueue.MailQueueException {
+        try {
+            return mimeMessageStore.save(mail.getMessage());
+        } catch (MessagingException e) {
+            throw new MailQueue.MailQueueException("Error while saving blob", e);
+        }
+    }
+
+    private Mono<EnqueuedItem> publishReferenceToRabbit(MailReference mailReference, Duration delay) {
+        return Mono.fromCallable(() -> getMailReferenceBytes(mailReference))
+            .flatMap(mailReferenceBytes -> publish(mailReferenceBytes, delay))
+            .then(Mono.fromCallable(() -> toEnqueuedItem(mailReference)));
+    }
+
+    private EnqueuedItem toEnqueuedItem(MailReference mailReference) {
+        return EnqueuedItem.builder()
+            .enqueueId(mailReference.getEnqueueId())
+            .mailQueueName(name)
+            .mail(mailReference.getMail())
+            .enqueuedTime(clock.instant())
+            .mimeMessagePartsId(mailReference.getPartsId())
+            .build();
+    }
+
+    private Mono<Void> publish(byte[] mailReference, Duration delay) {
+        if (delay.isNegative() || delay.isZero()) {
+            OutboundMessage data = new OutboundMessage(
+                name.toRabbitExchangeName().asString(),
+                EMPTY_ROUTING_KEY,
+                mailReference);
+            return sender.send(Mono.just(data));
+        }
+        return delayQueues.publish(mailReference, delay);
     }
 
     private byte[] getMailReferenceBytes(MailReference mailReference) throws MailQueue.MailQueueException {
@@ -20,7 +20,6 @@
 package org.apache.james.queue.rabbitmq;
 
 import javax.mail.MessagingException;
-import javax.mail.internet.AddressException;
 import javax.mail.internet.MimeMessage;
 
 import org.apache.james.blob.api.BlobId;
@@ -29,6 +28,8 @@ import org.apache.james.blob.mail.MimeMessagePartsId;
 import org.apache.james.queue.api.MailQueue;
 import org.apache.mailet.Mail;
 
+import reactor.core.publisher.Mono;
+
 class MailLoader {
     private final Store<MimeMessage, MimeMessagePartsId> mimeMessageStore;
     private final BlobId.Factory blobIdFactory;
@@ -38,16 +39,17 @@ class MailLoader {
         this.blobIdFactory = blobIdFactory;
     }
 
-    MailWithEnqueueId load(MailReferenceDTO dto) throws MailQueue.MailQueueException {
-        try {
-            MailReference mailReference = dto.toMailReference(blobIdFactory);
+    Mono<MailWithEnqueueId> load(MailReferenceDTO dto) {
+        return Mono.fromCallable(() -> dto.toMailReference(blobIdFactory))
+            .flatMap(mailReference -> mimeMessageStore.read(mailReference.getPartsId())
+                .flatMap(mimeMessage -> Mono.fromCallable(() -> toMailWithEnqueueId(mailReference, mimeMessage))));
+    }
 
+    private MailWithEnqueueId toMailWithEnqueueId(MailReference mailReference, MimeMessage mimeMessage) throws MailQueue.MailQueueException {
+        try {
             Mail mail = mailReference.getMail();
-            MimeMessage mimeMessage = mimeMessageStore.read(mailReference.getPartsId()).block();
             mail.setMessage(mimeMessage);
             return new MailWithEnqueueId(mailReference.getEnqueueId(), mail);
-        } catch (AddressException e) {
-            throw new MailQueue.MailQueueException("Failed to parse mail address", e);
         } catch (MessagingException e) {
             throw new MailQueue.MailQueueException("Failed to generate mime message", e);
         }
@@ -19,6 +19,7 @@
 
 package org.apache.james.queue.rabbitmq;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -110,8 +111,46 @@ public final class MailQueueName {
         }
     }
 
+    static class DelayQueueName {
+        private final String name;
+        private final Duration delay;
+
+        private DelayQueueName(String name, Duration delay) {
+            this.name = name;
+            this.delay = delay;
+        }
+
+        String asString() {
+            return DELAY_QUEUE_PREFIX + name + "-" + delay.toMillis() + "ms";
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof DelayQueueName) {
+                DelayQueueName that = (DelayQueueName) o;
+                return Objects.equals(name, that.name)
+                    && Objects.equals(delay, that.delay);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(name, delay);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("delay", delay)
+                .toString();
+        }
+    }
+
     private static final String PREFIX = "JamesMailQueue";
     private static final String EXCHANGE_PREFIX = PREFIX + "-exchange-";
+    private static final String DELAY_QUEUE_PREFIX = PREFIX + "-delay-";
     @VisibleForTesting static final String WORKQUEUE_PREFIX = PREFIX + "-workqueue-";
 
     public static MailQueueName fromString(String name) {
@@ -142,6 +181,10 @@ public final class MailQueueName {
         return new WorkQueueName(name);
     }
 
+    DelayQueueName toDelayQueueName(Duration delay) {
+        return new DelayQueueName(name, delay);
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (o instanceof MailQueueName) {
@@ -20,6 +20,7 @@
 package org.apache.james.queue.rabbitmq;
 
 import java.time.Duration;
+import java.util.Collection;
 
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.queue.api.MailQueueItemDecoratorFactory;
@@ -63,10 +64,8 @@ public class RabbitMQMailQueue implements ManageableMailQueue {
 
     @Override
     public void enQueue(Mail mail, Duration delay) {
-        if (!delay.isNegative()) {
-            LOGGER.info("Ignored delay upon enqueue of {} : {}.", mail.getName(), delay);
-        }
-        enQueue(mail);
+        metricFactory.runPublishingTimerMetric(ENQUEUED_TIMER_METRIC_NAME_PREFIX + name.asString(),
+            Throwing.runnable(() -> enqueuer.enQueue(mail, delay)).sneakyThrow());
     }
 
     @Override
@@ -75,6 +74,12 @@ public class RabbitMQMailQueue implements ManageableMailQueue {
             Throwing.runnable(() -> enqueuer.enQueue(mail)).sneakyThrow());
     }
 
+    @Override
+    public void enQueue(Collection<Mail> mails) {
+        metricFactory.runPublishingTimerMetric(ENQUEUED_TIMER_METRIC_NAME_PREFIX + name.asString(),
+            Throwing.runnable(() -> enqueuer.enQueue(mails)).sneakyThrow());
+    }
+
     @Override
     public Flux<MailQueueItem> deQueue() {
         return dequeuer.deQueue()
@@ -88,7 +93,7 @@ public class RabbitMQMailQueue implements ManageableMailQueue {
 
     @Override
     public long flush() {
-        LOGGER.warn("Delays are not supported by RabbitMQ. Flush is a NOOP.");
+        LOGGER.warn("Delayed mails can not be flushed by RabbitMQ. Flush is a NOOP.");
         return 0;
     }
 
@@ -19,16 +19,95 @@
 
 package org.apache.james.queue.rabbitmq.view;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.configuration2.Configuration;
 
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Streams;
+
 public class RabbitMQMailQueueConfiguration {
     private static final boolean DEFAULT_SIZE_METRICS_ENABLED = true;
 
+    public static class DequeueConfiguration {
+        public static final int DEFAULT_CONCURRENCY = 5;
+        public static final int DEFAULT_PREFETCH = 20;
+        public static final DequeueConfiguration DEFAULT = new DequeueConfiguration(DEFAULT_CONCURRENCY, DEFAULT_PREFETCH);
+
+        public static DequeueConfiguration of(int concurrency, int prefetch) {
+            Preconditions.checkArgument(concurrency > 0, "'concurrency' needs to be strictly positive");
+            Preconditions.checkArgument(prefetch > 0, "'prefetch' needs to be strictly positive");
+
+            return new DequeueConfiguration(concurrency, prefetch);
+        }
+
+        private final int concurrency;
+        private final int prefetch;
+
+        private DequeueConfiguration(int concurrency, int prefetch) {
+            this.concurrency = concurrency;
+            this.prefetch = prefetch;
+        }
+
+        /**
+         * Count of dequeued mails being loaded (mail reference parsing, MimeMessage headers reading, deletion check)
+         * concurrently.
+         */
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * Count of unacknowledged mails RabbitMQ delivers to a given consumer. Mails being processed by the mail
+         * spooler are unacknowledged, thus this value bounds the count of mails a given node processes at once.
+         */
+        public int getPrefetch() {
+            return prefetch;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof DequeueConfiguration) {
+                DequeueConfiguration that = (DequeueConfiguration) o;
+
+                return Objects.equals(this.concurrency, that.concurrency)
+                    && Objects.equals(this.prefetch, that.prefetch);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(concurrency, prefetch);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("concurrency", concurrency)
+                .add("prefetch", prefetch)
+                .toString();
+        }
+    }
+
     public static class Builder {
         private Optional<Boolean> sizeMetricsEnabled;
+        private Optional<Integer> dequeueConcurrency;
+        private Optional<Integer> dequeuePrefetch;
+        private final ImmutableMap.Builder<String, DequeueConfiguration> perQueueDequeueConfigurations;
+
+        private Builder() {
+            this.sizeMetricsEnabled = Optional.empty();
+            this.dequeueConcurrency = Optional.empty();
+            this.dequeuePrefetch = Optional.empty();
+            this.perQueueDequeueConfigurations = ImmutableMap.builder();
+        }
 
         public Builder sizeMetricsEnabled(boolean sizeMetricsEnabled) {
             this.sizeMetricsEnabled = Optional.of(sizeMetricsEnabled);
@@ -40,21 +119,77 @@ public class RabbitMQMailQueueConfiguration {
             return this;
         }
 
+        public Builder dequeueConcurrency(int dequeueConcurrency) {
+            this.dequeueConcurrency = Optional.of(dequeueConcurrency);
+            return this;
+        }
+
+        public Builder dequeueConcurrency(Optional<Integer> dequeueConcurrency) {
+            this.dequeueConcurrency = dequeueConcurrency;
+            return this;
+        }
+
+        public Builder dequeuePrefetch(int dequeuePrefetch) {
+            this.dequeuePrefetch = Optional.of(dequeuePrefetch);
+            return this;
+        }
+
+        public Builder dequeuePrefetch(Optional<Integer> dequeuePrefetch) {
+            this.dequeuePrefetch = dequeuePrefetch;
+            return this;
+        }
+
+        public Builder dequeueConfiguration(String queueName, DequeueConfiguration dequeueConfiguration) {
+            this.perQueueDequeueConfigurations.put(queueName, dequeueConfiguration);
+            return this;
+        }
+
         public RabbitMQMailQueueConfiguration build() {
-            return new RabbitMQMailQueueConfiguration(sizeMetricsEnabled.orElse(DEFAULT_SIZE_METRICS_ENABLED));
+            DequeueConfiguration defaultDequeueConfiguration = DequeueConfiguration.of(
+                dequeueConcurrency.orElse(DequeueConfiguration.DEFAULT_CONCURRENCY),
+                dequeuePrefetch.orElse(DequeueConfiguration.DEFAULT_PREFETCH));
+
+            return new RabbitMQMailQueueConfiguration(sizeMetricsEnabled.orElse(DEFAULT_SIZE_METRICS_ENABLED),
+                defaultDequeueConfiguration,
+                perQueueDequeueConfigurations.build());
         }
     }
 
     public static final String SIZE_METRICS_ENABLED_PROPERTY = "mailqueue.size.metricsEnabled";
+    public static final String DEQUEUE_CONCURRENCY_PROPERTY = "mailqueue.dequeue.concurrency";
+    public static final String DEQUEUE_PREFETCH_PROPERTY = "mailqueue.dequeue.prefetch";
+    private static final String MAIL_QUEUE_PREFIX = "mailqueue";
+    private static final Pattern PER_QUEUE_DEQUEUE_PROPERTY = Pattern.compile("^mailqueue\\.(.+)\\.dequeue\\.(concurrency|prefetch)$");
 
     public static Builder builder() {
         return new Builder();
     }
 
     public static RabbitMQMailQueueConfiguration from(Configuration configuration) {
-        return builder()
+        Optional<Integer> dequeueConcurrency = Optional.ofNullable(configuration.getInteger(DEQUEUE_CONCURRENCY_PROPERTY, null));
+        Optional<Integer> dequeuePrefetch = Optional.ofNullable(configuration.getInteger(DEQUEUE_PREFETCH_PROPERTY, null));
+
+        Builder builder = builder()
             .sizeMetricsEnabled(Optional.ofNullable(configuration.getBoolean(SIZE_METRICS_ENABLED_PROPERTY, null)))
-            .build();
+            .dequeueConcurrency(dequeueConcurrency)
+            .dequeuePrefetch(dequeuePrefetch);
+
+        Streams.stream(configuration.getKeys(MAIL_QUEUE_PREFIX))
+            .map(PER_QUEUE_DEQUEUE_PROPERTY::matcher)
+            .filter(Matcher::matches)
+            .map(matcher -> matcher.group(1))
+            .distinct()
+            .forEach(queueName -> builder.dequeueConfiguration(queueName, DequeueConfiguration.of(
+                configuration.getInt(perQueueProperty(queueName, "concurrency"),
+                    dequeueConcurrency.orElse(DequeueConfiguration.DEFAULT_CONCURRENCY)),
+                configuration.getInt(perQueueProperty(queueName, "prefetch"),
+                    dequeuePrefetch.orElse(DequeueConfiguration.DEFAULT_PREFETCH)))));
+
+        return builder.build();
+    }
+
+    private static String perQueueProperty(String queueName, String property) {
+        return MAIL_QUEUE_PREFIX + "." + queueName + ".dequeue." + property;
     }
 
     public static RabbitMQMailQueueConfiguration sizeMetricsEnabled() {
@@ -70,27 +205,38 @@ public class RabbitMQMailQueueConfiguration {
     }
 
     private final boolean sizeMetricsEnabled;
+    private final DequeueConfiguration defaultDequeueConfiguration;
+    private final Map<String, DequeueConfiguration> perQueueDequeueConfigurations;
 
-    private RabbitMQMailQueueConfiguration(boolean sizeMetricsEnabled) {
+    private RabbitMQMailQueueConfiguration(boolean sizeMetricsEnabled, DequeueConfiguration defaultDequeueConfiguration,
+                                           Map<String, DequeueConfiguration> perQueueDequeueConfigurations) {
         this.sizeMetricsEnabled = sizeMetricsEnabled;
+        this.defaultDequeueConfiguration = defaultDequeueConfiguration;
+        this.perQueueDequeueConfigurations = perQueueDequeueConfigurations;
     }
 
     public boolean isSizeMetricsEnabled() {
         return sizeMetricsEnabled;
     }
 
+    public DequeueConfiguration dequeueConfiguration(String queueName) {
+        return perQueueDequeueConfigurations.getOrDefault(queueName, defaultDequeueConfiguration);
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (o instanceof RabbitMQMailQueueConfiguration) {
             RabbitMQMailQueueConfiguration that = (RabbitMQMailQueueConfiguration) o;
 
-            return Objects.equals(this.sizeMetricsEnabled, that.sizeMetricsEnabled);
+            return Objects.equals(this.sizeMetricsEnabled, that.sizeMetricsEnabled)
+                && Objects.equals(this.defaultDequeueConfiguration, that.defaultDequeueConfiguration)
+                && Objects.equals(this.perQueueDequeueConfigurations, that.perQueueDequeueConfigurations);
         }
         return false;
     }
 
     @Override
     public final int hashCode() {
-        return Objects.hash(sizeMetricsEnabled);
+        return Objects.hash(sizeMetricsEnabled, defaultDequeueConfiguration, perQueueDequeueConfigurations);
     }
 }
@@ -39,6 +39,7 @@ import org.apache.james.queue.rabbitmq.EnqueuedItem;
 import org.apache.james.queue.rabbitmq.MailQueueName;
 import org.apache.james.queue.rabbitmq.view.cassandra.configuration.CassandraMailQueueViewConfiguration;
 import org.apache.james.queue.rabbitmq.view.cassandra.model.EnqueuedItemWithSlicingContext;
+import org.apache.james.server.core.MimeMessageWrapper;
 import org.apache.mailet.Mail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,7 +47,6 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 public class CassandraMailQueueBrowser {
@@ -101,9 +101,12 @@ public class CassandraMailQueueBrowser {
         this.clock = clock;
     }
 
+    /**
+     * Browse results are built from the mail metadata stored in the view. Their MimeMessage is only read upon access.
+     */
     Flux<ManageableMailQueue.MailQueueItemView> browse(MailQueueName queueName) {
         return browseReferences(queueName)
-            .flatMapSequential(this::toMailFuture)
+            .map(this::toMail)
             .map(ManageableMailQueue.MailQueueItemView::new);
     }
 
@@ -114,17 +117,12 @@ public class CassandraMailQueueBrowser {
             .subscribeOn(Schedulers.parallel());
     }
 
-    private Mono<Mail> toMailFuture(EnqueuedItemWithSlicingContext enqueuedItemWithSlicingContext) {
+    private Mail toMail(EnqueuedItemWithSlicingContext enqueuedItemWithSlicingContext) {
         EnqueuedItem enqueuedItem = enqueuedItemWithSlicingContext.getEnqueuedItem();
-        return mimeMessageStore.read(enqueuedItem.getPartsId())
-            .map(mimeMessage -> toMail(enqueuedItem, mimeMessage));
-    }
-
-    private Mail toMail(EnqueuedItem enqueuedItem, MimeMessage mimeMessage) {
         Mail mail = enqueuedItem.getMail();
 
         try {
-            mail.setMessage(mimeMessage);
+            mail.setMessage(new MimeMessageWrapper(new EnqueuedMimeMessageSource(mimeMessageStore, enqueuedItem.getPartsId())));
         } catch (MessagingException e) {
             LOGGER.error("error while setting mime message to mail {}", mail.getName(), e);
         }
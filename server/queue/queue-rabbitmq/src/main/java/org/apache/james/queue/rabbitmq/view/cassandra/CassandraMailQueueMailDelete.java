@@ -20,13 +20,15 @@
 package org.apache.james.queue.rabbitmq.view.cassandra;
 
 import java.time.Instant;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 
 import org.apache.james.queue.rabbitmq.EnqueueId;
 import org.apache.james.queue.rabbitmq.MailQueueName;
 import org.apache.james.queue.rabbitmq.view.cassandra.configuration.CassandraMailQueueViewConfiguration;
+import org.apache.james.util.FunctionalUtils;
 
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -35,24 +37,43 @@ public class CassandraMailQueueMailDelete {
 
     private final DeletedMailsDAO deletedMailsDao;
     private final BrowseStartDAO browseStartDao;
+    private final EnqueuedMailsCountDAO enqueuedMailsCountDao;
     private final CassandraMailQueueBrowser cassandraMailQueueBrowser;
     private final CassandraMailQueueViewConfiguration configuration;
+    private final ConcurrentHashMap<MailQueueName, AtomicLong> deletionCounts;
 
     @Inject
     CassandraMailQueueMailDelete(DeletedMailsDAO deletedMailsDao,
                                  BrowseStartDAO browseStartDao,
+                                 EnqueuedMailsCountDAO enqueuedMailsCountDao,
                                  CassandraMailQueueBrowser cassandraMailQueueBrowser,
                                  CassandraMailQueueViewConfiguration configuration) {
         this.deletedMailsDao = deletedMailsDao;
         this.browseStartDao = browseStartDao;
+        this.enqueuedMailsCountDao = enqueuedMailsCountDao;
         this.cassandraMailQueueBrowser = cassandraMailQueueBrowser;
         this.configuration = configuration;
+        this.deletionCounts = new ConcurrentHashMap<>();
     }
 
+    /**
+     * Mails already marked as deleted, for instance removed by an administrator then dequeued, are not counted twice:
+     * only the deletion actually marking the mail decrements the mail queue size.
+     *
+     * Mails enqueued before sizes were counted, identified by their random enqueue id, are not counted either.
+     */
     Mono<Void> considerDeleted(EnqueueId enqueueId, MailQueueName mailQueueName) {
-        return deletedMailsDao
-            .markAsDeleted(mailQueueName, enqueueId)
-            .doOnNext(ignored -> maybeUpdateBrowseStart(mailQueueName));
+        return deletedMailsDao.markAsDeleted(mailQueueName, enqueueId)
+            .filter(FunctionalUtils.identityPredicate())
+            .flatMap(ignored -> decrementIfCounted(enqueueId, mailQueueName)
+                .then(Mono.fromRunnable(() -> maybeUpdateBrowseStart(mailQueueName))));
+    }
+
+    private Mono<Void> decrementIfCounted(EnqueueId enqueueId, MailQueueName mailQueueName) {
+        if (enqueueId.isTimeBased()) {
+            return enqueuedMailsCountDao.decrement(mailQueueName);
+        }
+        return Mono.empty();
     }
 
     Mono<Boolean> isDeleted(EnqueueId enqueueId, MailQueueName mailQueueName) {
@@ -66,8 +87,14 @@ public class CassandraMailQueueMailDelete {
             .subscribe();
     }
 
+    /**
+     * The browse start is updated every updateBrowseStartPace deletions of a given mail queue.
+     */
     private void maybeUpdateBrowseStart(MailQueueName mailQueueName) {
-        if (shouldUpdateBrowseStart()) {
+        long deletionCount = deletionCounts.computeIfAbsent(mailQueueName, any -> new AtomicLong())
+            .incrementAndGet();
+
+        if (deletionCount % configuration.getUpdateBrowseStartPace() == 0) {
             updateBrowseStart(mailQueueName);
         }
     }
@@ -81,9 +108,4 @@ public class CassandraMailQueueMailDelete {
     private Mono<Void> updateNewBrowseStart(MailQueueName mailQueueName, Instant newBrowseStartInstant) {
         return browseStartDao.updateBrowseStart(mailQueueName, newBrowseStartInstant);
     }
-
-    private boolean shouldUpdateBrowseStart() {
-        int threshold = configuration.getUpdateBrowseStartPace();
-        return Math.abs(ThreadLocalRandom.current().nextInt()) % threshold == 0;
-    }
 }
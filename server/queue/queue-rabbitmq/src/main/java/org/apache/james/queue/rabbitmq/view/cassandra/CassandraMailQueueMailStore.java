@@ -37,16 +37,19 @@ public class CassandraMailQueueMailStore {
 
     private final EnqueuedMailsDAO enqueuedMailsDao;
     private final BrowseStartDAO browseStartDao;
+    private final EnqueuedMailsCountDAO enqueuedMailsCountDao;
     private final CassandraMailQueueViewConfiguration configuration;
     private final Clock clock;
 
     @Inject
     CassandraMailQueueMailStore(EnqueuedMailsDAO enqueuedMailsDao,
                                 BrowseStartDAO browseStartDao,
+                                EnqueuedMailsCountDAO enqueuedMailsCountDao,
                                 CassandraMailQueueViewConfiguration configuration,
                                 Clock clock) {
         this.enqueuedMailsDao = enqueuedMailsDao;
         this.browseStartDao = browseStartDao;
+        this.enqueuedMailsCountDao = enqueuedMailsCountDao;
         this.configuration = configuration;
         this.clock = clock;
     }
@@ -54,7 +57,13 @@ public class CassandraMailQueueMailStore {
     Mono<Void> storeMail(EnqueuedItem enqueuedItem) {
         EnqueuedItemWithSlicingContext enqueuedItemAndSlicing = addSliceContext(enqueuedItem);
 
-        return enqueuedMailsDao.insert(enqueuedItemAndSlicing);
+        return enqueuedMailsDao.insert(enqueuedItemAndSlicing)
+            .then(enqueuedMailsCountDao.increment(enqueuedItem.getMailQueueName()));
+    }
+
+    Mono<Long> getSize(MailQueueName mailQueueName) {
+        return enqueuedMailsCountDao.getCount(mailQueueName)
+            .map(count -> Math.max(count, 0L));
     }
 
     Mono<Void> initializeBrowseStart(MailQueueName mailQueueName) {
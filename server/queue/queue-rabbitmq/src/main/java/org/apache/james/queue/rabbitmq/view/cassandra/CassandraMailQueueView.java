@@ -95,7 +95,7 @@ public class CassandraMailQueueView implements MailQueueView {
 
     @Override
     public long getSize() {
-        return cassandraMailQueueBrowser.browseReferences(mailQueueName).count().block();
+        return storeHelper.getSize(mailQueueName).block();
     }
 
     @Override
@@ -21,6 +21,7 @@ package org.apache.james.queue.rabbitmq.view.cassandra;
 
 import static com.datastax.driver.core.DataType.blob;
 import static com.datastax.driver.core.DataType.cint;
+import static com.datastax.driver.core.DataType.counter;
 import static com.datastax.driver.core.DataType.list;
 import static com.datastax.driver.core.DataType.map;
 import static com.datastax.driver.core.DataType.text;
@@ -72,6 +73,13 @@ public interface CassandraMailQueueViewModule {
         String ENQUEUE_ID = "enqueueId";
     }
 
+    interface EnqueuedMailsCountTable {
+        String TABLE_NAME = "enqueuedMailsCount";
+
+        String QUEUE_NAME = "queueName";
+        String COUNT = "count";
+    }
+
     interface HeaderEntry {
         int USER_INDEX = 0;
         int HEADER_NAME_INDEX = 1;
@@ -121,5 +129,11 @@ public interface CassandraMailQueueViewModule {
             .addPartitionKey(DeletedMailTable.QUEUE_NAME, text())
             .addPartitionKey(DeletedMailTable.ENQUEUE_ID, uuid()))
 
+        .table(EnqueuedMailsCountTable.TABLE_NAME)
+        .comment("Projection maintaining per mail queue count of mails being enqueued and not yet deleted")
+        .statement(statement -> statement
+            .addPartitionKey(EnqueuedMailsCountTable.QUEUE_NAME, text())
+            .addColumn(EnqueuedMailsCountTable.COUNT, counter()))
+
         .build();
 }
@@ -54,7 +54,8 @@ public class DeletedMailsDAO {
     private PreparedStatement prepareInsert(Session session) {
         return session.prepare(insertInto(TABLE_NAME)
             .value(QUEUE_NAME, bindMarker(QUEUE_NAME))
-            .value(ENQUEUE_ID, bindMarker(ENQUEUE_ID)));
+            .value(ENQUEUE_ID, bindMarker(ENQUEUE_ID))
+            .ifNotExists());
     }
 
     private PreparedStatement prepareSelectExist(Session session) {
@@ -64,8 +65,11 @@ public class DeletedMailsDAO {
             .and(eq(ENQUEUE_ID, bindMarker(ENQUEUE_ID))));
     }
 
-    Mono<Void> markAsDeleted(MailQueueName mailQueueName, EnqueueId enqueueId) {
-        return executor.executeVoid(insertOne.bind()
+    /**
+     * Returns whether the mail was not already marked as deleted.
+     */
+    Mono<Boolean> markAsDeleted(MailQueueName mailQueueName, EnqueueId enqueueId) {
+        return executor.executeReturnApplied(insertOne.bind()
             .setString(QUEUE_NAME, mailQueueName.asString())
             .setUUID(ENQUEUE_ID, enqueueId.asUUID()));
     }
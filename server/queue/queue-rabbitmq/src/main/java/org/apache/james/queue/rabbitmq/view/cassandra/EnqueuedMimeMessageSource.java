@@ -0,0 +1,76 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.rabbitmq.view.cassandra;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.james.blob.api.Store;
+import org.apache.james.blob.mail.MimeMessagePartsId;
+import org.apache.james.server.core.MimeMessageSource;
+
+/**
+ * {@link MimeMessageSource} reading an enqueued message from the {@link Store} only when its content is accessed.
+ *
+ * This allows browsing mail queues without loading messages, as browse results are mostly used for their metadata.
+ */
+class EnqueuedMimeMessageSource extends MimeMessageSource {
+    private final Store<MimeMessage, MimeMessagePartsId> mimeMessageStore;
+    private final MimeMessagePartsId partsId;
+    private byte[] content;
+
+    EnqueuedMimeMessageSource(Store<MimeMessage, MimeMessagePartsId> mimeMessageStore, MimeMessagePartsId partsId) {
+        this.mimeMessageStore = mimeMessageStore;
+        this.partsId = partsId;
+    }
+
+    @Override
+    public String getSourceId() {
+        return partsId.getHeaderBlobId().asString() + "/" + partsId.getBodyBlobId().asString();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new ByteArrayInputStream(loadContent());
+    }
+
+    @Override
+    public long getMessageSize() throws IOException {
+        return loadContent().length;
+    }
+
+    private synchronized byte[] loadContent() throws IOException {
+        if (content == null) {
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                mimeMessageStore.read(partsId).block().writeTo(outputStream);
+                content = outputStream.toByteArray();
+            } catch (MessagingException e) {
+                throw new IOException("Failed to read enqueued message " + getSourceId(), e);
+            }
+        }
+        return content;
+    }
+}
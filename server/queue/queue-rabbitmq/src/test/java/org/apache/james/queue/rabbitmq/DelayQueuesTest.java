@@ -0,0 +1,83 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.rabbitmq;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+import org.apache.james.queue.rabbitmq.DelayQueues.Hop;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.Test;
+
+class DelayQueuesTest {
+    @Test
+    void nextHopShouldUseMatchingDelayQueueWhenExactMatch() {
+        Hop hop = DelayQueues.nextHop(Duration.ofMinutes(10));
+
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(hop.getDelay()).isEqualTo(Duration.ofMinutes(10));
+            softly.assertThat(hop.getRemainingDelay()).isEqualTo(Duration.ZERO);
+        });
+    }
+
+    @Test
+    void nextHopShouldUseLongestDelayQueueNotExceedingTheDelay() {
+        Hop hop = DelayQueues.nextHop(Duration.ofMinutes(15));
+
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(hop.getDelay()).isEqualTo(Duration.ofMinutes(10));
+            softly.assertThat(hop.getRemainingDelay()).isEqualTo(Duration.ofMinutes(5));
+        });
+    }
+
+    @Test
+    void nextHopShouldRoundUpDelaysShorterThanTheShortestDelayQueue() {
+        Hop hop = DelayQueues.nextHop(Duration.ofMillis(200));
+
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(hop.getDelay()).isEqualTo(Duration.ofSeconds(1));
+            softly.assertThat(hop.getRemainingDelay()).isEqualTo(Duration.ZERO);
+        });
+    }
+
+    @Test
+    void nextHopShouldUseLongestDelayQueueForVeryLongDelays() {
+        Hop hop = DelayQueues.nextHop(ChronoUnit.FOREVER.getDuration());
+
+        assertThat(hop.getDelay()).isEqualTo(DelayQueues.DELAYS.get(0));
+    }
+
+    @Test
+    void successiveHopsShouldSumUpToTheDelay() {
+        Duration delay = Duration.ofHours(2).plusMinutes(23).plusSeconds(47);
+
+        Duration total = Duration.ZERO;
+        Duration remaining = delay;
+        while (!remaining.isZero()) {
+            Hop hop = DelayQueues.nextHop(remaining);
+            total = total.plus(hop.getDelay());
+            remaining = hop.getRemainingDelay();
+        }
+
+        assertThat(total).isEqualTo(delay);
+    }
+}
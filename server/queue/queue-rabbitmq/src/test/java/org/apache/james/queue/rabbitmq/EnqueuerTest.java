@@ -0,0 +1,141 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.rabbitmq;
+
+import static org.apache.james.queue.api.Mails.defaultMail;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+
+import javax.mail.internet.MimeMessage;
+
+import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.api.Store;
+import org.apache.james.blob.mail.MimeMessagePartsId;
+import org.apache.james.blob.mail.MimeMessageStore;
+import org.apache.james.blob.memory.MemoryBlobStore;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.queue.api.MailQueue;
+import org.apache.james.queue.rabbitmq.view.api.MailQueueView;
+import org.apache.mailet.Mail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.OutboundMessageResult;
+import reactor.rabbitmq.Sender;
+
+class EnqueuerTest {
+    private static final MailQueueName NAME = MailQueueName.fromString("spool");
+    private static final long NACKED_INDEX = 1;
+
+    private Sender sender;
+    private MailQueueView mailQueueView;
+    private Store<MimeMessage, MimeMessagePartsId> mimeMessageStore;
+    private Mail mail1;
+    private Mail mail2;
+    private Mail mail3;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sender = mock(Sender.class);
+        mailQueueView = mock(MailQueueView.class);
+        when(mailQueueView.storeMail(any())).thenReturn(Mono.empty());
+        mimeMessageStore = MimeMessageStore.factory(new MemoryBlobStore(new HashBlobId.Factory())).mimeMessageStore();
+
+        mail1 = defaultMail().name("mail1").build();
+        mail2 = defaultMail().name("mail2").build();
+        mail3 = defaultMail().name("mail3").build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void confirmAllButTheSecondMessage() {
+        when(sender.sendWithPublishConfirms(any(Publisher.class))).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<OutboundMessage>>getArgument(0))
+                .index((index, message) -> new OutboundMessageResult(message, index != NACKED_INDEX)));
+    }
+
+    private Enqueuer testee() {
+        ReactorRabbitMQChannelPool channelPool = mock(ReactorRabbitMQChannelPool.class);
+        when(channelPool.getSender()).thenReturn(sender);
+        return new Enqueuer(NAME, channelPool, mimeMessageStore, new MailReferenceSerializer(),
+            new RecordingMetricFactory(), mailQueueView, Clock.systemUTC(), mock(DelayQueues.class));
+    }
+
+    @Test
+    void enQueueShouldReportOnlyTheNackedMails() {
+        confirmAllButTheSecondMessage();
+
+        assertThatThrownBy(() -> testee().enQueue(ImmutableList.of(mail1, mail2, mail3)))
+            .isInstanceOfSatisfying(MailQueue.PartialEnqueueException.class, e ->
+                assertThat(e.getFailedMails()).containsExactly(mail2));
+    }
+
+    @Test
+    void enQueueShouldStoreTheConfirmedMailsInTheViewWhenOthersAreNacked() {
+        confirmAllButTheSecondMessage();
+
+        assertThatThrownBy(() -> testee().enQueue(ImmutableList.of(mail1, mail2, mail3)))
+            .isInstanceOf(MailQueue.PartialEnqueueException.class);
+
+        verify(mailQueueView, times(2)).storeMail(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enQueueShouldNotFailWhenTheViewFailsToStoreAConfirmedMail() {
+        when(sender.sendWithPublishConfirms(any(Publisher.class))).thenAnswer(invocation ->
+            Flux.from(invocation.<Publisher<OutboundMessage>>getArgument(0))
+                .map(message -> new OutboundMessageResult(message, true)));
+        when(mailQueueView.storeMail(any()))
+            .thenReturn(Mono.empty())
+            .thenReturn(Mono.error(new RuntimeException("view failure")))
+            .thenReturn(Mono.empty());
+
+        assertThatCode(() -> testee().enQueue(ImmutableList.of(mail1, mail2, mail3)))
+            .doesNotThrowAnyException();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enQueueShouldReportAllMailsWhenSavingThemFails() {
+        mimeMessageStore = mock(Store.class);
+        when(mimeMessageStore.save(any())).thenReturn(Mono.error(new RuntimeException("blob store failure")));
+
+        assertThatThrownBy(() -> testee().enQueue(ImmutableList.of(mail1, mail2)))
+            .isInstanceOf(MailQueue.MailQueueException.class)
+            .isNotInstanceOf(MailQueue.PartialEnqueueException.class);
+        verify(sender, never()).sendWithPublishConfirms(any(Publisher.class));
+    }
+}
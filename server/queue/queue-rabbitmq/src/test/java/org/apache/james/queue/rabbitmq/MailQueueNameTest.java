@@ -22,6 +22,8 @@ package org.apache.james.queue.rabbitmq;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
@@ -83,6 +85,18 @@ class MailQueueNameTest {
         EqualsVerifier.forClass(MailQueueName.WorkQueueName.class).verify();
     }
 
+    @Test
+    void delayQueueNameShouldConformToBeanContract() {
+        EqualsVerifier.forClass(MailQueueName.DelayQueueName.class).verify();
+    }
+
+    @Test
+    void delayQueueNameShouldNotBeConsideredAsAWorkQueueName() {
+        MailQueueName myQueue = MailQueueName.fromString("myQueue");
+        assertThat(MailQueueName.fromRabbitWorkQueueName(myQueue.toDelayQueueName(Duration.ofMinutes(1)).asString()))
+            .isEmpty();
+    }
+
     @Test
     void fromRabbitWorkQueueNameShouldReturnIdentityWhenToRabbitWorkQueueName() {
         MailQueueName myQueue = MailQueueName.fromString("myQueue");
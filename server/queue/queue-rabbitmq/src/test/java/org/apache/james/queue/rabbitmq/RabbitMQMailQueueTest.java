@@ -24,13 +24,16 @@ import static org.apache.james.queue.api.Mails.defaultMail;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -45,6 +48,7 @@ import org.apache.james.blob.cassandra.CassandraBlobStore;
 import org.apache.james.blob.mail.MimeMessageStore;
 import org.apache.james.eventsourcing.eventstore.cassandra.CassandraEventStoreModule;
 import org.apache.james.metrics.api.Gauge;
+import org.apache.james.queue.api.DelayedMailQueueContract;
 import org.apache.james.queue.api.MailQueue;
 import org.apache.james.queue.api.MailQueueMetricContract;
 import org.apache.james.queue.api.MailQueueMetricExtension;
@@ -68,6 +72,7 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.ArgumentCaptor;
 
 import com.github.fge.lambdas.Throwing;
+import com.google.common.collect.ImmutableList;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -269,6 +274,24 @@ class RabbitMQMailQueueTest {
         }
     }
 
+    @Nested
+    class DelayedMailQueue implements DelayedMailQueueContract {
+        @RegisterExtension
+        MailQueueMetricExtension mailQueueMetricExtension = new MailQueueMetricExtension();
+
+        @BeforeEach
+        void setup(CassandraCluster cassandra, MailQueueMetricExtension.MailQueueMetricTestSystem metricTestSystem) throws Exception {
+            setUp(cassandra,
+                metricTestSystem,
+                RabbitMQMailQueueConfiguration.sizeMetricsEnabled());
+        }
+
+        @Override
+        public MailQueue getMailQueue() {
+            return mailQueue;
+        }
+    }
+
     @Nested
     class MailQueueSizeMetricsDisabled {
         @RegisterExtension
@@ -290,18 +313,78 @@ class RabbitMQMailQueueTest {
         }
     }
 
+    @Nested
+    class ViewFailures {
+        private static final String FAILING_MAIL = "failing";
+
+        @RegisterExtension
+        MailQueueMetricExtension mailQueueMetricExtension = new MailQueueMetricExtension();
+
+        @BeforeEach
+        void setup(CassandraCluster cassandra, MailQueueMetricExtension.MailQueueMetricTestSystem metricTestSystem) throws Exception {
+            setUp(cassandra,
+                metricTestSystem,
+                RabbitMQMailQueueConfiguration.sizeMetricsEnabled(),
+                this::failingToStore);
+        }
+
+        private MailQueueView failingToStore(MailQueueView mailQueueView) {
+            MailQueueView failingView = spy(mailQueueView);
+            doAnswer(invocation -> {
+                EnqueuedItem enqueuedItem = invocation.getArgument(0);
+                if (enqueuedItem.getMail().getName().equals(FAILING_MAIL)) {
+                    return Mono.error(new RuntimeException("view failure"));
+                }
+                return invocation.callRealMethod();
+            }).when(failingView).storeMail(any());
+            return failingView;
+        }
+
+        @Test
+        void enQueueShouldNotReportMailsPublishedButNotStoredInTheView() {
+            assertThatCode(() -> mailQueue.enQueue(ImmutableList.of(
+                    defaultMail().name("name1").build(),
+                    defaultMail().name(FAILING_MAIL).build(),
+                    defaultMail().name("name3").build())))
+                .doesNotThrowAnyException();
+        }
+
+        @Test
+        void mailsPublishedButNotStoredInTheViewShouldBeDequeuedOnce() throws Exception {
+            mailQueue.enQueue(ImmutableList.of(
+                defaultMail().name("name1").build(),
+                defaultMail().name(FAILING_MAIL).build(),
+                defaultMail().name("name3").build()));
+
+            List<MailQueue.MailQueueItem> items = Flux.from(mailQueue.deQueue())
+                .take(3)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+            assertThat(items)
+                .extracting(item -> item.getMail().getName())
+                .containsExactlyInAnyOrder("name1", FAILING_MAIL, "name3");
+        }
+    }
+
     private void setUp(CassandraCluster cassandra, MailQueueMetricExtension.MailQueueMetricTestSystem metricTestSystem, RabbitMQMailQueueConfiguration configuration) throws Exception {
+        setUp(cassandra, metricTestSystem, configuration, UnaryOperator.identity());
+    }
+
+    private void setUp(CassandraCluster cassandra, MailQueueMetricExtension.MailQueueMetricTestSystem metricTestSystem,
+                       RabbitMQMailQueueConfiguration configuration, UnaryOperator<MailQueueView> viewDecorator) throws Exception {
         CassandraBlobStore blobStore = new CassandraBlobStore(cassandra.getConf());
         MimeMessageStore.Factory mimeMessageStoreFactory = MimeMessageStore.factory(blobStore);
         clock = new UpdatableTickingClock(IN_SLICE_1);
 
-        MailQueueView.Factory mailQueueViewFactory = CassandraMailQueueViewTestFactory.factory(clock, cassandra.getConf(),
+        MailQueueView.Factory cassandraMailQueueViewFactory = CassandraMailQueueViewTestFactory.factory(clock, cassandra.getConf(),
             CassandraMailQueueViewConfiguration.builder()
                 .bucketCount(THREE_BUCKET_COUNT)
                 .updateBrowseStartPace(UPDATE_BROWSE_START_PACE)
                 .sliceWindow(ONE_HOUR_SLICE_WINDOW)
                 .build(),
             mimeMessageStoreFactory);
+        MailQueueView.Factory mailQueueViewFactory = mailQueueName -> viewDecorator.apply(cassandraMailQueueViewFactory.create(mailQueueName));
 
         RabbitMQMailQueueFactory.PrivateFactory factory = new RabbitMQMailQueueFactory.PrivateFactory(
             metricTestSystem.getMetricFactory(),
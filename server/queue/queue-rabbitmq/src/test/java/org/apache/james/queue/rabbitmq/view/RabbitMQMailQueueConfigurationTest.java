@@ -20,8 +20,10 @@
 package org.apache.james.queue.rabbitmq.view;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.james.queue.rabbitmq.view.RabbitMQMailQueueConfiguration.DequeueConfiguration;
 import org.junit.jupiter.api.Test;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
@@ -32,6 +34,11 @@ class RabbitMQMailQueueConfigurationTest {
         EqualsVerifier.forClass(RabbitMQMailQueueConfiguration.class).verify();
     }
 
+    @Test
+    void dequeueConfigurationShouldMatchBeanContract() {
+        EqualsVerifier.forClass(DequeueConfiguration.class).verify();
+    }
+
     @Test
     void fromShouldReturnDefaultForEmptyConfiguration() {
         RabbitMQMailQueueConfiguration actual = RabbitMQMailQueueConfiguration.from(new PropertiesConfiguration());
@@ -49,4 +56,73 @@ class RabbitMQMailQueueConfigurationTest {
         assertThat(actual.isSizeMetricsEnabled())
             .isEqualTo(false);
     }
+
+    @Test
+    void dequeueConfigurationShouldReturnDefaultForEmptyConfiguration() {
+        RabbitMQMailQueueConfiguration actual = RabbitMQMailQueueConfiguration.from(new PropertiesConfiguration());
+
+        assertThat(actual.dequeueConfiguration("spool"))
+            .isEqualTo(DequeueConfiguration.DEFAULT);
+    }
+
+    @Test
+    void dequeueConfigurationShouldReturnConfiguredValues() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQMailQueueConfiguration.DEQUEUE_CONCURRENCY_PROPERTY, 10);
+        configuration.addProperty(RabbitMQMailQueueConfiguration.DEQUEUE_PREFETCH_PROPERTY, 50);
+        RabbitMQMailQueueConfiguration actual = RabbitMQMailQueueConfiguration.from(configuration);
+
+        assertThat(actual.dequeueConfiguration("spool"))
+            .isEqualTo(DequeueConfiguration.of(10, 50));
+    }
+
+    @Test
+    void dequeueConfigurationShouldReturnPerQueueValues() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQMailQueueConfiguration.DEQUEUE_CONCURRENCY_PROPERTY, 10);
+        configuration.addProperty("mailqueue.outgoing.dequeue.prefetch", 100);
+        RabbitMQMailQueueConfiguration actual = RabbitMQMailQueueConfiguration.from(configuration);
+
+        assertThat(actual.dequeueConfiguration("outgoing"))
+            .isEqualTo(DequeueConfiguration.of(10, 100));
+    }
+
+    @Test
+    void perQueueDequeueConfigurationShouldNotAffectOtherQueues() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("mailqueue.outgoing.dequeue.concurrency", 2);
+        configuration.addProperty("mailqueue.outgoing.dequeue.prefetch", 100);
+        RabbitMQMailQueueConfiguration actual = RabbitMQMailQueueConfiguration.from(configuration);
+
+        assertThat(actual.dequeueConfiguration("spool"))
+            .isEqualTo(DequeueConfiguration.DEFAULT);
+    }
+
+    @Test
+    void perQueueDequeueConfigurationShouldSupportQueueNamesWithDots() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("mailqueue.my.queue.dequeue.concurrency", 2);
+        RabbitMQMailQueueConfiguration actual = RabbitMQMailQueueConfiguration.from(configuration);
+
+        assertThat(actual.dequeueConfiguration("my.queue"))
+            .isEqualTo(DequeueConfiguration.of(2, DequeueConfiguration.DEFAULT_PREFETCH));
+    }
+
+    @Test
+    void fromShouldThrowOnNonPositiveConcurrency() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(RabbitMQMailQueueConfiguration.DEQUEUE_CONCURRENCY_PROPERTY, 0);
+
+        assertThatThrownBy(() -> RabbitMQMailQueueConfiguration.from(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromShouldThrowOnNonPositivePrefetch() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("mailqueue.outgoing.dequeue.prefetch", -1);
+
+        assertThatThrownBy(() -> RabbitMQMailQueueConfiguration.from(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
 }
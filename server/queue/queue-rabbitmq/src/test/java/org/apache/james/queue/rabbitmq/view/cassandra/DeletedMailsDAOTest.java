@@ -67,6 +67,20 @@ class DeletedMailsDAOTest {
         assertThat(isDeletedAfterMark).isTrue();
     }
 
+    @Test
+    void markAsDeletedShouldReturnTrueWhenNotYetDeleted() {
+        assertThat(testee.markAsDeleted(OUT_GOING_1, ENQUEUE_ID_1).block())
+            .isTrue();
+    }
+
+    @Test
+    void markAsDeletedShouldReturnFalseWhenAlreadyDeleted() {
+        testee.markAsDeleted(OUT_GOING_1, ENQUEUE_ID_1).block();
+
+        assertThat(testee.markAsDeleted(OUT_GOING_1, ENQUEUE_ID_1).block())
+            .isFalse();
+    }
+
     @Test
     void checkDeletedShouldReturnFalseWhenTableDoesntContainBothMailQueueAndMailKey() {
         testee.markAsDeleted(OUT_GOING_2, ENQUEUE_ID_2).block();
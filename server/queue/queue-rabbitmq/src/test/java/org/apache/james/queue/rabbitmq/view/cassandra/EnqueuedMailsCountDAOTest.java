@@ -0,0 +1,85 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.rabbitmq.view.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.james.backends.cassandra.CassandraCluster;
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.backends.cassandra.versions.CassandraSchemaVersionModule;
+import org.apache.james.queue.rabbitmq.MailQueueName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class EnqueuedMailsCountDAOTest {
+
+    private static final MailQueueName OUT_GOING_1 = MailQueueName.fromString("OUT_GOING_1");
+    private static final MailQueueName OUT_GOING_2 = MailQueueName.fromString("OUT_GOING_2");
+
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(
+        CassandraModule.aggregateModules(
+            CassandraSchemaVersionModule.MODULE,
+            CassandraMailQueueViewModule.MODULE));
+
+    private EnqueuedMailsCountDAO testee;
+
+    @BeforeEach
+    void setUp(CassandraCluster cassandra) {
+        testee = new EnqueuedMailsCountDAO(cassandra.getConf());
+    }
+
+    @Test
+    void getCountShouldReturnZeroByDefault() {
+        assertThat(testee.getCount(OUT_GOING_1).block())
+            .isEqualTo(0L);
+    }
+
+    @Test
+    void getCountShouldReturnIncrementedValue() {
+        testee.increment(OUT_GOING_1).block();
+        testee.increment(OUT_GOING_1).block();
+
+        assertThat(testee.getCount(OUT_GOING_1).block())
+            .isEqualTo(2L);
+    }
+
+    @Test
+    void getCountShouldReturnDecrementedValue() {
+        testee.increment(OUT_GOING_1).block();
+        testee.increment(OUT_GOING_1).block();
+        testee.decrement(OUT_GOING_1).block();
+
+        assertThat(testee.getCount(OUT_GOING_1).block())
+            .isEqualTo(1L);
+    }
+
+    @Test
+    void countsShouldBeIndependentForEachMailQueue() {
+        testee.increment(OUT_GOING_1).block();
+        testee.increment(OUT_GOING_2).block();
+        testee.increment(OUT_GOING_2).block();
+
+        assertThat(testee.getCount(OUT_GOING_1).block())
+            .isEqualTo(1L);
+    }
+}